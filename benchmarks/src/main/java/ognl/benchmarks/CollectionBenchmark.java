@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * and/or LICENSE file distributed with this work for additional
+ * information regarding copyright ownership.  The ASF licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl.benchmarks;
+
+import ognl.Ognl;
+import ognl.OgnlContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Projections and selections over collections of varying sizes, sequential and (above the threshold) parallel.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CollectionBenchmark
+{
+    @Param({ "10", "1000", "100000" })
+    public int size;
+
+    @Param({ "0" })
+    public int parallelThreshold;
+
+    private Model.Order root;
+    private OgnlContext context;
+    private Object projection;
+    private Object selection;
+    private Object selectFirst;
+    private Object fused;
+
+    @Setup
+    public void setUp()
+            throws Exception
+    {
+        root = new Model.Order(size);
+        context = (OgnlContext) Ognl.createDefaultContext(root);
+        context.setParallelThreshold(parallelThreshold);
+
+        projection = Ognl.parseExpression("quantities.{ #this * 2 }");
+        selection = Ognl.parseExpression("quantities.{? #this % 3 == 0 }");
+        selectFirst = Ognl.parseExpression("quantities.{^ #this > " + (size / 2) + " }");
+        fused = Ognl.parseExpression("quantities.{? #this % 3 == 0 }.{ #this * 2 }");
+    }
+
+    @Benchmark
+    public Object project()
+            throws Exception
+    {
+        return Ognl.getValue(projection, context, root);
+    }
+
+    @Benchmark
+    public Object select()
+            throws Exception
+    {
+        return Ognl.getValue(selection, context, root);
+    }
+
+    @Benchmark
+    public Object selectFirst()
+            throws Exception
+    {
+        return Ognl.getValue(selectFirst, context, root);
+    }
+
+    @Benchmark
+    public Object selectThenProject()
+            throws Exception
+    {
+        return Ognl.getValue(fused, context, root);
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * and/or LICENSE file distributed with this work for additional
+ * information regarding copyright ownership.  The ASF licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl.benchmarks;
+
+import ognl.Node;
+import ognl.Ognl;
+import ognl.OgnlContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Interpreted versus compiled {@link Ognl#getValue(Object, java.util.Map, Object)} and
+ *   {@link Ognl#setValue(Object, java.util.Map, Object, Object)} for property chains, indexed accesses and method
+ *   calls resolved among overloads.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GetSetValueBenchmark
+{
+    @Param({ "chain", "indexed", "overloadedMethod" })
+    public String kind;
+
+    @Param({ "false", "true" })
+    public boolean compiled;
+
+    private Model.Order root;
+    private OgnlContext context;
+    private Object getter;
+    private Object setter;
+    private Object value;
+
+    @Setup
+    public void setUp()
+            throws Exception
+    {
+        root = new Model.Order(10);
+        context = (OgnlContext) Ognl.createDefaultContext(root);
+
+        final String getExpression, setExpression;
+        if ("chain".equals(kind)) {
+            getExpression = "customer.address.city";
+            setExpression = "customer.address.city";
+            value = "Shelbyville";
+        } else if ("indexed".equals(kind)) {
+            getExpression = "customer.tags[3]";
+            setExpression = "customer.tags[3]";
+            value = "z";
+        } else {
+            getExpression = "customer.format(customer.name)";
+            setExpression = "customer.name";
+            value = "Marge";
+        }
+
+        if (compiled) {
+            getter = Ognl.compileExpression(context, root, getExpression);
+            setter = Ognl.compileExpression(context, root, setExpression);
+        } else {
+            getter = Ognl.parseExpression(getExpression);
+            setter = Ognl.parseExpression(setExpression);
+        }
+    }
+
+    @Benchmark
+    public Object getValue()
+            throws Exception
+    {
+        return Ognl.getValue(getter, context, root);
+    }
+
+    @Benchmark
+    public Object setValue()
+            throws Exception
+    {
+        Ognl.setValue(setter, context, root, value);
+        return root;
+    }
+
+    /**
+     * The compiled accessor called directly, without the {@link Ognl} entry point.
+     */
+    @Benchmark
+    public Object accessor()
+            throws Exception
+    {
+        final Node node = (Node) getter;
+        return (node.getAccessor() != null) ? node.getAccessor().get(context, root) : node.getValue(context, root);
+    }
+}
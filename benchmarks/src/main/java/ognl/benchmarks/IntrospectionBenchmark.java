@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * and/or LICENSE file distributed with this work for additional
+ * information regarding copyright ownership.  The ASF licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl.benchmarks;
+
+import ognl.Ognl;
+import ognl.OgnlRuntime;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cold-start cost: the first evaluation of expressions against classes OGNL has not introspected yet.  The caches
+ *   of the runtime are cleared before each invocation.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 20, batchSize = 1)
+@Measurement(iterations = 50, batchSize = 1)
+@Fork(3)
+@State(Scope.Thread)
+public class IntrospectionBenchmark
+{
+    private Model.Order root;
+    private Map context;
+    private Object expression;
+
+    @Setup(Level.Invocation)
+    public void clearCaches()
+            throws Exception
+    {
+        OgnlRuntime.clearCache();
+        root = new Model.Order(1);
+        context = Ognl.createDefaultContext(root);
+        expression = Ognl.parseExpression("customer.address.city + customer.format(total) + attributes.priority");
+    }
+
+    @Benchmark
+    public Object firstEvaluation()
+            throws Exception
+    {
+        return Ognl.getValue(expression, context, root);
+    }
+
+    @Benchmark
+    public Object propertyDescriptors()
+            throws Exception
+    {
+        return OgnlRuntime.getPropertyDescriptors(Model.Customer.class);
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * and/or LICENSE file distributed with this work for additional
+ * information regarding copyright ownership.  The ASF licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl.benchmarks;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The object graph the benchmarks navigate.
+ */
+public final class Model
+{
+    private Model()
+    {
+    }
+
+    public static class Address
+    {
+        private String street = "742 Evergreen Terrace";
+        private String city = "Springfield";
+
+        public String getStreet() { return street; }
+        public void setStreet(String street) { this.street = street; }
+        public String getCity() { return city; }
+        public void setCity(String city) { this.city = city; }
+    }
+
+    public static class Customer
+    {
+        private final Address address = new Address();
+        private String name = "Homer";
+        private final String[] tags = new String[] { "a", "b", "c", "d", "e" };
+        public int visits = 3;
+
+        public Address getAddress() { return address; }
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+
+        public String[] getTags() { return tags; }
+        public String getTags(int index) { return tags[index]; }
+        public void setTags(int index, String tag) { tags[index] = tag; }
+
+        public String format(int value) { return "int:" + value; }
+        public String format(long value) { return "long:" + value; }
+        public String format(String value) { return "string:" + value; }
+        public String format(Object value) { return "object:" + value; }
+    }
+
+    public static class Order
+    {
+        private final Customer customer = new Customer();
+        private final List<Integer> quantities;
+        private final Map<String, Object> attributes = new HashMap<String, Object>();
+        private int total = 42;
+
+        public Order(int size)
+        {
+            quantities = new ArrayList<Integer>(size);
+            for (int i = 0; i < size; i++) {
+                quantities.add(i);
+            }
+            attributes.put("priority", "high");
+        }
+
+        public Customer getCustomer() { return customer; }
+        public List<Integer> getQuantities() { return quantities; }
+        public Map<String, Object> getAttributes() { return attributes; }
+        public int getTotal() { return total; }
+        public void setTotal(int total) { this.total = total; }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * and/or LICENSE file distributed with this work for additional
+ * information regarding copyright ownership.  The ASF licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl.benchmarks;
+
+import ognl.OgnlOps;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The arithmetic and comparisons of {@link OgnlOps}, on same-typed and mixed operands.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class OgnlOpsBenchmark
+{
+    public Object intValue = Integer.valueOf(40);
+    public Object otherInt = Integer.valueOf(2);
+    public Object longValue = Long.valueOf(40L);
+    public Object doubleValue = Double.valueOf(2.5);
+    public Object bigDecimal = new BigDecimal("2.5");
+    public Object string = "40";
+
+    @Benchmark
+    public Object addInts()
+    {
+        return OgnlOps.add(intValue, otherInt);
+    }
+
+    @Benchmark
+    public Object addMixed()
+    {
+        return OgnlOps.add(longValue, doubleValue);
+    }
+
+    @Benchmark
+    public Object multiplyBigDecimal()
+    {
+        return OgnlOps.multiply(intValue, bigDecimal);
+    }
+
+    @Benchmark
+    public Object concatenate()
+    {
+        return OgnlOps.add(string, intValue);
+    }
+
+    @Benchmark
+    public boolean lessMixed()
+    {
+        return OgnlOps.less(intValue, doubleValue);
+    }
+
+    @Benchmark
+    public boolean equalMixed()
+    {
+        return OgnlOps.equal(intValue, longValue);
+    }
+}
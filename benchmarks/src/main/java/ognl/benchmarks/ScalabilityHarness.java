@@ -0,0 +1,382 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * and/or LICENSE file distributed with this work for additional
+ * information regarding copyright ownership.  The ASF licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl.benchmarks;
+
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.CtField;
+import javassist.CtNewMethod;
+import ognl.Ognl;
+import ognl.OgnlContext;
+import ognl.OgnlRuntime;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures how the evaluation of representative expressions scales from 1 to N threads, and which locks of the
+ *   runtime the threads contend on.  Unlike the JMH benchmarks this harness can run its workers on virtual threads
+ *   (Java 21+) and it samples the stacks of the blocked threads while measuring, through {@link ThreadMXBean} (with
+ *   thread contention monitoring enabled), to attribute the contention to the OGNL code holding it up.
+ *
+ * <pre>
+ *   java -cp target/benchmarks.jar ognl.benchmarks.ScalabilityHarness [options]
+ *     --threads 1,2,4,8      thread counts (default: powers of 2 up to twice the number of processors)
+ *     --duration 5           measured seconds per run (default 5)
+ *     --warmup 2             warm-up seconds per run (default 2)
+ *     --workloads chain,method,field,churn    the workloads (default: all)
+ *     --virtual              also run the workloads on virtual threads (ignored before Java 21)
+ * </pre>
+ *
+ * Workloads: <code>chain</code>, <code>method</code> and <code>field</code> evaluate a property chain, an overloaded
+ *   method call and a public field access against a warm set of classes; <code>churn</code> evaluates them against
+ *   a large set of generated classes while the caches of the runtime are cleared regularly, keeping introspection
+ *   and method resolution on the cold path.  Virtual threads pinned while blocked on a monitor show up as their
+ *   carrier threads.
+ */
+public final class ScalabilityHarness
+{
+    private static final int CHURN_CLASSES = 2000;
+    private static final long CHURN_CLEAR_INTERVAL_MILLIS = 50;
+    private static final long SAMPLE_INTERVAL_MILLIS = 2;
+    private static final int HOTSPOTS_REPORTED = 5;
+
+    private ScalabilityHarness()
+    {
+    }
+
+    /**
+     * An evaluation run repeatedly by a worker; each worker has its own context.
+     */
+    interface Workload
+    {
+        Object run(OgnlContext context, long iteration)
+                throws Exception;
+    }
+
+    public static void main(String[] args)
+            throws Exception
+    {
+        final int processors = Runtime.getRuntime().availableProcessors();
+        List<Integer> threadCounts = new ArrayList<Integer>();
+        for (int count = 1; count <= processors * 2; count *= 2) {
+            threadCounts.add(count);
+        }
+        long duration = 5, warmup = 2;
+        String[] workloads = { "chain", "method", "field", "churn" };
+        boolean virtual = false;
+
+        for (int i = 0; i < args.length; i++) {
+            if ("--threads".equals(args[i])) {
+                threadCounts = new ArrayList<Integer>();
+                for (String count : args[++i].split(",")) {
+                    threadCounts.add(Integer.valueOf(count.trim()));
+                }
+            } else if ("--duration".equals(args[i])) {
+                duration = Long.parseLong(args[++i]);
+            } else if ("--warmup".equals(args[i])) {
+                warmup = Long.parseLong(args[++i]);
+            } else if ("--workloads".equals(args[i])) {
+                workloads = args[++i].split(",");
+            } else if ("--virtual".equals(args[i])) {
+                virtual = true;
+            } else {
+                throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads.isThreadContentionMonitoringSupported()) {
+            threads.setThreadContentionMonitoringEnabled(true);
+        }
+
+        final List<String> modes = new ArrayList<String>();
+        modes.add("platform");
+        if (virtual) {
+            if (getVirtualThreadBuilder() != null) {
+                modes.add("virtual");
+            } else {
+                System.out.println("Virtual threads are not available on this JVM, running on platform threads only");
+            }
+        }
+
+        for (String name : workloads) {
+            final Workload workload = createWorkload(name.trim());
+
+            for (String mode : modes) {
+                System.out.println();
+                System.out.println("== " + name + " on " + mode + " threads");
+                System.out.println(String.format("%8s %16s %10s %12s %14s", "threads", "ops/s", "speedup", "efficiency",
+                        "blocked ms"));
+
+                double baseline = 0;
+                for (int count : threadCounts) {
+                    run(workload, "churn".equals(name), "virtual".equals(mode), count, warmup, null);
+
+                    final Report report = new Report();
+                    final double throughput = run(workload, "churn".equals(name), "virtual".equals(mode), count,
+                            duration, report);
+                    if (baseline == 0) {
+                        baseline = throughput / count;
+                    }
+                    final double speedup = throughput / baseline;
+                    System.out.println(String.format("%8d %16.0f %10.2f %11.0f%% %14d", count, throughput, speedup,
+                            100 * speedup / count, report.blockedMillis));
+                    report.printHotspots();
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs the workload on the given number of threads for the given time.
+     *
+     * @return the throughput, in evaluations per second.
+     */
+    private static double run(final Workload workload, boolean churn, boolean virtual, int threadCount, long seconds,
+                              Report report)
+            throws Exception
+    {
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(threadCount);
+        final AtomicLong operations = new AtomicLong();
+        final AtomicLong blockedMillis = new AtomicLong();
+        final long[] deadline = new long[1];
+        final List<Thread> workers = new ArrayList<Thread>(threadCount);
+        final Throwable[] failure = new Throwable[1];
+
+        for (int i = 0; i < threadCount; i++) {
+            final Runnable task = new Runnable() {
+                public void run() {
+                    try {
+                        final OgnlContext context = (OgnlContext) Ognl.createDefaultContext(null);
+                        long count = 0;
+
+                        start.await();
+                        final long blockedBefore = getBlockedMillis();
+                        while (System.nanoTime() < deadline[0]) {
+                            workload.run(context, count++);
+                        }
+                        final long blockedAfter = getBlockedMillis();
+
+                        operations.addAndGet(count);
+                        if (blockedBefore < 0 || blockedAfter < 0) {
+                            blockedMillis.set(Long.MIN_VALUE);
+                        } else {
+                            blockedMillis.addAndGet(blockedAfter - blockedBefore);
+                        }
+                    } catch (Throwable t) {
+                        failure[0] = t;
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            };
+            final Thread worker = virtual ? newVirtualThread(task) : new Thread(task, "ognl-worker-" + i);
+            workers.add(worker);
+            worker.start();
+        }
+
+        final long begin = System.nanoTime();
+        deadline[0] = begin + TimeUnit.SECONDS.toNanos(seconds);
+        start.countDown();
+
+        long lastClear = System.currentTimeMillis();
+        while (!done.await(SAMPLE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) {
+            if (report != null) {
+                report.sample();
+            }
+            if (churn && System.currentTimeMillis() - lastClear >= CHURN_CLEAR_INTERVAL_MILLIS) {
+                OgnlRuntime.clearCache();
+                lastClear = System.currentTimeMillis();
+            }
+        }
+        final long elapsed = System.nanoTime() - begin;
+
+        if (failure[0] != null) {
+            throw new IllegalStateException("Workload failed", failure[0]);
+        }
+        if (report != null) {
+            report.blockedMillis = Math.max(-1, blockedMillis.get());
+        }
+        return operations.get() * 1e9 / elapsed;
+    }
+
+    /**
+     * @return the time the current thread spent blocked on monitors, -1 if unknown (for instance for a virtual thread).
+     */
+    private static long getBlockedMillis()
+    {
+        final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+        if (!threads.isThreadContentionMonitoringEnabled()) {
+            return -1;
+        }
+        final ThreadInfo info = threads.getThreadInfo(Thread.currentThread().getId());
+        return (info == null) ? -1 : info.getBlockedTime();
+    }
+
+    /**
+     * Samples of the threads blocked in OGNL code, by lock and frame.
+     */
+    private static final class Report
+    {
+        private final Map<String, Integer> _hotspots = new HashMap<String, Integer>();
+        private int _samples;
+        long blockedMillis;
+
+        void sample()
+        {
+            _samples++;
+            for (ThreadInfo info : ManagementFactory.getThreadMXBean().dumpAllThreads(false, false)) {
+                if (info == null || info.getThreadState() != Thread.State.BLOCKED) {
+                    continue;
+                }
+                final String frame = getOgnlFrame(info.getStackTrace());
+                if (frame != null) {
+                    final String key = "lock " + ((info.getLockInfo() == null) ? "?" : info.getLockInfo().getClassName())
+                            + " in " + frame;
+                    final Integer count = _hotspots.get(key);
+                    _hotspots.put(key, (count == null) ? 1 : count + 1);
+                }
+            }
+        }
+
+        void printHotspots()
+        {
+            final List<Map.Entry<String, Integer>> entries = new ArrayList<Map.Entry<String, Integer>>(_hotspots.entrySet());
+            Collections.sort(entries, new java.util.Comparator<Map.Entry<String, Integer>>() {
+                public int compare(Map.Entry<String, Integer> e1, Map.Entry<String, Integer> e2) {
+                    return e2.getValue().compareTo(e1.getValue());
+                }
+            });
+            for (int i = 0; i < Math.min(HOTSPOTS_REPORTED, entries.size()); i++) {
+                System.out.println(String.format("%12s %8.3f blocked threads/sample  %s", "",
+                        (double) entries.get(i).getValue() / Math.max(1, _samples), entries.get(i).getKey()));
+            }
+        }
+
+        private static String getOgnlFrame(StackTraceElement[] stack)
+        {
+            for (StackTraceElement element : stack) {
+                if (element.getClassName().startsWith("ognl.") && !element.getClassName().startsWith("ognl.benchmarks.")) {
+                    return element.getClassName() + "." + element.getMethodName() + ":" + element.getLineNumber();
+                }
+            }
+            return null;
+        }
+    }
+
+    private static Workload createWorkload(String name)
+            throws Exception
+    {
+        if ("chain".equals(name)) {
+            return evaluating(new Object[] { new Model.Order(1) }, "customer.address.city");
+        }
+        if ("method".equals(name)) {
+            return evaluating(new Object[] { new Model.Order(1) }, "customer.format(customer.name)");
+        }
+        if ("field".equals(name)) {
+            return evaluating(new Object[] { new Model.Order(1) }, "customer.visits");
+        }
+        if ("churn".equals(name)) {
+            return evaluating(generateBeans(CHURN_CLASSES), "name + format(name) + count");
+        }
+        throw new IllegalArgumentException("Unknown workload: " + name);
+    }
+
+    private static Workload evaluating(final Object[] roots, String expression)
+            throws Exception
+    {
+        final Object tree = Ognl.parseExpression(expression);
+
+        return new Workload() {
+            public Object run(OgnlContext context, long iteration) throws Exception {
+                final Object root = roots[(int) (iteration % roots.length)];
+                return Ognl.getValue(tree, context, root);
+            }
+        };
+    }
+
+    /**
+     * Generates beans of distinct classes, each with a <code>name</code> property, a <code>count</code> public field
+     *   and a <code>format(String)</code> method.
+     */
+    private static Object[] generateBeans(int count)
+            throws Exception
+    {
+        final ClassPool pool = new ClassPool(true);
+        final GeneratedClassLoader loader = new GeneratedClassLoader(ScalabilityHarness.class.getClassLoader());
+        final Object[] result = new Object[count];
+
+        for (int i = 0; i < count; i++) {
+            final String name = "ognl.benchmarks.generated.Bean" + i;
+            final CtClass bean = pool.makeClass(name);
+
+            bean.addField(CtField.make("public int count = " + i + ";", bean));
+            bean.addMethod(CtNewMethod.make("public String getName() { return \"bean" + i + "\"; }", bean));
+            bean.addMethod(CtNewMethod.make("public String format(String value) { return value + count; }", bean));
+            result[i] = loader.define(name, bean.toBytecode()).newInstance();
+            bean.detach();
+        }
+        return result;
+    }
+
+    private static final class GeneratedClassLoader extends ClassLoader
+    {
+        GeneratedClassLoader(ClassLoader parent)
+        {
+            super(parent);
+        }
+
+        Class<?> define(String name, byte[] bytes)
+        {
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+
+    /**
+     * @return <code>Thread.ofVirtual()</code>, or null before Java 21.
+     */
+    private static Object getVirtualThreadBuilder()
+    {
+        try {
+            return Thread.class.getMethod("ofVirtual").invoke(null);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static Thread newVirtualThread(Runnable task)
+            throws Exception
+    {
+        final Method unstarted = Class.forName("java.lang.Thread$Builder").getMethod("unstarted", Runnable.class);
+        return (Thread) unstarted.invoke(getVirtualThreadBuilder(), task);
+    }
+}
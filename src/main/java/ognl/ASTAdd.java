@@ -42,6 +42,8 @@ import java.math.BigInteger;
  */
 public class ASTAdd extends NumericExpression
 {
+    private final OperatorSpecialization _specialization = new OperatorSpecialization(OperatorSpecialization.ADD);
+
     public ASTAdd(int id)
     {
         super(id);
@@ -52,6 +54,11 @@ public class ASTAdd extends NumericExpression
         super(p, id);
     }
 
+    OperatorSpecialization getSpecialization()
+    {
+        return _specialization;
+    }
+
     public void jjtClose()
     {
         flattenTree();
@@ -62,7 +69,7 @@ public class ASTAdd extends NumericExpression
         Object result = _children[0].getValue( context, source );
 
         for ( int i=1; i < _children.length; ++i )
-            result = OgnlOps.add( result, _children[i].getValue(context, source) );
+            result = _specialization.apply( result, _children[i].getValue(context, source) );
 
         return result;
     }
@@ -34,8 +34,6 @@ import ognl.enhance.ExpressionCompiler;
 import ognl.enhance.OrderedReturn;
 import ognl.enhance.UnsupportedCompilationException;
 
-import java.lang.reflect.Array;
-
 /**
  * @author Luke Blanshard (blanshlu@netscape.net)
  * @author Drew Davidson (drew@ognl.org)
@@ -77,13 +75,43 @@ public class ASTChain extends SimpleNode implements NodeType, OrderedReturn
 
     protected Object getValueBody(OgnlContext context, Object source)
             throws OgnlException
+    {
+        return getValue(context, source, _children.length);
+    }
+
+    /**
+     * Evaluates the first <code>count</code> links of this chain.
+     */
+    Object getValue(OgnlContext context, Object source, int count)
+            throws OgnlException
+    {
+        return getValue(context, source, 0, count);
+    }
+
+    /**
+     * Evaluates the links <code>from</code> (inclusive) to <code>count</code> (exclusive) of this chain, the given
+     * source being the value of the links before <code>from</code>.
+     */
+    Object getValue(OgnlContext context, Object source, int from, int count)
+            throws OgnlException
     {
         Object result = source;
 
-        for(int i = 0, ilast = _children.length - 1; i <= ilast; ++i)
+        for(int i = from, ilast = count - 1; i <= ilast; ++i)
         {
             boolean handled = false;
 
+            // consecutive projections / selections are evaluated in a single pass, unless profiled (each stage
+            //   gets its own counts, see Ognl.profile())
+            if (i < ilast && CollectionPipeline.isStage(_children[i]) && CollectionPipeline.isStage(_children[i + 1])
+                && context.getProfiler() == null && CollectionPipeline.canFuse(context, result))
+            {
+                int end = CollectionPipeline.getRunEnd(_children, i, count);
+                result = CollectionPipeline.evaluate(context, _children, i, end, result);
+                i = end - 1;
+                continue;
+            }
+
             if (i < ilast) {
                 if (_children[i] instanceof ASTProperty) {
                     ASTProperty propertyNode = (ASTProperty) _children[i];
@@ -98,12 +126,12 @@ public class ASTChain extends SimpleNode implements NodeType, OrderedReturn
                             if (index instanceof DynamicSubscript) {
                                 if (indexType == OgnlRuntime.INDEXED_PROPERTY_INT) {
                                     Object array = propertyNode.getValue(context, result);
-                                    int len = Array.getLength(array);
+                                    ArrayAccess access = ArrayAccess.of(array);
+                                    int len = access.getLength(array);
 
                                     switch(((DynamicSubscript) index).getFlag()) {
                                         case DynamicSubscript.ALL:
-                                            result = Array.newInstance(array.getClass().getComponentType(), len);
-                                            System.arraycopy(array, 0, result, 0, len);
+                                            result = access.copy(array);
                                             handled = true;
                                             i++;
                                             break;
@@ -146,10 +174,19 @@ public class ASTChain extends SimpleNode implements NodeType, OrderedReturn
 
     protected void setValueBody(OgnlContext context, Object target, Object value)
             throws OgnlException
+    {
+        setValue(context, target, value, 0);
+    }
+
+    /**
+     * Sets the value of this chain, the given target being the value of the links before <code>from</code>.
+     */
+    void setValue(OgnlContext context, Object target, Object value, int from)
+            throws OgnlException
     {
         boolean handled = false;
 
-        for(int i = 0, ilast = _children.length - 2; i <= ilast; ++i)
+        for(int i = from, ilast = _children.length - 2; i <= ilast; ++i)
         {
             if (i <= ilast) {
                 if (_children[i] instanceof ASTProperty)
@@ -170,7 +207,7 @@ public class ASTChain extends SimpleNode implements NodeType, OrderedReturn
                                 if (indexType == OgnlRuntime.INDEXED_PROPERTY_INT)
                                 {
                                     Object array = propertyNode.getValue(context, target);
-                                    int len = Array.getLength(array);
+                                    int len = ArrayAccess.of(array).getLength(array);
 
                                     switch(((DynamicSubscript) index).getFlag())
                                     {
@@ -37,6 +37,8 @@ package ognl;
  */
 public class ASTEq extends ComparisonExpression
 {
+    private final OperatorSpecialization _specialization = new OperatorSpecialization();
+
     public ASTEq(int id) {
         super(id);
     }
@@ -45,11 +47,16 @@ public class ASTEq extends ComparisonExpression
         super(p, id);
     }
 
+    OperatorSpecialization getSpecialization()
+    {
+        return _specialization;
+    }
+
     protected Object getValueBody( OgnlContext context, Object source ) throws OgnlException
     {
         Object v1 = _children[0].getValue( context, source );
         Object v2 = _children[1].getValue( context, source );
-        return OgnlOps.equal( v1, v2 )? Boolean.TRUE : Boolean.FALSE;
+        return _specialization.equal( v1, v2 )? Boolean.TRUE : Boolean.FALSE;
     }
 
     public String getExpressionOperator(int index)
@@ -37,6 +37,8 @@ package ognl;
  */
 public class ASTGreaterEq extends ComparisonExpression
 {
+    private final OperatorSpecialization _specialization = new OperatorSpecialization();
+
     public ASTGreaterEq(int id) {
         super(id);
     }
@@ -45,11 +47,16 @@ public class ASTGreaterEq extends ComparisonExpression
         super(p, id);
     }
 
+    OperatorSpecialization getSpecialization()
+    {
+        return _specialization;
+    }
+
     protected Object getValueBody( OgnlContext context, Object source ) throws OgnlException
     {
         Object v1 = _children[0].getValue( context, source );
         Object v2 = _children[1].getValue( context, source );
-        return OgnlOps.less( v1, v2 )? Boolean.FALSE : Boolean.TRUE;
+        return _specialization.compare( v1, v2 ) < 0 ? Boolean.FALSE : Boolean.TRUE;
     }
 
     public String getExpressionOperator(int index)
@@ -37,6 +37,8 @@ package ognl;
  */
 class ASTLess extends ComparisonExpression
 {
+    private final OperatorSpecialization _specialization = new OperatorSpecialization();
+
     public ASTLess(int id) {
         super(id);
     }
@@ -45,12 +47,17 @@ class ASTLess extends ComparisonExpression
         super(p, id);
     }
 
+    OperatorSpecialization getSpecialization()
+    {
+        return _specialization;
+    }
+
     protected Object getValueBody( OgnlContext context, Object source ) throws OgnlException
     {
         Object v1 = _children[0].getValue( context, source );
         
         Object v2 = _children[1].getValue( context, source );
-        return OgnlOps.less( v1, v2 )? Boolean.TRUE : Boolean.FALSE;
+        return _specialization.compare( v1, v2 ) < 0 ? Boolean.TRUE : Boolean.FALSE;
     }
 
     public String getExpressionOperator(int index)
@@ -69,6 +69,15 @@ public class ASTMap extends SimpleNode
         className = value;
     }
 
+    /**
+     * Returns the class of the maps created by this node (the default map class unless one was named).
+     */
+    Class getCreatedClass(OgnlContext context)
+            throws ClassNotFoundException
+    {
+        return (className == null) ? DEFAULT_MAP_CLASS : OgnlRuntime.classForName(context, className);
+    }
+
     protected Object getValueBody(OgnlContext context, Object source)
         throws OgnlException
     {
@@ -36,6 +36,8 @@ package ognl;
  */
 public class ASTMultiply extends NumericExpression
 {
+    private final OperatorSpecialization _specialization = new OperatorSpecialization(OperatorSpecialization.MULTIPLY);
+
 
     public ASTMultiply(int id) {
         super(id);
@@ -45,6 +47,11 @@ public class ASTMultiply extends NumericExpression
         super(p, id);
     }
 
+    OperatorSpecialization getSpecialization()
+    {
+        return _specialization;
+    }
+
     public void jjtClose() {
         flattenTree();
     }
@@ -53,7 +60,7 @@ public class ASTMultiply extends NumericExpression
     {
         Object result = _children[0].getValue( context, source );
         for ( int i=1; i < _children.length; ++i )
-            result = OgnlOps.multiply( result, _children[i].getValue(context, source) );
+            result = _specialization.apply( result, _children[i].getValue(context, source) );
         return result;
     }
 
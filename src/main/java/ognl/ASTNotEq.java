@@ -37,6 +37,8 @@ package ognl;
  */
 public class ASTNotEq extends ComparisonExpression
 {
+    private final OperatorSpecialization _specialization = new OperatorSpecialization();
+
     public ASTNotEq(int id) {
         super(id);
     }
@@ -45,12 +47,17 @@ public class ASTNotEq extends ComparisonExpression
         super(p, id);
     }
 
+    OperatorSpecialization getSpecialization()
+    {
+        return _specialization;
+    }
+
     protected Object getValueBody( OgnlContext context, Object source ) throws OgnlException
     {
         Object v1 = _children[0].getValue( context, source );
         Object v2 = _children[1].getValue( context, source );
 
-        return OgnlOps.equal( v1, v2 ) ? Boolean.FALSE : Boolean.TRUE;
+        return _specialization.equal( v1, v2 ) ? Boolean.FALSE : Boolean.TRUE;
     }
 
     public String getExpressionOperator(int index)
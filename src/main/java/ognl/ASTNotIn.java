@@ -38,6 +38,8 @@ import ognl.enhance.UnsupportedCompilationException;
  */
 public class ASTNotIn extends SimpleNode implements NodeType
 {
+    private MembershipIndex _constantIndex;
+
     public ASTNotIn(int id) {
         super(id);
     }
@@ -46,9 +48,24 @@ public class ASTNotIn extends SimpleNode implements NodeType
         super(p, id);
     }
 
+    public void jjtClose()
+    {
+        if (jjtGetNumChildren() > 1)
+            _constantIndex = MembershipIndex.forConstantList(_children[1]);
+    }
+
     protected Object getValueBody( OgnlContext context, Object source ) throws OgnlException
     {
         Object v1 = _children[0].getValue( context, source );
+
+        // constant list literal: answer from its hash index (unless evaluations are traced)
+        if (_constantIndex != null && !context.getTraceEvaluations())
+        {
+            Boolean contained = _constantIndex.contains(v1);
+            if (contained != null)
+                return contained.booleanValue() ? Boolean.FALSE : Boolean.TRUE;
+        }
+
         Object v2 = _children[1].getValue( context, source );
         return OgnlOps.in( v1, v2 )? Boolean.FALSE : Boolean.TRUE;
     }
@@ -33,8 +33,9 @@ package ognl;
 import ognl.enhance.UnsupportedCompilationException;
 
 import java.util.ArrayList;
-import java.util.Enumeration;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Spliterator;
 
 /**
  * @author Luke Blanshard (blanshlu@netscape.net)
@@ -57,13 +58,23 @@ public class ASTProject extends SimpleNode
         throws OgnlException
     {
         Node expr = _children[0];
-        List answer = new ArrayList();
 
-        ElementsAccessor elementsAccessor = OgnlRuntime.getElementsAccessor(OgnlRuntime.getTargetClass(source));
+        Spliterator elements = ParallelCollections.getSpliteratorToSplit(context, source);
+        if (elements != null)
+            return ParallelCollections.project(context, expr, elements);
 
-        for(Enumeration e = elementsAccessor.getElements(source); e.hasMoreElements();) {
+        IterableElementsAccessor elementsAccessor = OgnlRuntime.getIterableElementsAccessor(OgnlRuntime.getTargetClass(source));
+        int size = elementsAccessor.getSize(source);
+        List answer = (size >= 0) ? new ArrayList(size) : new ArrayList();
 
-            answer.add(expr.getValue(context, e.nextElement()));
+        if (elementsAccessor.isRandomAccess(source)) {
+            for (int i = 0; i < size; i++) {
+                answer.add(expr.getValue(context, elementsAccessor.getElement(source, i)));
+            }
+        } else {
+            for (Iterator it = elementsAccessor.getIterator(source); it.hasNext();) {
+                answer.add(expr.getValue(context, it.next()));
+            }
         }
 
         return answer;
@@ -37,6 +37,7 @@ import java.beans.IndexedPropertyDescriptor;
 import java.beans.PropertyDescriptor;
 import java.lang.reflect.Method;
 import java.util.Iterator;
+import java.util.Map;
 
 /**
  * @author Luke Blanshard (blanshlu@netscape.net)
@@ -45,6 +46,8 @@ import java.util.Iterator;
 public class ASTProperty extends SimpleNode implements NodeType
 {
     private boolean _indexedAccess = false;
+    /** How a constant property reads a map, decided once (-1 until then), see {@link #getMapAccess(Object)}. */
+    private int _mapAccess = -1;
 
     private Class _getterClass;
     private Class _setterClass;
@@ -57,6 +60,7 @@ public class ASTProperty extends SimpleNode implements NodeType
     public void setIndexedAccess(boolean value)
     {
         _indexedAccess = value;
+        _mapAccess = -1;
     }
 
     /**
@@ -82,23 +86,23 @@ public class ASTProperty extends SimpleNode implements NodeType
     public int getIndexedPropertyType(OgnlContext context, Object source)
             throws OgnlException
     {
-        Class type = context.getCurrentType();
-        Class prevType = context.getPreviousType();
-        try
+        if (!context.isTypeTracking())
         {
-            if (!isIndexedAccess())
+            // plain interpretation: there is no compiler type state to save and restore
+            try
             {
-                Object property = getProperty(context, source);
-
-                if (property instanceof String)
-                {
-                    return OgnlRuntime.getIndexedPropertyType(context, (source == null)
-                            ? null
-                            : OgnlRuntime.getCompiler().getInterfaceClass(source.getClass()), (String) property);
-                }
+                return findIndexedPropertyType(context, source);
+            } finally
+            {
+                context.setCurrentObject(source);
             }
+        }
 
-            return OgnlRuntime.INDEXED_PROPERTY_NONE;
+        Class type = context.getCurrentType();
+        Class prevType = context.getPreviousType();
+        try
+        {
+            return findIndexedPropertyType(context, source);
         } finally
         {
             context.setCurrentObject(source);
@@ -107,6 +111,24 @@ public class ASTProperty extends SimpleNode implements NodeType
         }
     }
 
+    private int findIndexedPropertyType(OgnlContext context, Object source)
+            throws OgnlException
+    {
+        if (!isIndexedAccess())
+        {
+            Object property = getProperty(context, source);
+
+            if (property instanceof String)
+            {
+                return OgnlRuntime.getIndexedPropertyType(context, (source == null)
+                        ? null
+                        : OgnlRuntime.getCompiler().getInterfaceClass(source.getClass()), (String) property);
+            }
+        }
+
+        return OgnlRuntime.INDEXED_PROPERTY_NONE;
+    }
+
     public Object getProperty(OgnlContext context, Object source)
             throws OgnlException
     {
@@ -118,7 +140,9 @@ public class ASTProperty extends SimpleNode implements NodeType
     {
         Object property = getProperty(context, source);
 
-        Object result = OgnlRuntime.getProperty(context, source, property);
+        Object result = (source instanceof Map)
+                ? getMapProperty(context, (Map) source, property)
+                : OgnlRuntime.getProperty(context, source, property);
 
         if (result == null)
         {
@@ -128,6 +152,40 @@ public class ASTProperty extends SimpleNode implements NodeType
         return result;
     }
 
+    /**
+     * Reads this property of a map.  With the default map accessor the indexed/pseudo-property decision is made by
+     * this node rather than by the accessor walking up from the current node, so that reading a key is a single
+     * {@link Map#get(Object)}.
+     */
+    private Object getMapProperty(OgnlContext context, Map source, Object property)
+            throws OgnlException
+    {
+        PropertyAccessor accessor = OgnlRuntime.getPropertyAccessor(source.getClass());
+
+        if (accessor.getClass() != MapPropertyAccessor.class)
+        {
+            return accessor.getProperty(context, source, property);
+        }
+        return MapPropertyAccessor.getProperty(source, property, getMapAccess(property));
+    }
+
+    private int getMapAccess(Object property)
+    {
+        if (!(_children[0] instanceof ASTConst))
+        {
+            return MapPropertyAccessor.getAccess(property, isIndexedAccess());
+        }
+
+        int access = _mapAccess;
+
+        if (access < 0)
+        {
+            access = MapPropertyAccessor.getAccess(property, isIndexedAccess());
+            _mapAccess = access;
+        }
+        return access;
+    }
+
     protected void setValueBody(OgnlContext context, Object target, Object value)
             throws OgnlException
     {
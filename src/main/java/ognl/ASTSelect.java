@@ -33,8 +33,9 @@ package ognl;
 import ognl.enhance.UnsupportedCompilationException;
 
 import java.util.ArrayList;
-import java.util.Enumeration;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Spliterator;
 
 /**
  * @author Luke Blanshard (blanshlu@netscape.net)
@@ -56,15 +57,29 @@ public class ASTSelect extends SimpleNode
         throws OgnlException
     {
         Node expr = _children[0];
+
+        Spliterator elements = ParallelCollections.getSpliteratorToSplit(context, source);
+        if (elements != null)
+            return ParallelCollections.select(context, expr, elements);
+
         List answer = new ArrayList();
 
-        ElementsAccessor elementsAccessor = OgnlRuntime.getElementsAccessor(OgnlRuntime.getTargetClass(source));
+        IterableElementsAccessor elementsAccessor = OgnlRuntime.getIterableElementsAccessor(OgnlRuntime.getTargetClass(source));
+
+        if (elementsAccessor.isRandomAccess(source)) {
+            for (int i = 0, size = elementsAccessor.getSize(source); i < size; i++) {
+                Object next = elementsAccessor.getElement(source, i);
 
-        for(Enumeration e = elementsAccessor.getElements(source); e.hasMoreElements();) {
-            Object next = e.nextElement();
+                if (OgnlOps.booleanValue(expr.getValue(context, next)))
+                    answer.add(next);
+            }
+        } else {
+            for (Iterator it = elementsAccessor.getIterator(source); it.hasNext();) {
+                Object next = it.next();
 
-            if (OgnlOps.booleanValue(expr.getValue(context, next)))
-                answer.add(next);
+                if (OgnlOps.booleanValue(expr.getValue(context, next)))
+                    answer.add(next);
+            }
         }
 
         return answer;
@@ -33,7 +33,7 @@ package ognl;
 import ognl.enhance.UnsupportedCompilationException;
 
 import java.util.ArrayList;
-import java.util.Enumeration;
+import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -54,10 +54,23 @@ public class ASTSelectLast extends SimpleNode
     {
         Node                expr = _children[0];
         List                answer = new ArrayList();
-        ElementsAccessor    elementsAccessor = OgnlRuntime.getElementsAccessor( OgnlRuntime.getTargetClass(source) );
+        IterableElementsAccessor elementsAccessor = OgnlRuntime.getIterableElementsAccessor( OgnlRuntime.getTargetClass(source) );
 
-        for ( Enumeration e = elementsAccessor.getElements(source); e.hasMoreElements(); ) {
-            Object      next = e.nextElement();
+        // random access elements are scanned backwards, the first match is the last one
+        if (elementsAccessor.isRandomAccess(source)) {
+            for ( int i = elementsAccessor.getSize(source) - 1; i >= 0; i-- ) {
+                Object      next = elementsAccessor.getElement(source, i);
+
+                if (OgnlOps.booleanValue(expr.getValue(context, next))) {
+                    answer.add(next);
+                    break;
+                }
+            }
+            return answer;
+        }
+
+        for ( Iterator it = elementsAccessor.getIterator(source); it.hasNext(); ) {
+            Object      next = it.next();
 
             if (OgnlOps.booleanValue(expr.getValue(context, next))) {
                 answer.clear();
@@ -62,6 +62,16 @@ public class ASTStaticField extends SimpleNode implements NodeType
         this.fieldName = fieldName;
     }
 
+    String getClassName()
+    {
+        return className;
+    }
+
+    String getFieldName()
+    {
+        return fieldName;
+    }
+
     protected Object getValueBody(OgnlContext context, Object source)
             throws OgnlException
     {
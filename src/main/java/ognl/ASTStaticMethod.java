@@ -64,6 +64,16 @@ public class ASTStaticMethod extends SimpleNode implements NodeType
         _methodName = methodName;
     }
 
+    String getClassName()
+    {
+        return _className;
+    }
+
+    String getMethodName()
+    {
+        return _methodName;
+    }
+
     protected Object getValueBody(OgnlContext context, Object source)
             throws OgnlException
     {
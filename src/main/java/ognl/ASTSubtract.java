@@ -36,6 +36,8 @@ package ognl;
  */
 public class ASTSubtract extends NumericExpression
 {
+    private final OperatorSpecialization _specialization = new OperatorSpecialization(OperatorSpecialization.SUBTRACT);
+
     public ASTSubtract(int id) {
         super(id);
     }
@@ -44,11 +46,16 @@ public class ASTSubtract extends NumericExpression
         super(p, id);
     }
 
+    OperatorSpecialization getSpecialization()
+    {
+        return _specialization;
+    }
+
     protected Object getValueBody( OgnlContext context, Object source ) throws OgnlException
     {
         Object v1 = _children[0].getValue( context, source );
         Object v2 = _children[1].getValue( context, source );
-        return OgnlOps.subtract( v1, v2 );
+        return _specialization.apply( v1, v2 );
     }
 
     public String getExpressionOperator(int index)
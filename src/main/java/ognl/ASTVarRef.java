@@ -40,6 +40,8 @@ import ognl.enhance.UnsupportedCompilationException;
 public class ASTVarRef extends SimpleNode implements NodeType, OrderedReturn {
 
     private String _name;
+    private VariableSlots _slots;
+    private int _slot;
 
     protected Class _getterClass;
 
@@ -61,15 +63,38 @@ public class ASTVarRef extends SimpleNode implements NodeType, OrderedReturn {
         this._name = name;
     }
 
+    String getName()
+    {
+        return _name;
+    }
+
+    /**
+     * Binds this reference to its slot in the variables of the parsed expression (see {@link VariableSlots}).
+     */
+    void setSlot(VariableSlots slots, int slot)
+    {
+        this._slots = slots;
+        this._slot = slot;
+    }
+
     protected Object getValueBody(OgnlContext context, Object source)
         throws OgnlException
     {
+        if (_slots != null)
+            return context.getVariable(_slots, _slot);
+
         return context.get(_name);
     }
 
     protected void setValueBody(OgnlContext context, Object target, Object value)
         throws OgnlException
     {
+        if (_slots != null)
+        {
+            context.setVariable(_slots, _slot, value);
+            return;
+        }
+
         context.put(_name, value);
     }
 
@@ -0,0 +1,216 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * and/or LICENSE file distributed with this work for additional
+ * information regarding copyright ownership.  The ASF licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl;
+
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * Base class of the {@link IterableElementsAccessor}s: the enumeration of the elements is adapted from the iterator,
+ *   the spliterator is derived from the size and random access hints, and the targets are neither sized nor random
+ *   access by default.  Subclasses implement at least {@link #getIterator(Object)}.
+ *
+ * @since 3.3.0
+ */
+public abstract class AbstractElementsAccessor implements IterableElementsAccessor
+{
+    /**
+     * The built-in accessors, whose subclasses may override {@link #getElements(Object)} only.
+     */
+    private static final Class[] BUILT_IN_ACCESSORS = {
+            ArrayElementsAccessor.class, CollectionElementsAccessor.class, EnumerationElementsAccessor.class,
+            IteratorElementsAccessor.class, MapElementsAccessor.class, NumberElementsAccessor.class,
+            ObjectElementsAccessor.class };
+
+    /**
+     * Returns the given accessor as an {@link IterableElementsAccessor}.  Legacy accessors are adapted, and so are
+     * the subclasses of the built-in accessors: they were written against {@link #getElements(Object)}, which the
+     * iterator, size and random access hooks they inherit know nothing about.
+     */
+    static IterableElementsAccessor adapt(ElementsAccessor accessor)
+    {
+        if (accessor instanceof IterableElementsAccessor && !extendsBuiltInAccessor(accessor.getClass())) {
+            return (IterableElementsAccessor) accessor;
+        }
+        return new Adapter(accessor);
+    }
+
+    private static boolean extendsBuiltInAccessor(Class accessorClass)
+    {
+        for (Class builtIn : BUILT_IN_ACCESSORS) {
+            if (accessorClass != builtIn && builtIn.isAssignableFrom(accessorClass)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public Enumeration getElements(Object target)
+            throws OgnlException
+    {
+        return new IteratorEnumeration(getIterator(target));
+    }
+
+    /**
+     * Returns a spliterator splitting random access targets by index range, and reporting the size of sized ones.
+     */
+    public Spliterator getSpliterator(Object target)
+            throws OgnlException
+    {
+        if (isRandomAccess(target)) {
+            return new IndexedSpliterator(this, target, 0, getSize(target));
+        }
+
+        final int size = getSize(target);
+        return (size >= 0) ? Spliterators.spliterator(getIterator(target), size, Spliterator.ORDERED)
+                           : Spliterators.spliteratorUnknownSize(getIterator(target), Spliterator.ORDERED);
+    }
+
+    public int getSize(Object target)
+    {
+        return -1;
+    }
+
+    public boolean isRandomAccess(Object target)
+    {
+        return false;
+    }
+
+    public Object getElement(Object target, int index)
+    {
+        throw new UnsupportedOperationException("Elements of " + target.getClass().getName() + " are not random access");
+    }
+
+    /**
+     * Returns an iterator over the elements of a random access target.
+     */
+    protected Iterator getIndexedIterator(final Object target)
+    {
+        final int size = getSize(target);
+
+        return new Iterator() {
+            private int _index;
+
+            public boolean hasNext()
+            {
+                return _index < size;
+            }
+
+            public Object next()
+            {
+                if (_index >= size) {
+                    throw new NoSuchElementException();
+                }
+                return getElement(target, _index++);
+            }
+
+            public void remove()
+            {
+                throw new UnsupportedOperationException("remove");
+            }
+        };
+    }
+
+    /**
+     * Adapts a legacy {@link ElementsAccessor}, which only enumerates the elements of its targets.
+     */
+    static final class Adapter extends AbstractElementsAccessor
+    {
+        private final ElementsAccessor _accessor;
+
+        Adapter(ElementsAccessor accessor)
+        {
+            _accessor = accessor;
+        }
+
+        public Enumeration getElements(Object target)
+                throws OgnlException
+        {
+            return _accessor.getElements(target);
+        }
+
+        public Iterator getIterator(Object target)
+                throws OgnlException
+        {
+            return new EnumerationIterator(_accessor.getElements(target));
+        }
+    }
+
+    /**
+     * Splits a random access target by index range.
+     */
+    private static final class IndexedSpliterator implements Spliterator
+    {
+        private final IterableElementsAccessor _accessor;
+        private final Object _target;
+        private int _index;
+        private final int _fence;
+
+        IndexedSpliterator(IterableElementsAccessor accessor, Object target, int index, int fence)
+        {
+            _accessor = accessor;
+            _target = target;
+            _index = index;
+            _fence = fence;
+        }
+
+        public boolean tryAdvance(Consumer action)
+        {
+            if (_index < _fence) {
+                action.accept(_accessor.getElement(_target, _index++));
+                return true;
+            }
+            return false;
+        }
+
+        public void forEachRemaining(Consumer action)
+        {
+            for (int i = _index; i < _fence; i++) {
+                action.accept(_accessor.getElement(_target, i));
+            }
+            _index = _fence;
+        }
+
+        public Spliterator trySplit()
+        {
+            final int middle = (_index + _fence) >>> 1;
+
+            if (middle <= _index) {
+                return null;
+            }
+            final Spliterator prefix = new IndexedSpliterator(_accessor, _target, _index, middle);
+            _index = middle;
+            return prefix;
+        }
+
+        public long estimateSize()
+        {
+            return _fence - _index;
+        }
+
+        public int characteristics()
+        {
+            return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED;
+        }
+    }
+}
@@ -0,0 +1,564 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * and/or LICENSE file distributed with this work for additional
+ * information regarding copyright ownership.  The ASF licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl;
+
+import java.lang.reflect.Array;
+
+/**
+ * Type-specialized access to the elements of an array, avoiding the reflective checks of {@link Array}.  The
+ * implementation is selected once per array class (see {@link #get(Class)}) and shared: it holds no state.
+ * Element values are boxed on the way out and unboxed on the way in, values set into a primitive array must be
+ * of (or convertible by a cast from) the wrapper class of its component type.
+ *
+ * Not intended for use outside of the package.
+ *
+ * @since 3.3.0
+ */
+abstract class ArrayAccess
+{
+    private static final ClassValue<ArrayAccess> ACCESSES = new ClassValue<ArrayAccess>() {
+        @Override
+        protected ArrayAccess computeValue(Class<?> type)
+        {
+            return create(type);
+        }
+    };
+
+    private static final ArrayAccess INT = new IntArray();
+    private static final ArrayAccess LONG = new LongArray();
+    private static final ArrayAccess DOUBLE = new DoubleArray();
+    private static final ArrayAccess FLOAT = new FloatArray();
+    private static final ArrayAccess SHORT = new ShortArray();
+    private static final ArrayAccess BYTE = new ByteArray();
+    private static final ArrayAccess CHAR = new CharArray();
+    private static final ArrayAccess BOOLEAN = new BooleanArray();
+    private static final ArrayAccess OBJECT = new ObjectArray();
+
+    /**
+     * Returns the access to the elements of the arrays of the given class.
+     *
+     * @param arrayClass an array class.
+     * @return the access to the elements of the arrays of that class.
+     * @throws IllegalArgumentException if the class is not an array class.
+     */
+    static ArrayAccess get(Class arrayClass)
+    {
+        return ACCESSES.get(arrayClass);
+    }
+
+    /**
+     * Returns the access to the elements of the given array.
+     */
+    static ArrayAccess of(Object array)
+    {
+        return ACCESSES.get(array.getClass());
+    }
+
+    private static ArrayAccess create(Class type)
+    {
+        final Class componentType = type.getComponentType();
+
+        if (componentType == null) {
+            throw new IllegalArgumentException(type.getName() + " is not an array class");
+        }
+        if (!componentType.isPrimitive()) {
+            return OBJECT;
+        }
+        if (componentType == Integer.TYPE) {
+            return INT;
+        }
+        if (componentType == Long.TYPE) {
+            return LONG;
+        }
+        if (componentType == Double.TYPE) {
+            return DOUBLE;
+        }
+        if (componentType == Float.TYPE) {
+            return FLOAT;
+        }
+        if (componentType == Short.TYPE) {
+            return SHORT;
+        }
+        if (componentType == Byte.TYPE) {
+            return BYTE;
+        }
+        if (componentType == Character.TYPE) {
+            return CHAR;
+        }
+        return BOOLEAN;
+    }
+
+    /**
+     * Converts the elements of the given array to the given component type, into a new array, with the built-in
+     * conversions.
+     */
+    static Object convert(Object array, Class componentType)
+    {
+        return convert(array, componentType, ConverterRegistry.getBuiltIn());
+    }
+
+    /**
+     * Converts the elements of the given array to the given component type, into a new array.  Conversions between
+     * numeric (and char) primitive arrays are done in bulk, without boxing; the others convert each element with
+     * the given registry.
+     *
+     * @param array the array to convert.
+     * @param componentType the component type of the new array.
+     * @param registry the registry converting the elements.
+     * @return the new array.
+     */
+    static Object convert(Object array, Class componentType, ConverterRegistry registry)
+    {
+        final ArrayAccess from = of(array);
+        final int length = from.getLength(array);
+        final Object result = Array.newInstance(componentType, length);
+        final ArrayAccess to = of(result);
+
+        if (from instanceof NumericArray && to instanceof NumericArray) {
+            final NumericArray source = (NumericArray) from;
+            final NumericArray target = (NumericArray) to;
+
+            if (target.isFloatingPoint()) {
+                for (int i = 0; i < length; i++) {
+                    target.setDouble(result, i, source.getDouble(array, i));
+                }
+            } else {
+                for (int i = 0; i < length; i++) {
+                    target.setLong(result, i, source.getLong(array, i));
+                }
+            }
+        } else {
+            for (int i = 0; i < length; i++) {
+                to.set(result, i, registry.convertValue(from.get(array, i), componentType));
+            }
+        }
+        return result;
+    }
+
+    abstract int getLength(Object array);
+
+    abstract Object get(Object array, int index);
+
+    abstract void set(Object array, int index, Object value);
+
+    /**
+     * Returns a shallow copy of the given array.
+     */
+    abstract Object copy(Object array);
+
+    /**
+     * Access to the arrays whose elements are numbers, or chars, which OGNL converts as numbers.  Conversions between
+     * them follow {@link OgnlOps#convertValue(Object, Class)}: through long values between integral types, through
+     * double values when either type is floating point.
+     */
+    abstract static class NumericArray extends ArrayAccess
+    {
+        abstract boolean isFloatingPoint();
+
+        abstract long getLong(Object array, int index);
+
+        abstract double getDouble(Object array, int index);
+
+        abstract void setLong(Object array, int index, long value);
+
+        abstract void setDouble(Object array, int index, double value);
+    }
+
+    static final class IntArray extends NumericArray
+    {
+        int getLength(Object array)
+        {
+            return ((int[]) array).length;
+        }
+
+        Object get(Object array, int index)
+        {
+            return Integer.valueOf(((int[]) array)[index]);
+        }
+
+        void set(Object array, int index, Object value)
+        {
+            ((int[]) array)[index] = ((Number) value).intValue();
+        }
+
+        Object copy(Object array)
+        {
+            return ((int[]) array).clone();
+        }
+
+        boolean isFloatingPoint()
+        {
+            return false;
+        }
+
+        long getLong(Object array, int index)
+        {
+            return ((int[]) array)[index];
+        }
+
+        double getDouble(Object array, int index)
+        {
+            return ((int[]) array)[index];
+        }
+
+        void setLong(Object array, int index, long value)
+        {
+            ((int[]) array)[index] = (int) value;
+        }
+
+        void setDouble(Object array, int index, double value)
+        {
+            ((int[]) array)[index] = (int) (long) value;
+        }
+    }
+
+    static final class LongArray extends NumericArray
+    {
+        int getLength(Object array)
+        {
+            return ((long[]) array).length;
+        }
+
+        Object get(Object array, int index)
+        {
+            return Long.valueOf(((long[]) array)[index]);
+        }
+
+        void set(Object array, int index, Object value)
+        {
+            ((long[]) array)[index] = ((Number) value).longValue();
+        }
+
+        Object copy(Object array)
+        {
+            return ((long[]) array).clone();
+        }
+
+        boolean isFloatingPoint()
+        {
+            return false;
+        }
+
+        long getLong(Object array, int index)
+        {
+            return ((long[]) array)[index];
+        }
+
+        double getDouble(Object array, int index)
+        {
+            return ((long[]) array)[index];
+        }
+
+        void setLong(Object array, int index, long value)
+        {
+            ((long[]) array)[index] = value;
+        }
+
+        void setDouble(Object array, int index, double value)
+        {
+            ((long[]) array)[index] = (long) value;
+        }
+    }
+
+    static final class DoubleArray extends NumericArray
+    {
+        int getLength(Object array)
+        {
+            return ((double[]) array).length;
+        }
+
+        Object get(Object array, int index)
+        {
+            return Double.valueOf(((double[]) array)[index]);
+        }
+
+        void set(Object array, int index, Object value)
+        {
+            ((double[]) array)[index] = ((Number) value).doubleValue();
+        }
+
+        Object copy(Object array)
+        {
+            return ((double[]) array).clone();
+        }
+
+        boolean isFloatingPoint()
+        {
+            return true;
+        }
+
+        long getLong(Object array, int index)
+        {
+            return (long) ((double[]) array)[index];
+        }
+
+        double getDouble(Object array, int index)
+        {
+            return ((double[]) array)[index];
+        }
+
+        void setLong(Object array, int index, long value)
+        {
+            ((double[]) array)[index] = value;
+        }
+
+        void setDouble(Object array, int index, double value)
+        {
+            ((double[]) array)[index] = value;
+        }
+    }
+
+    static final class FloatArray extends NumericArray
+    {
+        int getLength(Object array)
+        {
+            return ((float[]) array).length;
+        }
+
+        Object get(Object array, int index)
+        {
+            return Float.valueOf(((float[]) array)[index]);
+        }
+
+        void set(Object array, int index, Object value)
+        {
+            ((float[]) array)[index] = ((Number) value).floatValue();
+        }
+
+        Object copy(Object array)
+        {
+            return ((float[]) array).clone();
+        }
+
+        boolean isFloatingPoint()
+        {
+            return true;
+        }
+
+        long getLong(Object array, int index)
+        {
+            return (long) ((float[]) array)[index];
+        }
+
+        double getDouble(Object array, int index)
+        {
+            return ((float[]) array)[index];
+        }
+
+        void setLong(Object array, int index, long value)
+        {
+            ((float[]) array)[index] = (float) (double) value;
+        }
+
+        void setDouble(Object array, int index, double value)
+        {
+            ((float[]) array)[index] = (float) value;
+        }
+    }
+
+    static final class ShortArray extends NumericArray
+    {
+        int getLength(Object array)
+        {
+            return ((short[]) array).length;
+        }
+
+        Object get(Object array, int index)
+        {
+            return Short.valueOf(((short[]) array)[index]);
+        }
+
+        void set(Object array, int index, Object value)
+        {
+            ((short[]) array)[index] = ((Number) value).shortValue();
+        }
+
+        Object copy(Object array)
+        {
+            return ((short[]) array).clone();
+        }
+
+        boolean isFloatingPoint()
+        {
+            return false;
+        }
+
+        long getLong(Object array, int index)
+        {
+            return ((short[]) array)[index];
+        }
+
+        double getDouble(Object array, int index)
+        {
+            return ((short[]) array)[index];
+        }
+
+        void setLong(Object array, int index, long value)
+        {
+            ((short[]) array)[index] = (short) value;
+        }
+
+        void setDouble(Object array, int index, double value)
+        {
+            ((short[]) array)[index] = (short) (long) value;
+        }
+    }
+
+    static final class ByteArray extends NumericArray
+    {
+        int getLength(Object array)
+        {
+            return ((byte[]) array).length;
+        }
+
+        Object get(Object array, int index)
+        {
+            return Byte.valueOf(((byte[]) array)[index]);
+        }
+
+        void set(Object array, int index, Object value)
+        {
+            ((byte[]) array)[index] = ((Number) value).byteValue();
+        }
+
+        Object copy(Object array)
+        {
+            return ((byte[]) array).clone();
+        }
+
+        boolean isFloatingPoint()
+        {
+            return false;
+        }
+
+        long getLong(Object array, int index)
+        {
+            return ((byte[]) array)[index];
+        }
+
+        double getDouble(Object array, int index)
+        {
+            return ((byte[]) array)[index];
+        }
+
+        void setLong(Object array, int index, long value)
+        {
+            ((byte[]) array)[index] = (byte) value;
+        }
+
+        void setDouble(Object array, int index, double value)
+        {
+            ((byte[]) array)[index] = (byte) (long) value;
+        }
+    }
+
+    static final class CharArray extends NumericArray
+    {
+        int getLength(Object array)
+        {
+            return ((char[]) array).length;
+        }
+
+        Object get(Object array, int index)
+        {
+            return Character.valueOf(((char[]) array)[index]);
+        }
+
+        void set(Object array, int index, Object value)
+        {
+            ((char[]) array)[index] = ((Character) value).charValue();
+        }
+
+        Object copy(Object array)
+        {
+            return ((char[]) array).clone();
+        }
+
+        boolean isFloatingPoint()
+        {
+            return false;
+        }
+
+        long getLong(Object array, int index)
+        {
+            return ((char[]) array)[index];
+        }
+
+        double getDouble(Object array, int index)
+        {
+            return ((char[]) array)[index];
+        }
+
+        void setLong(Object array, int index, long value)
+        {
+            ((char[]) array)[index] = (char) value;
+        }
+
+        void setDouble(Object array, int index, double value)
+        {
+            ((char[]) array)[index] = (char) (long) value;
+        }
+    }
+
+    static final class BooleanArray extends ArrayAccess
+    {
+        int getLength(Object array)
+        {
+            return ((boolean[]) array).length;
+        }
+
+        Object get(Object array, int index)
+        {
+            return Boolean.valueOf(((boolean[]) array)[index]);
+        }
+
+        void set(Object array, int index, Object value)
+        {
+            ((boolean[]) array)[index] = ((Boolean) value).booleanValue();
+        }
+
+        Object copy(Object array)
+        {
+            return ((boolean[]) array).clone();
+        }
+    }
+
+    static final class ObjectArray extends ArrayAccess
+    {
+        int getLength(Object array)
+        {
+            return ((Object[]) array).length;
+        }
+
+        Object get(Object array, int index)
+        {
+            return ((Object[]) array)[index];
+        }
+
+        void set(Object array, int index, Object value)
+        {
+            ((Object[]) array)[index] = value;
+        }
+
+        Object copy(Object array)
+        {
+            return ((Object[]) array).clone();
+        }
+    }
+}
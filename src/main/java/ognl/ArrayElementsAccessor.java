@@ -30,31 +30,48 @@
 //--------------------------------------------------------------------------
 package ognl;
 
-import java.lang.reflect.Array;
-import java.util.Enumeration;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Spliterator;
 
 /**
  * Implementation of ElementsAccessor that returns an iterator over a Java array.
  * @author Luke Blanshard (blanshlu@netscape.net)
  * @author Drew Davidson (drew@ognl.org)
  */
-public class ArrayElementsAccessor implements ElementsAccessor
+public class ArrayElementsAccessor extends AbstractElementsAccessor
 {
-    public Enumeration getElements( final Object target )
+    public Iterator getIterator( Object target )
     {
-        return new Enumeration() {
-            private int count = Array.getLength( target );
-            private int index = 0;
+        return getIndexedIterator( target );
+    }
+
+    public Spliterator getSpliterator( Object target )
+            throws OgnlException
+    {
+        if (target instanceof Object[])
+            return Arrays.spliterator( (Object[])target );
+        if (target instanceof int[])
+            return Arrays.spliterator( (int[])target );
+        if (target instanceof long[])
+            return Arrays.spliterator( (long[])target );
+        if (target instanceof double[])
+            return Arrays.spliterator( (double[])target );
+        return super.getSpliterator( target );
+    }
+
+    public int getSize( Object target )
+    {
+        return ArrayAccess.of( target ).getLength( target );
+    }
 
-            public boolean hasMoreElements()
-            {
-                return index < count;
-            }
+    public boolean isRandomAccess( Object target )
+    {
+        return true;
+    }
 
-            public Object nextElement()
-            {
-                return Array.get( target, index++ );
-            }
-        };
+    public Object getElement( Object target, int index )
+    {
+        return ArrayAccess.of( target ).get( target, index );
     }
 }
@@ -30,7 +30,6 @@
 // --------------------------------------------------------------------------
 package ognl;
 
-import java.lang.reflect.Array;
 import java.util.Map;
 
 /**
@@ -52,7 +51,7 @@ public class ArrayPropertyAccessor extends ObjectPropertyAccessor implements Pro
         {
             if (name.equals("length"))
             {
-                result = new Integer(Array.getLength(target));
+                result = new Integer(ArrayAccess.of(target).getLength(target));
             } else
             {
                 result = super.getProperty(context, target, name);
@@ -61,15 +60,16 @@ public class ArrayPropertyAccessor extends ObjectPropertyAccessor implements Pro
         {
             Object index = name;
 
+            ArrayAccess access = ArrayAccess.of(target);
+
             if (index instanceof DynamicSubscript)
             {
-                int len = Array.getLength(target);
+                int len = access.getLength(target);
 
                 switch(((DynamicSubscript) index).getFlag())
                 {
                     case DynamicSubscript.ALL:
-                        result = Array.newInstance(target.getClass().getComponentType(), len);
-                        System.arraycopy(target, 0, result, 0, len);
+                        result = access.copy(target);
                         break;
                     case DynamicSubscript.FIRST:
                         index = new Integer((len > 0) ? 0 : -1);
@@ -88,7 +88,7 @@ public class ArrayPropertyAccessor extends ObjectPropertyAccessor implements Pro
                 {
                     int i = ((Number) index).intValue();
 
-                    result = (i >= 0) ? Array.get(target, i) : null;
+                    result = (i >= 0) ? access.get(target, i) : null;
                 } else
                 {
                     throw new NoSuchPropertyException(target, index);
@@ -118,11 +118,11 @@ public class ArrayPropertyAccessor extends ObjectPropertyAccessor implements Pro
 
                 if (i >= 0)
                 {
-                    Array.set(target, i, convertedValue);
+                    ArrayAccess.of(target).set(target, i, convertedValue);
                 }
             } else
             {
-                int len = Array.getLength(target);
+                int len = ArrayAccess.of(target).getLength(target);
 
                 switch(((DynamicSubscript) index).getFlag())
                 {
@@ -0,0 +1,504 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * and/or LICENSE file distributed with this work for additional
+ * information regarding copyright ownership.  The ASF licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl;
+
+import java.beans.BeanInfo;
+import java.beans.IndexedPropertyDescriptor;
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * OGNL replacement for {@link java.beans.Introspector#getBeanInfo(Class)}, building the property descriptors of a
+ *   class in a single pass over its public methods.
+ *
+ * The JavaBeans naming rules are followed: <code>getX()</code> / <code>isX()</code> (boolean) read methods,
+ *   <code>setX(value)</code> write methods, <code>getX(int)</code> / <code>setX(int, value)</code> indexed methods
+ *   (see {@link IndexedPropertyDescriptor}) and <code>getX(key)</code> / <code>setX(key, value)</code> object indexed
+ *   methods (see {@link ObjectIndexedPropertyDescriptor}).  Static, bridge and synthetic methods are ignored, which
+ *   avoids the unusable read/write methods the JDK Introspector may return (see bug 6528714 on bugs.sun.com).
+ *
+ * In addition to the JavaBeans rules, the components of a record (JDK 16+) and fluent accessor pairs (a
+ *   <code>x()</code> read method along with a <code>x(value)</code> write method of the same type) are described
+ *   as properties, provided no JavaBeans property or public field of the same name exists.
+ *
+ * Classes with an explicit {@link BeanInfo} (a <code>XBeanInfo</code> class next to the class <code>X</code> or one
+ *   of its superclasses, or in the {@link Introspector#getBeanInfoSearchPath() search path}) are still described by
+ *   the JDK Introspector, along with the object indexed properties found here.
+ *
+ * Not intended for use outside of the package.
+ *
+ * @since 3.3.0
+ */
+final class BeanIntrospector
+{
+    private static final String GET_PREFIX = "get";
+    private static final String SET_PREFIX = "set";
+    private static final String IS_PREFIX = "is";
+
+    /*
+     * Record support (JDK 16+), accessed reflectively to keep the source level.  All null when unavailable.
+     */
+    private static final Method CLASS_IS_RECORD;
+    private static final Method CLASS_GET_RECORD_COMPONENTS;
+    private static final Method RECORD_COMPONENT_GET_NAME;
+    private static final Method RECORD_COMPONENT_GET_ACCESSOR;
+    static {
+        Method isRecord = null, getRecordComponents = null, getName = null, getAccessor = null;
+        try {
+            isRecord = Class.class.getMethod("isRecord");
+            getRecordComponents = Class.class.getMethod("getRecordComponents");
+
+            final Class recordComponentClass = getRecordComponents.getReturnType().getComponentType();
+            getName = recordComponentClass.getMethod("getName");
+            getAccessor = recordComponentClass.getMethod("getAccessor");
+        } catch (Exception ex) {
+            // Unavailable (pre-JDK16, SecurityException, etc.)
+            isRecord = null;
+        }
+        CLASS_IS_RECORD = isRecord;
+        CLASS_GET_RECORD_COMPONENTS = (isRecord == null) ? null : getRecordComponents;
+        RECORD_COMPONENT_GET_NAME = (isRecord == null) ? null : getName;
+        RECORD_COMPONENT_GET_ACCESSOR = (isRecord == null) ? null : getAccessor;
+    }
+
+    /** Whether a class or one of its superclasses has an explicit BeanInfo. */
+    private static volatile ClassValue<Boolean> _explicitBeanInfo = newExplicitBeanInfoCache();
+
+    private BeanIntrospector()
+    {
+    }
+
+    /**
+     * Collects the accessor methods found for a single property name.
+     */
+    private static final class Accessors
+    {
+        Method getter;
+        Method isGetter;
+        final List<Method> setters = new ArrayList<Method>(2);
+        Method indexedGetter;
+        Method indexedSetter;
+        Method objectIndexedGetter;
+        Method objectIndexedSetter;
+
+        Method readMethod()
+        {
+            // like the JDK Introspector, prefer isX() over getX()
+            return (isGetter != null) ? isGetter : getter;
+        }
+    }
+
+    /**
+     * Returns the property descriptors of the given class, keyed (and sorted) by property name.
+     *
+     * @param targetClass the class to introspect.
+     * @return a new map of property name to {@link PropertyDescriptor}.
+     * @throws IntrospectionException if a descriptor cannot be created.
+     */
+    static Map<String, PropertyDescriptor> getPropertyDescriptors(Class targetClass)
+            throws IntrospectionException
+    {
+        final Map<String, PropertyDescriptor> result = introspect(targetClass);
+
+        return hasExplicitBeanInfo(targetClass) ? getBeanInfoDescriptors(targetClass, result) : result;
+    }
+
+    private static Map<String, PropertyDescriptor> introspect(Class targetClass)
+            throws IntrospectionException
+    {
+        final Map<String, Accessors> accessors = new HashMap<String, Accessors>();
+        final Map<String, List<Method>> fluentCandidates = new HashMap<String, List<Method>>();
+        final Map<String, Integer> methodNameCounts = new HashMap<String, Integer>();
+        final Method[] methods = targetClass.getMethods();
+
+        for (Method m : methods) {
+            final int modifiers = m.getModifiers();
+            if (Modifier.isStatic(modifiers) || !OgnlRuntime.isMethodCallable(m)) {
+                continue;
+            }
+
+            final String name = m.getName();
+            final Integer count = methodNameCounts.get(name);
+            methodNameCounts.put(name, (count == null) ? 1 : count + 1);
+
+            final Class[] parameterTypes = m.getParameterTypes();
+            final Class returnType = m.getReturnType();
+            final boolean isVoid = (returnType == Void.TYPE);
+
+            if (name.length() > 3 && name.startsWith(GET_PREFIX)) {
+                if (parameterTypes.length == 0 && !isVoid) {
+                    accessorsFor(accessors, name.substring(3)).getter = m;
+                    continue;
+                }
+                if (parameterTypes.length == 1 && !isVoid) {
+                    final Accessors a = accessorsFor(accessors, name.substring(3));
+                    if (parameterTypes[0] == Integer.TYPE) {
+                        a.indexedGetter = m;
+                    }
+                    a.objectIndexedGetter = m;
+                    continue;
+                }
+            } else if (name.length() > 3 && name.startsWith(SET_PREFIX)) {
+                if (parameterTypes.length == 1 && isVoid) {
+                    accessorsFor(accessors, name.substring(3)).setters.add(m);
+                    continue;
+                }
+                if (parameterTypes.length == 2 && isVoid) {
+                    final Accessors a = accessorsFor(accessors, name.substring(3));
+                    if (parameterTypes[0] == Integer.TYPE) {
+                        a.indexedSetter = m;
+                    }
+                    a.objectIndexedSetter = m;
+                    continue;
+                }
+            } else if (name.length() > 2 && name.startsWith(IS_PREFIX)) {
+                if (parameterTypes.length == 0 && returnType == Boolean.TYPE) {
+                    accessorsFor(accessors, name.substring(2)).isGetter = m;
+                    continue;
+                }
+            }
+
+            if (parameterTypes.length <= 1 && m.getDeclaringClass() != Object.class) {
+                List<Method> candidates = fluentCandidates.get(name);
+                if (candidates == null) {
+                    fluentCandidates.put(name, candidates = new ArrayList<Method>(2));
+                }
+                candidates.add(m);
+            }
+        }
+
+        final Map<String, PropertyDescriptor> result = new TreeMap<String, PropertyDescriptor>();
+
+        for (Map.Entry<String, Accessors> entry : accessors.entrySet()) {
+            final String propertyName = entry.getKey();
+            final Accessors a = entry.getValue();
+            final PropertyDescriptor pd = createDescriptor(propertyName, a);
+
+            if (pd != null) {
+                result.put(propertyName, pd);
+            }
+
+            // object indexed properties (key/value pairs) only use non-overloaded methods, and override any
+            //   regular descriptor as OGNL always did
+            if (a.objectIndexedGetter != null && a.objectIndexedSetter != null
+                    && methodNameCounts.get(a.objectIndexedGetter.getName()) == 1
+                    && methodNameCounts.get(a.objectIndexedSetter.getName()) == 1) {
+                final Method getMethod = a.objectIndexedGetter, setMethod = a.objectIndexedSetter;
+                final Class keyType = getMethod.getParameterTypes()[0], propertyType = getMethod.getReturnType();
+                final Class[] setParameterTypes = setMethod.getParameterTypes();
+
+                if (keyType == setParameterTypes[0] && propertyType == setParameterTypes[1]) {
+                    result.put(propertyName, new ObjectIndexedPropertyDescriptor(propertyName, propertyType, getMethod, setMethod));
+                }
+            }
+        }
+
+        if (isRecord(targetClass)) {
+            addRecordComponents(targetClass, result);
+        }
+        addFluentAccessors(targetClass, fluentCandidates, result);
+
+        return result;
+    }
+
+    /**
+     * Returns the property descriptors of the explicit {@link BeanInfo} of the given class, with the object indexed
+     *   descriptors found by {@link #introspect(Class)}.  A descriptor whose read or write method cannot be called
+     *   (see bug 6528714 on bugs.sun.com) is replaced by the introspected descriptor of the same name, if any.
+     */
+    private static Map<String, PropertyDescriptor> getBeanInfoDescriptors(Class targetClass,
+                                                                          Map<String, PropertyDescriptor> introspected)
+            throws IntrospectionException
+    {
+        final Map<String, PropertyDescriptor> result = new TreeMap<String, PropertyDescriptor>();
+
+        for (PropertyDescriptor pd : Introspector.getBeanInfo(targetClass).getPropertyDescriptors()) {
+            final String name = pd.getName();
+            final boolean callable = (pd.getReadMethod() == null || OgnlRuntime.isMethodCallable(pd.getReadMethod()))
+                                     && (pd.getWriteMethod() == null || OgnlRuntime.isMethodCallable(pd.getWriteMethod()));
+
+            result.put(name, (callable || !introspected.containsKey(name)) ? pd : introspected.get(name));
+        }
+        for (PropertyDescriptor pd : introspected.values()) {
+            if (pd instanceof ObjectIndexedPropertyDescriptor) {
+                result.put(pd.getName(), pd);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Tells whether the given class or one of its superclasses has an explicit {@link BeanInfo}.  The answer is
+     *   cached per class (until {@link #clearCache()}), so that the bean info classes of the shared superclasses are
+     *   only looked up once.
+     */
+    private static boolean hasExplicitBeanInfo(Class targetClass)
+    {
+        return (targetClass != null) && (targetClass != Object.class) && _explicitBeanInfo.get(targetClass);
+    }
+
+    /**
+     * Tells whether the given class itself has an explicit {@link BeanInfo}, looked up the way the JDK Introspector
+     *   does: the <code>XBeanInfo</code> class in the package of <code>X</code>, then in the packages of the bean
+     *   info search path.
+     */
+    private static boolean declaresBeanInfo(Class c)
+    {
+        final String name = c.getName();
+        final ClassLoader loader = c.getClassLoader();
+
+        if (isBeanInfoClass(name + "BeanInfo", loader)) {
+            return true;
+        }
+
+        final String simpleName = name.substring(name.lastIndexOf('.') + 1);
+
+        for (String packageName : Introspector.getBeanInfoSearchPath()) {
+            if (isBeanInfoClass(packageName + "." + simpleName + "BeanInfo", loader)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static ClassValue<Boolean> newExplicitBeanInfoCache()
+    {
+        return new ClassValue<Boolean>() {
+            @Override
+            protected Boolean computeValue(Class<?> type)
+            {
+                return declaresBeanInfo(type) || hasExplicitBeanInfo(type.getSuperclass());
+            }
+        };
+    }
+
+    /**
+     * Drops the cached explicit {@link BeanInfo} lookups, for instance after the bean info search path changed.
+     */
+    static void clearCache()
+    {
+        _explicitBeanInfo = newExplicitBeanInfoCache();
+    }
+
+    private static boolean isBeanInfoClass(String className, ClassLoader loader)
+    {
+        try {
+            return BeanInfo.class.isAssignableFrom(Class.forName(className, false, loader));
+        } catch (ClassNotFoundException ex) {
+            return false;
+        } catch (LinkageError ex) {
+            return false;
+        } catch (SecurityException ex) {
+            return false;
+        }
+    }
+
+    private static Accessors accessorsFor(Map<String, Accessors> accessors, String baseName)
+    {
+        final String propertyName = decapitalize(baseName);
+        Accessors a = accessors.get(propertyName);
+
+        if (a == null) {
+            accessors.put(propertyName, a = new Accessors());
+        }
+        return a;
+    }
+
+    private static PropertyDescriptor createDescriptor(String propertyName, Accessors a)
+            throws IntrospectionException
+    {
+        final Method readMethod = a.readMethod();
+        Method writeMethod = null;
+
+        if (readMethod != null) {
+            // only pair a write method of the exact same type as the read method
+            for (Method setter : a.setters) {
+                if (setter.getParameterTypes()[0] == readMethod.getReturnType()) {
+                    writeMethod = setter;
+                    break;
+                }
+            }
+        } else if (!a.setters.isEmpty()) {
+            writeMethod = firstByParameterType(a.setters);
+        }
+
+        if ((a.indexedGetter != null || a.indexedSetter != null) && isArrayTyped(readMethod) && isArrayTyped(writeMethod)) {
+            try {
+                return new IndexedPropertyDescriptor(propertyName, readMethod, writeMethod, a.indexedGetter, a.indexedSetter);
+            } catch (IntrospectionException ex) {
+                // inconsistent indexed methods, fall back to a regular descriptor (if any)
+            }
+        }
+        if (readMethod == null && writeMethod == null) {
+            return null;
+        }
+        return new PropertyDescriptor(propertyName, readMethod, writeMethod);
+    }
+
+    /**
+     * Tells whether method is absent or reads/writes an array (as required by {@link IndexedPropertyDescriptor}).
+     */
+    private static boolean isArrayTyped(Method method)
+    {
+        if (method == null) {
+            return true;
+        }
+        final Class type = (method.getParameterTypes().length == 0) ? method.getReturnType() : method.getParameterTypes()[0];
+
+        return type.isArray();
+    }
+
+    private static Method firstByParameterType(List<Method> methods)
+    {
+        Method result = null;
+
+        for (Method m : methods) {
+            if (result == null || m.getParameterTypes()[0].getName().compareTo(result.getParameterTypes()[0].getName()) < 0) {
+                result = m;
+            }
+        }
+        return result;
+    }
+
+    private static void addRecordComponents(Class targetClass, Map<String, PropertyDescriptor> result)
+            throws IntrospectionException
+    {
+        final Object components;
+        try {
+            components = CLASS_GET_RECORD_COMPONENTS.invoke(targetClass);
+        } catch (Exception ex) {
+            return;  // Unavailable (SecurityException, etc.)
+        }
+
+        for (int i = 0, icount = Array.getLength(components); i < icount; i++) {
+            final Object component = Array.get(components, i);
+            final String name;
+            final Method accessor;
+            try {
+                name = (String) RECORD_COMPONENT_GET_NAME.invoke(component);
+                accessor = (Method) RECORD_COMPONENT_GET_ACCESSOR.invoke(component);
+            } catch (Exception ex) {
+                continue;
+            }
+
+            if (accessor != null && !result.containsKey(name)) {
+                result.put(name, new PropertyDescriptor(name, accessor, null));
+            }
+        }
+    }
+
+    /**
+     * Adds the <code>x()</code> / <code>x(value)</code> pairs, where the write method returns either nothing or the
+     *   instance itself (builder style).  Requiring the pair keeps methods such as <code>Queue.remove()</code> from
+     *   being exposed as properties.  A public field of the same name is accessed directly, as it was before fluent
+     *   accessors were described.
+     */
+    private static void addFluentAccessors(Class targetClass, Map<String, List<Method>> fluentCandidates,
+                                           Map<String, PropertyDescriptor> result)
+            throws IntrospectionException
+    {
+        for (Map.Entry<String, List<Method>> entry : fluentCandidates.entrySet()) {
+            final String name = entry.getKey();
+            final List<Method> methods = entry.getValue();
+
+            if (methods.size() < 2 || result.containsKey(name) || hasPublicField(targetClass, name)) {
+                continue;
+            }
+
+            Method readMethod = null;
+            for (Method m : methods) {
+                if (m.getParameterTypes().length == 0 && m.getReturnType() != Void.TYPE) {
+                    readMethod = m;
+                    break;
+                }
+            }
+            if (readMethod == null) {
+                continue;
+            }
+            for (Method m : methods) {
+                final Class returnType = m.getReturnType();
+
+                if (m.getParameterTypes().length == 1 && m.getParameterTypes()[0] == readMethod.getReturnType()
+                        && (returnType == Void.TYPE || returnType.isAssignableFrom(targetClass))) {
+                    result.put(name, new PropertyDescriptor(name, readMethod, m));
+                    break;
+                }
+            }
+        }
+    }
+
+    private static boolean hasPublicField(Class targetClass, String name)
+    {
+        try {
+            targetClass.getField(name);
+            return true;
+        } catch (NoSuchFieldException ex) {
+            return false;
+        } catch (SecurityException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Tells whether the given class is a record class (always false before JDK 16).
+     *
+     * @param c the class to check.
+     * @return true if c is a record class.
+     */
+    static boolean isRecord(Class c)
+    {
+        if (CLASS_IS_RECORD == null) {
+            return false;
+        }
+        try {
+            return Boolean.TRUE.equals(CLASS_IS_RECORD.invoke(c));
+        } catch (Exception ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Same rules as {@link java.beans.Introspector#decapitalize(String)}: the first character is converted to lower
+     *   case, unless the first two characters are upper case (e.g. "URL" remains "URL").
+     *
+     * @param name the name to decapitalize.
+     * @return the decapitalized name.
+     */
+    static String decapitalize(String name)
+    {
+        if (name == null || name.length() == 0) {
+            return name;
+        }
+        if (name.length() > 1 && Character.isUpperCase(name.charAt(1)) && Character.isUpperCase(name.charAt(0))) {
+            return name;
+        }
+        final char[] chars = name.toCharArray();
+        chars[0] = Character.toLowerCase(chars[0]);
+        return new String(chars);
+    }
+}
@@ -37,10 +37,35 @@ import java.util.*;
  * @author Luke Blanshard (blanshlu@netscape.net)
  * @author Drew Davidson (drew@ognl.org)
  */
-public class CollectionElementsAccessor implements ElementsAccessor
+public class CollectionElementsAccessor extends AbstractElementsAccessor
 {
     public Enumeration getElements( Object target )
     {
         return new IteratorEnumeration( ((Collection)target).iterator() );
     }
+
+    public Iterator getIterator( Object target )
+    {
+        return ((Collection)target).iterator();
+    }
+
+    public Spliterator getSpliterator( Object target )
+    {
+        return ((Collection)target).spliterator();
+    }
+
+    public int getSize( Object target )
+    {
+        return ((Collection)target).size();
+    }
+
+    public boolean isRandomAccess( Object target )
+    {
+        return (target instanceof List) && (target instanceof RandomAccess);
+    }
+
+    public Object getElement( Object target, int index )
+    {
+        return ((List)target).get(index);
+    }
 }
@@ -0,0 +1,212 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * and/or LICENSE file distributed with this work for additional
+ * information regarding copyright ownership.  The ASF licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A run of consecutive projections (<code>{ expr }</code>) and selections (<code>{? expr }</code>) of a chain,
+ *   such as <code>orders.{? status == 'OPEN'}.{ total }</code>, evaluated as one pipeline: every element of the
+ *   source goes through all the stages before the next one is read, so that no intermediate list is built.
+ *
+ * The result is the same list the stages would build one after the other, only the order in which the stage
+ *   expressions are evaluated differs (element by element instead of stage by stage).  Pipelines are therefore only
+ *   used when the intermediate lists could not be observed: evaluations are neither traced, sampled nor profiled
+ *   and the elements of an ArrayList are accessed through the default {@link CollectionElementsAccessor}.  A source
+ *   large enough to be evaluated in parallel (see {@link OgnlContext#getParallelThreshold()}) is not fused either,
+ *   its stages being evaluated in parallel one after the other.
+ *
+ * Not intended for use outside of the package.
+ *
+ * @since 3.3.0
+ */
+final class CollectionPipeline
+{
+    private final Node[] _stages;
+    private final int _from;
+    private final int _to;
+
+    private CollectionPipeline(Node[] stages, int from, int to)
+    {
+        _stages = stages;
+        _from = from;
+        _to = to;
+    }
+
+    static boolean isStage(Node node)
+    {
+        return node instanceof ASTProject || node instanceof ASTSelect;
+    }
+
+    /**
+     * Returns the end (exclusive) of the run of stages starting at the given index.
+     */
+    static int getRunEnd(Node[] nodes, int from, int to)
+    {
+        int end = from;
+        while (end < to && isStage(nodes[end])) {
+            end++;
+        }
+        return end;
+    }
+
+    /**
+     * Returns true if a run of stages can be fused when evaluating it on the given source with the given context.
+     */
+    static boolean canFuse(OgnlContext context, Object source)
+            throws OgnlException
+    {
+        return !context.getTraceEvaluations()
+                && context.getSamplingTracer() == null
+                && OgnlRuntime.getElementsAccessor(ArrayList.class).getClass() == CollectionElementsAccessor.class
+                && !ParallelCollections.isSplit(context, source);
+    }
+
+    /**
+     * Evaluates the stages <code>[from, to)</code> of the given nodes on the elements of the source, in one pass.
+     *
+     * @return the list the last stage would have returned.
+     */
+    static List evaluate(OgnlContext context, Node[] nodes, int from, int to, Object source)
+            throws OgnlException
+    {
+        final IterableElementsAccessor elementsAccessor = OgnlRuntime.getIterableElementsAccessor(OgnlRuntime.getTargetClass(source));
+        final int size = elementsAccessor.getSize(source);
+        // only a run of projections keeps all the elements
+        final List answer = (size >= 0 && !hasSelection(nodes, from, to)) ? new ArrayList(size) : new ArrayList();
+        final Object[] value = new Object[1];
+
+        if (elementsAccessor.isRandomAccess(source)) {
+            for (int i = 0; i < size; i++) {
+                value[0] = elementsAccessor.getElement(source, i);
+                if (apply(context, nodes, from, to, value)) {
+                    answer.add(value[0]);
+                }
+            }
+            return answer;
+        }
+
+        for (Iterator it = elementsAccessor.getIterator(source); it.hasNext();) {
+            value[0] = it.next();
+            if (apply(context, nodes, from, to, value)) {
+                answer.add(value[0]);
+            }
+        }
+        return answer;
+    }
+
+    private static boolean hasSelection(Node[] nodes, int from, int to)
+    {
+        for (int i = from; i < to; i++) {
+            if (nodes[i] instanceof ASTSelect) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns a lazy view of the stages <code>[from, to)</code> applied to the elements of the source: each call
+     * to {@link Iterator#next()} pulls source elements and evaluates the stage expressions, with the given context,
+     * until one passes all the selections.  Exceptions raised by the expressions are rethrown as
+     * {@link UncheckedOgnlException}s.
+     */
+    static Iterable lazy(OgnlContext context, Node[] nodes, int from, int to, Object source)
+    {
+        final CollectionPipeline pipeline = new CollectionPipeline(nodes, from, to);
+        return new Iterable() {
+            public Iterator iterator()
+            {
+                try {
+                    return pipeline.new PipelineIterator(context, source);
+                } catch (OgnlException ex) {
+                    throw new UncheckedOgnlException(ex);
+                }
+            }
+        };
+    }
+
+    /**
+     * Applies the stages to <code>value[0]</code>, replacing it with the projected value.
+     *
+     * @return false if a selection rejected the value.
+     */
+    private static boolean apply(OgnlContext context, Node[] nodes, int from, int to, Object[] value)
+            throws OgnlException
+    {
+        for (int i = from; i < to; i++) {
+            final Node expr = nodes[i].jjtGetChild(0);
+            if (nodes[i] instanceof ASTSelect) {
+                if (!OgnlOps.booleanValue(expr.getValue(context, value[0]))) {
+                    return false;
+                }
+            } else {
+                value[0] = expr.getValue(context, value[0]);
+            }
+        }
+        return true;
+    }
+
+    private final class PipelineIterator implements Iterator
+    {
+        private final OgnlContext _context;
+        private final Iterator _elements;
+        private final Object[] _next = new Object[1];
+        private boolean _hasNext;
+
+        PipelineIterator(OgnlContext context, Object source)
+                throws OgnlException
+        {
+            _context = context;
+            _elements = OgnlRuntime.getIterableElementsAccessor(OgnlRuntime.getTargetClass(source)).getIterator(source);
+        }
+
+        public boolean hasNext()
+        {
+            try {
+                while (!_hasNext && _elements.hasNext()) {
+                    _next[0] = _elements.next();
+                    _hasNext = apply(_context, _stages, _from, _to, _next);
+                }
+                return _hasNext;
+            } catch (OgnlException ex) {
+                throw new UncheckedOgnlException(ex);
+            }
+        }
+
+        public Object next()
+        {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            _hasNext = false;
+            final Object result = _next[0];
+            _next[0] = null;
+            return result;
+        }
+
+        public void remove()
+        {
+            throw new UnsupportedOperationException("remove");
+        }
+    }
+}
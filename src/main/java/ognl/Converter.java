@@ -0,0 +1,36 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * and/or LICENSE file distributed with this work for additional
+ * information regarding copyright ownership.  The ASF licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl;
+
+/**
+ * Conversion of the values of one class to another class, as resolved and cached by a {@link ConverterRegistry}
+ * for a (source class, target class) pair.  Implementations must be thread-safe.
+ *
+ * @since 3.3.0
+ */
+public interface Converter
+{
+    /**
+     * Converts the given value.
+     *
+     * @param value the value to convert, never null.
+     * @return the converted value, or null if the value cannot be converted.
+     */
+    Object convert(Object value);
+}
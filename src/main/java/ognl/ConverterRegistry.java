@@ -0,0 +1,427 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * and/or LICENSE file distributed with this work for additional
+ * information regarding copyright ownership.  The ASF licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Registry of the {@link Converter}s used to convert values, see {@link #convertValue(Object, Class, boolean)}.  The
+ * conversion of a (source class, target class) pair is resolved once and cached, so that converting a value is a
+ * lookup and a direct call instead of a sequence of type tests.  The built-in conversions are those of
+ * {@link OgnlOps#convertValue(Object, Class, boolean)}, and box their results with the cached wrapper instances.
+ *
+ * The resolved converters are held by {@link ClassValue}s: the converter of a pair is reachable from the target class
+ * only, through a class value held by the source class, so that caching a conversion from or to the classes of an
+ * application does not keep them (nor their class loader) reachable from the classes of the JDK.  The cache is
+ * dropped on registration and by {@link #clearCache()}, which {@link OgnlRuntime#clearCache()} calls for the built-in
+ * and the default registries.
+ *
+ * Applications can {@link #register(Class, Class, Converter)} their own converters, which take precedence over the
+ * built-in ones.  {@link #getDefault()} is the registry of the {@link DefaultTypeConverter}s created without one;
+ * {@link OgnlOps#convertValue(Object, Class, boolean)} itself only uses the built-in conversions.
+ *
+ * @since 3.3.0
+ */
+public class ConverterRegistry implements NumericTypes
+{
+    private static final ConverterRegistry BUILT_IN = new ConverterRegistry();
+    private static final ConverterRegistry DEFAULT = new ConverterRegistry();
+
+    private static final Converter IDENTITY = new Converter() {
+        public Object convert(Object value)
+        {
+            return value;
+        }
+    };
+
+    private static final Converter UNSUPPORTED = new Converter() {
+        public Object convert(Object value)
+        {
+            return null;
+        }
+    };
+
+    private static final Converter TO_STRING = new Converter() {
+        public Object convert(Object value)
+        {
+            return OgnlOps.stringValue(value);
+        }
+    };
+
+    private static final Converter TO_CHAR_ARRAY = new Converter() {
+        public Object convert(Object value)
+        {
+            return OgnlOps.stringValue(value).toCharArray();
+        }
+    };
+
+    private static final Converter COLLECTION_TO_ARRAY = new Converter() {
+        public Object convert(Object value)
+        {
+            return ((Collection) value).toArray(new Object[0]);
+        }
+    };
+
+    private static final Converter TO_SINGLETON_ARRAY = new Converter() {
+        public Object convert(Object value)
+        {
+            return new Object[] { value };
+        }
+    };
+
+    private static final Map<Class, Integer> NUMERIC_TYPES = new HashMap<Class, Integer>();
+
+    static {
+        NUMERIC_TYPES.put(Boolean.class, BOOL);
+        NUMERIC_TYPES.put(Boolean.TYPE, BOOL);
+        NUMERIC_TYPES.put(Byte.class, BYTE);
+        NUMERIC_TYPES.put(Byte.TYPE, BYTE);
+        NUMERIC_TYPES.put(Character.class, CHAR);
+        NUMERIC_TYPES.put(Character.TYPE, CHAR);
+        NUMERIC_TYPES.put(Short.class, SHORT);
+        NUMERIC_TYPES.put(Short.TYPE, SHORT);
+        NUMERIC_TYPES.put(Integer.class, INT);
+        NUMERIC_TYPES.put(Integer.TYPE, INT);
+        NUMERIC_TYPES.put(Long.class, LONG);
+        NUMERIC_TYPES.put(Long.TYPE, LONG);
+        NUMERIC_TYPES.put(BigInteger.class, BIGINT);
+        NUMERIC_TYPES.put(Float.class, FLOAT);
+        NUMERIC_TYPES.put(Float.TYPE, FLOAT);
+        NUMERIC_TYPES.put(Double.class, DOUBLE);
+        NUMERIC_TYPES.put(Double.TYPE, DOUBLE);
+        NUMERIC_TYPES.put(BigDecimal.class, BIGDEC);
+    }
+
+    /** Registered converters, by target class then source class; replaced (never modified) on registration. */
+    private volatile Map<Class, Map<Class, Converter>> _registered = new HashMap<Class, Map<Class, Converter>>();
+    /** Resolved converters, by source class then target class. */
+    private volatile ClassValue<TargetConverters> _converters = newCache();
+
+    /**
+     * Returns the registry of the {@link DefaultTypeConverter}s created without one.
+     *
+     * @return the default registry.
+     */
+    public static ConverterRegistry getDefault()
+    {
+        return DEFAULT;
+    }
+
+    /**
+     * Returns the registry of the built-in conversions, used by {@link OgnlOps#convertValue(Object, Class, boolean)}.
+     * Nothing is ever registered to it.
+     */
+    static ConverterRegistry getBuiltIn()
+    {
+        return BUILT_IN;
+    }
+
+    private ClassValue<TargetConverters> newCache()
+    {
+        return new ClassValue<TargetConverters>() {
+            @Override
+            protected TargetConverters computeValue(Class<?> type)
+            {
+                return new TargetConverters(ConverterRegistry.this, type);
+            }
+        };
+    }
+
+    /**
+     * Registers a converter of the values of the given source class, or of its subclasses and implementations, to
+     * the given target class.  A converter registered for the exact source class of a value takes precedence over
+     * one registered for a superclass, which takes precedence over one registered for an interface.  Values that are
+     * already instances of the target class are never converted.
+     *
+     * @param fromType the source class.
+     * @param toType the target class, primitive types and their wrapper classes are distinct targets.
+     * @param converter the converter, or null to remove the converter registered for the pair.
+     */
+    public synchronized void register(Class fromType, Class toType, Converter converter)
+    {
+        if (this == BUILT_IN) {
+            throw new IllegalStateException("The built-in conversions cannot be changed");
+        }
+
+        final Map<Class, Map<Class, Converter>> registered = new HashMap<Class, Map<Class, Converter>>(_registered);
+        final Map<Class, Converter> converters = registered.containsKey(toType)
+                ? new HashMap<Class, Converter>(registered.get(toType))
+                : new HashMap<Class, Converter>();
+
+        if (converter != null) {
+            converters.put(fromType, converter);
+        } else {
+            converters.remove(fromType);
+        }
+        registered.put(toType, converters);
+
+        _registered = registered;
+        _converters = newCache();
+    }
+
+    /**
+     * Drops the resolved converters, which are resolved again on the next conversions.
+     */
+    public synchronized void clearCache()
+    {
+        _converters = newCache();
+    }
+
+    /**
+     * Returns the converter of the values of the given source class to the given target class.  It is resolved
+     * once, then cached until the next registration.
+     *
+     * @param fromType the source class.
+     * @param toType the target class.
+     * @return the converter, which returns null for values it cannot convert.
+     */
+    public Converter getConverter(Class fromType, Class toType)
+    {
+        return _converters.get(fromType).get(toType);
+    }
+
+    /**
+     * Converts the given value to the given type.
+     *
+     * @param value the value to convert.
+     * @param toType the type to convert to.
+     * @return the converted value (see {@link #convertValue(Object, Class, boolean)}).
+     */
+    public Object convertValue(Object value, Class toType)
+    {
+        return convertValue(value, toType, false);
+    }
+
+    /**
+     * Converts the given value to the given type.  Null values are converted to the default value of primitive types
+     * and, if <code>preventNulls</code> is set, of the numeric and boolean wrapper types; otherwise they stay null.
+     *
+     * @param value the value to convert.
+     * @param toType the type to convert to.
+     * @param preventNulls whether to return the value itself, or the default value of the type for null values,
+     *                     instead of null.
+     * @return the converted value.
+     * @throws IllegalArgumentException if a non-null value cannot be converted and <code>preventNulls</code> is not
+     *                                  set.
+     */
+    public Object convertValue(Object value, Class toType, boolean preventNulls)
+    {
+        Object result = null;
+
+        if (value != null) {
+            result = getConverter(value.getClass(), toType).convert(value);
+
+            if (result == null && value.getClass().isArray() && !toType.isArray()) {
+                // the first element of the array was null
+                return null;
+            }
+        } else {
+            if (toType.isPrimitive()) {
+                result = OgnlRuntime.getPrimitiveDefaultValue(toType);
+            } else if (preventNulls && toType == Boolean.class) {
+                result = Boolean.FALSE;
+            } else if (preventNulls && Number.class.isAssignableFrom(toType)) {
+                result = OgnlRuntime.getNumericDefaultValue(toType);
+            }
+        }
+
+        if (result == null && preventNulls)
+            return value;
+
+        if (value != null && result == null) {
+
+            throw new IllegalArgumentException("Unable to convert type " + value.getClass().getName() + " of " + value + " to type of " + toType.getName());
+        }
+
+        return result;
+    }
+
+    private Converter resolve(Class fromType, Class toType)
+    {
+        if (toType.isAssignableFrom(fromType)) {
+            return IDENTITY;
+        }
+
+        final Map<Class, Converter> registered = _registered.get(toType);
+        if (registered != null) {
+            final Converter converter = findRegistered(registered, fromType);
+            if (converter != null) {
+                return converter;
+            }
+        }
+
+        return createBuiltIn(fromType, toType);
+    }
+
+    private static Converter findRegistered(Map<Class, Converter> registered, Class fromType)
+    {
+        final List<Class> interfaces = new ArrayList<Class>();
+
+        for (Class c = fromType; c != null; c = c.getSuperclass()) {
+            final Converter converter = registered.get(c);
+            if (converter != null) {
+                return converter;
+            }
+            interfaces.add(c);
+        }
+        // breadth first through the interfaces of the classes, then their superinterfaces
+        for (int i = 0; i < interfaces.size(); i++) {
+            final Class c = interfaces.get(i);
+            if (c.isInterface()) {
+                final Converter converter = registered.get(c);
+                if (converter != null) {
+                    return converter;
+                }
+            }
+            for (Class superInterface : c.getInterfaces()) {
+                if (!interfaces.contains(superInterface)) {
+                    interfaces.add(superInterface);
+                }
+            }
+        }
+        return null;
+    }
+
+    private Converter createBuiltIn(Class fromType, final Class toType)
+    {
+        if (toType.isPrimitive() && OgnlRuntime.getPrimitiveWrapperClass(toType) == fromType) {
+            // the value is already the wrapper of the primitive type
+            return IDENTITY;
+        }
+
+        if (fromType.isArray()) {
+            if (toType.isArray()) {
+                final Class componentType = toType.getComponentType();
+
+                return new Converter() {
+                    public Object convert(Object value)
+                    {
+                        return ArrayAccess.convert(value, componentType, ConverterRegistry.this);
+                    }
+                };
+            }
+            return new Converter() {
+                public Object convert(Object value)
+                {
+                    return convertValue(ArrayAccess.of(value).get(value, 0), toType);
+                }
+            };
+        }
+
+        if (toType.isArray()) {
+            if (toType.getComponentType() == Character.TYPE) {
+                return TO_CHAR_ARRAY;
+            }
+            if (toType.getComponentType() == Object.class) {
+                return Collection.class.isAssignableFrom(fromType) ? COLLECTION_TO_ARRAY : TO_SINGLETON_ARRAY;
+            }
+            return UNSUPPORTED;
+        }
+
+        if (toType == String.class) {
+            return TO_STRING;
+        }
+
+        final Integer numericType = NUMERIC_TYPES.get(toType);
+        if (numericType == null) {
+            return UNSUPPORTED;
+        }
+        return new NumericConverter(numericType.intValue(), fromType.getSuperclass() == Number.class);
+    }
+
+    /**
+     * The converters of the values of one source class, by target class.  Held by the source class, it references
+     * neither the target classes nor the cache holding it.
+     */
+    private static final class TargetConverters extends ClassValue<Converter>
+    {
+        private final ConverterRegistry _registry;
+        private final Class _fromType;
+
+        TargetConverters(ConverterRegistry registry, Class fromType)
+        {
+            _registry = registry;
+            _fromType = fromType;
+        }
+
+        @Override
+        protected Converter computeValue(Class<?> toType)
+        {
+            return _registry.resolve(_fromType, toType);
+        }
+    }
+
+    /**
+     * Converts to the numeric (and boolean and char) types, as {@link OgnlOps#longValue(Object)} and
+     * {@link OgnlOps#doubleValue(Object)} do, reading the values of plain {@link Number}s directly.
+     */
+    private static final class NumericConverter implements Converter
+    {
+        private final int _type;
+        private final boolean _fromNumber;
+
+        NumericConverter(int type, boolean fromNumber)
+        {
+            _type = type;
+            _fromNumber = fromNumber;
+        }
+
+        public Object convert(Object value)
+        {
+            switch (_type) {
+                case BOOL:
+                    return OgnlOps.booleanValue(value) ? Boolean.TRUE : Boolean.FALSE;
+                case BYTE:
+                    return Byte.valueOf((byte) longValue(value));
+                case CHAR:
+                    return Character.valueOf((char) longValue(value));
+                case SHORT:
+                    return Short.valueOf((short) longValue(value));
+                case INT:
+                    return Integer.valueOf((int) longValue(value));
+                case LONG:
+                    return Long.valueOf(longValue(value));
+                case BIGINT:
+                    return OgnlOps.bigIntValue(value);
+                case FLOAT:
+                    return Float.valueOf((float) doubleValue(value));
+                case DOUBLE:
+                    return Double.valueOf(doubleValue(value));
+                default:
+                    return OgnlOps.bigDecValue(value);
+            }
+        }
+
+        private long longValue(Object value)
+        {
+            return _fromNumber ? ((Number) value).longValue() : OgnlOps.longValue(value);
+        }
+
+        private double doubleValue(Object value)
+        {
+            return _fromNumber ? ((Number) value).doubleValue() : OgnlOps.doubleValue(value);
+        }
+    }
+}
@@ -34,20 +34,49 @@ import java.lang.reflect.Member;
 import java.util.Map;
 
 /**
- * Default type conversion.  Converts among numeric types and also strings.
+ * Default type conversion.  Converts among numeric types and also strings, with the converters of a
+ * {@link ConverterRegistry}.
  * @author Luke Blanshard (blanshlu@netscape.net)
  * @author Drew Davidson (drew@ognl.org)
  */
 public class DefaultTypeConverter implements TypeConverter
 {
+    private final ConverterRegistry _registry;
+
+    /**
+     * Creates a converter using the default registry, see {@link ConverterRegistry#getDefault()}.
+     */
     public DefaultTypeConverter()
+    {
+        this(ConverterRegistry.getDefault());
+    }
+
+    /**
+     * Creates a converter using the given registry.
+     *
+     * @param registry the registry of the converters.
+     * @since 3.3.0
+     */
+    public DefaultTypeConverter(ConverterRegistry registry)
     {
         super();
+        _registry = registry;
+    }
+
+    /**
+     * Returns the registry of the converters used by this converter.
+     *
+     * @return the registry.
+     * @since 3.3.0
+     */
+    public ConverterRegistry getRegistry()
+    {
+        return _registry;
     }
 
     public Object convertValue(Map context, Object value, Class toType)
     {
-        return OgnlOps.convertValue(value, toType);
+        return _registry.convertValue(value, toType);
     }
 
     public Object convertValue(Map context, Object target, Member member, String propertyName, Object value, Class toType)
@@ -31,7 +31,7 @@
 package ognl;
 
 import java.util.Enumeration;
-
+import java.util.Iterator;
 
 /**
  * Implementation of the ElementsAccessor interface for Enumerations, which returns an
@@ -39,10 +39,15 @@ import java.util.Enumeration;
  * @author Luke Blanshard (blanshlu@netscape.net)
  * @author Drew Davidson (drew@ognl.org)
  */
-public class EnumerationElementsAccessor implements ElementsAccessor
+public class EnumerationElementsAccessor extends AbstractElementsAccessor
 {
     public Enumeration getElements( Object target )
     {
     	return (Enumeration)target;
     }
+
+    public Iterator getIterator( Object target )
+    {
+        return new EnumerationIterator( (Enumeration)target );
+    }
 }
@@ -0,0 +1,232 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * and/or LICENSE file distributed with this work for additional
+ * information regarding copyright ownership.  The ASF licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A group of expressions evaluated together against the same root, such as the fields of a form or the columns of a
+ *   report.  The navigation chains of the expressions are merged into a prefix trie when the group is created, so
+ *   that a prefix shared by several expressions (<code>customer</code> and <code>customer.address</code> in
+ *   <code>customer.address.street</code>, <code>customer.address.city</code> and <code>customer.name</code>) is
+ *   navigated once per root instead of once per expression.
+ *
+ * Only plain property navigations (a constant property name, not followed by an index) are shared; the rest of each
+ *   expression is evaluated as it would be by {@link Ognl#getValue(Object, Map, Object)}.  Because of the sharing,
+ *   the expressions are not evaluated one after the other: a prefix is navigated once, then the expressions ending
+ *   under it are evaluated, in the order they were given.  Expressions with side effects on the shared prefixes
+ *   should not be grouped.
+ *
+ * A group is immutable and can be shared by threads, as long as each of them uses its own context.
+ *
+ * @since 3.3.0
+ */
+public final class ExpressionGroup
+{
+    private final Node[] _trees;
+    /* Index of the first link of each chain that is not shared, 0 if the tree is evaluated as a whole */
+    private final int[] _from;
+    private final Branch _root = new Branch(null);
+
+    /**
+     * Creates a group of the given expressions.
+     *
+     * @param trees the OGNL expression trees of the group, as returned by {@link Ognl#parseExpression(String)}.
+     */
+    public ExpressionGroup(Object[] trees)
+    {
+        _trees = new Node[trees.length];
+        _from = new int[trees.length];
+
+        for (int i = 0; i < trees.length; i++) {
+            final Node tree = (Node) trees[i];
+            Branch branch = _root;
+            int from = 0;
+
+            if (tree instanceof ASTChain && tree.getAccessor() == null) {
+                final int last = tree.jjtGetNumChildren() - 1;
+
+                while (from < last && isShared(tree.jjtGetChild(from), tree.jjtGetChild(from + 1))) {
+                    branch = branch.getChild((ASTProperty) tree.jjtGetChild(from));
+                    from++;
+                }
+            }
+
+            _trees[i] = tree;
+            _from[i] = from;
+            branch._leaves.add(Integer.valueOf(i));
+        }
+    }
+
+    private static boolean isShared(Node link, Node next)
+    {
+        if (!(link instanceof ASTProperty) || ((ASTProperty) link).isIndexedAccess()
+            || link.jjtGetNumChildren() != 1 || !(link.jjtGetChild(0) instanceof ASTConst)
+            || !(((ASTConst) link.jjtGetChild(0)).getValue() instanceof String)) {
+            return false;
+        }
+        // an indexed property ("items[1]") is navigated by the chain as a pair of links
+        return !(next instanceof ASTProperty) || !((ASTProperty) next).isIndexedAccess();
+    }
+
+    /**
+     * @return the number of expressions of this group.
+     */
+    public int size()
+    {
+        return _trees.length;
+    }
+
+    /**
+     * @param index the index of the expression, in the order given to the constructor.
+     * @return the expression tree.
+     */
+    public Object getExpression(int index)
+    {
+        return _trees[index];
+    }
+
+    /**
+     * Evaluates all the expressions of this group against the given root, navigating each shared prefix once.
+     *
+     * @param context the naming context for the evaluation.
+     * @param root the root object for the OGNL expressions.
+     * @return the results of the expressions, in the order of the expressions.
+     * @throws OgnlException if one of the evaluations fails.
+     */
+    public Object[] getValues(Map context, Object root)
+            throws OgnlException
+    {
+        final OgnlContext ognlContext = (OgnlContext) Ognl.addDefaultContext(root, context);
+        final Object[] results = new Object[_trees.length];
+
+        if (ognlContext.getTraceEvaluations()) {
+            for (int i = 0; i < _trees.length; i++) {
+                results[i] = Ognl.getValue(_trees[i], ognlContext, root);
+            }
+        } else {
+            getValues(ognlContext, _root, root, results);
+        }
+        return results;
+    }
+
+    private void getValues(OgnlContext context, Branch branch, Object source, Object[] results)
+            throws OgnlException
+    {
+        for (int i = 0, size = branch._leaves.size(); i < size; i++) {
+            final int index = ((Integer) branch._leaves.get(i)).intValue();
+            final Node tree = _trees[index];
+
+            if (_from[index] > 0) {
+                results[index] = ((ASTChain) tree).getValue(context, source, _from[index], tree.jjtGetNumChildren());
+            } else if (tree.getAccessor() != null) {
+                results[index] = tree.getAccessor().get(context, source);
+            } else {
+                results[index] = tree.getValue(context, source);
+            }
+        }
+        for (int i = 0, size = branch._children.size(); i < size; i++) {
+            final Branch child = (Branch) branch._children.get(i);
+            getValues(context, child, child._link.getValue(context, source), results);
+        }
+    }
+
+    /**
+     * Sets the values of all the expressions of this group in the object graph rooted at the given root, navigating
+     *   each shared prefix once.  The expressions ending under a prefix are assigned before the prefix is navigated
+     *   any further.
+     *
+     * @param context the naming context for the evaluation.
+     * @param root the root object for the OGNL expressions.
+     * @param values the values to assign, in the order of the expressions.
+     * @throws IllegalArgumentException if the number of values is not the number of expressions.
+     * @throws OgnlException if one of the evaluations fails.
+     */
+    public void setValues(Map context, Object root, Object[] values)
+            throws OgnlException
+    {
+        if (values.length != _trees.length) {
+            throw new IllegalArgumentException("Expected " + _trees.length + " values, got " + values.length);
+        }
+
+        final OgnlContext ognlContext = (OgnlContext) Ognl.addDefaultContext(root, context);
+
+        if (ognlContext.getTraceEvaluations()) {
+            for (int i = 0; i < _trees.length; i++) {
+                Ognl.setValue(_trees[i], ognlContext, root, values[i]);
+            }
+        } else {
+            setValues(ognlContext, _root, root, values);
+        }
+    }
+
+    private void setValues(OgnlContext context, Branch branch, Object target, Object[] values)
+            throws OgnlException
+    {
+        for (int i = 0, size = branch._leaves.size(); i < size; i++) {
+            final int index = ((Integer) branch._leaves.get(i)).intValue();
+            final Node tree = _trees[index];
+
+            if (_from[index] > 0) {
+                ((ASTChain) tree).setValue(context, target, values[index], _from[index]);
+            } else if (tree.getAccessor() != null) {
+                tree.getAccessor().set(context, target, values[index]);
+            } else {
+                tree.setValue(context, target, values[index]);
+            }
+        }
+        for (int i = 0, size = branch._children.size(); i < size; i++) {
+            final Branch child = (Branch) branch._children.get(i);
+            setValues(context, child, child._link.getValue(context, target), values);
+        }
+    }
+
+    /**
+     * A node of the prefix trie: the property navigated to reach it, the expressions ending under it and the longer
+     *   prefixes.
+     */
+    private static final class Branch
+    {
+        final ASTProperty _link;
+        final List _leaves = new ArrayList();
+        final List _children = new ArrayList();
+        private final Map _childrenByName = new HashMap();
+
+        Branch(ASTProperty link)
+        {
+            _link = link;
+        }
+
+        Branch getChild(ASTProperty link)
+        {
+            final Object name = ((ASTConst) link.jjtGetChild(0)).getValue();
+            Branch result = (Branch) _childrenByName.get(name);
+
+            if (result == null) {
+                result = new Branch(link);
+                _childrenByName.put(name, result);
+                _children.add(result);
+            }
+            return result;
+        }
+    }
+}
@@ -70,6 +70,14 @@ public abstract class ExpressionNode extends SimpleNode
         return result;
     }
 
+    /**
+     * Returns the runtime type feedback of this node, if it is an arithmetic or comparison node.
+     */
+    OperatorSpecialization getSpecialization()
+    {
+        return null;
+    }
+
     public String getExpressionOperator(int index)
     {
         throw new RuntimeException("unknown operator for " + OgnlParserTreeConstants.jjtNodeName[_id]);
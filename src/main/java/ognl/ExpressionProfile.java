@@ -0,0 +1,222 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * and/or LICENSE file distributed with this work for additional
+ * information regarding copyright ownership.  The ASF licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The cost breakdown of an expression, as measured by {@link Ognl#profile(Object, java.util.Map, Object, int)}: a
+ *   tree of {@link NodeProfile node profiles} mirroring the tree of the expression.  Each node profile holds the
+ *   times spent in the node, the reflective invocations, runtime cache misses and type conversions it performed
+ *   itself, and whether the compiler would be able to generate java source for it.
+ *
+ * @since 3.3.0
+ */
+public final class ExpressionProfile
+{
+    private final Node _expression;
+    private final int _iterations;
+    private final NodeProfile _root;
+
+    ExpressionProfile(Node expression, int iterations, NodeProfile root)
+    {
+        _expression = expression;
+        _iterations = iterations;
+        _root = root;
+    }
+
+    public Node getExpression()
+    {
+        return _expression;
+    }
+
+    /**
+     * @return the number of times the expression was evaluated.
+     */
+    public int getIterations()
+    {
+        return _iterations;
+    }
+
+    /**
+     * @return the profile of the root node of the expression.
+     */
+    public NodeProfile getRoot()
+    {
+        return _root;
+    }
+
+    /**
+     * @return the total time spent evaluating the expression, over all the iterations.
+     */
+    public long getTotalNanos()
+    {
+        return _root.getTotalNanos();
+    }
+
+    /**
+     * @return true if the whole expression can be compiled, see {@link NodeProfile#isCompilable()}.
+     */
+    public boolean isCompilable()
+    {
+        return _root.isCompilable();
+    }
+
+    /**
+     * Renders the profile as an indented tree, one node per line.
+     */
+    public String toString()
+    {
+        final StringBuilder result = new StringBuilder();
+
+        result.append(_expression).append(" (").append(_iterations).append(" iterations)\n");
+        _root.append(result, "");
+        return result.toString();
+    }
+
+    /**
+     * The profile of a node of the expression.  Times and counts are summed over all the iterations.
+     */
+    public static final class NodeProfile
+    {
+        final Node _node;
+        final List<NodeProfile> _children = new ArrayList<NodeProfile>();
+        long _evaluations;
+        long _totalNanos;
+        long _selfNanos;
+        long _invocations;
+        long _cacheMisses;
+        long _conversions;
+        Object _lastSource;
+        boolean _evaluated;
+        String _compilationFailure;
+
+        NodeProfile(Node node)
+        {
+            _node = node;
+        }
+
+        public Node getNode()
+        {
+            return _node;
+        }
+
+        public List<NodeProfile> getChildren()
+        {
+            return Collections.unmodifiableList(_children);
+        }
+
+        /**
+         * @return the number of times the node was evaluated (nodes can be evaluated several times per iteration,
+         *         or not at all).
+         */
+        public long getEvaluationCount()
+        {
+            return _evaluations;
+        }
+
+        /**
+         * @return the time spent evaluating the node, including its children.
+         */
+        public long getTotalNanos()
+        {
+            return _totalNanos;
+        }
+
+        /**
+         * @return the time spent evaluating the node, excluding its children.
+         */
+        public long getSelfNanos()
+        {
+            return _selfNanos;
+        }
+
+        /**
+         * @return the number of reflective method invocations (getters, setters and methods) done by the node itself.
+         */
+        public long getInvocationCount()
+        {
+            return _invocations;
+        }
+
+        /**
+         * @return the number of misses of the runtime caches (property descriptors, access plans, methods, fields,
+         *         method invokers) done by the node itself.
+         */
+        public long getCacheMissCount()
+        {
+            return _cacheMisses;
+        }
+
+        /**
+         * @return the number of conversions done through the {@link TypeConverter} by the node itself.
+         */
+        public long getConversionCount()
+        {
+            return _conversions;
+        }
+
+        /**
+         * Tells whether the compiler can generate java source for this node.  The node is checked on its own,
+         *   against the last object it was evaluated with, the way the compiler would check it; nodes that were
+         *   not evaluated are not checked and are reported as compilable.
+         *
+         * @return true unless generating the source of the node failed.
+         */
+        public boolean isCompilable()
+        {
+            return _compilationFailure == null;
+        }
+
+        /**
+         * @return the reason why the node cannot be compiled (usually the message of the
+         *         <code>UnsupportedCompilationException</code>), null if it can.
+         */
+        public String getCompilationFailure()
+        {
+            return _compilationFailure;
+        }
+
+        void append(StringBuilder result, String indent)
+        {
+            result.append(indent).append(_node.getClass().getSimpleName()).append(' ').append(_node)
+                    .append(": evaluations=").append(_evaluations)
+                    .append(", total=").append(_totalNanos).append("ns")
+                    .append(", self=").append(_selfNanos).append("ns");
+            if (_invocations > 0) {
+                result.append(", invocations=").append(_invocations);
+            }
+            if (_cacheMisses > 0) {
+                result.append(", cacheMisses=").append(_cacheMisses);
+            }
+            if (_conversions > 0) {
+                result.append(", conversions=").append(_conversions);
+            }
+            if (_compilationFailure != null) {
+                result.append(", not compilable: ").append(_compilationFailure);
+            }
+            result.append('\n');
+            for (NodeProfile child : _children) {
+                child.append(result, indent + "  ");
+            }
+        }
+    }
+}
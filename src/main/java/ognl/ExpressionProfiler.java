@@ -0,0 +1,254 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * and/or LICENSE file distributed with this work for additional
+ * information regarding copyright ownership.  The ASF licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl;
+
+import ognl.enhance.UnsupportedCompilationException;
+
+import java.lang.reflect.Member;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures the evaluations of the nodes of an expression for {@link Ognl#profile(Object, Map, Object, int)}.  It is
+ *   installed on the context used for profiling (see {@link SimpleNode#getValue(OgnlContext, Object)}), and on the
+ *   profiling thread, so that the runtime can attribute reflective invocations, cache misses and type conversions to
+ *   the node being evaluated.  When no profiler is running the runtime hooks cost a volatile read.
+ *
+ * Not intended for use outside of the package.
+ *
+ * @since 3.3.0
+ */
+final class ExpressionProfiler
+{
+    private static final AtomicInteger RUNNING = new AtomicInteger();
+    private static final ThreadLocal<ExpressionProfiler> CURRENT = new ThreadLocal<ExpressionProfiler>();
+
+    private final Map<Node, ExpressionProfile.NodeProfile> _profiles = new IdentityHashMap<Node, ExpressionProfile.NodeProfile>();
+    private final ExpressionProfile.NodeProfile _root;
+
+    /* The node profiles being evaluated, innermost last, with the time spent in their (profiled) children */
+    private ExpressionProfile.NodeProfile[] _stack = new ExpressionProfile.NodeProfile[16];
+    private long[] _childNanos = new long[16];
+    private int _depth;
+
+    ExpressionProfiler(Node expression)
+    {
+        _root = createProfile(expression);
+    }
+
+    private ExpressionProfile.NodeProfile createProfile(Node node)
+    {
+        final ExpressionProfile.NodeProfile result = new ExpressionProfile.NodeProfile(node);
+
+        _profiles.put(node, result);
+        for (int i = 0, count = node.jjtGetNumChildren(); i < count; i++) {
+            result._children.add(createProfile(node.jjtGetChild(i)));
+        }
+        return result;
+    }
+
+    /**
+     * Evaluates the given expression with this profiler the given number of times.
+     */
+    ExpressionProfile profile(OgnlContext context, Object root, int iterations)
+            throws OgnlException
+    {
+        final Node expression = _root._node;
+        final OgnlContext frame = new OgnlContext(context.getMemberAccess(), context.getClassResolver(),
+                new CountingTypeConverter(context.getTypeConverter()), context.lendValues());
+        frame.setRoot(root);
+        frame.setProfiler(this);
+
+        final ExpressionProfiler previous = CURRENT.get();
+        CURRENT.set(this);
+        RUNNING.incrementAndGet();
+        try {
+            for (int i = 0; i < iterations; i++) {
+                expression.getValue(frame, root);
+            }
+        } finally {
+            RUNNING.decrementAndGet();
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+
+        checkCompilation(context, root, _root);
+        return new ExpressionProfile(expression, iterations, _root);
+    }
+
+    Object getValue(OgnlContext context, SimpleNode node, Object source)
+            throws OgnlException
+    {
+        final ExpressionProfile.NodeProfile profile = _profiles.get(node);
+
+        if (profile == null) {
+            // not a node of the profiled expression (an evaluated sub-expression): accounted to the enclosing node
+            return node.evaluateGetValueBody(context, source);
+        }
+
+        enter(profile, source);
+        final long start = System.nanoTime();
+        try {
+            return node.evaluateGetValueBody(context, source);
+        } finally {
+            exit(System.nanoTime() - start);
+        }
+    }
+
+    void setValue(OgnlContext context, SimpleNode node, Object target, Object value)
+            throws OgnlException
+    {
+        final ExpressionProfile.NodeProfile profile = _profiles.get(node);
+
+        if (profile == null) {
+            node.evaluateSetValueBody(context, target, value);
+            return;
+        }
+
+        enter(profile, target);
+        final long start = System.nanoTime();
+        try {
+            node.evaluateSetValueBody(context, target, value);
+        } finally {
+            exit(System.nanoTime() - start);
+        }
+    }
+
+    private void enter(ExpressionProfile.NodeProfile profile, Object source)
+    {
+        if (_depth == _stack.length) {
+            _stack = Arrays.copyOf(_stack, _depth * 2);
+            _childNanos = Arrays.copyOf(_childNanos, _depth * 2);
+        }
+        _stack[_depth] = profile;
+        _childNanos[_depth] = 0;
+        _depth++;
+
+        profile._evaluations++;
+        profile._lastSource = source;
+        profile._evaluated = true;
+    }
+
+    private void exit(long nanos)
+    {
+        _depth--;
+        final ExpressionProfile.NodeProfile profile = _stack[_depth];
+
+        profile._totalNanos += nanos;
+        profile._selfNanos += nanos - _childNanos[_depth];
+        _stack[_depth] = null;
+        if (_depth > 0) {
+            _childNanos[_depth - 1] += nanos;
+        }
+    }
+
+    private ExpressionProfile.NodeProfile current()
+    {
+        return (_depth == 0) ? null : _stack[_depth - 1];
+    }
+
+    /**
+     * Checks, for each evaluated node, whether the compiler can generate the java source of its getter.
+     */
+    private static void checkCompilation(OgnlContext context, Object root, ExpressionProfile.NodeProfile profile)
+    {
+        if (profile._evaluated) {
+            final OgnlContext scratch = new OgnlContext(context.getMemberAccess(), context.getClassResolver(),
+                    context.getTypeConverter(), null);
+            scratch.setTypeTracking(true);
+            scratch.setRoot(root);
+            scratch.setCurrentObject(profile._lastSource);
+            if (profile._lastSource != null) {
+                scratch.setCurrentType(profile._lastSource.getClass());
+            }
+
+            try {
+                profile._node.toGetSourceString(scratch, profile._lastSource);
+            } catch (UnsupportedCompilationException ex) {
+                profile._compilationFailure = String.valueOf(ex.getMessage());
+            } catch (RuntimeException ex) {
+                profile._compilationFailure = ex.getClass().getName() + ": " + ex.getMessage();
+            }
+            profile._lastSource = null;
+        }
+
+        for (ExpressionProfile.NodeProfile child : profile._children) {
+            checkCompilation(context, root, child);
+        }
+    }
+
+    private static ExpressionProfile.NodeProfile getCurrentProfile()
+    {
+        if (RUNNING.get() == 0) {
+            return null;
+        }
+        final ExpressionProfiler profiler = CURRENT.get();
+        return (profiler == null) ? null : profiler.current();
+    }
+
+    /**
+     * Records a reflective method invocation, if a profiler is running on the current thread.
+     */
+    static void recordInvocation()
+    {
+        final ExpressionProfile.NodeProfile profile = getCurrentProfile();
+        if (profile != null) {
+            profile._invocations++;
+        }
+    }
+
+    /**
+     * Records a miss of one of the caches of the runtime, if a profiler is running on the current thread.
+     */
+    static void recordCacheMiss()
+    {
+        final ExpressionProfile.NodeProfile profile = getCurrentProfile();
+        if (profile != null) {
+            profile._cacheMisses++;
+        }
+    }
+
+    /**
+     * Counts the conversions done through the type converter of the profiled context.
+     */
+    private final class CountingTypeConverter implements TypeConverter
+    {
+        private final TypeConverter _delegate;
+
+        CountingTypeConverter(TypeConverter delegate)
+        {
+            _delegate = delegate;
+        }
+
+        public Object convertValue(Map context, Object target, Member member, String propertyName, Object value,
+                                   Class toType)
+        {
+            final ExpressionProfile.NodeProfile profile = current();
+            if (profile != null) {
+                profile._conversions++;
+            }
+            return _delegate.convertValue(context, target, member, propertyName, value, toType);
+        }
+    }
+}
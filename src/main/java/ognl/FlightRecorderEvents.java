@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * and/or LICENSE file distributed with this work for additional
+ * information regarding copyright ownership.  The ASF licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl;
+
+/**
+ * Emits JDK Flight Recorder events for the expensive phases of OGNL: parsing, compilation, introspection, method
+ *   resolution and reflective invocation.  The events (<code>ognl.JfrEvents</code>, compiled separately for Java 11
+ *   and later to <code>META-INF/versions/11</code>) are only loaded when they are present, as well as the
+ *   <code>jdk.jfr</code> module, and the <code>ognl.jfr</code> system property is not <code>false</code>; otherwise
+ *   {@link #begin(int)} returns null and no event class is ever loaded.
+ *
+ * Events are only created while a recording enables them, and only committed when they last longer than the
+ *   threshold of the recording (defaults are set on the event types), so the text of the subject is only computed
+ *   for the events actually recorded.
+ *
+ * Not intended for use outside of the package.
+ *
+ * @since 3.3.0
+ */
+abstract class FlightRecorderEvents
+{
+    static final int PARSE = 0;
+    static final int COMPILE = 1;
+    static final int INTROSPECTION = 2;
+    static final int METHOD_RESOLUTION = 3;
+    static final int INVOKE = 4;
+
+    private static final FlightRecorderEvents INSTANCE = create();
+
+    private static FlightRecorderEvents create()
+    {
+        try {
+            if ("false".equalsIgnoreCase(System.getProperty("ognl.jfr"))) {
+                return null;
+            }
+            Class.forName("jdk.jfr.Event");
+            return (FlightRecorderEvents) Class.forName("ognl.JfrEvents").newInstance();
+        } catch (Throwable t) {
+            // no (usable) flight recorder: ClassNotFoundException, LinkageError or SecurityException
+            return null;
+        }
+    }
+
+    /**
+     * @return true if the JFR events are available.
+     */
+    static boolean isAvailable()
+    {
+        return INSTANCE != null;
+    }
+
+    /**
+     * Starts timing an event of the given kind.
+     *
+     * @param kind the kind of event, one of the constants of this class.
+     * @return the event, or null if flight recorder events are not available or the event is not enabled.
+     */
+    static Object begin(int kind)
+    {
+        final FlightRecorderEvents events = INSTANCE;
+        return (events == null) ? null : events.beginEvent(kind);
+    }
+
+    /**
+     * Ends an event started by {@link #begin(int)} and commits it if it is recorded.
+     *
+     * @param event the event, may be null.
+     * @param subject the expression, the method or the method name the event is about, may be null.
+     * @param targetClass the class the event is about, may be null.
+     * @param failure the exception thrown by the phase, null if it succeeded.
+     */
+    static void end(Object event, Object subject, Class targetClass, Throwable failure)
+    {
+        if (event != null) {
+            INSTANCE.endEvent(event, subject, targetClass, failure);
+        }
+    }
+
+    abstract Object beginEvent(int kind);
+
+    abstract void endEvent(Object event, Object subject, Class targetClass, Throwable failure);
+}
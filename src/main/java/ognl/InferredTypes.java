@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * and/or LICENSE file distributed with this work for additional
+ * information regarding copyright ownership.  The ASF licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl;
+
+import java.util.Map;
+
+/**
+ * The static types of an expression tree, as computed by {@link Ognl#inferTypes(Object, Map, Class, Map)}.  The
+ *   types are kept here, by node, rather than in the tree itself, so that the same tree can be inferred for
+ *   different root and variable types.
+ *
+ * @since 3.3.0
+ */
+public final class InferredTypes
+{
+    private final Node _expression;
+    private final Class _type;
+    private final Map<Node, Class> _nodeTypes;
+
+    InferredTypes(Node expression, Class type, Map<Node, Class> nodeTypes)
+    {
+        _expression = expression;
+        _type = type;
+        _nodeTypes = nodeTypes;
+    }
+
+    public Node getExpression()
+    {
+        return _expression;
+    }
+
+    /**
+     * @return the static type of the expression, or null if it is not known.
+     */
+    public Class getType()
+    {
+        return _type;
+    }
+
+    /**
+     * Returns the static type of the value of the given node of the expression: the declared type of the property,
+     * method, field or variable the node resolves to (which can be a primitive type), or the type the node always
+     * evaluates to.
+     *
+     * @param node
+     *          a node of the expression.
+     * @return the inferred type, or null if the node is not part of the expression or its type is not known
+     *         statically.
+     */
+    public Class getType(Node node)
+    {
+        return _nodeTypes.get(node);
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * and/or LICENSE file distributed with this work for additional
+ * information regarding copyright ownership.  The ASF licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl;
+
+import java.util.Iterator;
+import java.util.Spliterator;
+
+/**
+ * An {@link ElementsAccessor} exposing the elements of its targets through an {@link Iterator} or a
+ *   {@link Spliterator}, together with the hints the collection operators (projections, selections,
+ *   <code>in</code>...) use to presize their results, loop over indexes and split their work: the number of elements
+ *   and whether they can be accessed by index.  The legacy {@link #getElements(Object)} enumeration is still
+ *   available, as an adapter of the iterator.
+ *
+ * The accessors of the built-in types implement this interface; other {@link ElementsAccessor}s are adapted by
+ *   {@link OgnlRuntime#getIterableElementsAccessor(Class)}.  Implementations should extend
+ *   {@link AbstractElementsAccessor}.
+ *
+ * @since 3.3.0
+ */
+public interface IterableElementsAccessor extends ElementsAccessor
+{
+    /**
+     * Returns an iterator over the elements of the given target object.
+     *
+     * @param target the object to get the elements of
+     * @return an iterator over the elements of the given object
+     * @throws OgnlException if there is an error getting the given object's elements
+     */
+    Iterator getIterator(Object target) throws OgnlException;
+
+    /**
+     * Returns a spliterator over the elements of the given target object, reporting its size when it is known.
+     *
+     * @param target the object to get the elements of
+     * @return a spliterator over the elements of the given object
+     * @throws OgnlException if there is an error getting the given object's elements
+     */
+    Spliterator getSpliterator(Object target) throws OgnlException;
+
+    /**
+     * Returns the number of elements of the given target object, if it is known without iterating over them.
+     *
+     * @param target the object to get the elements of
+     * @return the number of elements, or -1 if it is not known
+     */
+    int getSize(Object target);
+
+    /**
+     * Tells whether the elements of the given target object can be accessed by index, in constant time, through
+     * {@link #getElement(Object, int)}.  The size of a random access target is always known.
+     *
+     * @param target the object to get the elements of
+     * @return true if the elements of the target can be accessed by index
+     */
+    boolean isRandomAccess(Object target);
+
+    /**
+     * Returns the element at the given index of a random access target.
+     *
+     * @param target the object to get the element of, {@link #isRandomAccess(Object) random access}
+     * @param index the index of the element, between 0 and the size of the target (exclusive)
+     * @return the element
+     * @throws UnsupportedOperationException if the target is not random access
+     */
+    Object getElement(Object target, int index);
+}
@@ -38,10 +38,15 @@ import java.util.*;
  * @author Luke Blanshard (blanshlu@netscape.net)
  * @author Drew Davidson (drew@ognl.org)
  */
-public class IteratorElementsAccessor implements ElementsAccessor
+public class IteratorElementsAccessor extends AbstractElementsAccessor
 {
     public Enumeration getElements( Object target )
     {
     	return new IteratorEnumeration( (Iterator)target );
     }
+
+    public Iterator getIterator( Object target )
+    {
+        return (Iterator)target;
+    }
 }
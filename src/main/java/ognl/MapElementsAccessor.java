@@ -37,10 +37,25 @@ import java.util.*;
  * @author Luke Blanshard (blanshlu@netscape.net)
  * @author Drew Davidson (drew@ognl.org)
  */
-public class MapElementsAccessor implements ElementsAccessor
+public class MapElementsAccessor extends AbstractElementsAccessor
 {
     public Enumeration getElements( Object target )
     {
         return new IteratorEnumeration( ((Map)target).values().iterator() );
     }
+
+    public Iterator getIterator( Object target )
+    {
+        return ((Map)target).values().iterator();
+    }
+
+    public Spliterator getSpliterator( Object target )
+    {
+        return ((Map)target).values().spliterator();
+    }
+
+    public int getSize( Object target )
+    {
+        return ((Map)target).size();
+    }
 }
@@ -43,12 +43,20 @@ import java.util.Set;
  */
 public class MapPropertyAccessor implements PropertyAccessor
 {
+    /** The property is a key of the map. */
+    static final int ACCESS_KEY = 0;
+    /** The <code>size</code> pseudo-property. */
+    static final int ACCESS_SIZE = 1;
+    /** The <code>keys</code> or <code>keySet</code> pseudo-property. */
+    static final int ACCESS_KEY_SET = 2;
+    /** The <code>values</code> pseudo-property. */
+    static final int ACCESS_VALUES = 3;
+    /** The <code>isEmpty</code> pseudo-property. */
+    static final int ACCESS_IS_EMPTY = 4;
 
     public Object getProperty(Map context, Object target, Object name)
             throws OgnlException
     {
-        Object result;
-        Map map = (Map) target;
         Node currentNode = ((OgnlContext) context).getCurrentNode().jjtGetParent();
         boolean indexedAccess = false;
 
@@ -60,29 +68,55 @@ public class MapPropertyAccessor implements PropertyAccessor
             indexedAccess = ((ASTProperty) currentNode).isIndexedAccess();
         }
 
-        if ((name instanceof String) && !indexedAccess) {
-            if (name.equals("size")) {
-                result = new Integer(map.size());
-            } else {
-                if (name.equals("keys") || name.equals("keySet")) {
-                    result = map.keySet();
-                } else {
-                    if (name.equals("values")) {
-                        result = map.values();
-                    } else {
-                        if (name.equals("isEmpty")) {
-                            result = map.isEmpty() ? Boolean.TRUE : Boolean.FALSE;
-                        } else {
-                            result = map.get(name);
-                        }
-                    }
-                }
-            }
-        } else {
-            result = map.get(name);
+        return getProperty((Map) target, name, getAccess(name, indexedAccess));
+    }
+
+    /**
+     * Decides how the given property of a map is read: indexed accesses (<code>map["size"]</code>) and non-string
+     * names always read a key, other names may be pseudo-properties of the map.  The decision only depends on the
+     * property node, {@link ASTProperty} makes it once.
+     *
+     * @param name the property name.
+     * @param indexedAccess whether the property is an index reference.
+     * @return one of the <code>ACCESS_</code> constants.
+     */
+    static int getAccess(Object name, boolean indexedAccess)
+    {
+        if (indexedAccess || !(name instanceof String)) {
+            return ACCESS_KEY;
+        }
+        if (name.equals("size")) {
+            return ACCESS_SIZE;
+        }
+        if (name.equals("keys") || name.equals("keySet")) {
+            return ACCESS_KEY_SET;
+        }
+        if (name.equals("values")) {
+            return ACCESS_VALUES;
+        }
+        if (name.equals("isEmpty")) {
+            return ACCESS_IS_EMPTY;
         }
+        return ACCESS_KEY;
+    }
 
-        return result;
+    /**
+     * Reads the given property of a map, as decided by {@link #getAccess(Object, boolean)}.
+     */
+    static Object getProperty(Map map, Object name, int access)
+    {
+        switch (access) {
+            case ACCESS_SIZE:
+                return new Integer(map.size());
+            case ACCESS_KEY_SET:
+                return map.keySet();
+            case ACCESS_VALUES:
+                return map.values();
+            case ACCESS_IS_EMPTY:
+                return map.isEmpty() ? Boolean.TRUE : Boolean.FALSE;
+            default:
+                return map.get(name);
+        }
     }
 
     public void setProperty(Map context, Object target, Object name, Object value)
@@ -110,27 +144,28 @@ public class MapPropertyAccessor implements PropertyAccessor
 
         context.setCurrentAccessor(Map.class);
         context.setCurrentType(Object.class);
-        
-        if (String.class.isInstance(index) && !indexedAccess)
-        {
-            String key = (indexStr.indexOf('"') >= 0? indexStr.replaceAll("\"", "") : indexStr);
 
-            if (key.equals("size")) {
+        Object key = index;
+
+        if (String.class.isInstance(index) && indexStr.indexOf('"') >= 0)
+            key = indexStr.replaceAll("\"", "");
+
+        switch (getAccess(key, indexedAccess)) {
+            case ACCESS_SIZE:
                 context.setCurrentType(int.class);
                 return ".size()";
-            } else if (key.equals("keys") || key.equals("keySet")) {
+            case ACCESS_KEY_SET:
                 context.setCurrentType(Set.class);
                 return ".keySet()";
-            } else if (key.equals("values")) {
+            case ACCESS_VALUES:
                 context.setCurrentType(Collection.class);
                 return ".values()";
-            } else if (key.equals("isEmpty")) {
+            case ACCESS_IS_EMPTY:
                 context.setCurrentType(boolean.class);
                 return ".isEmpty()";
-            }
+            default:
+                return ".get(" + indexStr + ")";
         }
-        
-        return ".get(" + indexStr + ")";
     }
 
     public String getSourceSetter(OgnlContext context, Object target, Object index)
@@ -0,0 +1,267 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * and/or LICENSE file distributed with this work for additional
+ * information regarding copyright ownership.  The ASF licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Pre-adapted {@link MethodHandle} used by {@link OgnlRuntime} in place of {@link Method#invoke(Object, Object...)},
+ *   {@link Constructor#newInstance(Object...)} and {@link Field#get(Object)} / {@link Field#set(Object, Object)}.
+ *
+ * Every invoker exposes the same <code>(Object target, Object[] args)Object</code> shape, with boxing, unboxing and
+ *   the receiver cast already folded into the handle.  Static members and constructors simply ignore the target.
+ *
+ * The invoker only accepts arguments that the handle can take without reflective widening (see
+ *   {@link #accepts(Object, Object[])}); callers fall back to the reflective path otherwise so that conversion and
+ *   error semantics stay exactly those of the JDK reflection API.
+ *
+ * Not intended for use outside of the package.
+ *
+ * @since 3.3.0
+ */
+final class MemberInvoker
+{
+    /**
+     * Shared marker used (and cached) for members that cannot be turned into a method handle.
+     */
+    static final MemberInvoker UNAVAILABLE = new MemberInvoker(null, null, null, null);
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private static final MethodType GENERIC_INVOKER_TYPE = MethodType.methodType(Object.class, Object.class, Object[].class);
+
+    private final MethodHandle _handle;
+    private final Class _receiverType;
+    private final Class[] _argumentTypes;
+    private final boolean[] _primitiveArguments;
+
+    private MemberInvoker(MethodHandle handle, Class receiverType, Class[] argumentTypes, boolean[] primitiveArguments)
+    {
+        _handle = handle;
+        _receiverType = receiverType;
+        _argumentTypes = argumentTypes;
+        _primitiveArguments = primitiveArguments;
+    }
+
+    /**
+     * Creates an invoker for the given method.  Non-public methods (or methods of non-public classes) are made
+     *   accessible only for the duration of the handle creation, mirroring what {@link OgnlRuntime#invokeMethod}
+     *   does around every reflective call.
+     *
+     * @param method the Method to create an invoker for.
+     * @param accessibleObjectHandler the handler used to temporarily modify accessibility.
+     * @return the invoker, or {@link #UNAVAILABLE} if no handle can be created.
+     */
+    static MemberInvoker forMethod(Method method, AccessibleObjectHandler accessibleObjectHandler)
+    {
+        final boolean requiresAccess = !Modifier.isPublic(method.getModifiers())
+                || !Modifier.isPublic(method.getDeclaringClass().getModifiers());
+        try {
+            MethodHandle handle;
+
+            if (requiresAccess && !method.isAccessible()) {
+                synchronized (method) {
+                    accessibleObjectHandler.setAccessible(method, true);
+                    try {
+                        handle = LOOKUP.unreflect(method);
+                    } finally {
+                        accessibleObjectHandler.setAccessible(method, false);
+                    }
+                }
+            } else {
+                handle = LOOKUP.unreflect(method);
+            }
+
+            // arguments reaching invokeMethod() have already been packed for varargs methods
+            handle = handle.asFixedArity();
+
+            final boolean isStatic = Modifier.isStatic(method.getModifiers());
+            if (isStatic) {
+                handle = MethodHandles.dropArguments(handle, 0, Object.class);
+            }
+
+            return create(handle, isStatic ? null : method.getDeclaringClass(), method.getParameterTypes());
+        } catch (Exception ex) {
+            // IllegalAccessException, InaccessibleObjectException (JDK9+), SecurityException, etc.
+            return UNAVAILABLE;
+        }
+    }
+
+    /**
+     * Creates an invoker for the given constructor.  Only constructors that are accessible to OGNL without any
+     *   accessibility override are supported, as {@link OgnlRuntime#callConstructor} never overrides access.
+     *
+     * @param constructor the Constructor to create an invoker for.
+     * @return the invoker, or {@link #UNAVAILABLE} if no handle can be created.
+     */
+    static MemberInvoker forConstructor(Constructor constructor)
+    {
+        if (Modifier.isAbstract(constructor.getDeclaringClass().getModifiers())) {
+            return UNAVAILABLE;
+        }
+        try {
+            MethodHandle handle = LOOKUP.unreflectConstructor(constructor).asFixedArity();
+
+            return create(MethodHandles.dropArguments(handle, 0, Object.class), null, constructor.getParameterTypes());
+        } catch (Exception ex) {
+            return UNAVAILABLE;
+        }
+    }
+
+    /**
+     * Creates a getter invoker for the given field.  Only public fields of public classes are supported, any other
+     *   field has to go through {@link MemberAccess#setup} / {@link MemberAccess#restore} on every access.
+     *
+     * @param field the Field to create a getter invoker for.
+     * @return the invoker, or {@link #UNAVAILABLE} if no handle can be created.
+     */
+    static MemberInvoker forFieldGetter(Field field)
+    {
+        if (!isPubliclyAccessible(field)) {
+            return UNAVAILABLE;
+        }
+        try {
+            MethodHandle handle = MethodHandles.publicLookup().unreflectGetter(field);
+            final boolean isStatic = Modifier.isStatic(field.getModifiers());
+
+            if (isStatic) {
+                handle = MethodHandles.dropArguments(handle, 0, Object.class);
+            }
+
+            return create(handle, isStatic ? null : field.getDeclaringClass(), OgnlRuntime.NoArgumentTypes);
+        } catch (Exception ex) {
+            return UNAVAILABLE;
+        }
+    }
+
+    /**
+     * Creates a setter invoker for the given (non-final) field.  Only public fields of public classes are supported.
+     *
+     * @param field the Field to create a setter invoker for.
+     * @return the invoker, or {@link #UNAVAILABLE} if no handle can be created.
+     */
+    static MemberInvoker forFieldSetter(Field field)
+    {
+        if (!isPubliclyAccessible(field) || Modifier.isFinal(field.getModifiers())) {
+            return UNAVAILABLE;
+        }
+        try {
+            MethodHandle handle = MethodHandles.publicLookup().unreflectSetter(field);
+            final boolean isStatic = Modifier.isStatic(field.getModifiers());
+
+            if (isStatic) {
+                handle = MethodHandles.dropArguments(handle, 0, Object.class);
+            }
+
+            return create(handle, isStatic ? null : field.getDeclaringClass(), new Class[] { field.getType() });
+        } catch (Exception ex) {
+            return UNAVAILABLE;
+        }
+    }
+
+    private static boolean isPubliclyAccessible(Field field)
+    {
+        return Modifier.isPublic(field.getModifiers()) && Modifier.isPublic(field.getDeclaringClass().getModifiers());
+    }
+
+    /**
+     * Adapts a handle of the form <code>(Receiver, P1..Pn)R</code> to <code>(Object, Object[])Object</code>.
+     */
+    private static MemberInvoker create(MethodHandle handle, Class receiverType, Class[] parameterTypes)
+    {
+        final int parameterCount = parameterTypes.length;
+        final Class[] argumentTypes = new Class[parameterCount];
+        final boolean[] primitiveArguments = new boolean[parameterCount];
+
+        for (int i = 0; i < parameterCount; i++) {
+            primitiveArguments[i] = parameterTypes[i].isPrimitive();
+            argumentTypes[i] = primitiveArguments[i]
+                    ? OgnlRuntime.getPrimitiveWrapperClass(parameterTypes[i]) : parameterTypes[i];
+        }
+
+        MethodHandle adapted = handle.asType(MethodType.genericMethodType(parameterCount + 1))
+                .asSpreader(Object[].class, parameterCount)
+                .asType(GENERIC_INVOKER_TYPE);
+
+        return new MemberInvoker(adapted, receiverType, argumentTypes, primitiveArguments);
+    }
+
+    /**
+     * Tells whether this invoker can be used for the given target and arguments.  That is the case when the target
+     *   is an instance of the declaring class (for instance members) and every argument is either an instance of
+     *   the (boxed) parameter type or null for a reference parameter.  Anything else (null primitives, primitive
+     *   widening, wrong arity, ...) must use reflection to keep the exact JDK reflection semantics.
+     *
+     * @param target the target object of the invocation (ignored for static members and constructors).
+     * @param args the invocation arguments, may be null for no arguments.
+     * @return true if {@link #invoke(Object, Object[])} can be used for this invocation.
+     */
+    boolean accepts(Object target, Object[] args)
+    {
+        if (_handle == null) {
+            return false;
+        }
+        if (_receiverType != null && !_receiverType.isInstance(target)) {
+            return false;
+        }
+
+        final int argCount = (args == null) ? 0 : args.length;
+        if (argCount != _argumentTypes.length) {
+            return false;
+        }
+        for (int i = 0; i < argCount; i++) {
+            final Object arg = args[i];
+
+            if (arg == null) {
+                if (_primitiveArguments[i]) {
+                    return false;
+                }
+            } else if (!_argumentTypes[i].isInstance(arg)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Invokes the underlying member.  Callers must check {@link #accepts(Object, Object[])} first.
+     *
+     * @param target the target object of the invocation (ignored for static members and constructors).
+     * @param args the invocation arguments, may be null for no arguments.
+     * @return the result of the invocation (null for void methods and field setters).
+     * @throws InvocationTargetException wrapping anything thrown by the underlying member, as reflection does.
+     */
+    Object invoke(Object target, Object[] args)
+            throws InvocationTargetException
+    {
+        final Object[] actualArgs = (args == null) ? OgnlRuntime.NoArguments : args;
+        try {
+            return (Object) _handle.invokeExact(target, actualArgs);
+        } catch (Throwable t) {
+            throw new InvocationTargetException(t);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * and/or LICENSE file distributed with this work for additional
+ * information regarding copyright ownership.  The ASF licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl;
+
+import java.io.Serializable;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Hash index of the values of a constant list literal (such as <code>{1, 2, 3}</code> or
+ *   <code>{"read", "write"}</code>) used as the right-hand side of <code>in</code> / <code>not in</code>.
+ *
+ * The index keeps the semantics of {@link OgnlOps#in(Object, Object)}, which compares with
+ *   {@link OgnlOps#equal(Object, Object)}: integral numbers are indexed by their long value, so that
+ *   <code>1 in {1L, 2L}</code> still holds, and strings by themselves.  It only answers when that is exactly
+ *   equivalent to comparing the value with each element: for a list of integral numbers (Byte, Short, Integer,
+ *   Long) and an integral value, or a list of strings and a string value.  Any other combination (such as a
+ *   string compared to numbers, which OGNL converts) is left to the generic scan.
+ *
+ * Not intended for use outside of the package.
+ *
+ * @since 3.3.0
+ */
+final class MembershipIndex implements Serializable
+{
+    private final boolean _integral;
+    private final Set<Object> _keys;
+    private final boolean _containsNull;
+
+    private MembershipIndex(boolean integral, Set<Object> keys, boolean containsNull)
+    {
+        _integral = integral;
+        _keys = keys;
+        _containsNull = containsNull;
+    }
+
+    /**
+     * Creates the index of the given node if it is a list literal of integral or string constants.
+     *
+     * @param node the right-hand side of an <code>in</code> / <code>not in</code> expression.
+     * @return the index, or null if the node is not a list of constants that can be indexed.
+     */
+    static MembershipIndex forConstantList(Node node)
+    {
+        if (!(node instanceof ASTList)) {
+            return null;
+        }
+
+        final int count = node.jjtGetNumChildren();
+        final Set<Object> keys = new HashSet<>(Math.max(16, count * 2));
+        boolean containsNull = false, integral = false, strings = false;
+
+        for (int i = 0; i < count; i++) {
+            final Node child = node.jjtGetChild(i);
+            if (!(child instanceof ASTConst)) {
+                return null;
+            }
+
+            final Object value = ((ASTConst) child).getValue();
+            if (value == null) {
+                containsNull = true;
+            } else if (isIntegral(value)) {
+                integral = true;
+                keys.add(((Number) value).longValue());
+            } else if (value instanceof String) {
+                strings = true;
+                keys.add(value);
+            } else {
+                return null;
+            }
+        }
+
+        if (integral && strings) {
+            return null;
+        }
+        return new MembershipIndex(integral, keys, containsNull);
+    }
+
+    /**
+     * Looks the given value up.
+     *
+     * @param value the left-hand side of the <code>in</code> expression.
+     * @return whether the list contains the value (in the {@link OgnlOps#equal(Object, Object)} sense), or null if
+     *         the index can not decide and the list has to be scanned.
+     */
+    Boolean contains(Object value)
+    {
+        if (value == null) {
+            return _containsNull ? Boolean.TRUE : Boolean.FALSE;
+        }
+        if (_keys.isEmpty()) {
+            // only nulls (or nothing): no element is equal to a non-null value
+            return Boolean.FALSE;
+        }
+        if (_integral) {
+            if (isIntegral(value)) {
+                return _keys.contains(((Number) value).longValue()) ? Boolean.TRUE : Boolean.FALSE;
+            }
+        } else if (value instanceof String) {
+            return _keys.contains(value) ? Boolean.TRUE : Boolean.FALSE;
+        }
+        return null;
+    }
+
+    private static boolean isIntegral(Object value)
+    {
+        final Class c = value.getClass();
+        return c == Integer.class || c == Long.class || c == Short.class || c == Byte.class;
+    }
+}
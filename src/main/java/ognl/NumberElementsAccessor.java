@@ -38,24 +38,44 @@ import java.util.*;
  * @author Luke Blanshard (blanshlu@netscape.net)
  * @author Drew Davidson (drew@ognl.org)
  */
-public class NumberElementsAccessor implements ElementsAccessor, NumericTypes
+public class NumberElementsAccessor extends AbstractElementsAccessor implements NumericTypes
 {
-    public Enumeration getElements( final Object target )
+    public Iterator getIterator( final Object target )
     {
-        return new Enumeration() {
+        return new Iterator() {
             private int type = OgnlOps.getNumericType( target );
             private long next = 0;
             private long finish = OgnlOps.longValue( target );
 
-            public boolean hasMoreElements() {
+            public boolean hasNext() {
                 return next < finish;
             }
 
-            public Object nextElement() {
+            public Object next() {
                 if ( next >= finish )
                     throw new NoSuchElementException();
                 return OgnlOps.newInteger( type, next++ );
             }
+
+            public void remove() {
+                throw new UnsupportedOperationException( "remove" );
+            }
         };
     }
+
+    public int getSize( Object target )
+    {
+        long finish = OgnlOps.longValue( target );
+        return (finish <= Integer.MAX_VALUE) ? (int) Math.max( 0, finish ) : -1;
+    }
+
+    public boolean isRandomAccess( Object target )
+    {
+        return getSize( target ) >= 0;
+    }
+
+    public Object getElement( Object target, int index )
+    {
+        return OgnlOps.newInteger( OgnlOps.getNumericType(target), index );
+    }
 }
@@ -38,28 +38,27 @@ import java.util.*;
  * @author Luke Blanshard (blanshlu@netscape.net)
  * @author Drew Davidson (drew@ognl.org)
  */
-public class ObjectElementsAccessor implements ElementsAccessor
+public class ObjectElementsAccessor extends AbstractElementsAccessor
 {
-    public Enumeration getElements( Object target )
+    public Iterator getIterator( Object target )
     {
-    	final Object		object = target;
-
-        return new Enumeration() {
-        	private boolean seen = false;
+        return getIndexedIterator( target );
+    }
 
-	        public boolean hasMoreElements() {
-	            return !seen;
-	        }
+    public int getSize( Object target )
+    {
+        return 1;
+    }
 
-	        public Object nextElement() {
-	        	Object		result = null;
+    public boolean isRandomAccess( Object target )
+    {
+        return true;
+    }
 
-	        	if (!seen) {
-	        		result = object;
-	        		seen = true;
-	        	}
-	            return result;
-	        }
-	    };
+    public Object getElement( Object target, int index )
+    {
+        if (index != 0)
+            throw new IndexOutOfBoundsException( "Index: " + index );
+        return target;
     }
 }
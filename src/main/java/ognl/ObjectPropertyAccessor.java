@@ -63,9 +63,11 @@ public class ObjectPropertyAccessor implements PropertyAccessor {
         OgnlContext ognlContext = (OgnlContext) context;
 
         try {
-            if ((result = OgnlRuntime.getMethodValue(ognlContext, target, name, true)) == OgnlRuntime.NotFound)
+            final PropertyAccessPlan plan = OgnlRuntime.getPropertyAccessPlan((target == null) ? null : target.getClass(), name);
+
+            if ((result = OgnlRuntime.getMethodValue(ognlContext, target, plan, true)) == OgnlRuntime.NotFound)
             {
-                result = OgnlRuntime.getFieldValue(ognlContext, target, name, true);
+                result = OgnlRuntime.getFieldValue(ognlContext, target, plan, true);
             }
         } catch (IntrospectionException ex) {
             throw new OgnlException(name, ex);
@@ -95,9 +97,11 @@ public class ObjectPropertyAccessor implements PropertyAccessor {
         OgnlContext ognlContext = (OgnlContext) context;
 
         try {
-            if (!OgnlRuntime.setMethodValue(ognlContext, target, name, value, true))
+            final PropertyAccessPlan plan = OgnlRuntime.getPropertyAccessPlan((target == null) ? null : target.getClass(), name);
+
+            if (!OgnlRuntime.setMethodValue(ognlContext, target, plan, value, true))
             {
-                result = OgnlRuntime.setFieldValue(ognlContext, target, name, value) ? null : OgnlRuntime.NotFound;
+                result = OgnlRuntime.setFieldValue(ognlContext, target, plan, value) ? null : OgnlRuntime.NotFound;
             }
 
             if (result == OgnlRuntime.NotFound)
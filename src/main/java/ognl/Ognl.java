@@ -31,12 +31,19 @@
 package ognl;
 
 import ognl.enhance.ExpressionAccessor;
+import ognl.metrics.ExpressionMetrics;
 import ognl.security.OgnlSecurityManager;
 
 import java.io.StringReader;
 import java.lang.reflect.Member;
 import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Spliterator;
 
 /**
  * <P>
@@ -174,13 +181,21 @@ public abstract class Ognl
             throw new OgnlException("Parsing blocked due to security reasons!",
                     new SecurityException("This expression exceeded maximum allowed length: " + expression));
         }
+        Object event = FlightRecorderEvents.begin(FlightRecorderEvents.PARSE);
+        Throwable failure = null;
         try {
             OgnlParser parser = new OgnlParser(new StringReader(expression));
-            return parser.topLevelExpression();
+            Node tree = parser.topLevelExpression();
+            VariableSlots.resolve(tree);
+            return tree;
         } catch (ParseException e) {
+            failure = e;
             throw new ExpressionSyntaxException(expression, e);
         } catch (TokenMgrError e) {
+            failure = e;
             throw new ExpressionSyntaxException(expression, e);
+        } finally {
+            FlightRecorderEvents.end(event, expression, null, failure);
         }
     }
 
@@ -575,15 +590,8 @@ public abstract class Ognl
     public static Object getValue(Object tree, Map context, Object root, Class resultType)
             throws OgnlException
     {
-        Object result;
         OgnlContext ognlContext = (OgnlContext) addDefaultContext(root, context);
-
-        Node node = (Node)tree;
-
-        if (node.getAccessor() != null)
-            result =  node.getAccessor().get(ognlContext, root);
-        else
-            result = node.getValue(ognlContext, root);
+        Object result = getRootValue((Node) tree, ognlContext, root);
 
         if (resultType != null) {
             result = getTypeConverter(context).convertValue(context, root, null, null, result, resultType);
@@ -591,6 +599,259 @@ public abstract class Ognl
         return result;
     }
 
+    /**
+     * Evaluates the given OGNL expression tree and returns its value as an <code>Iterable</code>, for consumers
+     * streaming over the result.  When the expression ends with projections and/or selections (for instance
+     * <code>orders.{? status == 'OPEN'}.{ total }</code>) their result is not built: the returned
+     * <code>Iterable</code> evaluates them lazily, element by element, as it is iterated.  The given context is used
+     * by the iteration, so it must stay confined to the consuming thread until then; expression failures during the
+     * iteration are rethrown as {@link UncheckedOgnlException}s, whose cause is the <code>OgnlException</code>.  Any
+     * other value is evaluated eagerly and its elements (as enumerated by its {@link ElementsAccessor}) are returned.
+     * The stages are not evaluated lazily while a sampling tracer is installed, so that they are sampled.
+     *
+     * @param tree
+     *            the OGNL expression tree to evaluate, as returned by parseExpression()
+     * @param context
+     *            the naming context for the evaluation
+     * @param root
+     *            the root object for the OGNL expression
+     * @return the elements of the value of the expression
+     * @throws OgnlException
+     *             if the evaluation of the source of the elements fails
+     * @since 3.3.0
+     */
+    public static Iterable getValueIterable(Object tree, Map context, Object root)
+            throws OgnlException
+    {
+        OgnlContext ognlContext = (OgnlContext) addDefaultContext(root, context);
+        Node node = (Node) tree;
+
+        if (node.getAccessor() == null && !ognlContext.getTraceEvaluations()
+            && ognlContext.getSamplingTracer() == null) {
+            if (CollectionPipeline.isStage(node)) {
+                return CollectionPipeline.lazy(ognlContext, new Node[] { node }, 0, 1, root);
+            }
+            if (node instanceof ASTChain) {
+                ASTChain chain = (ASTChain) node;
+                int count = chain.jjtGetNumChildren();
+                int start = count;
+
+                while (start > 0 && CollectionPipeline.isStage(chain.jjtGetChild(start - 1))) {
+                    start--;
+                }
+                if (start > 0 && start < count) {
+                    Object source = chain.getValue(ognlContext, root, start);
+                    return CollectionPipeline.lazy(ognlContext, chain._children, start, count, source);
+                }
+            }
+        }
+
+        Object value = getValue(node, ognlContext, root);
+        if (value == null) {
+            return Collections.emptyList();
+        }
+
+        IterableElementsAccessor elementsAccessor = OgnlRuntime.getIterableElementsAccessor(OgnlRuntime.getTargetClass(value));
+        if (value instanceof Collection && elementsAccessor.getClass() == CollectionElementsAccessor.class) {
+            return (Collection) value;
+        }
+
+        int size = elementsAccessor.getSize(value);
+        List result = (size >= 0) ? new ArrayList(size) : new ArrayList();
+        for (Iterator it = elementsAccessor.getIterator(value); it.hasNext();) {
+            result.add(it.next());
+        }
+        return result;
+    }
+
+    /**
+     * Evaluates the given OGNL expression tree once for each of the given roots, storing the results in the given
+     * array, in the order of the roots.  The evaluation frame (the context, its accessor selection and its variables)
+     * is set up once for the whole batch and only its root changes from one evaluation to the next; a compiled
+     * accessor (see {@link #compileExpression(OgnlContext, Object, String)}) is used if the tree has one.  If the
+     * {@link OgnlContext#getParallelThreshold() parallel threshold} of the context is reached, the batch is split
+     * across the common fork-join pool, each task using its own frame.
+     *
+     * @param tree
+     *            the OGNL expression tree to evaluate, as returned by parseExpression() or compileExpression()
+     * @param context
+     *            the naming context for the evaluations, its root is the last root of the batch afterwards
+     * @param roots
+     *            the roots: a collection, an array, an iterator or anything else OGNL can enumerate
+     * @param results
+     *            the array receiving the results, must be at least as long as there are roots
+     * @return the given results array
+     * @throws IllegalArgumentException
+     *             if there are more roots than results can hold
+     * @throws OgnlException
+     *             if one of the evaluations fails
+     * @since 3.3.0
+     */
+    public static Object[] getValues(Object tree, Map context, Object roots, Object[] results)
+            throws OgnlException
+    {
+        getValues(tree, context, roots, results, null);
+        return results;
+    }
+
+    /**
+     * Evaluates the given OGNL expression tree once for each of the given roots, adding the results to the given
+     * collection, in the order of the roots.  See {@link #getValues(Object, Map, Object, Object[])}.
+     *
+     * @param tree
+     *            the OGNL expression tree to evaluate, as returned by parseExpression() or compileExpression()
+     * @param context
+     *            the naming context for the evaluations, its root is the last root of the batch afterwards
+     * @param roots
+     *            the roots: a collection, an array, an iterator or anything else OGNL can enumerate
+     * @param results
+     *            the collection receiving the results
+     * @return the given results collection
+     * @throws OgnlException
+     *             if one of the evaluations fails
+     * @since 3.3.0
+     */
+    public static Collection getValues(Object tree, Map context, Object roots, Collection results)
+            throws OgnlException
+    {
+        getValues(tree, context, roots, null, results);
+        return results;
+    }
+
+    private static void getValues(Object tree, Map context, Object roots, Object[] arrayResults,
+                                  Collection collectionResults)
+            throws OgnlException
+    {
+        OgnlContext ognlContext = (OgnlContext) addDefaultContext(null, context);
+        Node node = (Node) tree;
+
+        Spliterator spliterator = ParallelCollections.getSpliteratorToSplit(ognlContext, roots);
+        if (spliterator != null) {
+            Object[] elements = new Object[(int) spliterator.getExactSizeIfKnown()];
+            if (arrayResults != null && elements.length > arrayResults.length) {
+                throw new IllegalArgumentException("Too many roots (" + elements.length + ") for the results array ("
+                        + arrayResults.length + ")");
+            }
+
+            Object[] values = ParallelCollections.evaluateRoots(ognlContext, node, spliterator, elements);
+            if (arrayResults != null) {
+                System.arraycopy(values, 0, arrayResults, 0, values.length);
+            } else {
+                Collections.addAll(collectionResults, values);
+            }
+            ognlContext.setRoot(elements.length > 0 ? elements[elements.length - 1] : null);
+            return;
+        }
+
+        if (roots == null) {
+            return;
+        }
+
+        IterableElementsAccessor elementsAccessor = OgnlRuntime.getIterableElementsAccessor(OgnlRuntime.getTargetClass(roots));
+        int index = 0;
+
+        for (Iterator it = elementsAccessor.getIterator(roots); it.hasNext(); index++) {
+            Object root = it.next();
+
+            if (arrayResults != null && index >= arrayResults.length) {
+                throw new IllegalArgumentException("Too many roots for the results array (" + arrayResults.length + ")");
+            }
+
+            ognlContext.setRoot(root);
+            Object value = getRootValue(node, ognlContext, root);
+
+            if (arrayResults != null) {
+                arrayResults[index] = value;
+            } else {
+                collectionResults.add(value);
+            }
+        }
+    }
+
+    /**
+     * Evaluates the given OGNL expression tree against the given root object a number of times, measuring the
+     * cost of each node of the tree: the time spent in the node with and without its children, the reflective
+     * invocations, runtime cache misses and type conversions it performed, and whether the compiler can generate
+     * java source for it (and why not).  The expression is interpreted even if it was compiled, and the variables of
+     * the given context are shared with the evaluations; the profile itself does not change the context.
+     *
+     * <pre>
+     *     System.out.println(Ognl.profile(Ognl.parseExpression("customer.orders.{total}"), context, root, 1000));
+     * </pre>
+     *
+     * The measures include the profiling overhead, they are meant to compare the nodes of an expression with one
+     * another, not to replace a benchmark.  Consecutive projections and selections are evaluated stage after stage
+     * while profiled (they are not fused into a single pass), so that every stage gets its own counts, and they are
+     * not split across parallel tasks either.
+     *
+     * @param tree
+     *            the OGNL expression tree to profile, as returned by parseExpression()
+     * @param context
+     *            the naming context for the evaluations
+     * @param root
+     *            the root object for the OGNL expression
+     * @param iterations
+     *            the number of evaluations, at least 1
+     * @return the profile of the expression
+     * @throws IllegalArgumentException
+     *             if iterations is lower than 1
+     * @throws OgnlException
+     *             if one of the evaluations fails
+     * @since 3.3.0
+     */
+    public static ExpressionProfile profile(Object tree, Map context, Object root, int iterations)
+            throws OgnlException
+    {
+        if (iterations < 1) {
+            throw new IllegalArgumentException("Invalid number of iterations: " + iterations);
+        }
+
+        OgnlContext ognlContext = (OgnlContext) addDefaultContext(root, context);
+
+        return new ExpressionProfiler((Node) tree).profile(ognlContext, root, iterations);
+    }
+
+    /**
+     * Infers the static types of the given OGNL expression tree for a root of the given class, without evaluating
+     * it.  Properties and methods are resolved the way the runtime resolves them, on the declared types: the type
+     * of each node is the declared type of the property, method, field or variable it resolves to, the element type
+     * of collections and maps comes from their generic declarations, and arithmetic follows the numeric promotions
+     * of {@link OgnlOps}.  The types are returned in a side table, by node, for the caller to use.  OGNL itself only
+     * uses them to specialize the arithmetic and comparison nodes before their first evaluation, the only change
+     * made to the tree; {@link OgnlRuntime#compileExpression(OgnlContext, Node, Object)} does not read them and
+     * still discovers the types from the root it is given.
+     *
+     * <pre>
+     *     Object tree = Ognl.parseExpression("items.{? price > #min}.size()");
+     *     Class type = Ognl.inferTypes(tree, context, Cart.class, Collections.singletonMap("min", int.class)).getType();
+     * </pre>
+     *
+     * Since members are resolved on the declared types, this can also be used to validate expressions up front.
+     * Types that are not known statically (untyped variables, map values, custom property accessors...) are null,
+     * and so are the types of the nodes depending on them; members are never resolved on <code>Object</code>.
+     *
+     * @param tree
+     *            the OGNL expression tree, as returned by parseExpression()
+     * @param context
+     *            the naming context, used to resolve class names
+     * @param rootType
+     *            the class of the roots the expression will be evaluated against, may be null if unknown
+     * @param variableTypes
+     *            the types (Class) of the context variables by name, may be null
+     * @return the static types of the expression and of its nodes, see {@link InferredTypes#getType()}
+     * @throws OgnlException
+     *             if a property, method, static field or class cannot be resolved on a known type
+     * @since 3.3.0
+     */
+    public static InferredTypes inferTypes(Object tree, Map context, Class rootType, Map variableTypes)
+            throws OgnlException
+    {
+        OgnlContext ognlContext = (context instanceof OgnlContext) ? (OgnlContext) context
+                                                                   : (OgnlContext) addDefaultContext(null, context);
+
+        return new TypeInference(ognlContext, rootType, variableTypes).infer((Node) tree);
+    }
+
     /**
      * Gets the value represented by the given pre-compiled expression on the specified root
      * object.
@@ -820,6 +1081,12 @@ public abstract class Ognl
     {
         OgnlContext ognlContext = (OgnlContext) addDefaultContext(root, context);
         Node n = (Node) tree;
+        ExpressionMetrics metrics = OgnlRuntime.getExpressionMetrics();
+
+        if (metrics != null) {
+            setMeasuredValue(metrics, n, ognlContext, root, value);
+            return;
+        }
 
         if (n.getAccessor() != null) {
             n.getAccessor().set(ognlContext, root, value);
@@ -829,6 +1096,60 @@ public abstract class Ognl
         n.setValue(ognlContext, root, value);
     }
 
+    /**
+     * Evaluates the given expression tree, or its compiled accessor, against the given root: the path of every
+     * evaluation of a whole expression, single or batched, which records it in the expression metrics if any.
+     */
+    static Object getRootValue(Node node, OgnlContext context, Object root)
+            throws OgnlException
+    {
+        ExpressionMetrics metrics = OgnlRuntime.getExpressionMetrics();
+
+        if (metrics != null)
+            return getMeasuredValue(metrics, node, context, root);
+        if (node.getAccessor() != null)
+            return node.getAccessor().get(context, root);
+        return node.getValue(context, root);
+    }
+
+    private static Object getMeasuredValue(ExpressionMetrics metrics, Node node, OgnlContext context, Object root)
+            throws OgnlException
+    {
+        ExpressionAccessor accessor = node.getAccessor();
+        boolean failed = true;
+        long start = System.nanoTime();
+
+        try {
+            Object result = (accessor != null) ? accessor.get(context, root) : node.getValue(context, root);
+            failed = false;
+            return result;
+        } finally {
+            metrics.recordEvaluation(OgnlRuntime.getNormalizedExpression(node), accessor != null, false,
+                                     System.nanoTime() - start, failed);
+        }
+    }
+
+    private static void setMeasuredValue(ExpressionMetrics metrics, Node node, OgnlContext context, Object root,
+                                         Object value)
+            throws OgnlException
+    {
+        ExpressionAccessor accessor = node.getAccessor();
+        boolean failed = true;
+        long start = System.nanoTime();
+
+        try {
+            if (accessor != null) {
+                accessor.set(context, root, value);
+            } else {
+                node.setValue(context, root, value);
+            }
+            failed = false;
+        } finally {
+            metrics.recordEvaluation(OgnlRuntime.getNormalizedExpression(node), accessor != null, true,
+                                     System.nanoTime() - start, failed);
+        }
+    }
+
     /**
      * Sets the value given using the pre-compiled expression on the specified root 
      * object.
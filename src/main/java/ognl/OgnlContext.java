@@ -55,8 +55,10 @@ public class OgnlContext extends Object implements Map
     private static final String PROPERTY_KEY_PREFIX = "ognl";
     private static boolean DEFAULT_TRACE_EVALUATIONS = false;
     private static boolean DEFAULT_KEEP_LAST_EVALUATION = false;
+    private static int DEFAULT_PARALLEL_THRESHOLD = 0;
 
     private static final Map<Object, Object> RESERVED_KEYS = new HashMap<>(6);
+    private static final Object UNRESOLVED_VARIABLE = new Object();
     
     private Object _root;
     private Object _currentObject;
@@ -66,8 +68,16 @@ public class OgnlContext extends Object implements Map
     private Evaluation _currentEvaluation;
     private Evaluation _lastEvaluation;
     private boolean _keepLastEvaluation = DEFAULT_KEEP_LAST_EVALUATION;
+    private int _parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+    private SamplingTracer _samplingTracer;
+    private SamplingTracer.Trace _samplingTrace;
+    private ExpressionProfiler _profiler;
     
     private final Map _values;
+    private boolean _valuesShared;
+
+    private VariableSlots _frameSlots;
+    private Object[] _frame;
     
     private final ClassResolver _classResolver;
     private final TypeConverter _typeConverter;
@@ -89,6 +99,13 @@ public class OgnlContext extends Object implements Map
             if ((s = System.getProperty(PROPERTY_KEY_PREFIX + ".keepLastEvaluation")) != null) {
                 DEFAULT_KEEP_LAST_EVALUATION = Boolean.valueOf(s.trim());
             }
+            if ((s = System.getProperty(PROPERTY_KEY_PREFIX + ".parallelThreshold")) != null) {
+                try {
+                    DEFAULT_PARALLEL_THRESHOLD = Integer.parseInt(s.trim());
+                } catch (NumberFormatException ex) {
+                    // invalid value, keep the default
+                }
+            }
         } catch (SecurityException ex) {
             // restricted access environment, just keep defaults
         }
@@ -96,6 +113,7 @@ public class OgnlContext extends Object implements Map
 
     private final List<Class<?>> _typeStack = new ArrayList<>(3);     // size 3 should be enough stack for most expressions
     private final List<Class<?>> _accessorStack = new ArrayList<>(3); // size 3 should be enough stack for most expressions
+    private boolean _typeTracking = false;
 
     private int _localReferenceCounter = 0;
     private Map<String, LocalReference> _localReferenceMap = null;
@@ -110,8 +128,8 @@ public class OgnlContext extends Object implements Map
      */
     public OgnlContext(ClassResolver classResolver, TypeConverter typeConverter, MemberAccess memberAccess)
     {
-        // No 'values' map has been specified, so we create one of the default size: 23 entries
-        this(memberAccess, classResolver, typeConverter, new HashMap(23));
+        // No 'values' map has been specified, the other constructor creates one that is private to this context
+        this(memberAccess, classResolver, typeConverter, null);
     }
 
     /**
@@ -128,6 +146,7 @@ public class OgnlContext extends Object implements Map
         super();
         if (values != null) {
             this._values = values;
+            this._valuesShared = true;
         } else {
             this._values = new HashMap(23);  // No 'values' map has been specified, so we create one of the default size: 23 entries
         }
@@ -158,6 +177,7 @@ public class OgnlContext extends Object implements Map
         for (Object k : value.keySet()) {
             _values.put(k, value.get(k));
         }
+        invalidateFrame();
     }
 
     /**
@@ -167,9 +187,84 @@ public class OgnlContext extends Object implements Map
      */
     public Map getValues()
     {
+        shareValues();
+        return _values;
+    }
+
+    static boolean isReservedKey(Object key)
+    {
+        return RESERVED_KEYS.containsKey(key);
+    }
+
+    /**
+     * Returns the value of a variable of an expression, using the variable frame of this context.  The frame is
+     * bound to the variables of one expression at a time and caches the values found in the values map, so it is
+     * only used when every change to the values map goes through this context: when the map was supplied by the
+     * caller, or handed out by {@link #getValues()} or one of the map views, variables are always looked up in the
+     * map.
+     */
+    Object getVariable(VariableSlots slots, int slot)
+    {
+        if (_valuesShared)
+            return _values.get(slots.getName(slot));
+
+        final Object[] frame = getFrame(slots);
+        Object result = frame[slot];
+
+        if (result == UNRESOLVED_VARIABLE)
+        {
+            result = _values.get(slots.getName(slot));
+            frame[slot] = result;
+        }
+        return result;
+    }
+
+    /**
+     * Assigns a variable of an expression: the value is written to the values map and kept in the variable frame.
+     */
+    void setVariable(VariableSlots slots, int slot, Object value)
+    {
+        _values.put(slots.getName(slot), value);
+
+        if (!_valuesShared)
+            getFrame(slots)[slot] = value;
+    }
+
+    private Object[] getFrame(VariableSlots slots)
+    {
+        if (_frameSlots != slots)
+        {
+            final Object[] frame = (_frame != null && _frame.length >= slots.size()) ? _frame : new Object[slots.size()];
+            Arrays.fill(frame, UNRESOLVED_VARIABLE);
+            _frame = frame;
+            _frameSlots = slots;
+        }
+        return _frame;
+    }
+
+    private void invalidateFrame()
+    {
+        _frameSlots = null;
+    }
+
+    /**
+     * Returns the variables map of this context to another context evaluating on its behalf (see
+     * {@link ExpressionProfiler}).  Unlike {@link #getValues()}, the map is not considered exposed and this context
+     * keeps using its variable frame; the frame is only dropped, as the other context may change the variables.
+     */
+    Map lendValues()
+    {
+        invalidateFrame();
         return _values;
     }
 
+    private void shareValues()
+    {
+        _valuesShared = true;
+        _frameSlots = null;
+        _frame = null;
+    }
+
     @Deprecated
     public void setClassResolver(ClassResolver ignore) {
         // no-op
@@ -277,6 +372,133 @@ public class OgnlContext extends Object implements Map
         _keepLastEvaluation = value;
     }
 
+    /**
+     * Returns the minimum number of elements from which projections and selections evaluated with this context are
+     * split across the common fork-join pool, or 0 (the default, unless set by the <code>ognl.parallelThreshold</code>
+     * system property) if they are always evaluated sequentially.
+     *
+     * @return the parallel evaluation threshold, 0 if disabled.
+     * @since 3.3.0
+     */
+    public int getParallelThreshold()
+    {
+        return _parallelThreshold;
+    }
+
+    /**
+     * Sets the minimum number of elements from which projections and selections are evaluated in parallel.  Each
+     * parallel task evaluates the inner expression with its own frame: a copy of this context, with the same root
+     * and a snapshot of the variables.  Assignments done by the inner expression are therefore not visible to this
+     * context, and the expression must not rely on the order in which the elements are processed.  The results are
+     * assembled in the order of the source elements.
+     *
+     * @param value the parallel evaluation threshold, 0 (or less) to disable parallel evaluation.
+     * @since 3.3.0
+     */
+    public void setParallelThreshold(int value)
+    {
+        _parallelThreshold = Math.max(0, value);
+    }
+
+    /**
+     * Creates an evaluation frame for a parallel task: a context sharing the configuration, root and sampling tracer of
+     * this one, with the given variables.  Since a sampled trace is confined to one context, the evaluations done by
+     * the task are sampled on their own, as top-level evaluations of the inner expression.  There is no profiler:
+     * profiled evaluations are never split (see {@link ParallelCollections}).
+     */
+    OgnlContext createTaskFrame(Map values)
+    {
+        final OgnlContext frame = new OgnlContext(_memberAccess, _classResolver, _typeConverter, null);
+        frame._values.putAll(values);
+        frame.setRoot(_root);
+        frame._samplingTracer = _samplingTracer;
+        return frame;
+    }
+
+    /**
+     * Returns the sampling tracer recording the evaluations done with this context, if any.
+     *
+     * @return the sampling tracer, or null if there is none (the default).
+     * @since 3.3.0
+     */
+    public SamplingTracer getSamplingTracer()
+    {
+        return _samplingTracer;
+    }
+
+    /**
+     * Sets the sampling tracer recording (some of) the evaluations done with this context.  Unlike
+     * {@link #setTraceEvaluations(boolean)}, a sampling tracer does not build an {@link Evaluation} tree: it is
+     * cheap enough to be left on.  A tracer can be shared by several contexts, and threads.  The tracer is ignored
+     * while evaluations are traced.
+     *
+     * @param tracer the sampling tracer, or null to disable sampling.
+     * @since 3.3.0
+     */
+    public void setSamplingTracer(SamplingTracer tracer)
+    {
+        _samplingTracer = tracer;
+        _samplingTrace = null;
+    }
+
+    /**
+     * Returns the trace of the top-level evaluation in progress with the sampling tracer, or null.
+     */
+    SamplingTracer.Trace getSamplingTrace()
+    {
+        return _samplingTrace;
+    }
+
+    void setSamplingTrace(SamplingTracer.Trace trace)
+    {
+        _samplingTrace = trace;
+    }
+
+    /**
+     * Returns the profiler measuring the evaluations done with this context, see
+     * {@link Ognl#profile(Object, Map, Object, int)}.
+     */
+    ExpressionProfiler getProfiler()
+    {
+        return _profiler;
+    }
+
+    void setProfiler(ExpressionProfiler profiler)
+    {
+        _profiler = profiler;
+    }
+
+    /**
+     * Clears this context and restores its default settings, so that {@link OgnlEngine} can reuse it for another
+     * evaluation.
+     *
+     * @return false if this context must not be reused: its variables map was exposed (see {@link #getValues()}).
+     */
+    boolean reset()
+    {
+        if (_valuesShared)
+            return false;
+
+        clear();
+        _frame = null;
+        _traceEvaluations = DEFAULT_TRACE_EVALUATIONS;
+        _keepLastEvaluation = DEFAULT_KEEP_LAST_EVALUATION;
+        _parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+        _samplingTracer = null;
+        _samplingTrace = null;
+        _profiler = null;
+        _typeTracking = false;
+        return true;
+    }
+
+    /**
+     * Returns a snapshot of the variables of this context, for {@link #createTaskFrame(Map)}.
+     */
+    Map snapshotValues()
+    {
+        return new HashMap(_values);
+    }
+
     public void setCurrentObject(Object value)
     {
         _currentObject = value;
@@ -287,6 +509,33 @@ public class OgnlContext extends Object implements Map
         return _currentObject;
     }
     
+    /**
+     * Returns true while an expression is being compiled with this context (see
+     * {@link OgnlRuntime#compileExpression(OgnlContext, Node, Object)}), the current types and accessors of the
+     * expression then being saved and restored around the lookups done by interpreted nodes.  Plain interpretation
+     * does not record them, so that the type stacks of a long-lived context do not grow with each evaluation.
+     *
+     * @return true if type tracking is enabled, false otherwise.
+     * @since 3.3.0
+     */
+    public boolean isTypeTracking()
+    {
+        return _typeTracking;
+    }
+
+    /**
+     * Enables or disables type tracking on this context, see {@link #isTypeTracking()}.
+     * {@link OgnlRuntime#compileExpression(OgnlContext, Node, Object)} enables it for the duration of the compilation,
+     * whatever the {@link ognl.enhance.OgnlExpressionCompiler} in use.
+     *
+     * @param value true to track the current types and accessors, false otherwise.
+     * @since 3.3.0
+     */
+    public void setTypeTracking(boolean value)
+    {
+        _typeTracking = value;
+    }
+
     public void setCurrentAccessor(Class type)
     {
         _accessorStack.add(type);        
@@ -581,6 +830,7 @@ public class OgnlContext extends Object implements Map
             }
         } else {
             result = _values.put(key, value);
+            invalidateFrame();
         }
         
         return result;
@@ -620,6 +870,7 @@ public class OgnlContext extends Object implements Map
             }
         } else {
             result = _values.remove(key);
+            invalidateFrame();
         }
         return result;
     }
@@ -636,6 +887,7 @@ public class OgnlContext extends Object implements Map
     public void clear()
     {
         _values.clear();
+        invalidateFrame();
         _typeStack.clear();
         _accessorStack.clear();
 
@@ -657,6 +909,7 @@ public class OgnlContext extends Object implements Map
     public Set keySet()
     {
         /* Should root, currentObject, classResolver, typeConverter & memberAccess be included here? */
+        shareValues();
         return _values.keySet();
     }
 
@@ -664,6 +917,7 @@ public class OgnlContext extends Object implements Map
     public Collection values()
     {
         /* Should root, currentObject, classResolver, typeConverter & memberAccess be included here? */
+        shareValues();
         return _values.values();
     }
 
@@ -671,6 +925,7 @@ public class OgnlContext extends Object implements Map
     public Set entrySet()
     {
         /* Should root, currentObject, classResolver, typeConverter & memberAccess be included here? */
+        shareValues();
         return _values.entrySet();
     }
 
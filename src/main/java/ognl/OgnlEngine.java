@@ -0,0 +1,229 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * and/or LICENSE file distributed with this work for additional
+ * information regarding copyright ownership.  The ASF licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl;
+
+import java.lang.reflect.Member;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+
+/**
+ * Immutable, thread-safe evaluation configuration: the {@link MemberAccess}, {@link ClassResolver} and
+ * {@link TypeConverter} used to evaluate expressions.  An engine is meant to be created once and shared by every
+ * thread; each evaluation gets its own {@link OgnlContext} frame holding the mutable evaluation state (root,
+ * current object, variables...).  The frame only references the shared configuration, unlike
+ * {@link Ognl#createDefaultContext(Object)} which creates a new class resolver and type converter for every context.
+ * The evaluation methods of the engine reuse one frame per thread, cleared after each evaluation, instead of
+ * allocating a new one each time; a nested evaluation on the same thread (from a method called by an expression)
+ * gets a frame of its own.
+ *
+ * <pre>
+ *     private static final OgnlEngine ENGINE = new OgnlEngine(memberAccess);
+ *     private static final Object NAME = Ognl.parseExpression("customer.name");
+ *
+ *     ...
+ *     Object name = ENGINE.getValue(NAME, order);
+ * </pre>
+ *
+ * The configuration objects themselves must be thread-safe, which is the case of the default implementations.
+ *
+ * @since 3.3.0
+ */
+public final class OgnlEngine
+{
+    private final MemberAccess _memberAccess;
+    private final ClassResolver _classResolver;
+    private final TypeConverter _typeConverter;
+    /** The frame of the current thread, when it is not in use. */
+    private final ThreadLocal<OgnlContext> _idleContexts = new ThreadLocal<OgnlContext>();
+
+    /**
+     * Creates an engine with the default class resolver and type converter, allowing access to public members only.
+     */
+    public OgnlEngine()
+    {
+        this(new AbstractMemberAccess() {
+            @Override
+            public boolean isAccessible(Map context, Object target, Member member, String propertyName) {
+                return Modifier.isPublic(member.getModifiers());
+            }
+        });
+    }
+
+    /**
+     * Creates an engine with the given member access and the default class resolver and type converter.
+     *
+     * @param memberAccess the MemberAccess of the engine.  <span class="strong">Must be non-null</span>.
+     */
+    public OgnlEngine(MemberAccess memberAccess)
+    {
+        this(memberAccess, null, null);
+    }
+
+    /**
+     * Creates an engine with the given member access, class resolver and type converter.  If the class resolver or
+     * the type converter is null the default will be used.
+     *
+     * @param memberAccess the MemberAccess of the engine.  <span class="strong">Must be non-null</span>.
+     * @param classResolver the ClassResolver of the engine.
+     * @param typeConverter the TypeConverter of the engine.
+     */
+    public OgnlEngine(MemberAccess memberAccess, ClassResolver classResolver, TypeConverter typeConverter)
+    {
+        if (memberAccess == null) {
+            throw new IllegalArgumentException("MemberAccess implementation must be provided - null not permitted!");
+        }
+        _memberAccess = memberAccess;
+        _classResolver = (classResolver != null) ? classResolver : new DefaultClassResolver();
+        _typeConverter = (typeConverter != null) ? typeConverter : new DefaultTypeConverter();
+    }
+
+    public MemberAccess getMemberAccess()
+    {
+        return _memberAccess;
+    }
+
+    public ClassResolver getClassResolver()
+    {
+        return _classResolver;
+    }
+
+    public TypeConverter getTypeConverter()
+    {
+        return _typeConverter;
+    }
+
+    /**
+     * Creates a new evaluation frame for the given root, sharing the configuration of this engine.  The returned
+     * context is not thread-safe: it must be confined to the thread (and the call) using it.  This allocates a
+     * full {@link OgnlContext}, as <code>new OgnlContext(...)</code> does; the evaluation methods of the engine
+     * reuse a frame per thread instead.
+     *
+     * @param root the root of the object graph, may be null.
+     * @return a new context.
+     */
+    public OgnlContext createContext(Object root)
+    {
+        final OgnlContext context = new OgnlContext(_memberAccess, _classResolver, _typeConverter, null);
+        context.setRoot(root);
+        return context;
+    }
+
+    /**
+     * Evaluates the given expression tree against the given root object, in the evaluation frame of the current
+     * thread.
+     *
+     * @param tree the OGNL expression tree to evaluate, as returned by {@link Ognl#parseExpression(String)}.
+     * @param root the root object for the OGNL expression.
+     * @return the result of evaluating the expression.
+     * @throws OgnlException if the evaluation fails (see {@link Ognl#getValue(Object, Map, Object)}).
+     */
+    public Object getValue(Object tree, Object root)
+            throws OgnlException
+    {
+        return getValue(tree, root, null);
+    }
+
+    /**
+     * Evaluates the given expression tree against the given root object, in the evaluation frame of the current
+     * thread, and converts the result to the given type.
+     *
+     * @param tree the OGNL expression tree to evaluate, as returned by {@link Ognl#parseExpression(String)}.
+     * @param root the root object for the OGNL expression.
+     * @param resultType the converted type of the resultant object, using the type converter of this engine.
+     * @return the result of evaluating the expression.
+     * @throws OgnlException if the evaluation fails (see {@link Ognl#getValue(Object, Map, Object)}).
+     */
+    public Object getValue(Object tree, Object root, Class resultType)
+            throws OgnlException
+    {
+        final OgnlContext context = acquireContext(root);
+        try {
+            return Ognl.getValue(tree, context, root, resultType);
+        } finally {
+            releaseContext(context);
+        }
+    }
+
+    /**
+     * Evaluates the given expression tree once for each of the given roots, in the evaluation frame of the current
+     * thread.
+     *
+     * @param tree the OGNL expression tree to evaluate, as returned by {@link Ognl#parseExpression(String)}.
+     * @param roots the roots: a collection, an array, an iterator or anything else OGNL can enumerate.
+     * @param results the array receiving the results, in the order of the roots.
+     * @return the given results array.
+     * @throws OgnlException if one of the evaluations fails (see {@link Ognl#getValues(Object, Map, Object, Object[])}).
+     */
+    public Object[] getValues(Object tree, Object roots, Object[] results)
+            throws OgnlException
+    {
+        final OgnlContext context = acquireContext(null);
+        try {
+            return Ognl.getValues(tree, context, roots, results);
+        } finally {
+            releaseContext(context);
+        }
+    }
+
+    /**
+     * Evaluates the given expression tree to insert a value into the object graph rooted at the given root object,
+     * in the evaluation frame of the current thread.
+     *
+     * @param tree the OGNL expression tree to evaluate, as returned by {@link Ognl#parseExpression(String)}.
+     * @param root the root object for the OGNL expression.
+     * @param value the value to insert into the object graph.
+     * @throws OgnlException if the evaluation fails (see {@link Ognl#setValue(Object, Map, Object, Object)}).
+     */
+    public void setValue(Object tree, Object root, Object value)
+            throws OgnlException
+    {
+        final OgnlContext context = acquireContext(root);
+        try {
+            Ognl.setValue(tree, context, root, value);
+        } finally {
+            releaseContext(context);
+        }
+    }
+
+    /**
+     * Returns the idle frame of the current thread, or a new one if it is in use (by an enclosing evaluation).
+     */
+    private OgnlContext acquireContext(Object root)
+    {
+        final OgnlContext context = _idleContexts.get();
+
+        if (context == null) {
+            return createContext(root);
+        }
+        _idleContexts.set(null);
+        context.setRoot(root);
+        return context;
+    }
+
+    /**
+     * Clears the given frame, so that it does not keep the objects of the evaluation reachable, and makes it the
+     * idle frame of the current thread.
+     */
+    private void releaseContext(OgnlContext context)
+    {
+        if (context.reset()) {
+            _idleContexts.set(context);
+        }
+    }
+}
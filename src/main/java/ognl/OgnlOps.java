@@ -36,7 +36,12 @@ import java.lang.reflect.Array;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.Collection;
-import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * This is an abstract class with static methods that define the operations of OGNL.
@@ -135,10 +140,12 @@ public abstract class OgnlOps implements NumericTypes
         } else if (object1 != null && object2 != null) {
             if (object1.getClass().isArray()) {
                 if (object2.getClass().isArray() && (object2.getClass() == object1.getClass())) {
-                    result = (Array.getLength(object1) == Array.getLength(object2));
+                    ArrayAccess access = ArrayAccess.of(object1);
+
+                    result = (access.getLength(object1) == access.getLength(object2));
                     if (result) {
-                        for(int i = 0, icount = Array.getLength(object1); result && (i < icount); i++) {
-                            result = isEqual(Array.get(object1, i), Array.get(object2, i));
+                        for(int i = 0, icount = access.getLength(object1); result && (i < icount); i++) {
+                            result = isEqual(access.get(object1, i), access.get(object2, i));
                         }
                     }
                 }
@@ -551,10 +558,7 @@ public abstract class OgnlOps implements NumericTypes
             return arr;
         }
         
-        result = Array.newInstance(toType, Array.getLength(value));
-        for(int i = 0, icount = Array.getLength(value); i < icount; i++) {
-            Array.set(result, i, convertValue(Array.get(value, i), toType));
-        }
+        result = ArrayAccess.convert(value, toType);
         
         if (result == null && preventNulls)
             return value;
@@ -562,73 +566,25 @@ public abstract class OgnlOps implements NumericTypes
         return result;
     }
 
+    /**
+     * Returns the value converted to the given class type: values of the type are returned as is, arrays are
+     * converted component by component (or to their first element for non-array types), other values are converted
+     * to arrays of chars or objects, numerically, to booleans or to strings.  The conversion of each (source class,
+     * target class) pair is resolved once, see {@link ConverterRegistry}.
+     *
+     * @param value
+     *            an object to be converted to the given type
+     * @param toType
+     *            class type to be converted to
+     * @param preventNulls
+     *            whether to return the value itself instead of null, and the default value of
+     *            numeric and boolean wrapper types for null values
+     * @return converted value of the type given
+     * @throws IllegalArgumentException if a non-null value cannot be converted and preventNulls is false
+     */
     public static Object convertValue(Object value, Class toType, boolean preventNulls)
     {
-        Object result = null;
-        
-        if (value != null && toType.isAssignableFrom(value.getClass()))
-            return value;
-        
-        if (value != null) {
-            /* If array -> array then convert components of array individually */
-            if (value.getClass().isArray() && toType.isArray()) {
-                Class componentType = toType.getComponentType();
-
-                result = Array.newInstance(componentType, Array.getLength(value));
-                for(int i = 0, icount = Array.getLength(value); i < icount; i++) {
-                    Array.set(result, i, convertValue(Array.get(value, i), componentType));
-                }
-            } else if (value.getClass().isArray() && !toType.isArray()) {
-                
-                return convertValue(Array.get(value, 0), toType);
-            } else if (!value.getClass().isArray() && toType.isArray()){
-                
-                if (toType.getComponentType() == Character.TYPE) {
-
-                    result = stringValue(value).toCharArray();
-                } else if (toType.getComponentType() == Object.class) {
-                    if (value instanceof Collection) {
-                        Collection vc = (Collection) value;
-                        return vc.toArray(new Object[0]);
-                    } else
-                        return new Object[] { value };
-                }
-            } else {
-                if ((toType == Integer.class) || (toType == Integer.TYPE)) {
-                    result = new Integer((int) longValue(value));
-                }
-                if ((toType == Double.class) || (toType == Double.TYPE)) result = new Double(doubleValue(value));
-                if ((toType == Boolean.class) || (toType == Boolean.TYPE))
-                    result = booleanValue(value) ? Boolean.TRUE : Boolean.FALSE;
-                if ((toType == Byte.class) || (toType == Byte.TYPE)) result = new Byte((byte) longValue(value));
-                if ((toType == Character.class) || (toType == Character.TYPE))
-                    result = new Character((char) longValue(value));
-                if ((toType == Short.class) || (toType == Short.TYPE)) result = new Short((short) longValue(value));
-                if ((toType == Long.class) || (toType == Long.TYPE)) result = new Long(longValue(value));
-                if ((toType == Float.class) || (toType == Float.TYPE)) result = new Float(doubleValue(value));
-                if (toType == BigInteger.class) result = bigIntValue(value);
-                if (toType == BigDecimal.class) result = bigDecValue(value);
-                if (toType == String.class) result = stringValue(value);
-            }
-        } else {
-            if (toType.isPrimitive()) {
-                result = OgnlRuntime.getPrimitiveDefaultValue(toType);
-            } else if (preventNulls && toType == Boolean.class) {
-                result = Boolean.FALSE;
-            } else if (preventNulls && Number.class.isAssignableFrom(toType)){
-                result = OgnlRuntime.getNumericDefaultValue(toType);
-            }
-        }
-        
-        if (result == null && preventNulls)
-            return value;
-
-        if (value != null && result == null) {
-            
-            throw new IllegalArgumentException("Unable to convert type " + value.getClass().getName() + " of " + value + " to type of " + toType.getName());
-        }
-
-        return result;
+        return ConverterRegistry.getBuiltIn().convertValue(value, toType, preventNulls);
     }
 
     /**
@@ -831,10 +787,23 @@ public abstract class OgnlOps implements NumericTypes
         if (v2 == null) // A null collection is always treated as empty
             return false;
 
-        ElementsAccessor elementsAccessor = OgnlRuntime.getElementsAccessor(OgnlRuntime.getTargetClass(v2));
-        
-        for(Enumeration e = elementsAccessor.getElements(v2); e.hasMoreElements();) {
-            Object o = e.nextElement();
+        // hashed sets find an element equal to v1 without enumerating them, a miss still needs the scan below
+        // since elements of other types may be equal in the OGNL sense (1 and 1L for instance)
+        if (v1 != null && isHashedSet(v2) && isEqualsConsistent(v1) && ((Set) v2).contains(v1))
+            return true;
+
+        IterableElementsAccessor elementsAccessor = OgnlRuntime.getIterableElementsAccessor(OgnlRuntime.getTargetClass(v2));
+
+        if (elementsAccessor.isRandomAccess(v2)) {
+            for (int i = 0, size = elementsAccessor.getSize(v2); i < size; i++) {
+                if (equal(v1, elementsAccessor.getElement(v2, i)))
+                    return true;
+            }
+            return false;
+        }
+
+        for (Iterator it = elementsAccessor.getIterator(v2); it.hasNext();) {
+            Object o = it.next();
 
             if (equal(v1, o)) 
                 return true;
@@ -843,6 +812,36 @@ public abstract class OgnlOps implements NumericTypes
         return false;
     }
 
+    private static final Class<?>[] HASHED_KEY_SET_CLASSES = {
+            new HashMap<Object, Object>().keySet().getClass(),
+            new LinkedHashMap<Object, Object>().keySet().getClass(),
+            ConcurrentHashMap.newKeySet().getClass()
+    };
+
+    private static boolean isHashedSet(Object collection)
+    {
+        if (collection instanceof HashSet)
+            return true;
+
+        final Class<?> c = collection.getClass();
+        for (Class<?> hashedKeySetClass : HASHED_KEY_SET_CLASSES) {
+            if (c == hashedKeySetClass)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if, for the given value, <code>equals()</code> implies {@link #equal(Object, Object)}, so that a
+     * hashed lookup of the value only finds elements OGNL considers equal to it.
+     */
+    private static boolean isEqualsConsistent(Object value)
+    {
+        final Class<?> c = value.getClass();
+        return c == String.class || c == Integer.class || c == Long.class || c == Short.class || c == Byte.class
+                || c == Character.class || c == Boolean.class || value instanceof Enum;
+    }
+
     public static Object shiftLeft(Object v1, Object v2)
     {
         int type = getNumericType(v1);
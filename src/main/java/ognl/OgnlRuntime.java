@@ -34,10 +34,14 @@ import ognl.enhance.ExpressionCompiler;
 import ognl.enhance.OgnlExpressionCompiler;
 import ognl.internal.ClassCache;
 import ognl.internal.ClassCacheImpl;
+import ognl.metrics.ExpressionMetrics;
 import ognl.security.OgnlSecurityManagerFactory;
 import ognl.security.UserMethod;
 
 import java.beans.*;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.*;
 import java.math.BigDecimal;
 import java.math.BigInteger;
@@ -212,69 +216,9 @@ public class OgnlRuntime {
     }
 
     /**
-     * Private references for use in blocking direct invocation by invokeMethod().
+     * Denylist used by invokeMethod() when "stricter" invocation is in effect.
      */
-    private static final Method SYS_CONSOLE_REF;
-    private static final Method SYS_EXIT_REF;
-    private static final Method AO_SETACCESSIBLE_REF;
-    private static final Method AO_SETACCESSIBLE_ARR_REF;
-
-    /**
-     * Initialize the Method references used for blocking usage within invokeMethod().
-     */
-    static {
-        Method setAccessibleMethod = null;
-        Method setAccessibleMethodArray = null;
-        Method systemExitMethod = null;
-        Method systemConsoleMethod = null;
-        try {
-            setAccessibleMethod = AccessibleObject.class.getMethod("setAccessible", new Class<?>[]{boolean.class});
-        } catch (NoSuchMethodException nsme) {
-            // Should not happen.  To debug, uncomment the next line.
-            //throw new IllegalStateException("OgnlRuntime initialization missing setAccessible method", nsme);
-        } catch (SecurityException se) {
-            // May be blocked by existing SecurityManager.  To debug, uncomment the next line.
-            //throw new SecurityException("OgnlRuntime initialization cannot access setAccessible method", se);
-        } finally {
-            AO_SETACCESSIBLE_REF = setAccessibleMethod;
-        }
-
-        try {
-            setAccessibleMethodArray = AccessibleObject.class.getMethod("setAccessible", new Class<?>[]{AccessibleObject[].class, boolean.class});
-        } catch (NoSuchMethodException nsme) {
-            // Should not happen.  To debug, uncomment the next line.
-            //throw new IllegalStateException("OgnlRuntime initialization missing setAccessible method", nsme);
-        } catch (SecurityException se) {
-            // May be blocked by existing SecurityManager.  To debug, uncomment the next line.
-            //throw new SecurityException("OgnlRuntime initialization cannot access setAccessible method", se);
-        } finally {
-            AO_SETACCESSIBLE_ARR_REF = setAccessibleMethodArray;
-        }
-
-        try {
-            systemExitMethod = System.class.getMethod("exit", new Class<?>[]{int.class});
-        } catch (NoSuchMethodException nsme) {
-            // Should not happen.  To debug, uncomment the next line.
-            //throw new IllegalStateException("OgnlRuntime initialization missing exit method", nsme);
-        } catch (SecurityException se) {
-            // May be blocked by existing SecurityManager.  To debug, uncomment the next line.
-            //throw new SecurityException("OgnlRuntime initialization cannot access exit method", se);
-        } finally {
-            SYS_EXIT_REF = systemExitMethod;
-        }
-
-        try {
-            systemConsoleMethod = System.class.getMethod("console", new Class<?>[]{});  // Not available in JDK 1.5 or earlier
-        } catch (NoSuchMethodException nsme) {
-            // May happen for JDK 1.5 and earlier.  To debug, uncomment the next line.
-            //throw new IllegalStateException("OgnlRuntime initialization missing console method", nsme);
-        } catch (SecurityException se) {
-            // May be blocked by existing SecurityManager.  To debug, uncomment the next line.
-            //throw new SecurityException("OgnlRuntime initialization cannot access console method", se);
-        } finally {
-            SYS_CONSOLE_REF = systemConsoleMethod;
-        }
-    }
+    private static volatile StricterInvocationPolicy _stricterInvocationPolicy = StricterInvocationPolicy.getDefaultPolicy();
 
     /**
      * Control usage of the OGNL Security Manager using the JVM option:
@@ -288,6 +232,9 @@ public class OgnlRuntime {
      * Users that have their own Security Manager implementations and no intention to use the OGNL SecurityManager
      *   sandbox may choose to use the 'forceDisableOnInit' flag option for performance reasons (avoiding overhead
      *   involving the system property security checks - when that feature will not be used).
+     *
+     * Note: The property is read at OGNL Library initialization.  Later changes only take effect after a call to
+     *   {@link OgnlRuntime#refreshOgnlSecurityManagerState()}.
      */
     static final String OGNL_SECURITY_MANAGER = "ognl.security.manager";
     static final String OGNL_SM_FORCE_DISABLE_ON_INIT = "forceDisableOnInit";
@@ -311,6 +258,24 @@ public class OgnlRuntime {
         _disableOgnlSecurityManagerOnInit = initialFlagState;
     }
 
+    /**
+     * Hold the state of the {@link OgnlRuntime#OGNL_SECURITY_MANAGER} property, read at initialization and on
+     *   every call to {@link OgnlRuntime#refreshOgnlSecurityManagerState()}.
+     *   Default: false (if not set).
+     */
+    private static volatile boolean _ognlSecurityManagerRequested = readOgnlSecurityManagerProperty();
+
+    /**
+     * Restricted context used to run user methods inside the OGNL sandbox (no permission at all).
+     */
+    private static final AccessControlContext _sandboxAccessControlContext =
+            new AccessControlContext(new ProtectionDomain[]{new ProtectionDomain(null, new Permissions())});
+
+    /**
+     * Method handles for the OGNL Security Manager enter()/leave(long) methods, resolved on first sandboxed call.
+     */
+    private static volatile MethodHandle[] _sandboxEnterLeaveHandles;
+
     /**
      * Allow users to revert to the old "first match" lookup for getters/setters by OGNL using the JVM options:
      *    -Dognl.UseFirstMatchGetSetLookup=true
@@ -344,6 +309,10 @@ public class OgnlRuntime {
     static final ClassCache _methodAccessors = new ClassCacheImpl();
     static final ClassCache _propertyAccessors = new ClassCacheImpl();
     static final ClassCache _elementsAccessors = new ClassCacheImpl();
+    /** The elements accessors as IterableElementsAccessors (adapted once), cleared when an accessor is set. */
+    static final ClassCache _iterableElementsAccessors = new ClassCacheImpl();
+    /** Incremented (under the lock of _iterableElementsAccessors) whenever an elements accessor is set. */
+    private static volatile int _elementsAccessorsGeneration;
     static final ClassCache _nullHandlers = new ClassCacheImpl();
 
     static final ClassCache _propertyDescriptorCache = new ClassCacheImpl();
@@ -367,6 +336,14 @@ public class OgnlRuntime {
     static final Map<Method, Boolean> _methodAccessCache = new ConcurrentHashMap<Method, Boolean>();
     static final Map<Method, Boolean> _methodPermCache = new ConcurrentHashMap<Method, Boolean>();
 
+    static final Map<Method, MemberInvoker> _methodInvokerCache = new ConcurrentHashMap<Method, MemberInvoker>();
+    static final Map<Constructor, MemberInvoker> _constructorInvokerCache = new ConcurrentHashMap<Constructor, MemberInvoker>();
+    static final Map<Field, MemberInvoker> _fieldGetterCache = new ConcurrentHashMap<Field, MemberInvoker>();
+    static final Map<Field, MemberInvoker> _fieldSetterCache = new ConcurrentHashMap<Field, MemberInvoker>();
+
+    static final ConcurrentHashMap<Class, ConcurrentHashMap<String, PropertyAccessPlan>> _propertyAccessPlans =
+            new ConcurrentHashMap<Class, ConcurrentHashMap<String, PropertyAccessPlan>>();
+
     static final ClassPropertyMethodCache cacheSetMethod = new ClassPropertyMethodCache();
     static final ClassPropertyMethodCache cacheGetMethod = new ClassPropertyMethodCache();
 
@@ -377,6 +354,8 @@ public class OgnlRuntime {
      */
     private static OgnlExpressionCompiler _compiler;
 
+    private static volatile ExpressionMetrics _expressionMetrics;
+
     /**
      * Lazy loading of Javassist library
      */
@@ -615,6 +594,15 @@ public class OgnlRuntime {
         }
         _methodAccessCache.clear();
         _methodPermCache.clear();
+        _methodInvokerCache.clear();
+        _constructorInvokerCache.clear();
+        _fieldGetterCache.clear();
+        _fieldSetterCache.clear();
+        _propertyAccessPlans.clear();
+        _stricterInvocationPolicy.clearCache();
+        BeanIntrospector.clearCache();
+        ConverterRegistry.getBuiltIn().clearCache();
+        ConverterRegistry.getDefault().clearCache();
     }
 
     /**
@@ -636,6 +624,7 @@ public class OgnlRuntime {
     {
         cacheSetMethod.clear();
         cacheGetMethod.clear();
+        _propertyAccessPlans.clear();
         synchronized(_genericMethodParameterTypesCache) {
           _genericMethodParameterTypesCache.clear();
         }
@@ -689,10 +678,67 @@ public class OgnlRuntime {
         return _compiler;
     }
 
+    /**
+     * Installs the metrics receiving the measures of the evaluations done through {@link Ognl}.  Measuring is off by
+     * default: when no metrics are installed the evaluations are not timed.
+     *
+     * @param metrics the metrics, or null to stop measuring.
+     * @since 3.3.0
+     */
+    public static void setExpressionMetrics(ExpressionMetrics metrics)
+    {
+        _expressionMetrics = metrics;
+    }
+
+    /**
+     * @return the metrics receiving the measures of the evaluations, null if there are none.
+     * @since 3.3.0
+     */
+    public static ExpressionMetrics getExpressionMetrics()
+    {
+        return _expressionMetrics;
+    }
+
+    /**
+     * Returns the normalized text of the given expression tree, used to identify it in the
+     * {@link #getExpressionMetrics() metrics}.
+     *
+     * @param expression the expression tree.
+     * @return the text of the expression, as rendered by its <code>toString()</code>.
+     * @since 3.3.0
+     */
+    public static String getNormalizedExpression(Node expression)
+    {
+        return (expression instanceof SimpleNode) ? ((SimpleNode) expression).getNormalizedExpression()
+                : String.valueOf(expression);
+    }
+
     public static void compileExpression(OgnlContext context, Node expression, Object root)
             throws Exception
     {
-        _compiler.compileExpression(context, expression, root);
+        // the current types and accessors are only tracked on the context while generating source
+        final boolean typeTracking = context.isTypeTracking();
+        context.setTypeTracking(true);
+        try {
+            final Object event = FlightRecorderEvents.begin(FlightRecorderEvents.COMPILE);
+
+            if (event == null) {
+                _compiler.compileExpression(context, expression, root);
+                return;
+            }
+
+            Throwable failure = null;
+            try {
+                _compiler.compileExpression(context, expression, root);
+            } catch (Throwable t) {
+                failure = t;
+                throw t;
+            } finally {
+                FlightRecorderEvents.end(event, expression, getTargetClass(root), failure);
+            }
+        } finally {
+            context.setTypeTracking(typeTracking);
+        }
     }
 
     /**
@@ -1118,6 +1164,27 @@ public class OgnlRuntime {
 
     public static Object invokeMethod(Object target, Method method, Object[] argsArray)
             throws InvocationTargetException, IllegalAccessException
+    {
+        final Object event = FlightRecorderEvents.begin(FlightRecorderEvents.INVOKE);
+
+        ExpressionProfiler.recordInvocation();
+        if (event == null) {
+            return doInvokeMethod(target, method, argsArray);
+        }
+
+        Throwable failure = null;
+        try {
+            return doInvokeMethod(target, method, argsArray);
+        } catch (Throwable t) {
+            failure = t;
+            throw t;
+        } finally {
+            FlightRecorderEvents.end(event, method.getName(), method.getDeclaringClass(), failure);
+        }
+    }
+
+    private static Object doInvokeMethod(Object target, Method method, Object[] argsArray)
+            throws InvocationTargetException, IllegalAccessException
     {
         boolean syncInvoke;
         boolean checkPermission;
@@ -1125,20 +1192,7 @@ public class OgnlRuntime {
         Boolean methodPermCacheValue;
 
         if (_useStricterInvocation) {
-            final Class methodDeclaringClass = method.getDeclaringClass();  // Note: synchronized(method) call below will already NPE, so no null check.
-            if ( (AO_SETACCESSIBLE_REF != null && AO_SETACCESSIBLE_REF.equals(method)) ||
-                 (AO_SETACCESSIBLE_ARR_REF != null && AO_SETACCESSIBLE_ARR_REF.equals(method)) ||
-                 (SYS_EXIT_REF != null && SYS_EXIT_REF.equals(method)) ||
-                 (SYS_CONSOLE_REF != null && SYS_CONSOLE_REF.equals(method)) ||
-                 AccessibleObjectHandler.class.isAssignableFrom(methodDeclaringClass) ||
-                 ClassResolver.class.isAssignableFrom(methodDeclaringClass) ||
-                 MethodAccessor.class.isAssignableFrom(methodDeclaringClass) ||
-                 MemberAccess.class.isAssignableFrom(methodDeclaringClass) ||
-                 OgnlContext.class.isAssignableFrom(methodDeclaringClass) ||
-                 Runtime.class.isAssignableFrom(methodDeclaringClass) ||
-                 ClassLoader.class.isAssignableFrom(methodDeclaringClass) ||
-                 ProcessBuilder.class.isAssignableFrom(methodDeclaringClass) ||
-                 AccessibleObjectHandlerJDK9Plus.unsafeOrDescendant(methodDeclaringClass) ) {
+            if (_stricterInvocationPolicy.isDenied(method)) {
                 // Prevent calls to some specific methods, as well as all methods of certain classes/interfaces
                 //   for which no (apparent) legitimate use cases exist for their usage within OGNL invokeMethod().
                 throw new IllegalAccessException("Method [" + method + "] cannot be called from within OGNL invokeMethod() " +
@@ -1194,6 +1248,25 @@ public class OgnlRuntime {
 
         Object result;
 
+        if (!isSandboxRequested()) {
+            // no sandbox: a pre-adapted method handle needs neither accessibility changes nor synchronization
+            final MemberInvoker invoker = getMethodInvoker(method);
+
+            if (invoker.accepts(target, argsArray)) {
+                if (checkPermission)
+                {
+                    try
+                    {
+                        _securityManager.checkPermission(getPermission(method));
+                    } catch (SecurityException ex) {
+                        throw new IllegalAccessException("Method [" + method + "] cannot be accessed.");
+                    }
+                }
+
+                return invoker.invoke(target, argsArray);
+            }
+        }
+
         if (syncInvoke) //if is not public and is not accessible
         {
             synchronized(method)
@@ -1233,19 +1306,79 @@ public class OgnlRuntime {
         return result;
     }
 
-    private static Object invokeMethodInsideSandbox(Object target, Method method, Object[] argsArray)
-            throws InvocationTargetException, IllegalAccessException {
+    /**
+     * Returns the cached {@link MemberInvoker} for the given method, creating it on first use.
+     *
+     * @param method the Method to be invoked.
+     * @return the invoker for method ({@link MemberInvoker#UNAVAILABLE} if no method handle can be used).
+     */
+    static MemberInvoker getMethodInvoker(Method method)
+    {
+        MemberInvoker invoker = _methodInvokerCache.get(method);
 
-        if (_disableOgnlSecurityManagerOnInit) {
-            return method.invoke(target, argsArray);  // Feature was disabled at OGNL initialization.
+        if (invoker == null) {
+            ExpressionProfiler.recordCacheMiss();
+            invoker = MemberInvoker.forMethod(method, _accessibleObjectHandler);
+            _methodInvokerCache.put(method, invoker);
         }
+        return invoker;
+    }
+
+    /**
+     * Tells whether invokeMethod() has to run user methods inside the OGNL sandbox.
+     *
+     * @return true unless the sandbox was disabled at initialization or has not been requested via the
+     *         {@link #OGNL_SECURITY_MANAGER} option.
+     */
+    private static boolean isSandboxRequested()
+    {
+        // Feature may have been disabled at OGNL initialization.
+        return !_disableOgnlSecurityManagerOnInit && _ognlSecurityManagerRequested;
+    }
 
+    private static boolean readOgnlSecurityManagerProperty()
+    {
         try {
-            if (System.getProperty(OGNL_SECURITY_MANAGER) == null) {
-                return method.invoke(target, argsArray);
-            }
+            return System.getProperty(OGNL_SECURITY_MANAGER) != null;
         } catch (SecurityException ignored) {
             // already enabled or user has applied a policy that doesn't allow read property so we have to honor user's sandbox
+            return true;
+        }
+    }
+
+    /**
+     * Returns the OGNL Security Manager enter()/leave(long) methods as bound method handles, looking them up once.
+     */
+    private static MethodHandle[] getSandboxEnterLeaveHandles()
+            throws InvocationTargetException
+    {
+        MethodHandle[] handles = _sandboxEnterLeaveHandles;
+
+        if (handles == null) {
+            final Object ognlSecurityManager = OgnlSecurityManagerFactory.getOgnlSecurityManager();
+            final MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            try {
+                handles = new MethodHandle[] {
+                        lookup.findVirtual(ognlSecurityManager.getClass(), "enter", MethodType.methodType(Long.class))
+                                .bindTo(ognlSecurityManager),
+                        lookup.findVirtual(ognlSecurityManager.getClass(), "leave", MethodType.methodType(void.class, long.class))
+                                .bindTo(ognlSecurityManager)
+                };
+            } catch (NoSuchMethodException e) {
+                throw new InvocationTargetException(e);
+            } catch (IllegalAccessException e) {
+                throw new InvocationTargetException(e);
+            }
+            _sandboxEnterLeaveHandles = handles;
+        }
+        return handles;
+    }
+
+    private static Object invokeMethodInsideSandbox(Object target, Method method, Object[] argsArray)
+            throws InvocationTargetException, IllegalAccessException {
+
+        if (!isSandboxRequested()) {
+            return method.invoke(target, argsArray);
         }
 
         if (ClassLoader.class.isAssignableFrom(method.getDeclaringClass())) {
@@ -1255,17 +1388,13 @@ public class OgnlRuntime {
 
         // creating object before entering sandbox to load classes out of the sandbox
         UserMethod userMethod = new UserMethod(target, method, argsArray);
-        Permissions p = new Permissions(); // not any permission
-        ProtectionDomain pd = new ProtectionDomain(null, p);
-        AccessControlContext acc = new AccessControlContext(new ProtectionDomain[]{pd});
-
-        Object ognlSecurityManager = OgnlSecurityManagerFactory.getOgnlSecurityManager();
+        final MethodHandle[] enterLeave = getSandboxEnterLeaveHandles();
 
         Long token;
         try {
-            token = (Long) ognlSecurityManager.getClass().getMethod("enter").invoke(ognlSecurityManager);
-        } catch (NoSuchMethodException e) {
-            throw new InvocationTargetException(e);
+            token = (Long) enterLeave[0].invokeExact();
+        } catch (Throwable t) {
+            throw new InvocationTargetException(t);
         }
         if (token == null) {
             // user has applied a policy that doesn't allow setSecurityManager so we have to honor user's sandbox
@@ -1274,7 +1403,7 @@ public class OgnlRuntime {
 
         // execute user method body with all permissions denied
         try {
-            return AccessController.doPrivileged(userMethod, acc);
+            return AccessController.doPrivileged(userMethod, _sandboxAccessControlContext);
         } catch (PrivilegedActionException e) {
             if (e.getException() instanceof InvocationTargetException) {
                 throw (InvocationTargetException) e.getException();
@@ -1282,9 +1411,9 @@ public class OgnlRuntime {
             throw new InvocationTargetException(e);
         } finally {
             try {
-                ognlSecurityManager.getClass().getMethod("leave", long.class).invoke(ognlSecurityManager, token);
-            } catch (NoSuchMethodException e) {
-                throw new InvocationTargetException(e);
+                enterLeave[1].invokeExact(token.longValue());
+            } catch (Throwable t) {
+                throw new InvocationTargetException(t);
             }
         }
     }
@@ -1752,7 +1881,37 @@ public class OgnlRuntime {
         }
     }
 
+    /**
+     * Returns the method getAppropriateMethod() would call for arguments of the given classes, without converting
+     * arguments.
+     *
+     * @param argClasses the classes of the arguments, null elements for unknown classes.
+     * @return the best method, or null if none matches the argument classes.
+     */
+    static Method getBestMethod(List methods, Class typeClass, String name, Class[] argClasses) {
+        final MatchingMethod mm = findBestMethod(methods, typeClass, name, argClasses);
+        return (mm == null) ? null : mm.mMethod;
+    }
+
     private static MatchingMethod findBestMethod(List methods, Class typeClass, String name, Class[] argClasses) {
+        final Object event = FlightRecorderEvents.begin(FlightRecorderEvents.METHOD_RESOLUTION);
+
+        if (event == null) {
+            return doFindBestMethod(methods, typeClass, name, argClasses);
+        }
+
+        Throwable failure = null;
+        try {
+            return doFindBestMethod(methods, typeClass, name, argClasses);
+        } catch (RuntimeException ex) {
+            failure = ex;
+            throw ex;
+        } finally {
+            FlightRecorderEvents.end(event, name, typeClass, failure);
+        }
+    }
+
+    private static MatchingMethod doFindBestMethod(List methods, Class typeClass, String name, Class[] argClasses) {
         MatchingMethod mm = null;
         IllegalArgumentException failure = null;
         for (int i = 0, icount = methods.size(); i < icount; i++) {
@@ -2070,6 +2229,10 @@ public class OgnlRuntime {
                 throw new IllegalAccessException(
                         "access denied to " + target.getName() + "()");
             }
+            final MemberInvoker invoker = getConstructorInvoker(ctor);
+            if (invoker.accepts(null, actualArgs)) {
+                return invoker.invoke(null, actualArgs);
+            }
             return ctor.newInstance(actualArgs);
         } catch (ClassNotFoundException e) {
             reason = e;
@@ -2090,6 +2253,23 @@ public class OgnlRuntime {
         throw new MethodFailedException(className, "new", reason);
     }
 
+    /**
+     * Returns the cached {@link MemberInvoker} for the given constructor, creating it on first use.
+     *
+     * @param constructor the Constructor to be invoked.
+     * @return the invoker for constructor ({@link MemberInvoker#UNAVAILABLE} if no method handle can be used).
+     */
+    static MemberInvoker getConstructorInvoker(Constructor constructor)
+    {
+        MemberInvoker invoker = _constructorInvokerCache.get(constructor);
+
+        if (invoker == null) {
+            invoker = MemberInvoker.forConstructor(constructor);
+            _constructorInvokerCache.put(constructor, invoker);
+        }
+        return invoker;
+    }
+
     /**
      * Don't use this method as it doesn't check member access rights via {@link MemberAccess} interface
      *
@@ -2128,10 +2308,17 @@ public class OgnlRuntime {
                                               boolean checkAccessAndExistence)
             throws OgnlException, IllegalAccessException, NoSuchMethodException, IntrospectionException
     {
+        return getMethodValue(context, target,
+                getPropertyAccessPlan((target == null) ? null : target.getClass(), propertyName), checkAccessAndExistence);
+    }
+
+    static Object getMethodValue(OgnlContext context, Object target, PropertyAccessPlan plan,
+                                 boolean checkAccessAndExistence)
+            throws OgnlException, IllegalAccessException, NoSuchMethodException
+    {
+        final String propertyName = plan.getName();
         Object result = null;
-        Method m = getGetMethod(context, (target == null) ? null : target.getClass() , propertyName);
-        if (m == null)
-            m = getReadMethod((target == null) ? null : target.getClass(), propertyName, null);
+        Method m = plan.getReadMethod();
 
         if (checkAccessAndExistence)
         {
@@ -2178,8 +2365,17 @@ public class OgnlRuntime {
                                          boolean checkAccessAndExistence)
             throws OgnlException, IllegalAccessException, NoSuchMethodException, IntrospectionException
     {
+        return setMethodValue(context, target,
+                getPropertyAccessPlan((target == null) ? null : target.getClass(), propertyName), value, checkAccessAndExistence);
+    }
+
+    static boolean setMethodValue(OgnlContext context, Object target, PropertyAccessPlan plan, Object value,
+                                  boolean checkAccessAndExistence)
+            throws OgnlException, IllegalAccessException, NoSuchMethodException
+    {
+        final String propertyName = plan.getName();
         boolean result = true;
-        Method m = getSetMethod(context, (target == null) ? null : target.getClass(), propertyName);
+        Method m = plan.getWriteMethod();
 
         if (checkAccessAndExistence)
         {
@@ -2235,6 +2431,7 @@ public class OgnlRuntime {
             {
                 if ((result = (Map) cache.get(targetClass)) == null)
                 {
+                    ExpressionProfiler.recordCacheMiss();
                     result = new HashMap(23);
                     collectMethods(targetClass, result, staticMethods);
                     cache.put(targetClass, result);
@@ -2379,6 +2576,7 @@ public class OgnlRuntime {
                 if ((result = (Map) _fieldCache.get(targetClass)) == null) {
                     Field fa[];
 
+                    ExpressionProfiler.recordCacheMiss();
                     result = new HashMap(23);
                     try {
                         fa = targetClass.getDeclaredFields();
@@ -2462,9 +2660,23 @@ public class OgnlRuntime {
     public static Object getFieldValue(OgnlContext context, Object target, String propertyName,
                                        boolean checkAccessAndExistence)
             throws NoSuchFieldException
+    {
+        return getFieldValue(context, target, getField((target == null) ? null : target.getClass(), propertyName),
+                propertyName, checkAccessAndExistence);
+    }
+
+    static Object getFieldValue(OgnlContext context, Object target, PropertyAccessPlan plan,
+                                boolean checkAccessAndExistence)
+            throws NoSuchFieldException
+    {
+        return getFieldValue(context, target, plan.getField(), plan.getName(), checkAccessAndExistence);
+    }
+
+    private static Object getFieldValue(OgnlContext context, Object target, Field f, String propertyName,
+                                        boolean checkAccessAndExistence)
+            throws NoSuchFieldException
     {
         Object result = null;
-        final Field f = getField((target == null) ? null : target.getClass(), propertyName);
 
         if (checkAccessAndExistence) {
             if ((f == null) || !context.getMemberAccess().isAccessible(context, target, f, propertyName)) {
@@ -2480,7 +2692,7 @@ public class OgnlRuntime {
                     if (!Modifier.isStatic(f.getModifiers())) {
                         final Object state = context.getMemberAccess().setup(context, target, f, propertyName);
                         try {
-                            result = f.get(target);
+                            result = readField(f, target);
                         } finally {
                             context.getMemberAccess().restore(context, target, f, propertyName, state);
                         }
@@ -2498,11 +2710,23 @@ public class OgnlRuntime {
 
     public static boolean setFieldValue(OgnlContext context, Object target, String propertyName, Object value)
             throws OgnlException
+    {
+        return setFieldValue(context, target, getField((target == null) ? null : target.getClass(), propertyName),
+                propertyName, value);
+    }
+
+    static boolean setFieldValue(OgnlContext context, Object target, PropertyAccessPlan plan, Object value)
+            throws OgnlException
+    {
+        return setFieldValue(context, target, plan.getField(), plan.getName(), value);
+    }
+
+    private static boolean setFieldValue(OgnlContext context, Object target, Field f, String propertyName, Object value)
+            throws OgnlException
     {
         boolean result = false;
 
         try {
-            final Field f = getField((target == null) ? null : target.getClass(), propertyName);
 
             if (f != null) {
                 final int fModifiers = f.getModifiers();
@@ -2511,7 +2735,7 @@ public class OgnlRuntime {
                     try {
                         if (isTypeCompatible(value, f.getType())
                             || ((value = getConvertedType(context, target, f, propertyName, value, f.getType())) != null)) {
-                            f.set(target, value);
+                            writeField(f, target, value);
                             result = true;
                         }
                     } finally {
@@ -2525,6 +2749,64 @@ public class OgnlRuntime {
         return result;
     }
 
+    /**
+     * Reads the value of field from target (null for static fields), through its cached {@link MemberInvoker}
+     *   when one is available and through {@link Field#get(Object)} otherwise.
+     */
+    private static Object readField(Field field, Object target)
+            throws IllegalAccessException
+    {
+        MemberInvoker invoker = _fieldGetterCache.get(field);
+
+        if (invoker == null) {
+            invoker = MemberInvoker.forFieldGetter(field);
+            _fieldGetterCache.put(field, invoker);
+        }
+        if (invoker.accepts(target, NoArguments)) {
+            return invokeFieldInvoker(invoker, target, NoArguments);
+        }
+        return field.get(target);
+    }
+
+    /**
+     * Writes value to field of target (null for static fields), through its cached {@link MemberInvoker}
+     *   when one is available and through {@link Field#set(Object, Object)} otherwise.
+     */
+    private static void writeField(Field field, Object target, Object value)
+            throws IllegalAccessException
+    {
+        MemberInvoker invoker = _fieldSetterCache.get(field);
+
+        if (invoker == null) {
+            invoker = MemberInvoker.forFieldSetter(field);
+            _fieldSetterCache.put(field, invoker);
+        }
+
+        final Object[] args = new Object[] { value };
+        if (invoker.accepts(target, args)) {
+            invokeFieldInvoker(invoker, target, args);
+        } else {
+            field.set(target, value);
+        }
+    }
+
+    private static Object invokeFieldInvoker(MemberInvoker invoker, Object target, Object[] args)
+    {
+        try {
+            return invoker.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            // field access handles only throw unchecked exceptions (e.g. errors of static initializers)
+            final Throwable cause = ex.getTargetException();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
     public static boolean isFieldAccessible(OgnlContext context, Object target, Class inClass, String propertyName)
     {
         return isFieldAccessible(context, target, getField(inClass, propertyName), propertyName);
@@ -2595,7 +2877,7 @@ public class OgnlRuntime {
             if (context.getMemberAccess().isAccessible(context, null, f, null)) {
                 final Object state = context.getMemberAccess().setup(context, null, f, null);
                 try {
-                    result = f.get(null);
+                    result = readField(f, null);
                 } finally {
                     context.getMemberAccess().restore(context, null, f, null, state);
                 }
@@ -2854,6 +3136,14 @@ public class OgnlRuntime {
                     (firstNonDefaultPublicInterfaceGetter != null) ? firstNonDefaultPublicInterfaceGetter : firstGetter;
         }
 
+        if (result == null && targetClass != null) {
+            // record components and fluent accessors (no get/is prefix)
+            final PropertyDescriptor pd = getPropertyDescriptor(targetClass, propertyName);
+            if (pd != null && !(pd instanceof ObjectIndexedPropertyDescriptor)) {
+                result = pd.getReadMethod();
+            }
+        }
+
         return result;
     }
 
@@ -2958,6 +3248,14 @@ public class OgnlRuntime {
                     (firstNonDefaultPublicInterfaceSetter != null) ? firstNonDefaultPublicInterfaceSetter : firstSetter;
         }
 
+        if (result == null && targetClass != null) {
+            // fluent accessors (no set prefix)
+            final PropertyDescriptor pd = getPropertyDescriptor(targetClass, propertyName);
+            if (pd != null && !(pd instanceof ObjectIndexedPropertyDescriptor)) {
+                result = pd.getWriteMethod();
+            }
+        }
+
         return result;
     }
 
@@ -2970,130 +3268,56 @@ public class OgnlRuntime {
     public static final boolean hasGetProperty(OgnlContext context, Object target, Object oname)
             throws IntrospectionException, OgnlException
     {
-        Class targetClass = (target == null) ? null : target.getClass();
-        String name = oname.toString();
+        final PropertyAccessPlan plan = getPropertyAccessPlan((target == null) ? null : target.getClass(), oname.toString());
 
-        return hasGetMethod(context, target, targetClass, name) || hasField(context, target, targetClass, name);
+        return isMethodAccessible(context, target, plan.getGetMethod(), plan.getName())
+                || ((plan.getField() != null) && isFieldAccessible(context, target, plan.getField(), plan.getName()));
     }
 
     public static final boolean hasSetProperty(OgnlContext context, Object target, Object oname)
             throws IntrospectionException, OgnlException
     {
-        Class targetClass = (target == null) ? null : target.getClass();
-        String name = oname.toString();
-
-        return hasSetMethod(context, target, targetClass, name) || hasField(context, target, targetClass, name);
-    }
-
-    private static final boolean indexMethodCheck(List methods)
-    {
-        boolean result = false;
-
-        if (methods.size() > 0) {
-            Method fm = (Method) methods.get(0);
-            Class[] fmpt = getParameterTypes(fm);
-            int fmpc = fmpt.length;
-            Class lastMethodClass = fm.getDeclaringClass();
-
-            result = true;
-            for (int i = 1; result && (i < methods.size()); i++) {
-                Method m = (Method) methods.get(i);
-                Class c = m.getDeclaringClass();
-
-                // Check to see if more than one method implemented per class
-                if (lastMethodClass == c) {
-                    result = false;
-                } else {
-                    Class[] mpt = getParameterTypes(fm);
-                    int mpc = fmpt.length;
+        final PropertyAccessPlan plan = getPropertyAccessPlan((target == null) ? null : target.getClass(), oname.toString());
 
-                    if (fmpc != mpc) {
-                        result = false;
-                    }
-                    for (int j = 0; j < fmpc; j++) {
-                        if (fmpt[j] != mpt[j]) {
-                            result = false;
-                            break;
-                        }
-                    }
-                }
-                lastMethodClass = c;
-            }
-        }
-        return result;
+        return isMethodAccessible(context, target, plan.getWriteMethod(), plan.getName())
+                || ((plan.getField() != null) && isFieldAccessible(context, target, plan.getField(), plan.getName()));
     }
 
-    static void findObjectIndexedPropertyDescriptors(Class targetClass, Map intoMap)
-            throws OgnlException
+    /**
+     * Returns the (cached) access plan of the given property, resolving it on first use.
+     *
+     * @param targetClass the class to get the property plan for, may be null.
+     * @param propertyName the name of the property.
+     * @return the access plan of propertyName for targetClass.
+     * @throws IntrospectionException on errors creating the property descriptors.
+     * @throws OgnlException for lots of different reasons.
+     */
+    static PropertyAccessPlan getPropertyAccessPlan(Class targetClass, String propertyName)
+            throws IntrospectionException, OgnlException
     {
-        Map allMethods = getMethods(targetClass, false);
-        Map pairs = new HashMap(101);
-
-        for (Iterator it = allMethods.keySet().iterator(); it.hasNext();) {
-            String methodName = (String) it.next();
-            List methods = (List) allMethods.get(methodName);
-
-            /*
-             * Only process set/get where there is exactly one implementation of the method per
-             * class and those implementations are all the same
-             */
-            if (indexMethodCheck(methods)) {
-                boolean isGet = false, isSet = false;
-                Method m = (Method) methods.get(0);
-
-                if (((isSet = methodName.startsWith(SET_PREFIX)) || (isGet = methodName.startsWith(GET_PREFIX)))
-                    && (methodName.length() > 3)) {
-                    String propertyName = Introspector.decapitalize(methodName.substring(3));
-                    Class[] parameterTypes = getParameterTypes(m);
-                    int parameterCount = parameterTypes.length;
-
-                    if (isGet && (parameterCount == 1) && (m.getReturnType() != Void.TYPE)) {
-                        List pair = (List) pairs.get(propertyName);
-
-                        if (pair == null) {
-                            pairs.put(propertyName, pair = new ArrayList());
-                        }
-                        pair.add(m);
-                    }
-                    if (isSet && (parameterCount == 2) && (m.getReturnType() == Void.TYPE)) {
-                        List pair = (List) pairs.get(propertyName);
-
-                        if (pair == null) {
-                            pairs.put(propertyName, pair = new ArrayList());
-                        }
-                        pair.add(m);
-                    }
-                }
-            }
+        if (targetClass == null) {
+            return PropertyAccessPlan.create(null, propertyName);
         }
 
-        for (Iterator it = pairs.keySet().iterator(); it.hasNext();) {
-            String propertyName = (String) it.next();
-            List methods = (List) pairs.get(propertyName);
-
-            if (methods.size() == 2) {
-                Method method1 = (Method) methods.get(0), method2 = (Method) methods.get(1), setMethod = (method1
-                        .getParameterTypes().length == 2) ? method1 : method2, getMethod = (setMethod == method1) ? method2
-                        : method1;
-                Class keyType = getMethod.getParameterTypes()[0], propertyType = getMethod.getReturnType();
+        ConcurrentHashMap<String, PropertyAccessPlan> plans = _propertyAccessPlans.get(targetClass);
+        PropertyAccessPlan result = (plans == null) ? null : plans.get(propertyName);
 
-                if (keyType == setMethod.getParameterTypes()[0]) {
-                    if (propertyType == setMethod.getParameterTypes()[1]) {
-                        ObjectIndexedPropertyDescriptor propertyDescriptor;
-
-                        try {
-                            propertyDescriptor = new ObjectIndexedPropertyDescriptor(propertyName, propertyType,
-                                                                                     getMethod, setMethod);
-                        } catch (Exception ex) {
-                            throw new OgnlException("creating object indexed property descriptor for '" + propertyName
-                                                    + "' in " + targetClass, ex);
-                        }
-                        intoMap.put(propertyName, propertyDescriptor);
+        if (result == null) {
+            ExpressionProfiler.recordCacheMiss();
+            result = PropertyAccessPlan.create(targetClass, propertyName);
+
+            if (_cacheInspector == null || _cacheInspector.shouldCache(targetClass)) {
+                if (plans == null) {
+                    plans = new ConcurrentHashMap<String, PropertyAccessPlan>();
+                    final ConcurrentHashMap<String, PropertyAccessPlan> old = _propertyAccessPlans.putIfAbsent(targetClass, plans);
+                    if (old != null) {
+                        plans = old;
                     }
                 }
-
+                plans.putIfAbsent(propertyName, result);
             }
         }
+        return result;
     }
 
     /**
@@ -3102,7 +3326,7 @@ public class OgnlRuntime {
      * @param targetClass The class to get the descriptors for.
      * @return Map map of property descriptors for class.
      *
-     * @throws IntrospectionException on errors using {@link Introspector}.
+     * @throws IntrospectionException on errors creating the property descriptors.
      * @throws OgnlException On general errors.
      */
     public static Map getPropertyDescriptors(Class targetClass)
@@ -3115,27 +3339,18 @@ public class OgnlRuntime {
             synchronized (_propertyDescriptorCache) {
                 if ((result = (Map) _propertyDescriptorCache.get(targetClass)) == null)
                 {
-                    PropertyDescriptor[] pda = Introspector.getBeanInfo(targetClass).getPropertyDescriptors();
-
-                    result = new HashMap(101);
-                    for (int i = 0, icount = pda.length; i < icount; i++)
-                    {
-                        // workaround for Introspector bug 6528714 (bugs.sun.com)
-                        if (pda[i].getReadMethod() != null && !isMethodCallable(pda[i].getReadMethod()))
-                        {
-                            pda[i].setReadMethod(findClosestMatchingMethod(targetClass, pda[i].getReadMethod(), pda[i].getName(),
-                                                                           pda[i].getPropertyType(), true));
-                        }
-                        if (pda[i].getWriteMethod() != null && !isMethodCallable(pda[i].getWriteMethod()))
-                        {
-                            pda[i].setWriteMethod(findClosestMatchingMethod(targetClass, pda[i].getWriteMethod(), pda[i].getName(),
-                                                                            pda[i].getPropertyType(), false));
-                        }
+                    final Object event = FlightRecorderEvents.begin(FlightRecorderEvents.INTROSPECTION);
+                    Throwable failure = null;
 
-                        result.put(pda[i].getName(), pda[i]);
+                    ExpressionProfiler.recordCacheMiss();
+                    try {
+                        result = BeanIntrospector.getPropertyDescriptors(targetClass);
+                    } catch (Throwable t) {
+                        failure = t;
+                        throw t;
+                    } finally {
+                        FlightRecorderEvents.end(event, null, targetClass, failure);
                     }
-
-                    findObjectIndexedPropertyDescriptors(targetClass, result);
                     _propertyDescriptorCache.put(targetClass, result);
                 }
             }
@@ -3162,28 +3377,6 @@ public class OgnlRuntime {
         return (PropertyDescriptor) getPropertyDescriptors(targetClass).get(propertyName);
     }
 
-    static Method findClosestMatchingMethod(Class targetClass, Method m, String propertyName,
-                                            Class propertyType, boolean isReadMethod)
-    {
-        List methods = getDeclaredMethods(targetClass, propertyName, !isReadMethod);
-
-        if (methods != null)
-        {
-            for (Object method1 : methods)
-            {
-                Method method = (Method) method1;
-
-                if (method.getName().equals(m.getName())
-                        && m.getReturnType().isAssignableFrom(m.getReturnType())
-                        && method.getReturnType() == propertyType
-                        && method.getParameterTypes().length == m.getParameterTypes().length) {
-                    return method;
-                }
-            }
-        }
-        return m;
-    }
-
     public static PropertyDescriptor[] getPropertyDescriptorsArray(Class targetClass)
             throws IntrospectionException
     {
@@ -3193,8 +3386,9 @@ public class OgnlRuntime {
             if ((result = (PropertyDescriptor[]) _propertyDescriptorCache.get(targetClass)) == null) {
                 synchronized (_propertyDescriptorCache) {
                     if ((result = (PropertyDescriptor[]) _propertyDescriptorCache.get(targetClass)) == null) {
-                        _propertyDescriptorCache.put(targetClass, result = Introspector.getBeanInfo(targetClass)
-                                .getPropertyDescriptors());
+                        final Collection descriptors = BeanIntrospector.getPropertyDescriptors(targetClass).values();
+                        _propertyDescriptorCache.put(targetClass,
+                                result = (PropertyDescriptor[]) descriptors.toArray(new PropertyDescriptor[descriptors.size()]));
                     }
                 }
             }
@@ -3267,11 +3461,44 @@ public class OgnlRuntime {
         throw new OgnlException("No elements accessor for class " + cls);
     }
 
+    /**
+     * Returns the elements accessor of the given class as an {@link IterableElementsAccessor}, adapting it if it
+     * only implements the legacy {@link ElementsAccessor} interface, or if it is a subclass of one of the built-in
+     * accessors (which may only override {@link ElementsAccessor#getElements(Object)}).
+     *
+     * @param cls the class of the objects to get the elements of.
+     * @return the elements accessor of the class.
+     * @throws OgnlException if there is no elements accessor for the class.
+     * @since 3.3.0
+     */
+    public static IterableElementsAccessor getIterableElementsAccessor(Class cls)
+            throws OgnlException
+    {
+        IterableElementsAccessor answer = (IterableElementsAccessor) _iterableElementsAccessors.get(cls);
+
+        if (answer == null) {
+            // an adapter built while an accessor is being set may adapt the replaced accessor: it is not cached
+            final int generation = _elementsAccessorsGeneration;
+
+            answer = AbstractElementsAccessor.adapt(getElementsAccessor(cls));
+            synchronized (_iterableElementsAccessors) {
+                if (generation == _elementsAccessorsGeneration) {
+                    _iterableElementsAccessors.put(cls, answer);
+                }
+            }
+        }
+        return answer;
+    }
+
     public static void setElementsAccessor(Class cls, ElementsAccessor accessor)
     {
         synchronized (_elementsAccessors) {
             _elementsAccessors.put(cls, accessor);
         }
+        synchronized (_iterableElementsAccessors) {
+            _elementsAccessorsGeneration++;
+            _iterableElementsAccessors.clear();
+        }
     }
 
     public static NullHandler getNullHandler(Class cls)
@@ -3387,23 +3614,11 @@ public class OgnlRuntime {
     public static int getIndexedPropertyType(OgnlContext context, Class sourceClass, String name)
             throws OgnlException
     {
-        int result = INDEXED_PROPERTY_NONE;
-
         try {
-            PropertyDescriptor pd = getPropertyDescriptor(sourceClass, name);
-            if (pd != null) {
-                if (pd instanceof IndexedPropertyDescriptor) {
-                    result = INDEXED_PROPERTY_INT;
-                } else {
-                    if (pd instanceof ObjectIndexedPropertyDescriptor) {
-                        result = INDEXED_PROPERTY_OBJECT;
-                    }
-                }
-            }
+            return getPropertyAccessPlan(sourceClass, name).getIndexedPropertyType();
         } catch (Exception ex) {
             throw new OgnlException("problem determining if '" + name + "' is an indexed property", ex);
         }
-        return result;
     }
 
     public static Object getIndexedProperty(OgnlContext context, Object source, String name, Object index)
@@ -3412,17 +3627,11 @@ public class OgnlRuntime {
         Object[] args = _objectArrayPool.create(index);
 
         try {
-            PropertyDescriptor pd = getPropertyDescriptor((source == null) ? null : source.getClass(), name);
-            Method m;
+            final PropertyAccessPlan plan = getPropertyAccessPlan((source == null) ? null : source.getClass(), name);
+            Method m = plan.getIndexedReadMethod();
 
-            if (pd instanceof IndexedPropertyDescriptor) {
-                m = ((IndexedPropertyDescriptor) pd).getIndexedReadMethod();
-            } else {
-                if (pd instanceof ObjectIndexedPropertyDescriptor) {
-                    m = ((ObjectIndexedPropertyDescriptor) pd).getIndexedReadMethod();
-                } else {
-                    throw new OgnlException("property '" + name + "' is not an indexed property");
-                }
+            if (plan.getIndexedPropertyType() == INDEXED_PROPERTY_NONE) {
+                throw new OgnlException("property '" + name + "' is not an indexed property");
             }
 
             return callMethod(context, source, m.getName(), args);
@@ -3443,17 +3652,11 @@ public class OgnlRuntime {
         Object[] args = _objectArrayPool.create(index, value);
 
         try {
-            PropertyDescriptor pd = getPropertyDescriptor((source == null) ? null : source.getClass(), name);
-            Method m;
+            final PropertyAccessPlan plan = getPropertyAccessPlan((source == null) ? null : source.getClass(), name);
+            Method m = plan.getIndexedWriteMethod();
 
-            if (pd instanceof IndexedPropertyDescriptor) {
-                m = ((IndexedPropertyDescriptor) pd).getIndexedWriteMethod();
-            } else {
-                if (pd instanceof ObjectIndexedPropertyDescriptor) {
-                    m = ((ObjectIndexedPropertyDescriptor) pd).getIndexedWriteMethod();
-                } else {
-                    throw new OgnlException("property '" + name + "' is not an indexed property");
-                }
+            if (plan.getIndexedPropertyType() == INDEXED_PROPERTY_NONE) {
+                throw new OgnlException("property '" + name + "' is not an indexed property");
             }
 
             callMethod(context, source, m.getName(), args);
@@ -3698,14 +3901,13 @@ public class OgnlRuntime {
             if (name.indexOf('"') >= 0)
                 name = name.replaceAll("\"", "");
 
-            BeanInfo info = Introspector.getBeanInfo(target);
-            MethodDescriptor[] methods = info.getMethodDescriptors();
+            Method[] methods = target.getMethods();
 
             ArrayList<Method> candidates = new ArrayList<Method>();
 
             for (int i = 0; i < methods.length; i++) {
                 // Consider bridge methods as callable (also) for Write methods.
-                if (!isMethodCallable_BridgeOrNonSynthetic(methods[i].getMethod())) {
+                if (!isMethodCallable_BridgeOrNonSynthetic(methods[i])) {
                     continue;
                 }
 
@@ -3714,7 +3916,7 @@ public class OgnlRuntime {
                      || methods[i].getName().toLowerCase().equals("set" + name.toLowerCase()))
                     && !methods[i].getName().startsWith("get")) {
 
-                    candidates.add(methods[i].getMethod());
+                    candidates.add(methods[i]);
                 }
             }
 
@@ -3737,7 +3939,7 @@ public class OgnlRuntime {
                      || cmethods[i].getName().toLowerCase().equals("set" + name.toLowerCase()))
                     && !cmethods[i].getName().startsWith("get")) {
 
-                    Method m = methods[i].getMethod();
+                    Method m = methods[i];
                     if (!candidates.contains(m))
                         candidates.add(m);
                 }
@@ -3781,9 +3983,8 @@ public class OgnlRuntime {
     public static PropertyDescriptor getProperty(Class target, String name)
     {
         try {
-            BeanInfo info = Introspector.getBeanInfo(target);
-
-            PropertyDescriptor[] pds = info.getPropertyDescriptors();
+            final Collection descriptors = getPropertyDescriptors(target).values();
+            PropertyDescriptor[] pds = (PropertyDescriptor[]) descriptors.toArray(new PropertyDescriptor[descriptors.size()]);
 
             for (int i = 0; i < pds.length; i++) {
 
@@ -4112,6 +4313,42 @@ public class OgnlRuntime {
         return _useStricterInvocation;
     }
 
+    /**
+     * Returns the denylist applied by invokeMethod() when "stricter" invocation is in effect.
+     *
+     * @return the current stricter invocation policy.
+     *
+     * @since 3.3.0
+     */
+    public static StricterInvocationPolicy getStricterInvocationPolicy() {
+        return _stricterInvocationPolicy;
+    }
+
+    /**
+     * Replaces the denylist applied by invokeMethod() when "stricter" invocation is in effect, typically
+     *   with a policy derived from {@link StricterInvocationPolicy#getDefaultPolicy()}.
+     *
+     * Note: Has no effect on invocations when "stricter" invocation is disabled
+     *   (see {@link OgnlRuntime#USE_STRICTER_INVOCATION}).  Whatever the policy, the methods of
+     *   <code>sun.misc.Unsafe</code> and OgnlRuntime remain denied.  When a system SecurityManager is installed,
+     *   the caller must be granted the <code>OgnlInvokePermission("setStricterInvocationPolicy")</code>.
+     *
+     * @param policy the new stricter invocation policy (must not be null).
+     * @throws SecurityException if a system SecurityManager denies replacing the policy.
+     *
+     * @since 3.3.0
+     */
+    public static void setStricterInvocationPolicy(StricterInvocationPolicy policy) {
+        if (policy == null) {
+            throw new IllegalArgumentException("Stricter invocation policy cannot be null");
+        }
+        final SecurityManager securityManager = System.getSecurityManager();
+        if (securityManager != null) {
+            securityManager.checkPermission(new OgnlInvokePermission("setStricterInvocationPolicy"));
+        }
+        _stricterInvocationPolicy = policy;
+    }
+
     /**
      * Returns the value of the flag indicating whether the OGNL SecurityManager was disabled
      *   on initialization or not.
@@ -4128,6 +4365,24 @@ public class OgnlRuntime {
         return _disableOgnlSecurityManagerOnInit;
     }
 
+    /**
+     * Re-reads the {@link OgnlRuntime#OGNL_SECURITY_MANAGER} property.  The property is only read at OGNL
+     *   initialization and by this method, so that invokeMethod() does not pay for a system property lookup
+     *   on every call.  Applications setting or clearing the property after OGNL initialization must call this
+     *   method for the change to take effect.
+     *
+     * Note: Has no effect if the OGNL SecurityManager was disabled on initialization
+     *   (see {@link OgnlRuntime#getDisableOgnlSecurityManagerOnInitValue()}).
+     *
+     * @return true if the OGNL SecurityManager sandbox is requested after the refresh, false otherwise.
+     *
+     * @since 3.3.0
+     */
+    public static boolean refreshOgnlSecurityManagerState() {
+        _ognlSecurityManagerRequested = readOgnlSecurityManagerProperty();
+        return isSandboxRequested();
+    }
+
     /**
      * Returns an indication as to whether the current state indicates the
      *   JDK9+ (9 and later) access handler is being used / should be used.  This
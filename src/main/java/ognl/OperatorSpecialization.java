@@ -0,0 +1,273 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * and/or LICENSE file distributed with this work for additional
+ * information regarding copyright ownership.  The ASF licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl;
+
+import java.io.Serializable;
+
+/**
+ * Runtime type feedback of an arithmetic or comparison node.  The first evaluation records the operand types it
+ *   observes; when both operands are Integers, Longs, Doubles or Strings the node then takes a fast path for that
+ *   type, guarded by an exact type check of the operands, which skips the generic numeric type resolution and
+ *   widening of {@link OgnlOps}.  The first time the guard fails the node falls back (for good) to the generic
+ *   {@link OgnlOps} operation.  Every fast path returns exactly what the generic operation would.
+ *
+ * Nodes may be evaluated concurrently: the state is only a hint, updated without synchronization, and every
+ *   specialized operation checks its guard.
+ *
+ * Not intended for use outside of the package.
+ *
+ * @since 3.3.0
+ */
+final class OperatorSpecialization implements Serializable
+{
+    static final int ADD = 0;
+    static final int SUBTRACT = 1;
+    static final int MULTIPLY = 2;
+    static final int DIVIDE = 3;
+    static final int REMAINDER = 4;
+
+    private static final int UNINITIALIZED = 0;
+    private static final int INT = 1;
+    private static final int LONG = 2;
+    private static final int DOUBLE = 3;
+    private static final int STRING = 4;
+    private static final int GENERIC = 5;
+
+    private final int _operator;
+    private int _state = UNINITIALIZED;
+
+    /**
+     * Creates the specialization of a comparison node.
+     */
+    OperatorSpecialization()
+    {
+        this(-1);
+    }
+
+    /**
+     * Creates the specialization of an arithmetic node.
+     *
+     * @param operator one of the operator constants.
+     */
+    OperatorSpecialization(int operator)
+    {
+        _operator = operator;
+    }
+
+    /**
+     * Applies the arithmetic operator of this specialization, see {@link OgnlOps#add(Object, Object)} and others.
+     */
+    Object apply(Object v1, Object v2)
+    {
+        switch (_state) {
+            case INT:
+                if (v1 instanceof Integer && v2 instanceof Integer) {
+                    return applyInt((Integer) v1, (Integer) v2);
+                }
+                break;
+            case LONG:
+                if (v1 instanceof Long && v2 instanceof Long) {
+                    return applyLong((Long) v1, (Long) v2);
+                }
+                break;
+            case DOUBLE:
+                if (v1 instanceof Double && v2 instanceof Double) {
+                    return applyDouble((Double) v1, (Double) v2);
+                }
+                break;
+            case STRING:
+                if (v1 instanceof String && v2 instanceof String) {
+                    return ((String) v1).concat((String) v2);
+                }
+                break;
+            case GENERIC:
+                return applyGeneric(v1, v2);
+        }
+
+        return specialize(v1, v2, true) ? apply(v1, v2) : applyGeneric(v1, v2);
+    }
+
+    /**
+     * Compares the operands, see {@link OgnlOps#compareWithConversion(Object, Object)}.
+     */
+    int compare(Object v1, Object v2)
+    {
+        switch (_state) {
+            case INT:
+                if (v1 instanceof Integer && v2 instanceof Integer) {
+                    return Integer.compare((Integer) v1, (Integer) v2);
+                }
+                break;
+            case LONG:
+                if (v1 instanceof Long && v2 instanceof Long) {
+                    return Long.compare((Long) v1, (Long) v2);
+                }
+                break;
+            case DOUBLE:
+                if (v1 instanceof Double && v2 instanceof Double) {
+                    if (v1 == v2) {
+                        return 0;
+                    }
+                    // same (NaN-unaware) ordering as the generic comparison
+                    final double d1 = (Double) v1, d2 = (Double) v2;
+                    return (d1 == d2) ? 0 : ((d1 < d2) ? -1 : 1);
+                }
+                break;
+            case STRING:
+                if (v1 instanceof String && v2 instanceof String) {
+                    return (v1 == v2) ? 0 : ((String) v1).compareTo((String) v2);
+                }
+                break;
+            case GENERIC:
+                return OgnlOps.compareWithConversion(v1, v2);
+        }
+
+        return specialize(v1, v2, false) ? compare(v1, v2) : OgnlOps.compareWithConversion(v1, v2);
+    }
+
+    /**
+     * Tests the operands for equality, see {@link OgnlOps#equal(Object, Object)}.
+     */
+    boolean equal(Object v1, Object v2)
+    {
+        switch (_state) {
+            case INT:
+                if (v1 instanceof Integer && v2 instanceof Integer) {
+                    return ((Integer) v1).intValue() == ((Integer) v2).intValue();
+                }
+                break;
+            case LONG:
+                if (v1 instanceof Long && v2 instanceof Long) {
+                    return ((Long) v1).longValue() == ((Long) v2).longValue();
+                }
+                break;
+            case DOUBLE:
+                if (v1 instanceof Double && v2 instanceof Double) {
+                    return v1 == v2 || ((Double) v1).doubleValue() == ((Double) v2).doubleValue();
+                }
+                break;
+            case STRING:
+                if (v1 instanceof String && v2 instanceof String) {
+                    return v1.equals(v2);
+                }
+                break;
+            case GENERIC:
+                return OgnlOps.equal(v1, v2);
+        }
+
+        return specialize(v1, v2, false) ? equal(v1, v2) : OgnlOps.equal(v1, v2);
+    }
+
+    /**
+     * Records the types of the given operands, or deoptimizes if the node was already specialized.
+     *
+     * @return true if the node is now specialized for the operands, false if it uses the generic operations.
+     */
+    private boolean specialize(Object v1, Object v2, boolean arithmetic)
+    {
+        int state = GENERIC;
+
+        if (_state == UNINITIALIZED && v1 != null && v2 != null && v1.getClass() == v2.getClass()) {
+            state = getState(v1.getClass(), arithmetic);
+        }
+
+        _state = state;
+        return state != GENERIC;
+    }
+
+    /**
+     * Specializes a node that was not evaluated yet for the given static type of its operands (see
+     *   {@link Ognl#inferTypes(Object, java.util.Map, Class, java.util.Map)}), so that its first evaluation already
+     *   takes the fast path.  The guards are unchanged: operands of another type (or null) still deoptimize the
+     *   node.
+     *
+     * @param type the (boxed) static type of both operands.
+     */
+    void seed(Class type)
+    {
+        if (_state == UNINITIALIZED) {
+            final int state = getState(type, _operator >= 0);
+
+            if (state != GENERIC) {
+                _state = state;
+            }
+        }
+    }
+
+    private int getState(Class type, boolean arithmetic)
+    {
+        if (type == Integer.class) {
+            return INT;
+        }
+        if (type == Long.class) {
+            return LONG;
+        }
+        if (type == Double.class) {
+            // the generic remainder of doubles is computed on their long values
+            return (arithmetic && _operator == REMAINDER) ? GENERIC : DOUBLE;
+        }
+        if (type == String.class) {
+            return (!arithmetic || _operator == ADD) ? STRING : GENERIC;
+        }
+        return GENERIC;
+    }
+
+    private Object applyInt(int i1, int i2)
+    {
+        switch (_operator) {
+            case ADD: return Integer.valueOf(i1 + i2);
+            case SUBTRACT: return Integer.valueOf(i1 - i2);
+            case MULTIPLY: return Integer.valueOf(i1 * i2);
+            case DIVIDE: return Integer.valueOf(i1 / i2);
+            default: return Integer.valueOf(i1 % i2);
+        }
+    }
+
+    private Object applyLong(long l1, long l2)
+    {
+        switch (_operator) {
+            case ADD: return Long.valueOf(l1 + l2);
+            case SUBTRACT: return Long.valueOf(l1 - l2);
+            case MULTIPLY: return Long.valueOf(l1 * l2);
+            case DIVIDE: return Long.valueOf(l1 / l2);
+            default: return Long.valueOf(l1 % l2);
+        }
+    }
+
+    private Object applyDouble(double d1, double d2)
+    {
+        switch (_operator) {
+            case ADD: return Double.valueOf(d1 + d2);
+            case SUBTRACT: return Double.valueOf(d1 - d2);
+            case MULTIPLY: return Double.valueOf(d1 * d2);
+            default: return Double.valueOf(d1 / d2);
+        }
+    }
+
+    private Object applyGeneric(Object v1, Object v2)
+    {
+        switch (_operator) {
+            case ADD: return OgnlOps.add(v1, v2);
+            case SUBTRACT: return OgnlOps.subtract(v1, v2);
+            case MULTIPLY: return OgnlOps.multiply(v1, v2);
+            case DIVIDE: return OgnlOps.divide(v1, v2);
+            default: return OgnlOps.remainder(v1, v2);
+        }
+    }
+}
@@ -0,0 +1,267 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * and/or LICENSE file distributed with this work for additional
+ * information regarding copyright ownership.  The ASF licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl;
+
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+
+/**
+ * Parallel evaluation of projections and selections over large collections and arrays, as well as of batches of
+ *   roots (see {@link Ognl#getValues(Object, Map, Object, Object[])}), enabled per context by
+ *   {@link OgnlContext#setParallelThreshold(int)}.  The spliterator of the source elements (see
+ *   {@link IterableElementsAccessor#getSpliterator(Object)}) is split by fork-join tasks of the common pool; each
+ *   leaf task evaluates the inner expression with its own {@link OgnlContext} frame (see
+ *   {@link OgnlContext#createTaskFrame(Map)}) and stores its results by index, so that they are assembled in the
+ *   order of the source.  Spliterators that do not know the exact size of their splits are first copied.
+ *
+ * Only sources whose {@link IterableElementsAccessor} knows the number of elements are split (collections, maps,
+ *   arrays...), never iterators or enumerations, and never when evaluations are traced or profiled.  The task frames
+ *   share the sampling tracer of the context, their evaluations being sampled on their own.
+ *
+ * Not intended for use outside of the package.
+ *
+ * @since 3.3.0
+ */
+final class ParallelCollections
+{
+    /** Smallest range of elements evaluated by a single task. */
+    private static final int MIN_TASK_SIZE = 512;
+
+    private ParallelCollections()
+    {
+    }
+
+    /**
+     * Returns the spliterator of the elements of the given source if they should be evaluated in parallel with the
+     * given context.
+     *
+     * @return a spliterator knowing the exact number of elements of each of its splits, or null to evaluate the
+     *         source sequentially.
+     */
+    static Spliterator getSpliteratorToSplit(OgnlContext context, Object source)
+            throws OgnlException
+    {
+        final int size = getSizeToSplit(context, source);
+        if (size < 0) {
+            return null;
+        }
+
+        final IterableElementsAccessor elementsAccessor = OgnlRuntime.getIterableElementsAccessor(OgnlRuntime.getTargetClass(source));
+        final Spliterator spliterator = elementsAccessor.getSpliterator(source);
+        if (spliterator.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED)) {
+            return spliterator;
+        }
+
+        // the results are stored by index, which needs the exact size of every split
+        final List elements = new ArrayList(size);
+        spliterator.forEachRemaining(new Consumer() {
+            public void accept(Object element)
+            {
+                elements.add(element);
+            }
+        });
+        return Spliterators.spliterator(elements.toArray(), Spliterator.ORDERED);
+    }
+
+    /**
+     * Returns true if the elements of the given source should be evaluated in parallel with the given context.
+     */
+    static boolean isSplit(OgnlContext context, Object source)
+            throws OgnlException
+    {
+        return getSizeToSplit(context, source) >= 0;
+    }
+
+    /**
+     * Returns the number of elements of the given source if they should be evaluated in parallel with the given
+     * context, -1 otherwise.
+     */
+    private static int getSizeToSplit(OgnlContext context, Object source)
+            throws OgnlException
+    {
+        final int threshold = context.getParallelThreshold();
+        if (threshold <= 0 || source == null || context.getTraceEvaluations() || context.getProfiler() != null) {
+            return -1;
+        }
+
+        if (source instanceof Iterator || source instanceof Enumeration) {
+            // one-shot sources are consumed by whoever iterates them
+            return -1;
+        }
+
+        final int size = OgnlRuntime.getIterableElementsAccessor(OgnlRuntime.getTargetClass(source)).getSize(source);
+        return (size < threshold) ? -1 : size;
+    }
+
+    /**
+     * Evaluates the given expression on each element, in parallel.
+     *
+     * @return the values, in the order of the elements.
+     */
+    static List project(OgnlContext context, Node expr, Spliterator elements)
+            throws OgnlException
+    {
+        final int size = (int) elements.getExactSizeIfKnown();
+        final Object[] values = new Object[size];
+        evaluate(context, expr, elements, new Object[size], values, false);
+
+        final List answer = new ArrayList(values.length);
+        for (Object value : values) {
+            answer.add(value);
+        }
+        return answer;
+    }
+
+    /**
+     * Selects, in parallel, the elements for which the given expression is true.
+     *
+     * @return the selected elements, in their original order.
+     */
+    static List select(OgnlContext context, Node expr, Spliterator elements)
+            throws OgnlException
+    {
+        final int size = (int) elements.getExactSizeIfKnown();
+        final Object[] selected = new Object[size];
+        final Object[] values = new Object[size];
+        evaluate(context, expr, elements, selected, values, false);
+
+        final List answer = new ArrayList();
+        for (int i = 0; i < size; i++) {
+            if (OgnlOps.booleanValue(values[i])) {
+                answer.add(selected[i]);
+            }
+        }
+        return answer;
+    }
+
+    /**
+     * Evaluates, in parallel, the given expression (or its compiled accessor) with each of the given objects as root.
+     *
+     * @param evaluatedRoots receives the roots, in their order.
+     * @return the values, in the order of the roots.
+     */
+    static Object[] evaluateRoots(OgnlContext context, Node expr, Spliterator roots, Object[] evaluatedRoots)
+            throws OgnlException
+    {
+        final Object[] values = new Object[evaluatedRoots.length];
+        evaluate(context, expr, roots, evaluatedRoots, values, true);
+        return values;
+    }
+
+    private static void evaluate(OgnlContext context, Node expr, Spliterator elements, Object[] evaluatedElements,
+                                 Object[] values, boolean roots)
+            throws OgnlException
+    {
+        final int taskSize = Math.max(MIN_TASK_SIZE, values.length / (ForkJoinPool.getCommonPoolParallelism() * 4));
+        try {
+            ForkJoinPool.commonPool().invoke(new EvaluationTask(context, context.snapshotValues(), expr, elements,
+                    evaluatedElements, values, roots, 0, taskSize));
+        } catch (TaskException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    /**
+     * Splits its spliterator until it is small enough, then evaluates its elements, storing them and their values
+     * from the index of its first element.
+     */
+    private static final class EvaluationTask extends RecursiveAction implements Consumer
+    {
+        private final OgnlContext _context;
+        private final Map _values;
+        private final Node _expr;
+        private final Spliterator _spliterator;
+        private final Object[] _elements;
+        private final Object[] _results;
+        private final boolean _roots;
+        private final int _taskSize;
+        private int _index;
+        private OgnlContext _frame;
+
+        EvaluationTask(OgnlContext context, Map values, Node expr, Spliterator spliterator, Object[] elements,
+                       Object[] results, boolean roots, int index, int taskSize)
+        {
+            _context = context;
+            _values = values;
+            _expr = expr;
+            _spliterator = spliterator;
+            _elements = elements;
+            _results = results;
+            _roots = roots;
+            _index = index;
+            _taskSize = taskSize;
+        }
+
+        protected void compute()
+        {
+            final Spliterator prefix = (_spliterator.estimateSize() > _taskSize) ? _spliterator.trySplit() : null;
+
+            if (prefix != null) {
+                final int prefixSize = (int) prefix.getExactSizeIfKnown();
+
+                invokeAll(new EvaluationTask(_context, _values, _expr, prefix, _elements, _results, _roots, _index, _taskSize),
+                          new EvaluationTask(_context, _values, _expr, _spliterator, _elements, _results, _roots,
+                                             _index + prefixSize, _taskSize));
+                return;
+            }
+
+            _frame = _context.createTaskFrame(_values);
+            _spliterator.forEachRemaining(this);
+        }
+
+        public void accept(Object element)
+        {
+            try {
+                if (_roots) {
+                    _frame.setRoot(element);
+                    _results[_index] = Ognl.getRootValue(_expr, _frame, element);
+                } else {
+                    _results[_index] = _expr.getValue(_frame, element);
+                }
+            } catch (OgnlException ex) {
+                throw new TaskException(ex);
+            }
+            _elements[_index++] = element;
+        }
+    }
+
+    /**
+     * Carries the OgnlException of a task to the thread waiting for the evaluation.
+     */
+    private static final class TaskException extends RuntimeException
+    {
+        TaskException(OgnlException cause)
+        {
+            super(cause);
+        }
+
+        public OgnlException getCause()
+        {
+            return (OgnlException) super.getCause();
+        }
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * and/or LICENSE file distributed with this work for additional
+ * information regarding copyright ownership.  The ASF licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl;
+
+import java.beans.IndexedPropertyDescriptor;
+import java.beans.IntrospectionException;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Immutable description of how a named property of a given class is accessed: its read (getter) and write
+ *   (setter) methods, its field, its indexed kind and its declared type.  A plan resolves everything that does not
+ *   depend on the evaluation context once, so that navigating a property costs a single cache lookup
+ *   (see {@link OgnlRuntime#getPropertyAccessPlan(Class, String)}).
+ *
+ * The {@link MemberAccess} decision is not part of the plan: it depends on the context (and possibly on the target)
+ *   and is still requested for every access.
+ *
+ * Not intended for use outside of the package.
+ *
+ * @since 3.3.0
+ */
+final class PropertyAccessPlan
+{
+    private final Class _targetClass;
+    private final String _name;
+    private final Method _getMethod;
+    private final Method _readMethod;
+    private final Method _writeMethod;
+    private final Field _field;
+    private final int _indexedPropertyType;
+    private final Method _indexedReadMethod;
+    private final Method _indexedWriteMethod;
+    private final Class _propertyType;
+
+    private PropertyAccessPlan(Class targetClass, String name, Method getMethod, Method readMethod, Method writeMethod,
+                               Field field, int indexedPropertyType, Method indexedReadMethod, Method indexedWriteMethod)
+    {
+        _targetClass = targetClass;
+        _name = name;
+        _getMethod = getMethod;
+        _readMethod = readMethod;
+        _writeMethod = writeMethod;
+        _field = field;
+        _indexedPropertyType = indexedPropertyType;
+        _indexedReadMethod = indexedReadMethod;
+        _indexedWriteMethod = indexedWriteMethod;
+
+        if (readMethod != null) {
+            _propertyType = readMethod.getReturnType();
+        } else if (writeMethod != null && writeMethod.getParameterTypes().length == 1) {
+            _propertyType = writeMethod.getParameterTypes()[0];
+        } else if (field != null) {
+            _propertyType = field.getType();
+        } else {
+            _propertyType = null;
+        }
+    }
+
+    /**
+     * Resolves the plan of the given property, using the same lookups OGNL uses for each individual access.
+     *
+     * @param targetClass the class declaring (or inheriting) the property, may be null.
+     * @param name the name of the property.
+     * @return the new plan.
+     * @throws IntrospectionException on errors creating the property descriptors.
+     * @throws OgnlException for lots of different reasons.
+     */
+    static PropertyAccessPlan create(Class targetClass, String name)
+            throws IntrospectionException, OgnlException
+    {
+        if (targetClass == null) {
+            return new PropertyAccessPlan(null, name, null, null, null, null, OgnlRuntime.INDEXED_PROPERTY_NONE, null, null);
+        }
+
+        final Method getMethod = OgnlRuntime.getGetMethod(null, targetClass, name);
+        final Method readMethod = (getMethod != null) ? getMethod : OgnlRuntime.getReadMethod(targetClass, name, null);
+        final Method writeMethod = OgnlRuntime.getSetMethod(null, targetClass, name);
+        final Field field = OgnlRuntime.getField(targetClass, name);
+
+        int indexedPropertyType = OgnlRuntime.INDEXED_PROPERTY_NONE;
+        Method indexedReadMethod = null, indexedWriteMethod = null;
+
+        final PropertyDescriptor pd = OgnlRuntime.getPropertyDescriptor(targetClass, name);
+        if (pd instanceof IndexedPropertyDescriptor) {
+            indexedPropertyType = OgnlRuntime.INDEXED_PROPERTY_INT;
+            indexedReadMethod = ((IndexedPropertyDescriptor) pd).getIndexedReadMethod();
+            indexedWriteMethod = ((IndexedPropertyDescriptor) pd).getIndexedWriteMethod();
+        } else if (pd instanceof ObjectIndexedPropertyDescriptor) {
+            indexedPropertyType = OgnlRuntime.INDEXED_PROPERTY_OBJECT;
+            indexedReadMethod = ((ObjectIndexedPropertyDescriptor) pd).getIndexedReadMethod();
+            indexedWriteMethod = ((ObjectIndexedPropertyDescriptor) pd).getIndexedWriteMethod();
+        }
+
+        return new PropertyAccessPlan(targetClass, name, getMethod, readMethod, writeMethod, field,
+                indexedPropertyType, indexedReadMethod, indexedWriteMethod);
+    }
+
+    Class getTargetClass()
+    {
+        return _targetClass;
+    }
+
+    String getName()
+    {
+        return _name;
+    }
+
+    /**
+     * @return the JavaBeans getter of the property (see {@link OgnlRuntime#getGetMethod}), or null if there is none.
+     */
+    Method getGetMethod()
+    {
+        return _getMethod;
+    }
+
+    /**
+     * @return the method used to read the property: the JavaBeans getter if there is one, otherwise the closest
+     *         match found by {@link OgnlRuntime#getReadMethod(Class, String, Class[])}, or null.
+     */
+    Method getReadMethod()
+    {
+        return _readMethod;
+    }
+
+    /**
+     * @return the setter of the property, or null if there is none.
+     */
+    Method getWriteMethod()
+    {
+        return _writeMethod;
+    }
+
+    /**
+     * @return the field with the name of the property (static or not), or null if there is none.
+     */
+    Field getField()
+    {
+        return _field;
+    }
+
+    /**
+     * @return one of {@link OgnlRuntime#INDEXED_PROPERTY_NONE}, {@link OgnlRuntime#INDEXED_PROPERTY_INT} or
+     *         {@link OgnlRuntime#INDEXED_PROPERTY_OBJECT}.
+     */
+    int getIndexedPropertyType()
+    {
+        return _indexedPropertyType;
+    }
+
+    Method getIndexedReadMethod()
+    {
+        return _indexedReadMethod;
+    }
+
+    Method getIndexedWriteMethod()
+    {
+        return _indexedWriteMethod;
+    }
+
+    /**
+     * @return the declared type of the property (getter return type, setter parameter type or field type), or null
+     *         if the property cannot be resolved.
+     */
+    Class getPropertyType()
+    {
+        return _propertyType;
+    }
+
+    /**
+     * @return true if the property can be read through a getter or an instance field.
+     */
+    boolean isReadable()
+    {
+        return _readMethod != null || isInstanceField();
+    }
+
+    /**
+     * @return true if the property can be written through a setter or a non-final instance field.
+     */
+    boolean isWritable()
+    {
+        return _writeMethod != null || (isInstanceField() && !Modifier.isFinal(_field.getModifiers()));
+    }
+
+    private boolean isInstanceField()
+    {
+        return _field != null && !Modifier.isStatic(_field.getModifiers());
+    }
+
+    public String toString()
+    {
+        return "PropertyAccessPlan[" + ((_targetClass == null) ? null : _targetClass.getName()) + "." + _name
+                + ", read=" + _readMethod + ", write=" + _writeMethod + ", field=" + _field
+                + ", indexed=" + _indexedPropertyType + "]";
+    }
+}
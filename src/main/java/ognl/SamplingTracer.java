@@ -0,0 +1,493 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * and/or LICENSE file distributed with this work for additional
+ * information regarding copyright ownership.  The ASF licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A low-overhead alternative to {@link OgnlContext#setTraceEvaluations(boolean) tracing evaluations}, meant to be
+ *   left on in production (see {@link OgnlContext#setSamplingTracer(SamplingTracer)}).  A tracer records
+ *   {@link Sample samples} of top-level evaluations into a fixed size ring buffer, the oldest samples being
+ *   overwritten by the newest ones:
+ * <ul>
+ *   <li>one evaluation out of <code>sampleInterval</code> (picked at random) is sampled: the time spent, the result
+ *     type and the exception type of each of its nodes is recorded;</li>
+ *   <li>any other evaluation taking at least <code>latencyThreshold</code> is recorded, with its total time only.</li>
+ * </ul>
+ *
+ * An evaluation that is neither sampled nor slow costs two calls to {@link System#nanoTime()}.  Recording a sample
+ *   does not lock: tracers can be shared by any number of contexts and threads.  Compiled expressions
+ *   ({@link Node#getAccessor()}) do not go through the nodes and are not recorded.
+ *
+ * @since 3.3.0
+ */
+public final class SamplingTracer
+{
+    /* Maximum number of nodes recorded for a sampled evaluation */
+    static final int MAX_TRACED_NODES = 1024;
+
+    private final int _sampleInterval;
+    private final long _latencyThresholdNanos;
+    private final AtomicReferenceArray<Sample> _buffer;
+    private final int _mask;
+    private final AtomicLong _sequence = new AtomicLong();
+
+    /**
+     * Creates a tracer.
+     *
+     * @param sampleInterval the number of evaluations for one sampled evaluation, 0 to disable sampling.
+     * @param latencyThreshold the minimum duration of the evaluations recorded because of their duration, 0 to
+     *        record only sampled evaluations.
+     * @param unit the unit of the latency threshold.
+     * @param capacity the number of samples retained, rounded up to the next power of 2.
+     */
+    public SamplingTracer(int sampleInterval, long latencyThreshold, TimeUnit unit, int capacity)
+    {
+        if (sampleInterval < 0 || latencyThreshold < 0 || capacity <= 0) {
+            throw new IllegalArgumentException("Invalid sampling tracer settings: sampleInterval=" + sampleInterval
+                    + ", latencyThreshold=" + latencyThreshold + ", capacity=" + capacity);
+        }
+
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+
+        _sampleInterval = sampleInterval;
+        _latencyThresholdNanos = unit.toNanos(latencyThreshold);
+        _buffer = new AtomicReferenceArray<Sample>(size);
+        _mask = size - 1;
+    }
+
+    public int getSampleInterval()
+    {
+        return _sampleInterval;
+    }
+
+    public long getLatencyThreshold(TimeUnit unit)
+    {
+        return unit.convert(_latencyThresholdNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return the number of samples retained by this tracer.
+     */
+    public int getCapacity()
+    {
+        return _buffer.length();
+    }
+
+    /**
+     * @return the number of samples recorded since this tracer was created, including those already overwritten.
+     */
+    public long getRecordedCount()
+    {
+        return _sequence.get();
+    }
+
+    /**
+     * Returns a snapshot of the samples currently retained by this tracer, oldest first.
+     *
+     * @return the samples, an unmodifiable list.
+     */
+    public List<Sample> getSamples()
+    {
+        final List<Sample> result = new ArrayList<Sample>(_buffer.length());
+
+        for (int i = 0, size = _buffer.length(); i < size; i++) {
+            final Sample sample = _buffer.get(i);
+            if (sample != null) {
+                result.add(sample);
+            }
+        }
+        Collections.sort(result, new Comparator<Sample>() {
+            public int compare(Sample s1, Sample s2) {
+                return Long.compare(s1._sequence, s2._sequence);
+            }
+        });
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Discards the samples retained by this tracer.
+     */
+    public void clear()
+    {
+        for (int i = 0, size = _buffer.length(); i < size; i++) {
+            _buffer.set(i, null);
+        }
+    }
+
+    /**
+     * Evaluates the given node for {@link SimpleNode#getValue(OgnlContext, Object)}.
+     */
+    Object getValue(OgnlContext context, SimpleNode node, Object source)
+            throws OgnlException
+    {
+        final Trace trace = context.getSamplingTrace();
+
+        if (trace == Trace.UNSAMPLED) {
+            return node.evaluateGetValueBody(context, source);
+        }
+        if (trace != null) {
+            return trace.getValue(context, node, source);
+        }
+        return evaluate(context, node, source, null, false);
+    }
+
+    /**
+     * Evaluates the given node for {@link SimpleNode#setValue(OgnlContext, Object, Object)}.
+     */
+    void setValue(OgnlContext context, SimpleNode node, Object target, Object value)
+            throws OgnlException
+    {
+        final Trace trace = context.getSamplingTrace();
+
+        if (trace == Trace.UNSAMPLED) {
+            node.evaluateSetValueBody(context, target, value);
+        } else if (trace != null) {
+            trace.setValue(context, node, target, value);
+        } else {
+            evaluate(context, node, target, value, true);
+        }
+    }
+
+    private Object evaluate(OgnlContext context, SimpleNode node, Object target, Object value, boolean set)
+            throws OgnlException
+    {
+        final boolean sampled = (_sampleInterval == 1)
+                || (_sampleInterval > 1 && ThreadLocalRandom.current().nextInt(_sampleInterval) == 0);
+        final Trace trace = sampled ? new Trace() : Trace.UNSAMPLED;
+        final long start = System.nanoTime();
+        Object result = null;
+        Throwable failure = null;
+
+        context.setSamplingTrace(trace);
+        try {
+            if (set) {
+                if (sampled) {
+                    trace.setValue(context, node, target, value);
+                } else {
+                    node.evaluateSetValueBody(context, target, value);
+                }
+            } else {
+                result = sampled ? trace.getValue(context, node, target) : node.evaluateGetValueBody(context, target);
+            }
+            return result;
+        } catch (OgnlException ex) {
+            failure = ex;
+            throw ex;
+        } catch (RuntimeException ex) {
+            failure = ex;
+            throw ex;
+        } finally {
+            final long duration = System.nanoTime() - start;
+
+            context.setSamplingTrace(null);
+            if (sampled || (_latencyThresholdNanos > 0 && duration >= _latencyThresholdNanos)) {
+                final long sequence = _sequence.getAndIncrement();
+                _buffer.set((int) sequence & _mask,
+                        new Sample(sequence, node, set, duration, result, failure, sampled ? trace : null));
+            }
+        }
+    }
+
+    /**
+     * The nodes evaluated by a sampled evaluation, in evaluation order.  Not thread-safe: a trace is confined to the
+     *   context of the evaluation.
+     */
+    static final class Trace
+    {
+        /* Marks a top-level evaluation in progress which is not sampled */
+        static final Trace UNSAMPLED = new Trace();
+
+        private Node[] _nodes = new Node[8];
+        private int[] _depths = new int[8];
+        private long[] _nanos = new long[8];
+        private Class[] _resultTypes = new Class[8];
+        private Class[] _exceptionTypes = new Class[8];
+        private int _size;
+        private int _depth;
+        private int _dropped;
+
+        Object getValue(OgnlContext context, SimpleNode node, Object source)
+                throws OgnlException
+        {
+            final int entry = enter(node);
+            Object result = null;
+            Throwable failure = null;
+
+            try {
+                result = node.evaluateGetValueBody(context, source);
+                return result;
+            } catch (OgnlException ex) {
+                failure = ex;
+                throw ex;
+            } catch (RuntimeException ex) {
+                failure = ex;
+                throw ex;
+            } finally {
+                exit(entry, result, failure);
+            }
+        }
+
+        void setValue(OgnlContext context, SimpleNode node, Object target, Object value)
+                throws OgnlException
+        {
+            final int entry = enter(node);
+            Throwable failure = null;
+
+            try {
+                node.evaluateSetValueBody(context, target, value);
+            } catch (OgnlException ex) {
+                failure = ex;
+                throw ex;
+            } catch (RuntimeException ex) {
+                failure = ex;
+                throw ex;
+            } finally {
+                exit(entry, null, failure);
+            }
+        }
+
+        private int enter(Node node)
+        {
+            if (_size == MAX_TRACED_NODES) {
+                _dropped++;
+                _depth++;
+                return -1;
+            }
+            if (_size == _nodes.length) {
+                final int length = Math.min(_size * 2, MAX_TRACED_NODES);
+                _nodes = Arrays.copyOf(_nodes, length);
+                _depths = Arrays.copyOf(_depths, length);
+                _nanos = Arrays.copyOf(_nanos, length);
+                _resultTypes = Arrays.copyOf(_resultTypes, length);
+                _exceptionTypes = Arrays.copyOf(_exceptionTypes, length);
+            }
+
+            final int entry = _size++;
+            _nodes[entry] = node;
+            _depths[entry] = _depth++;
+            _nanos[entry] = System.nanoTime();
+            return entry;
+        }
+
+        private void exit(int entry, Object result, Throwable failure)
+        {
+            _depth--;
+            if (entry >= 0) {
+                _nanos[entry] = System.nanoTime() - _nanos[entry];
+                _resultTypes[entry] = (result == null) ? null : result.getClass();
+                _exceptionTypes[entry] = (failure == null) ? null : failure.getClass();
+            }
+        }
+    }
+
+    /**
+     * A recorded top-level evaluation.  Sampled evaluations also hold the time, result type and exception type of
+     *   each node evaluated (up to {@value #MAX_TRACED_NODES} nodes), in evaluation order.
+     */
+    public static final class Sample
+    {
+        private final long _sequence;
+        private final long _timestamp;
+        private final Node _node;
+        private final boolean _setValue;
+        private final long _durationNanos;
+        private final Class _resultType;
+        private final Class _exceptionType;
+        private final String _exceptionMessage;
+
+        private final Node[] _nodes;
+        private final int[] _depths;
+        private final long[] _nanos;
+        private final Class[] _resultTypes;
+        private final Class[] _exceptionTypes;
+        private final int _droppedNodes;
+
+        Sample(long sequence, Node node, boolean setValue, long durationNanos, Object result, Throwable failure,
+               Trace trace)
+        {
+            _sequence = sequence;
+            _timestamp = System.currentTimeMillis();
+            _node = node;
+            _setValue = setValue;
+            _durationNanos = durationNanos;
+            _resultType = (result == null) ? null : result.getClass();
+            _exceptionType = (failure == null) ? null : failure.getClass();
+            _exceptionMessage = (failure == null) ? null : failure.getMessage();
+
+            final int size = (trace == null) ? 0 : trace._size;
+            _nodes = (trace == null) ? new Node[0] : Arrays.copyOf(trace._nodes, size);
+            _depths = (trace == null) ? new int[0] : Arrays.copyOf(trace._depths, size);
+            _nanos = (trace == null) ? new long[0] : Arrays.copyOf(trace._nanos, size);
+            _resultTypes = (trace == null) ? new Class[0] : Arrays.copyOf(trace._resultTypes, size);
+            _exceptionTypes = (trace == null) ? new Class[0] : Arrays.copyOf(trace._exceptionTypes, size);
+            _droppedNodes = (trace == null) ? 0 : trace._dropped;
+        }
+
+        /**
+         * @return the position of this sample among all the samples recorded by its tracer.
+         */
+        public long getSequence()
+        {
+            return _sequence;
+        }
+
+        /**
+         * @return the time this sample was recorded, in milliseconds since the epoch.
+         */
+        public long getTimestamp()
+        {
+            return _timestamp;
+        }
+
+        /**
+         * @return the node evaluated, usually the root of the expression.
+         */
+        public Node getNode()
+        {
+            return _node;
+        }
+
+        public String getExpression()
+        {
+            return _node.toString();
+        }
+
+        /**
+         * @return true if the evaluation was a setValue, false if it was a getValue.
+         */
+        public boolean isSetValue()
+        {
+            return _setValue;
+        }
+
+        public long getDurationNanos()
+        {
+            return _durationNanos;
+        }
+
+        /**
+         * @return the class of the result of the evaluation, null if the result was null or not available.
+         */
+        public Class getResultType()
+        {
+            return _resultType;
+        }
+
+        /**
+         * @return the class of the exception thrown by the evaluation, null if it succeeded.
+         */
+        public Class getExceptionType()
+        {
+            return _exceptionType;
+        }
+
+        public String getExceptionMessage()
+        {
+            return _exceptionMessage;
+        }
+
+        /**
+         * @return true if the evaluation was sampled, that is if the nodes evaluated were recorded.
+         */
+        public boolean isSampled()
+        {
+            return _nodes.length > 0;
+        }
+
+        /**
+         * @return the number of nodes recorded.
+         */
+        public int getNodeCount()
+        {
+            return _nodes.length;
+        }
+
+        /**
+         * @return the number of nodes evaluated but not recorded, because of the limit on the number of nodes.
+         */
+        public int getDroppedNodeCount()
+        {
+            return _droppedNodes;
+        }
+
+        public Node getNode(int index)
+        {
+            return _nodes[index];
+        }
+
+        /**
+         * @return the nesting depth of the given node, 0 for the node of the sample.
+         */
+        public int getNodeDepth(int index)
+        {
+            return _depths[index];
+        }
+
+        /**
+         * @return the time spent evaluating the given node, including its children.
+         */
+        public long getNodeDurationNanos(int index)
+        {
+            return _nanos[index];
+        }
+
+        public Class getNodeResultType(int index)
+        {
+            return _resultTypes[index];
+        }
+
+        public Class getNodeExceptionType(int index)
+        {
+            return _exceptionTypes[index];
+        }
+
+        public String toString()
+        {
+            final StringBuilder result = new StringBuilder();
+
+            result.append(_setValue ? "set " : "get ").append(_node).append(": ").append(_durationNanos).append("ns");
+            if (_exceptionType != null) {
+                result.append(", threw ").append(_exceptionType.getName());
+            } else if (_resultType != null) {
+                result.append(", returned ").append(_resultType.getName());
+            }
+            for (int i = 0; i < _nodes.length; i++) {
+                result.append('\n');
+                for (int j = 0; j < _depths[i]; j++) {
+                    result.append("  ");
+                }
+                result.append(_nodes[i].getClass().getSimpleName()).append(' ').append(_nodes[i]).append(": ")
+                        .append(_nanos[i]).append("ns");
+            }
+            return result.toString();
+        }
+    }
+}
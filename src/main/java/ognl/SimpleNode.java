@@ -52,6 +52,9 @@ public abstract class SimpleNode implements Node, Serializable {
 
     private ExpressionAccessor _accessor;
 
+    /* toString() of this node, cached for the expression metrics (benign race: strings are immutable) */
+    private transient String _normalizedExpression;
+
     public SimpleNode(int i)
     {
         _id = i;
@@ -116,6 +119,20 @@ public abstract class SimpleNode implements Node, Serializable {
 
     // OGNL additions
 
+    /**
+     * Returns the normalized text of this node (its {@link #toString()}), computed once.
+     */
+    String getNormalizedExpression()
+    {
+        String result = _normalizedExpression;
+
+        if (result == null) {
+            result = toString();
+            _normalizedExpression = result;
+        }
+        return result;
+    }
+
     public String toString(String prefix)
     {
         return prefix + OgnlParserTreeConstants.jjtNodeName[_id] + " " + toString();
@@ -254,6 +271,10 @@ public abstract class SimpleNode implements Node, Serializable {
                     pool.recycleAll(eval);
                 }
             }
+        } else if (context.getProfiler() != null) {
+            result = context.getProfiler().getValue(context, this, source);
+        } else if (context.getSamplingTracer() != null) {
+            result = context.getSamplingTracer().getValue(context, this, source);
         } else {
             result = evaluateGetValueBody(context, source);
         }
@@ -304,6 +325,10 @@ public abstract class SimpleNode implements Node, Serializable {
                     pool.recycleAll(eval);
                 }
             }
+        } else if (context.getProfiler() != null) {
+            context.getProfiler().setValue(context, this, target, value);
+        } else if (context.getSamplingTracer() != null) {
+            context.getSamplingTracer().setValue(context, this, target, value);
         } else {
             evaluateSetValueBody(context, target, value);
         }
@@ -0,0 +1,261 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * and/or LICENSE file distributed with this work for additional
+ * information regarding copyright ownership.  The ASF licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl;
+
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Denylist applied by {@link OgnlRuntime#invokeMethod(Object, Method, Object[])} when "stricter" invocation
+ *   is in effect (see {@link OgnlRuntime#getUseStricterInvocationValue()}).
+ *
+ * A policy denies some specific methods, as well as all methods declared by certain classes/interfaces (or their
+ *   descendants), for which no (apparent) legitimate use cases exist for their usage within OGNL.  Methods declared
+ *   by <code>sun.misc.Unsafe</code> or {@link OgnlRuntime} (or their descendants) are always denied, whatever the
+ *   policy: these checks are made by the final {@link #isDenied(Method)} and cannot be overridden.
+ *
+ * Policies are immutable and precompiled: the decisions are computed once per declaring class and per
+ *   {@link Method}, and held in a {@link ClassValue} keyed by the declaring class (so that the policy does not keep
+ *   classes, nor their class loaders, reachable), keeping the hardening on costs a class value lookup plus a single
+ *   concurrent map lookup per invocation.  The decisions are dropped by {@link #clearCache()} (called by
+ *   {@link OgnlRuntime#clearCache()}).  Use {@link #denyMethods(Method...)} and {@link #denyTypes(Class...)} to derive
+ *   an extended policy, or subclass and override {@link #isDeniedMethod(Method)} / {@link #isDeniedType(Class)} for
+ *   custom rules, then install it with {@link OgnlRuntime#setStricterInvocationPolicy(StricterInvocationPolicy)}.
+ *
+ * @since 3.3.0
+ */
+public class StricterInvocationPolicy
+{
+    private static final StricterInvocationPolicy DEFAULT_POLICY = new StricterInvocationPolicy(
+            Arrays.asList(
+                    findMethod(AccessibleObject.class, "setAccessible", boolean.class),
+                    findMethod(AccessibleObject.class, "setAccessible", AccessibleObject[].class, boolean.class),
+                    findMethod(System.class, "exit", int.class),
+                    findMethod(System.class, "console")),
+            Arrays.<Class<?>>asList(
+                    AccessibleObjectHandler.class,
+                    ClassResolver.class,
+                    MethodAccessor.class,
+                    MemberAccess.class,
+                    OgnlContext.class,
+                    Runtime.class,
+                    ClassLoader.class,
+                    ProcessBuilder.class));
+
+    private final Set<Method> _deniedMethods;
+    private final Class<?>[] _deniedTypes;
+    private volatile ClassValue<Decisions> _decisions = newDecisions();
+
+    /**
+     * Creates a policy denying the given methods and all methods declared by the given types (or their descendants).
+     *
+     * @param deniedMethods the methods to deny (null elements are ignored).
+     * @param deniedTypes the classes/interfaces whose methods (and the methods of their descendants) are denied
+     *                    (null elements are ignored).
+     */
+    public StricterInvocationPolicy(Collection<Method> deniedMethods, Collection<Class<?>> deniedTypes)
+    {
+        final Set<Method> methods = new HashSet<Method>();
+        for (Method method : deniedMethods) {
+            if (method != null) {
+                methods.add(method);
+            }
+        }
+
+        final List<Class<?>> types = new ArrayList<Class<?>>();
+        for (Class<?> type : deniedTypes) {
+            if (type != null && !types.contains(type)) {
+                types.add(type);
+            }
+        }
+
+        _deniedMethods = Collections.unmodifiableSet(methods);
+        _deniedTypes = types.toArray(new Class<?>[types.size()]);
+    }
+
+    /**
+     * Returns the default policy used by OGNL.
+     *
+     * @return the default policy.
+     */
+    public static StricterInvocationPolicy getDefaultPolicy()
+    {
+        return DEFAULT_POLICY;
+    }
+
+    /**
+     * Returns a new policy denying the methods and types of this policy, plus the given methods.
+     *
+     * @param methods the additional methods to deny.
+     * @return the new policy.
+     */
+    public StricterInvocationPolicy denyMethods(Method... methods)
+    {
+        final List<Method> deniedMethods = new ArrayList<Method>(_deniedMethods);
+        deniedMethods.addAll(Arrays.asList(methods));
+
+        return new StricterInvocationPolicy(deniedMethods, getDeniedTypes());
+    }
+
+    /**
+     * Returns a new policy denying the methods and types of this policy, plus all methods declared by the given
+     *   types (or their descendants).
+     *
+     * @param types the additional classes/interfaces to deny.
+     * @return the new policy.
+     */
+    public StricterInvocationPolicy denyTypes(Class<?>... types)
+    {
+        final List<Class<?>> deniedTypes = new ArrayList<Class<?>>(getDeniedTypes());
+        deniedTypes.addAll(Arrays.asList(types));
+
+        return new StricterInvocationPolicy(_deniedMethods, deniedTypes);
+    }
+
+    /**
+     * @return the (unmodifiable) set of specific methods denied by this policy.
+     */
+    public Set<Method> getDeniedMethods()
+    {
+        return _deniedMethods;
+    }
+
+    /**
+     * @return the (unmodifiable) list of classes/interfaces whose methods are denied by this policy.
+     */
+    public List<Class<?>> getDeniedTypes()
+    {
+        return Collections.unmodifiableList(Arrays.asList(_deniedTypes));
+    }
+
+    /**
+     * Tells whether the given method must not be invoked from within OGNL.  The decision is computed once per
+     *   method and cached.
+     *
+     * @param method the method about to be invoked.
+     * @return true if the invocation must be denied.
+     */
+    public final boolean isDenied(Method method)
+    {
+        final Decisions decisions = _decisions.get(method.getDeclaringClass());
+
+        if (decisions._typeDenied) {
+            return true;
+        }
+
+        Boolean decision = decisions._methods.get(method);
+
+        if (decision == null) {
+            decision = Boolean.valueOf(isDeniedMethod(method));
+            decisions._methods.put(method, decision);
+        }
+        return decision.booleanValue();
+    }
+
+    /**
+     * Drops the cached decisions of this policy, which are computed again on the next invocations.
+     */
+    public void clearCache()
+    {
+        _decisions = newDecisions();
+    }
+
+    /**
+     * Tells whether the given method is specifically denied, regardless of its declaring class.  Called at most
+     *   once per method (unless the method is concurrently looked up for the first time).
+     *
+     * @param method the method about to be invoked.
+     * @return true if method is denied.
+     */
+    protected boolean isDeniedMethod(Method method)
+    {
+        return _deniedMethods.contains(method);
+    }
+
+    /**
+     * Tells whether all the methods declared by the given class are denied.  Called at most once per class.
+     *
+     * @param declaringClass the declaring class of a method about to be invoked.
+     * @return true if the methods of declaringClass are denied.
+     */
+    protected boolean isDeniedType(Class<?> declaringClass)
+    {
+        for (Class<?> deniedType : _deniedTypes) {
+            if (deniedType.isAssignableFrom(declaringClass)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private ClassValue<Decisions> newDecisions()
+    {
+        return new ClassValue<Decisions>() {
+            @Override
+            protected Decisions computeValue(Class<?> type)
+            {
+                return new Decisions(isAlwaysDeniedType(type) || isDeniedType(type));
+            }
+        };
+    }
+
+    /**
+     * The types whose methods are denied by any policy: not open to subclasses.
+     */
+    private static boolean isAlwaysDeniedType(Class<?> declaringClass)
+    {
+        return OgnlRuntime.class.isAssignableFrom(declaringClass)
+                || AccessibleObjectHandlerJDK9Plus.unsafeOrDescendant(declaringClass);
+    }
+
+    private static Method findMethod(Class<?> type, String name, Class<?>... parameterTypes)
+    {
+        try {
+            return type.getMethod(name, parameterTypes);
+        } catch (NoSuchMethodException ex) {
+            // May happen for methods unavailable on older JDKs (e.g. System.console() before JDK 1.6).
+            return null;
+        } catch (SecurityException ex) {
+            // May be blocked by existing SecurityManager.
+            return null;
+        }
+    }
+
+    /**
+     * The decisions cached for a declaring class: holds neither the policy nor other classes.
+     */
+    private static final class Decisions
+    {
+        final boolean _typeDenied;
+        final ConcurrentHashMap<Method, Boolean> _methods = new ConcurrentHashMap<Method, Boolean>();
+
+        Decisions(boolean typeDenied)
+        {
+            _typeDenied = typeDenied;
+        }
+    }
+}
@@ -0,0 +1,770 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * and/or LICENSE file distributed with this work for additional
+ * information regarding copyright ownership.  The ASF licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl;
+
+import java.beans.IntrospectionException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Static type inference of an expression tree, see {@link Ognl#inferTypes(Object, Map, Class, Map)}.  Types are
+ *   propagated from the type of the root and the types of the variables, resolving properties and methods with the
+ *   same lookups as {@link OgnlRuntime} (property access plans, best method match) and the built-in property
+ *   accessors, and following the numeric promotions of {@link OgnlOps}.  Generic declarations are used to type the
+ *   elements of collections, arrays and maps, so that projections and selections are typed too.
+ *
+ * The type of each node is collected in an {@link InferredTypes} side table, the tree is left untouched but for
+ *   the seeds of the {@link OperatorSpecialization specializations} of its operators.  A null type means that the
+ *   type is not known statically (an untyped variable, a map value without declared type, a custom accessor...), in
+ *   which case the nodes depending on it are not typed either.
+ *
+ * Not intended for use outside of the package.
+ *
+ * @since 3.3.0
+ */
+final class TypeInference
+{
+    private final OgnlContext _context;
+    private final Type _rootType;
+    private final Map<String, Type> _variableTypes = new HashMap<String, Type>();
+    private final Map<Node, Class> _nodeTypes = new IdentityHashMap<Node, Class>();
+
+    TypeInference(OgnlContext context, Class rootType, Map variableTypes)
+    {
+        _context = context;
+        _rootType = rootType;
+        if (variableTypes != null) {
+            _variableTypes.putAll(variableTypes);
+        }
+    }
+
+    /**
+     * Infers the types of all the nodes of the given tree.
+     *
+     * @return the types of the tree and of its nodes.
+     * @throws OgnlException if a property, method, field or class cannot be resolved on a known type.
+     */
+    InferredTypes infer(Node tree)
+            throws OgnlException
+    {
+        final Class type = erase(infer(tree, _rootType));
+
+        return new InferredTypes(tree, type, _nodeTypes);
+    }
+
+    private void setType(Node node, Type type)
+    {
+        final Class erased = erase(type);
+
+        if (erased != null) {
+            _nodeTypes.put(node, erased);
+        }
+    }
+
+    /**
+     * Infers the type of the given node, evaluated against a source of the given type, and records it.
+     */
+    private Type infer(Node node, Type sourceType)
+            throws OgnlException
+    {
+        final Type result = inferNode(node, sourceType);
+
+        setType(node, result);
+        return result;
+    }
+
+    private Type inferNode(Node node, Type sourceType)
+            throws OgnlException
+    {
+        if (node instanceof ASTChain) {
+            return inferChain((ASTChain) node, sourceType);
+        }
+        if (node instanceof ASTProperty) {
+            return inferProperty((ASTProperty) node, sourceType);
+        }
+        if (node instanceof ASTMethod) {
+            return inferMethod((ASTMethod) node, sourceType);
+        }
+        if (node instanceof ASTConst) {
+            final Object value = ((ASTConst) node).getValue();
+            return (value == null) ? null : value.getClass();
+        }
+        if (node instanceof ASTThisVarRef) {
+            return sourceType;
+        }
+        if (node instanceof ASTRootVarRef) {
+            return _rootType;
+        }
+        if (node instanceof ASTVarRef) {
+            return _variableTypes.get(((ASTVarRef) node).getName());
+        }
+        if (node instanceof ASTStaticField) {
+            return inferStaticField((ASTStaticField) node);
+        }
+        if (node instanceof ASTStaticMethod) {
+            return inferStaticMethod((ASTStaticMethod) node);
+        }
+        if (node instanceof ASTCtor) {
+            return inferConstructor((ASTCtor) node);
+        }
+        if (node instanceof ASTProject || node instanceof ASTSelect || node instanceof ASTSelectFirst
+            || node instanceof ASTSelectLast) {
+            final Type elementType = infer(node.jjtGetChild(0), getElementType(sourceType));
+            return listOf((node instanceof ASTProject) ? elementType : getElementType(sourceType));
+        }
+        if (node instanceof ASTList) {
+            return listOf(inferCommonType(node, sourceType, 0));
+        }
+        if (node instanceof ASTMap) {
+            inferChildren(node, sourceType);
+            try {
+                return ((ASTMap) node).getCreatedClass(_context);
+            } catch (ClassNotFoundException ex) {
+                throw new OgnlException("Map implementor not found for " + node, ex);
+            }
+        }
+        if (node instanceof ASTSequence) {
+            Type result = null;
+            for (int i = 0, count = node.jjtGetNumChildren(); i < count; i++) {
+                result = infer(node.jjtGetChild(i), sourceType);
+            }
+            return result;
+        }
+        if (node instanceof ASTAssign) {
+            return inferAssignment(node, sourceType);
+        }
+        if (node instanceof ASTTest) {
+            infer(node.jjtGetChild(0), sourceType);
+            return inferCommonType(node, sourceType, 1);
+        }
+        if (node instanceof ASTAnd || node instanceof ASTOr) {
+            // the value of the last evaluated operand
+            return inferCommonType(node, sourceType, 0);
+        }
+        if (node instanceof ComparisonExpression) {
+            seed((ExpressionNode) node, inferChildren(node, sourceType));
+            return Boolean.class;
+        }
+        if (node instanceof ASTNot || node instanceof ASTIn || node instanceof ASTNotIn
+            || node instanceof ASTInstanceof) {
+            inferChildren(node, sourceType);
+            return Boolean.class;
+        }
+        if (node instanceof NumericExpression) {
+            return inferNumeric((NumericExpression) node, inferChildren(node, sourceType));
+        }
+
+        // eval, key/value and unknown nodes: the children are typed, not the node itself
+        inferChildren(node, sourceType);
+        return null;
+    }
+
+    private Type[] inferChildren(Node node, Type sourceType)
+            throws OgnlException
+    {
+        final Type[] result = new Type[node.jjtGetNumChildren()];
+
+        for (int i = 0; i < result.length; i++) {
+            result[i] = infer(node.jjtGetChild(i), sourceType);
+        }
+        return result;
+    }
+
+    private Type inferCommonType(Node node, Type sourceType, int from)
+            throws OgnlException
+    {
+        Type result = null;
+
+        for (int i = from, count = node.jjtGetNumChildren(); i < count; i++) {
+            final Type type = infer(node.jjtGetChild(i), sourceType);
+            result = (i == from) ? type : getCommonType(result, type);
+        }
+        return result;
+    }
+
+    private Type inferChain(ASTChain chain, Type sourceType)
+            throws OgnlException
+    {
+        Type result = sourceType;
+
+        for (int i = 0, count = chain.jjtGetNumChildren(); i < count; i++) {
+            final Node link = chain.jjtGetChild(i);
+
+            if (i + 1 < count && link instanceof ASTProperty && !((ASTProperty) link).isIndexedAccess()
+                && chain.jjtGetChild(i + 1) instanceof ASTProperty
+                && ((ASTProperty) chain.jjtGetChild(i + 1)).isIndexedAccess()) {
+                // an indexed property followed by an index is read through the indexed read method
+                final Method indexedReadMethod = getIndexedReadMethod((ASTProperty) link, result);
+
+                if (indexedReadMethod != null) {
+                    final ASTProperty index = (ASTProperty) chain.jjtGetChild(i + 1);
+
+                    infer(index.jjtGetChild(0), _rootType);
+                    result = resolve(indexedReadMethod.getGenericReturnType(), indexedReadMethod.getDeclaringClass(), result);
+                    setType(index, result);
+                    i++;
+                    continue;
+                }
+            }
+            result = infer(link, result);
+        }
+        return result;
+    }
+
+    private Method getIndexedReadMethod(ASTProperty property, Type sourceType)
+            throws OgnlException
+    {
+        final Object name = getConstantName(property);
+        final Class sourceClass = box(erase(sourceType));
+
+        if (!(name instanceof String) || sourceClass == null || !isBeanAccessor(sourceClass)) {
+            return null;
+        }
+
+        final PropertyAccessPlan plan = getPlan(sourceClass, (String) name);
+        return (plan.getIndexedPropertyType() == OgnlRuntime.INDEXED_PROPERTY_NONE) ? null : plan.getIndexedReadMethod();
+    }
+
+    private Type inferProperty(ASTProperty property, Type sourceType)
+            throws OgnlException
+    {
+        // the name (or index) of a property is evaluated against the root
+        final Node nameNode = property.jjtGetChild(0);
+        infer(nameNode, _rootType);
+
+        final Class sourceClass = box(erase(sourceType));
+        final Object name = getConstantName(property);
+
+        if (sourceClass == null || name == null) {
+            return null;
+        }
+
+        if (sourceClass.isArray()) {
+            if (name instanceof Number) {
+                return getElementType(sourceType);
+            }
+            if ("length".equals(name)) {
+                return Integer.TYPE;
+            }
+        } else if (Map.class.isAssignableFrom(sourceClass)) {
+            if (!property.isIndexedAccess()) {
+                if ("size".equals(name)) {
+                    return Integer.TYPE;
+                }
+                if ("keys".equals(name) || "keySet".equals(name)) {
+                    return Set.class;
+                }
+                if ("values".equals(name)) {
+                    return Collection.class;
+                }
+                if ("isEmpty".equals(name)) {
+                    return Boolean.TYPE;
+                }
+            }
+            // keys are not known statically: the value type, if declared
+            return getTypeArgument(sourceType, Map.class, 1);
+        } else if (Collection.class.isAssignableFrom(sourceClass)) {
+            if (name instanceof Number && List.class.isAssignableFrom(sourceClass)) {
+                return getElementType(sourceType);
+            }
+            if ("size".equals(name)) {
+                return Integer.TYPE;
+            }
+            if ("isEmpty".equals(name)) {
+                return Boolean.TYPE;
+            }
+            if ("iterator".equals(name)) {
+                return Iterator.class;
+            }
+        } else if (Iterator.class.isAssignableFrom(sourceClass)) {
+            if ("next".equals(name)) {
+                return getElementType(sourceType);
+            }
+            if ("hasNext".equals(name)) {
+                return Boolean.TYPE;
+            }
+        } else if (Enumeration.class.isAssignableFrom(sourceClass)) {
+            if ("nextElement".equals(name) || "next".equals(name)) {
+                return getElementType(sourceType);
+            }
+            if ("hasMoreElements".equals(name) || "hasNext".equals(name)) {
+                return Boolean.TYPE;
+            }
+        }
+
+        if (!(name instanceof String) || sourceClass == Object.class || !isBeanAccessor(sourceClass)) {
+            return null;
+        }
+
+        final PropertyAccessPlan plan = getPlan(sourceClass, (String) name);
+        if (plan.getReadMethod() != null) {
+            return resolve(plan.getReadMethod().getGenericReturnType(), plan.getReadMethod().getDeclaringClass(), sourceType);
+        }
+        if (plan.isReadable()) {
+            return resolve(plan.getField().getGenericType(), plan.getField().getDeclaringClass(), sourceType);
+        }
+        throw new NoSuchPropertyException(sourceClass, name);
+    }
+
+    private static Object getConstantName(ASTProperty property)
+    {
+        final Node nameNode = property.jjtGetChild(0);
+        return (nameNode instanceof ASTConst) ? ((ASTConst) nameNode).getValue() : null;
+    }
+
+    private PropertyAccessPlan getPlan(Class sourceClass, String name)
+            throws OgnlException
+    {
+        try {
+            return OgnlRuntime.getPropertyAccessPlan(sourceClass, name);
+        } catch (IntrospectionException ex) {
+            throw new OgnlException(name, ex);
+        }
+    }
+
+    /**
+     * Tells whether the properties of the given class are resolved by the bean lookups of the built-in accessors.
+     */
+    private static boolean isBeanAccessor(Class sourceClass)
+            throws OgnlException
+    {
+        final PropertyAccessor accessor = OgnlRuntime.getPropertyAccessor(sourceClass);
+        final Class accessorClass = (accessor == null) ? null : accessor.getClass();
+
+        return accessorClass == ObjectPropertyAccessor.class || accessorClass == ArrayPropertyAccessor.class
+               || accessorClass == ListPropertyAccessor.class || accessorClass == SetPropertyAccessor.class
+               || accessorClass == IteratorPropertyAccessor.class || accessorClass == EnumerationPropertyAccessor.class;
+    }
+
+    private Type inferMethod(ASTMethod method, Type sourceType)
+            throws OgnlException
+    {
+        // the arguments of a method are evaluated against the root
+        final Type[] argTypes = inferChildren(method, _rootType);
+        final Class sourceClass = box(erase(sourceType));
+
+        if (sourceClass == null) {
+            return null;
+        }
+
+        List methods = OgnlRuntime.getMethods(sourceClass, method.getMethodName(), false);
+        if (methods == null || methods.isEmpty()) {
+            methods = OgnlRuntime.getMethods(sourceClass, method.getMethodName(), true);
+        }
+        if (methods == null || methods.isEmpty()) {
+            if (sourceClass != Object.class
+                && OgnlRuntime.getMethodAccessor(sourceClass).getClass() == ObjectMethodAccessor.class) {
+                throw new MethodFailedException(sourceClass, method.getMethodName(),
+                        new NoSuchMethodException(sourceClass.getName() + "." + method.getMethodName() + "()"));
+            }
+            return null;
+        }
+
+        return getReturnType(methods, sourceClass, method.getMethodName(), argTypes, sourceType);
+    }
+
+    private Type inferStaticMethod(ASTStaticMethod method)
+            throws OgnlException
+    {
+        final Type[] argTypes = inferChildren(method, _rootType);
+        final Class targetClass = classForName(method.getClassName());
+        final List methods = OgnlRuntime.getMethods(targetClass, method.getMethodName(), true);
+
+        if (methods == null || methods.isEmpty()) {
+            throw new MethodFailedException(targetClass, method.getMethodName(),
+                    new NoSuchMethodException(targetClass.getName() + "." + method.getMethodName() + "()"));
+        }
+        return getReturnType(methods, targetClass, method.getMethodName(), argTypes, targetClass);
+    }
+
+    /**
+     * Returns the return type of the method the runtime would call for arguments of the given types.
+     */
+    private static Type getReturnType(List methods, Class targetClass, String name, Type[] argTypes, Type ownerType)
+    {
+        final Class[] argClasses = new Class[argTypes.length];
+        for (int i = 0; i < argTypes.length; i++) {
+            argClasses[i] = getArgClass(erase(argTypes[i]));
+        }
+
+        Method result = OgnlRuntime.getBestMethod(methods, targetClass, name, argClasses);
+        if (result == null) {
+            // the arguments will be converted: only typed if all the candidates agree
+            for (int i = 0; i < methods.size(); i++) {
+                final Method candidate = (Method) methods.get(i);
+                if (result != null && result.getReturnType() != candidate.getReturnType()) {
+                    return null;
+                }
+                result = candidate;
+            }
+        }
+        return resolve(result.getGenericReturnType(), result.getDeclaringClass(), ownerType);
+    }
+
+    /**
+     * Returns the class the runtime matches against parameter types for an argument of the given class, see
+     * {@link OgnlRuntime#getArgClass(Object)}.
+     */
+    private static Class getArgClass(Class c)
+    {
+        if (c == Boolean.class) return Boolean.TYPE;
+        if (c == Integer.class) return Integer.TYPE;
+        if (c == Double.class) return Double.TYPE;
+        if (c == Byte.class) return Byte.TYPE;
+        if (c == Long.class) return Long.TYPE;
+        if (c == Float.class) return Float.TYPE;
+        if (c == Short.class) return Short.TYPE;
+        if (c == Character.class) return Character.TYPE;
+        return c;
+    }
+
+    private Type inferStaticField(ASTStaticField node)
+            throws OgnlException
+    {
+        final Class targetClass = classForName(node.getClassName());
+
+        if ("class".equals(node.getFieldName())) {
+            return Class.class;
+        }
+
+        final Field field = OgnlRuntime.getField(targetClass, node.getFieldName());
+        if (field == null) {
+            throw new OgnlException("Could not get static field " + node.getFieldName() + " from class "
+                    + node.getClassName(), new NoSuchFieldException(node.getFieldName()));
+        }
+        return field.getGenericType();
+    }
+
+    private Type inferConstructor(ASTCtor node)
+            throws OgnlException
+    {
+        inferChildren(node, _rootType);
+        try {
+            final Class createdClass = node.getCreatedClass(_context);
+            return node.isArray() ? Array.newInstance(createdClass, 0).getClass() : createdClass;
+        } catch (ClassNotFoundException ex) {
+            throw new OgnlException("Class not found for " + node, ex);
+        }
+    }
+
+    private Type inferAssignment(Node node, Type sourceType)
+            throws OgnlException
+    {
+        final Node target = node.jjtGetChild(0);
+        final Type result = infer(node.jjtGetChild(1), sourceType);
+
+        if (target instanceof ASTVarRef && !(target instanceof ASTThisVarRef) && !(target instanceof ASTRootVarRef)) {
+            // the variable has the type of its last assignment for the rest of the expression
+            _variableTypes.put(((ASTVarRef) target).getName(), result);
+            setType(target, result);
+        } else {
+            infer(target, sourceType);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the type of the result of an arithmetic node, see the numeric promotions of {@link OgnlOps}.
+     */
+    private static Type inferNumeric(NumericExpression node, Type[] operandTypes)
+    {
+        for (Type operandType : operandTypes) {
+            if (operandType == null) {
+                return null;
+            }
+        }
+        seed(node, operandTypes);
+
+        int type = getNumericType(operandTypes[0]);
+        if (operandTypes.length == 1 || node instanceof ASTShiftLeft || node instanceof ASTShiftRight
+            || node instanceof ASTUnsignedShiftRight) {
+            // negations and shifts keep the type of their (first) operand
+            return (type == NumericTypes.NONNUMERIC) ? null : getNumericClass(type);
+        }
+
+        final boolean canBeNonNumeric = node instanceof ASTAdd;
+        for (int i = 1; i < operandTypes.length; i++) {
+            type = OgnlOps.getNumericType(type, getNumericType(operandTypes[i]), canBeNonNumeric);
+        }
+        return (type == NumericTypes.NONNUMERIC) ? String.class : getNumericClass(type);
+    }
+
+    /**
+     * Seeds the operator specialization of the node if all its operands have the same static type.
+     */
+    private static void seed(ExpressionNode node, Type[] operandTypes)
+    {
+        final OperatorSpecialization specialization = node.getSpecialization();
+
+        if (specialization != null && operandTypes.length > 1) {
+            final Class type = box(erase(operandTypes[0]));
+
+            for (int i = 1; i < operandTypes.length; i++) {
+                if (type == null || box(erase(operandTypes[i])) != type) {
+                    return;
+                }
+            }
+            specialization.seed(type);
+        }
+    }
+
+    private static int getNumericType(Type type)
+    {
+        final Class c = box(erase(type));
+
+        if (c == Integer.class) return NumericTypes.INT;
+        if (c == Double.class) return NumericTypes.DOUBLE;
+        if (c == Boolean.class) return NumericTypes.BOOL;
+        if (c == Byte.class) return NumericTypes.BYTE;
+        if (c == Character.class) return NumericTypes.CHAR;
+        if (c == Short.class) return NumericTypes.SHORT;
+        if (c == Long.class) return NumericTypes.LONG;
+        if (c == Float.class) return NumericTypes.FLOAT;
+        if (c == BigInteger.class) return NumericTypes.BIGINT;
+        if (c == BigDecimal.class) return NumericTypes.BIGDEC;
+        return NumericTypes.NONNUMERIC;
+    }
+
+    /**
+     * Returns the class of the values created by {@link OgnlOps#newInteger(int, long)} and
+     * {@link OgnlOps#newReal(int, double)} for the given numeric type.
+     */
+    private static Class getNumericClass(int type)
+    {
+        switch (type) {
+            case NumericTypes.BYTE: return Byte.class;
+            case NumericTypes.SHORT: return Short.class;
+            case NumericTypes.LONG: return Long.class;
+            case NumericTypes.FLOAT: return Float.class;
+            case NumericTypes.DOUBLE: return Double.class;
+            case NumericTypes.BIGINT: return BigInteger.class;
+            case NumericTypes.BIGDEC: return BigDecimal.class;
+            default: return Integer.class;
+        }
+    }
+
+    private Class classForName(String className)
+            throws OgnlException
+    {
+        try {
+            return OgnlRuntime.classForName(_context, className);
+        } catch (ClassNotFoundException ex) {
+            throw new OgnlException("Class " + className + " not found", ex);
+        }
+    }
+
+    private static Type getCommonType(Type t1, Type t2)
+    {
+        if (t1 == null || t2 == null) {
+            return null;
+        }
+        if (t1.equals(t2)) {
+            return t1;
+        }
+
+        final Class c1 = box(erase(t1)), c2 = box(erase(t2));
+        if (c1.isAssignableFrom(c2)) {
+            return c1;
+        }
+        return c2.isAssignableFrom(c1) ? c2 : null;
+    }
+
+    /**
+     * Returns the type of the elements OGNL enumerates in a value of the given type (see {@link ElementsAccessor}),
+     * or null if it is not known.
+     */
+    private static Type getElementType(Type type)
+    {
+        final Class c = erase(type);
+
+        if (c == null) {
+            return null;
+        }
+        if (c.isArray()) {
+            return (type instanceof GenericArrayType) ? ((GenericArrayType) type).getGenericComponentType()
+                                                      : c.getComponentType();
+        }
+        if (Map.class.isAssignableFrom(c)) {
+            return getTypeArgument(type, Map.class, 1);
+        }
+        if (Iterable.class.isAssignableFrom(c)) {
+            return getTypeArgument(type, Iterable.class, 0);
+        }
+        if (Iterator.class.isAssignableFrom(c)) {
+            return getTypeArgument(type, Iterator.class, 0);
+        }
+        if (Enumeration.class.isAssignableFrom(c)) {
+            return getTypeArgument(type, Enumeration.class, 0);
+        }
+        return null;
+    }
+
+    private static Type listOf(Type elementType)
+    {
+        return (elementType == null) ? ArrayList.class : new ParameterizedTypeImpl(ArrayList.class, box(elementType));
+    }
+
+    /**
+     * Returns the actual type argument of the given generic class (or interface) for the given type.
+     *
+     * @return the type argument, or null if it is not known.
+     */
+    private static Type getTypeArgument(Type type, Class genericClass, int index)
+    {
+        final Class c = erase(type);
+
+        if (c == null || !genericClass.isAssignableFrom(c)) {
+            return null;
+        }
+        if (c == genericClass) {
+            return (type instanceof ParameterizedType) ? ((ParameterizedType) type).getActualTypeArguments()[index] : null;
+        }
+
+        final List<Type> supertypes = new ArrayList<Type>(Arrays.asList(c.getGenericInterfaces()));
+        if (c.getGenericSuperclass() != null) {
+            supertypes.add(c.getGenericSuperclass());
+        }
+        for (Type supertype : supertypes) {
+            final Type result = getTypeArgument(supertype, genericClass, index);
+
+            if (result != null) {
+                return resolve(result, c, type);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Resolves a type used in a member declared by the given class to the actual type argument of the owner type,
+     * when it is one of the type variables of the class.
+     */
+    private static Type resolve(Type type, Class declaringClass, Type ownerType)
+    {
+        if (type instanceof TypeVariable && ((TypeVariable) type).getGenericDeclaration() == declaringClass) {
+            final TypeVariable[] variables = declaringClass.getTypeParameters();
+
+            for (int i = 0; i < variables.length; i++) {
+                if (variables[i].equals(type)) {
+                    final Type result = getTypeArgument(ownerType, declaringClass, i);
+                    return (result == null) ? type : result;
+                }
+            }
+        }
+        return type;
+    }
+
+    /**
+     * @return the class of the given type, its bound for type variables and wildcards, or null for a null type.
+     */
+    static Class erase(Type type)
+    {
+        if (type == null || type instanceof Class) {
+            return (Class) type;
+        }
+        if (type instanceof ParameterizedType) {
+            return erase(((ParameterizedType) type).getRawType());
+        }
+        if (type instanceof GenericArrayType) {
+            final Class component = erase(((GenericArrayType) type).getGenericComponentType());
+            return Array.newInstance(component, 0).getClass();
+        }
+        if (type instanceof TypeVariable) {
+            return erase(((TypeVariable) type).getBounds()[0]);
+        }
+        if (type instanceof WildcardType) {
+            return erase(((WildcardType) type).getUpperBounds()[0]);
+        }
+        return null;
+    }
+
+    private static Type box(Type type)
+    {
+        return (type instanceof Class) ? box((Class) type) : type;
+    }
+
+    private static Class box(Class c)
+    {
+        return (c != null && c.isPrimitive()) ? OgnlRuntime.getPrimitiveWrapperClass(c) : c;
+    }
+
+    /**
+     * The parameterized type of the lists created by projections, selections and list literals.
+     */
+    private static final class ParameterizedTypeImpl implements ParameterizedType
+    {
+        private final Class _rawType;
+        private final Type[] _arguments;
+
+        ParameterizedTypeImpl(Class rawType, Type argument)
+        {
+            _rawType = rawType;
+            _arguments = new Type[] { argument };
+        }
+
+        public Type[] getActualTypeArguments()
+        {
+            return _arguments.clone();
+        }
+
+        public Type getRawType()
+        {
+            return _rawType;
+        }
+
+        public Type getOwnerType()
+        {
+            return null;
+        }
+
+        public boolean equals(Object other)
+        {
+            return (other instanceof ParameterizedType) && ((ParameterizedType) other).getOwnerType() == null
+                   && _rawType == ((ParameterizedType) other).getRawType()
+                   && Arrays.equals(_arguments, ((ParameterizedType) other).getActualTypeArguments());
+        }
+
+        public int hashCode()
+        {
+            return Arrays.hashCode(_arguments) ^ _rawType.hashCode();
+        }
+
+        public String toString()
+        {
+            return _rawType.getName() + "<" + _arguments[0].getTypeName() + ">";
+        }
+    }
+}
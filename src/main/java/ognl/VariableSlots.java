@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * and/or LICENSE file distributed with this work for additional
+ * information regarding copyright ownership.  The ASF licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The variables (<code>#name</code> references) of a parsed expression, each assigned a slot index.  The slots are
+ *   assigned once by {@link #resolve(Node)} when the expression is parsed; at evaluation time the
+ *   {@link OgnlContext} keeps the value of each slot in a small array-backed frame, so that repeated references to
+ *   a variable do not repeat the reserved key checks and the lookups in the context values {@link java.util.Map}.
+ *
+ * The context values map stays the authoritative store: the frame is only a cache of it, invalidated whenever the
+ *   map is modified through the context.  The slots are serialized with the parsed expression, every reference of
+ *   the expression keeping the same (deserialized) instance.
+ *
+ * Not intended for use outside of the package.
+ *
+ * @since 3.3.0
+ */
+final class VariableSlots implements Serializable
+{
+    private final String[] _names;
+
+    private VariableSlots(String[] names)
+    {
+        _names = names;
+    }
+
+    /**
+     * Assigns a slot to every variable reference of the given expression tree (lambdas included).  References to the
+     *   same name share the same slot, references to reserved context keys are left unresolved.
+     *
+     * @param expression the root node of a newly parsed expression.
+     */
+    static void resolve(Node expression)
+    {
+        final List<ASTVarRef> references = new ArrayList<>();
+        collect(expression, references);
+        if (references.isEmpty()) {
+            return;
+        }
+
+        final List<String> names = new ArrayList<>();
+        final int[] indexes = new int[references.size()];
+        for (int i = 0; i < indexes.length; i++) {
+            final String name = references.get(i).getName();
+            int index = names.indexOf(name);
+            if (index < 0) {
+                index = names.size();
+                names.add(name);
+            }
+            indexes[i] = index;
+        }
+
+        final VariableSlots slots = new VariableSlots(names.toArray(new String[0]));
+        for (int i = 0; i < indexes.length; i++) {
+            references.get(i).setSlot(slots, indexes[i]);
+        }
+    }
+
+    private static void collect(Node node, List<ASTVarRef> references)
+    {
+        if (node instanceof ASTVarRef) {
+            final ASTVarRef reference = (ASTVarRef) node;
+            // #this and #root are answered by the context itself
+            if (!(node instanceof ASTThisVarRef) && !(node instanceof ASTRootVarRef)
+                    && reference.getName() != null && !OgnlContext.isReservedKey(reference.getName())) {
+                references.add(reference);
+            }
+        }
+
+        for (int i = 0, count = node.jjtGetNumChildren(); i < count; i++) {
+            collect(node.jjtGetChild(i), references);
+        }
+    }
+
+    int size()
+    {
+        return _names.length;
+    }
+
+    String getName(int index)
+    {
+        return _names[index];
+    }
+}
@@ -2,6 +2,7 @@ package ognl.enhance;
 
 import javassist.*;
 import ognl.*;
+import ognl.metrics.ExpressionMetrics;
 
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
@@ -422,6 +423,8 @@ public class ExpressionCompiler implements OgnlExpressionCompiler {
         {
             //uc.printStackTrace();
 
+            recordCompiledWithFallback(expression, false);
+
             nodeMember = new CtField(nodeClass, "_node", newClass);
             newClass.addField(nodeMember);
 
@@ -443,6 +446,8 @@ public class ExpressionCompiler implements OgnlExpressionCompiler {
 
             //uc.printStackTrace();
 
+            recordCompiledWithFallback(expression, true);
+
             if (nodeMember == null)
             {
                 nodeMember = new CtField(nodeClass, "_node", newClass);
@@ -483,6 +488,16 @@ public class ExpressionCompiler implements OgnlExpressionCompiler {
 
     }
 
+    private static void recordCompiledWithFallback(Node expression, boolean setter)
+    {
+        ExpressionMetrics metrics = OgnlRuntime.getExpressionMetrics();
+
+        if (metrics != null)
+        {
+            metrics.recordCompiledWithFallback(OgnlRuntime.getNormalizedExpression(expression), setter);
+        }
+    }
+
     protected String generateGetter(OgnlContext context, CtClass newClass, CtClass objClass, ClassPool pool,
                                     CtMethod valueGetter, Node expression, Object root)
             throws Exception
@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * and/or LICENSE file distributed with this work for additional
+ * information regarding copyright ownership.  The ASF licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl.metrics;
+
+/**
+ * Receives the measures of the evaluations done through {@link ognl.Ognl#getValue(Object, java.util.Map, Object, Class)}
+ *   and {@link ognl.Ognl#setValue(Object, java.util.Map, Object, Object)} (and the methods delegating to them), once
+ *   installed with {@link ognl.OgnlRuntime#setExpressionMetrics(ExpressionMetrics)}.  Expressions are identified by
+ *   their normalized text (the <code>toString()</code> of their tree), so that the same expression parsed several
+ *   times, or written with different spacing, is counted once.
+ *
+ * Implementations are called by the evaluating threads, concurrently: they must be thread-safe and should not
+ *   block.  {@link ExpressionMetricsCollector} is the default implementation.
+ *
+ * @since 3.3.0
+ */
+public interface ExpressionMetrics
+{
+
+    /**
+     * Records an evaluation.
+     *
+     * @param expression the normalized text of the expression.
+     * @param compiled true if the expression was evaluated through its compiled accessor, false if interpreted.
+     * @param setValue true for a setValue, false for a getValue.
+     * @param durationNanos the time the evaluation took.
+     * @param failed true if the evaluation threw an exception.
+     */
+    void recordEvaluation(String expression, boolean compiled, boolean setValue, long durationNanos, boolean failed);
+
+    /**
+     * Records that an expression was compiled with a fallback to interpretation: its compiled accessor delegates
+     *   its getter (or its setter) to the expression tree.  Called once per compilation, at compile time: the
+     *   evaluations later done through that accessor are recorded as compiled ones.
+     *
+     * @param expression the normalized text of the expression.
+     * @param setValue true if the setter fell back, false if the getter did.
+     */
+    void recordCompiledWithFallback(String expression, boolean setValue);
+}
@@ -0,0 +1,196 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * and/or LICENSE file distributed with this work for additional
+ * information regarding copyright ownership.  The ASF licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * The default {@link ExpressionMetrics}: keeps the {@link ExpressionStatistics counters} of each expression in
+ *   memory and exposes a summary through JMX (see {@link #registerMBean()}).
+ *
+ * The number of distinct expressions tracked is bounded: once the limit is reached, the evaluations of the new
+ *   expressions are accounted under {@link #OTHER_EXPRESSIONS}.
+ *
+ * @since 3.3.0
+ */
+public class ExpressionMetricsCollector implements ExpressionMetrics, ExpressionMetricsCollectorMBean
+{
+    /** The name under which {@link #registerMBean()} registers the collector. */
+    public static final String OBJECT_NAME = "ognl:type=ExpressionMetrics";
+
+    /** The expression under which the expressions beyond the limit are accounted. */
+    public static final String OTHER_EXPRESSIONS = "<other>";
+
+    public static final int DEFAULT_MAX_EXPRESSIONS = 10000;
+
+    private final int _maxExpressions;
+    private final ConcurrentMap<String, ExpressionStatistics> _statistics =
+            new ConcurrentHashMap<String, ExpressionStatistics>();
+
+    public ExpressionMetricsCollector()
+    {
+        this(DEFAULT_MAX_EXPRESSIONS);
+    }
+
+    /**
+     * @param maxExpressions the maximum number of distinct expressions tracked.
+     */
+    public ExpressionMetricsCollector(int maxExpressions)
+    {
+        if (maxExpressions <= 0) {
+            throw new IllegalArgumentException("maxExpressions must be positive: " + maxExpressions);
+        }
+        _maxExpressions = maxExpressions;
+    }
+
+    public void recordEvaluation(String expression, boolean compiled, boolean setValue, long durationNanos,
+                                 boolean failed)
+    {
+        getOrCreate(expression).recordEvaluation(compiled, setValue, durationNanos, failed);
+    }
+
+    public void recordCompiledWithFallback(String expression, boolean setValue)
+    {
+        getOrCreate(expression).recordCompiledWithFallback();
+    }
+
+    private ExpressionStatistics getOrCreate(String expression)
+    {
+        ExpressionStatistics result = _statistics.get(expression);
+
+        if (result == null) {
+            final String key = (_statistics.size() < _maxExpressions) ? expression : OTHER_EXPRESSIONS;
+            result = _statistics.get(key);
+            if (result == null) {
+                final ExpressionStatistics created = new ExpressionStatistics(key);
+                result = _statistics.putIfAbsent(key, created);
+                if (result == null) {
+                    result = created;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param expression the normalized text of an expression.
+     * @return the counters of the given expression, or null if it was not evaluated.
+     */
+    public ExpressionStatistics getStatistics(String expression)
+    {
+        return _statistics.get(expression);
+    }
+
+    /**
+     * @return the counters of all the expressions tracked.
+     */
+    public Collection<ExpressionStatistics> getAllStatistics()
+    {
+        return Collections.unmodifiableCollection(_statistics.values());
+    }
+
+    /**
+     * @param limit the maximum number of expressions returned.
+     * @return the counters of the expressions the evaluations of which took the most time overall, most expensive
+     *         first: the candidates for precompilation.
+     */
+    public List<ExpressionStatistics> getHottest(int limit)
+    {
+        final List<ExpressionStatistics> result = new ArrayList<ExpressionStatistics>(_statistics.values());
+
+        Collections.sort(result, new Comparator<ExpressionStatistics>() {
+            public int compare(ExpressionStatistics s1, ExpressionStatistics s2) {
+                return Long.compare(s2.getLatency().getTotalNanos(), s1.getLatency().getTotalNanos());
+            }
+        });
+        return result.subList(0, Math.min(Math.max(0, limit), result.size()));
+    }
+
+    public int getExpressionCount()
+    {
+        return _statistics.size();
+    }
+
+    public long getInvocationCount()
+    {
+        long result = 0;
+        for (ExpressionStatistics statistics : _statistics.values()) {
+            result += statistics.getInvocationCount();
+        }
+        return result;
+    }
+
+    public long getFailureCount()
+    {
+        long result = 0;
+        for (ExpressionStatistics statistics : _statistics.values()) {
+            result += statistics.getFailureCount();
+        }
+        return result;
+    }
+
+    public long getCompiledWithFallbackCount()
+    {
+        long result = 0;
+        for (ExpressionStatistics statistics : _statistics.values()) {
+            result += statistics.getCompiledWithFallbackCount();
+        }
+        return result;
+    }
+
+    public String[] getHottestExpressions(int limit)
+    {
+        final List<ExpressionStatistics> hottest = getHottest(limit);
+        final String[] result = new String[hottest.size()];
+
+        for (int i = 0; i < result.length; i++) {
+            result[i] = hottest.get(i).toString();
+        }
+        return result;
+    }
+
+    public void reset()
+    {
+        _statistics.clear();
+    }
+
+    /**
+     * Registers this collector in the platform MBean server, under {@link #OBJECT_NAME}.
+     *
+     * @return the name of the registered MBean.
+     * @throws JMException if the registration fails, for instance because a collector is already registered.
+     */
+    public ObjectName registerMBean()
+            throws JMException
+    {
+        final ObjectName name = new ObjectName(OBJECT_NAME);
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+        return name;
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * and/or LICENSE file distributed with this work for additional
+ * information regarding copyright ownership.  The ASF licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl.metrics;
+
+/**
+ * The JMX management interface of {@link ExpressionMetricsCollector}.
+ *
+ * @since 3.3.0
+ */
+public interface ExpressionMetricsCollectorMBean
+{
+
+    /**
+     * @return the number of distinct expressions tracked.
+     */
+    int getExpressionCount();
+
+    long getInvocationCount();
+
+    long getFailureCount();
+
+    long getCompiledWithFallbackCount();
+
+    /**
+     * @param limit the maximum number of expressions returned.
+     * @return a description of the expressions the evaluations of which took the most time overall, most expensive
+     *         first.
+     */
+    String[] getHottestExpressions(int limit);
+
+    /**
+     * Discards all the counters.
+     */
+    void reset();
+}
@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * and/or LICENSE file distributed with this work for additional
+ * information regarding copyright ownership.  The ASF licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The counters of an expression kept by an {@link ExpressionMetricsCollector}.  Counters are updated without
+ *   locking, so reading them while the expression is evaluated gives an approximate snapshot.
+ *
+ * @since 3.3.0
+ */
+public final class ExpressionStatistics
+{
+    private final String _expression;
+    private final LongAdder _interpreted = new LongAdder();
+    private final LongAdder _compiled = new LongAdder();
+    private final LongAdder _setValues = new LongAdder();
+    private final LongAdder _failures = new LongAdder();
+    private final LongAdder _compiledWithFallback = new LongAdder();
+    private final LatencyHistogram _latency = new LatencyHistogram();
+
+    ExpressionStatistics(String expression)
+    {
+        _expression = expression;
+    }
+
+    void recordEvaluation(boolean compiled, boolean setValue, long durationNanos, boolean failed)
+    {
+        if (compiled) {
+            _compiled.increment();
+        } else {
+            _interpreted.increment();
+        }
+        if (setValue) {
+            _setValues.increment();
+        }
+        if (failed) {
+            _failures.increment();
+        }
+        _latency.record(durationNanos);
+    }
+
+    void recordCompiledWithFallback()
+    {
+        _compiledWithFallback.increment();
+    }
+
+    /**
+     * @return the normalized text of the expression.
+     */
+    public String getExpression()
+    {
+        return _expression;
+    }
+
+    /**
+     * @return the number of evaluations, interpreted or compiled.
+     */
+    public long getInvocationCount()
+    {
+        return _interpreted.sum() + _compiled.sum();
+    }
+
+    public long getInterpretedCount()
+    {
+        return _interpreted.sum();
+    }
+
+    public long getCompiledCount()
+    {
+        return _compiled.sum();
+    }
+
+    /**
+     * @return the number of evaluations that were setValues.
+     */
+    public long getSetValueCount()
+    {
+        return _setValues.sum();
+    }
+
+    public long getFailureCount()
+    {
+        return _failures.sum();
+    }
+
+    /**
+     * @return the number of times the expression was compiled with its getter or its setter falling back to
+     *         interpretation (counted at compile time, not per evaluation).
+     */
+    public long getCompiledWithFallbackCount()
+    {
+        return _compiledWithFallback.sum();
+    }
+
+    public LatencyHistogram getLatency()
+    {
+        return _latency;
+    }
+
+    public String toString()
+    {
+        return _expression + ": invocations=" + getInvocationCount() + ", compiled=" + getCompiledCount()
+                + ", failures=" + getFailureCount() + ", compiledWithFallback=" + getCompiledWithFallbackCount()
+                + ", total=" + TimeUnit.NANOSECONDS.toMicros(_latency.getTotalNanos()) + "us"
+                + ", mean=" + _latency.getMeanNanos() + "ns"
+                + ", p99=" + _latency.getValueAtPercentile(99) + "ns"
+                + ", max=" + _latency.getMaxNanos() + "ns";
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * and/or LICENSE file distributed with this work for additional
+ * information regarding copyright ownership.  The ASF licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of durations, in nanoseconds, with log-linear buckets in the style of HdrHistogram: each
+ *   power of 2 is split into {@value #SUB_BUCKETS} buckets, which bounds the relative error of the reported values
+ *   to 12.5% over the whole range of <code>long</code> values, with a fixed footprint of about 4KB.
+ *
+ * Recording is safe from any number of threads; reading while recording gives an approximate snapshot.
+ *
+ * @since 3.3.0
+ */
+public final class LatencyHistogram
+{
+    private static final int SUB_BUCKET_BITS = 3;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    /* Values below SUB_BUCKETS have a bucket each, then SUB_BUCKETS buckets per power of 2 */
+    private static final int BUCKET_COUNT = SUB_BUCKETS + (63 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray _counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong _totalNanos = new AtomicLong();
+    private final AtomicLong _maxNanos = new AtomicLong();
+
+    static int getBucket(long value)
+    {
+        if (value < SUB_BUCKETS) {
+            return (value < 0) ? 0 : (int) value;
+        }
+        final int exponent = 63 - Long.numberOfLeadingZeros(value);
+        final int mantissa = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return SUB_BUCKETS + (exponent - SUB_BUCKET_BITS) * SUB_BUCKETS + mantissa;
+    }
+
+    /**
+     * @return the smallest value recorded in the given bucket.
+     */
+    static long getBucketValue(int bucket)
+    {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        final int exponent = (bucket - SUB_BUCKETS) / SUB_BUCKETS + SUB_BUCKET_BITS;
+        final int mantissa = (bucket - SUB_BUCKETS) % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS + mantissa)) << (exponent - SUB_BUCKET_BITS);
+    }
+
+    /**
+     * Records a duration.
+     *
+     * @param nanos the duration, in nanoseconds.
+     */
+    public void record(long nanos)
+    {
+        _counts.incrementAndGet(getBucket(nanos));
+        _totalNanos.addAndGet(nanos);
+
+        long max;
+        while (nanos > (max = _maxNanos.get()) && !_maxNanos.compareAndSet(max, nanos)) {
+            // retry
+        }
+    }
+
+    public long getCount()
+    {
+        long result = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            result += _counts.get(i);
+        }
+        return result;
+    }
+
+    public long getTotalNanos()
+    {
+        return _totalNanos.get();
+    }
+
+    public long getMaxNanos()
+    {
+        return _maxNanos.get();
+    }
+
+    public long getMeanNanos()
+    {
+        final long count = getCount();
+        return (count == 0) ? 0 : _totalNanos.get() / count;
+    }
+
+    /**
+     * Returns the duration below which the given percentage of the recorded durations fall.
+     *
+     * @param percentile the percentage, from 0 to 100.
+     * @return the (highest value of the bucket of the) duration, 0 if nothing was recorded.
+     */
+    public long getValueAtPercentile(double percentile)
+    {
+        final long[] counts = new long[BUCKET_COUNT];
+        long total = 0;
+
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = _counts.get(i);
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        final long rank = Math.max(1, (long) Math.ceil(Math.min(100.0, Math.max(0.0, percentile)) / 100.0 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return (i == BUCKET_COUNT - 1) ? _maxNanos.get() : Math.min(getBucketValue(i + 1) - 1, _maxNanos.get());
+            }
+        }
+        return _maxNanos.get();
+    }
+
+    public void reset()
+    {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            _counts.set(i, 0);
+        }
+        _totalNanos.set(0);
+        _maxNanos.set(0);
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * and/or LICENSE file distributed with this work for additional
+ * information regarding copyright ownership.  The ASF licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ognl;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * The JDK Flight Recorder implementation of {@link FlightRecorderEvents}, only loaded when <code>jdk.jfr</code> is
+ *   present.  Compiled apart from the other sources (see the <code>jfr-events</code> profile of the build), to the
+ *   multi-release location <code>META-INF/versions/11</code> of the jar.  The thresholds of the event types can be
+ *   changed in the settings of the recordings, for instance <code>ognl.Invoke#threshold=1 ms</code>.
+ *
+ * Not intended for use outside of the package.
+ *
+ * @since 3.3.0
+ */
+final class JfrEvents extends FlightRecorderEvents
+{
+    Object beginEvent(int kind)
+    {
+        final OgnlEvent event;
+
+        switch (kind) {
+            case PARSE:
+                event = new ParseEvent();
+                break;
+            case COMPILE:
+                event = new CompileEvent();
+                break;
+            case INTROSPECTION:
+                event = new IntrospectionEvent();
+                break;
+            case METHOD_RESOLUTION:
+                event = new MethodResolutionEvent();
+                break;
+            default:
+                event = new InvokeEvent();
+                break;
+        }
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    void endEvent(Object event, Object subject, Class targetClass, Throwable failure)
+    {
+        final OgnlEvent ognlEvent = (OgnlEvent) event;
+
+        ognlEvent.end();
+        if (ognlEvent.shouldCommit()) {
+            ognlEvent.subject = (subject == null) ? null : subject.toString();
+            ognlEvent.targetClass = targetClass;
+            ognlEvent.succeeded = (failure == null);
+            ognlEvent.exception = (failure == null) ? null : failure.getClass().getName();
+            ognlEvent.commit();
+        }
+    }
+
+    @Category("OGNL")
+    @StackTrace(false)
+    abstract static class OgnlEvent extends Event
+    {
+        @Label("Subject")
+        @Description("The expression, or the method, the event is about")
+        String subject;
+
+        @Label("Target Class")
+        Class<?> targetClass;
+
+        @Label("Succeeded")
+        boolean succeeded;
+
+        @Label("Exception")
+        @Description("The class of the exception thrown, if any")
+        String exception;
+    }
+
+    @Name("ognl.Parse")
+    @Label("OGNL Parse")
+    @Description("Parsing of an OGNL expression")
+    @Threshold("1 ms")
+    static final class ParseEvent extends OgnlEvent
+    {
+    }
+
+    @Name("ognl.Compile")
+    @Label("OGNL Compile")
+    @Description("Compilation of an OGNL expression to bytecode, for a root class")
+    @Threshold("0 ms")
+    static final class CompileEvent extends OgnlEvent
+    {
+    }
+
+    @Name("ognl.Introspection")
+    @Label("OGNL Introspection")
+    @Description("Introspection of the properties of a class")
+    @Threshold("0 ms")
+    static final class IntrospectionEvent extends OgnlEvent
+    {
+    }
+
+    @Name("ognl.MethodResolution")
+    @Label("OGNL Method Resolution")
+    @Description("Overload resolution of a method call")
+    @Threshold("1 ms")
+    static final class MethodResolutionEvent extends OgnlEvent
+    {
+    }
+
+    @Name("ognl.Invoke")
+    @Label("OGNL Invoke")
+    @Description("Reflective invocation of a method")
+    @Threshold("10 ms")
+    static final class InvokeEvent extends OgnlEvent
+    {
+    }
+}
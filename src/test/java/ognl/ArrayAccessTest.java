@@ -0,0 +1,120 @@
+package ognl;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.Array;
+import java.util.Map;
+
+public class ArrayAccessTest {
+
+    public static class Samples {
+        private int[] ints = { 1, 2, 3 };
+        private char[] chars = { 'a', 'b' };
+        private double[] doubles = { 1.5, -2.5 };
+
+        public int[] getInts() { return ints; }
+
+        public void setInts(int[] ints) { this.ints = ints; }
+
+        public char[] getChars() { return chars; }
+
+        public double[] getDoubles() { return doubles; }
+    }
+
+    private static final Object[] ARRAYS = {
+            new int[] { 1, -2 }, new long[] { 1L, -2L }, new double[] { 1.5, -2.5 }, new float[] { 1.5f, -2.5f },
+            new short[] { 1, -2 }, new byte[] { 1, -2 }, new char[] { 'a', 'b' }, new boolean[] { true, false },
+            new String[] { "a", "b" }, new Object[] { 1, "b" } };
+
+    @Test
+    public void testAccessMatchesReflection() {
+        for (Object array : ARRAYS) {
+            final ArrayAccess access = ArrayAccess.of(array);
+            Assert.assertSame(access, ArrayAccess.get(array.getClass()));
+            Assert.assertEquals(Array.getLength(array), access.getLength(array));
+
+            final Object copy = access.copy(array);
+            Assert.assertNotSame(array, copy);
+            for (int i = 0; i < Array.getLength(array); i++) {
+                Assert.assertEquals(Array.get(array, i), access.get(array, i));
+                Assert.assertEquals(Array.get(array, i), access.get(copy, i));
+            }
+
+            access.set(copy, 0, Array.get(array, 1));
+            Assert.assertEquals(Array.get(array, 1), access.get(copy, 0));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsNonArrayClasses() {
+        ArrayAccess.get(String.class);
+    }
+
+    @Test
+    public void testBulkConversionsMatchElementConversions() {
+        final Class[] componentTypes = { Integer.TYPE, Long.TYPE, Double.TYPE, Float.TYPE, Short.TYPE, Byte.TYPE,
+                Character.TYPE, Boolean.TYPE, Integer.class, Double.class, String.class, Object.class };
+        final Object[] sources = {
+                new int[] { 0, 7, -3, 300, Integer.MAX_VALUE }, new long[] { 0, 7, -3, 1L << 40, Long.MIN_VALUE },
+                new double[] { 0, 7.9, -3.2, 1e12, Double.NaN }, new float[] { 0, 7.9f, -3.2f, 1e12f, Float.NaN },
+                new short[] { 0, 7, -3, 300, Short.MIN_VALUE }, new byte[] { 0, 7, -3, 100, Byte.MIN_VALUE },
+                new char[] { 0, 'a', 'z', 300, Character.MAX_VALUE }, new boolean[] { true, false },
+                new Integer[] { 0, 7, -3 }, new String[] { "1", "22" } };
+
+        for (Object source : sources) {
+            for (Class componentType : componentTypes) {
+                if (source instanceof String[] && componentType == Boolean.TYPE) {
+                    continue;
+                }
+                final Object converted = ArrayAccess.convert(source, componentType);
+                Assert.assertEquals(componentType, converted.getClass().getComponentType());
+                Assert.assertEquals(Array.getLength(source), Array.getLength(converted));
+
+                for (int i = 0; i < Array.getLength(source); i++) {
+                    final Object expected = OgnlOps.convertValue(Array.get(source, i), componentType);
+                    Assert.assertEquals(source.getClass().getSimpleName() + " to " + componentType + " at " + i,
+                            expected, Array.get(converted, i));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testConvertValue() {
+        Assert.assertArrayEquals(new long[] { 1, 2 }, (long[]) OgnlOps.convertValue(new int[] { 1, 2 }, long[].class));
+        Assert.assertArrayEquals(new int[] { 1, -2 }, (int[]) OgnlOps.convertValue(new double[] { 1.7, -2.7 }, int[].class));
+        Assert.assertArrayEquals(new int[] { 4, 5 }, (int[]) OgnlOps.convertValue(new Integer[] { 4, 5 }, int[].class));
+        Assert.assertArrayEquals(new String[] { "4", "5" }, (String[]) OgnlOps.convertValue(new int[] { 4, 5 }, String[].class));
+        Assert.assertArrayEquals(new double[] { 97 }, (double[]) OgnlOps.toArray(new char[] { 'a' }, Double.TYPE), 0);
+        Assert.assertEquals(Long.valueOf(9), OgnlOps.convertValue(new int[] { 9, 10 }, Long.class));
+        Assert.assertTrue(OgnlOps.isEqual(new double[] { 1, 2 }, new double[] { 1, 2 }));
+        Assert.assertFalse(OgnlOps.isEqual(new double[] { 1, 2 }, new double[] { 1, 3 }));
+    }
+
+    @Test
+    public void testExpressionsOverPrimitiveArrays() throws Exception {
+        final Samples samples = new Samples();
+        final Map context = Ognl.createDefaultContext(samples, new DefaultMemberAccess(false));
+
+        Assert.assertEquals(3, Ognl.getValue("ints.length", context, samples));
+        Assert.assertEquals(2, Ognl.getValue("ints[1]", context, samples));
+        Assert.assertEquals('b', Ognl.getValue("chars[$]", context, samples));
+        Assert.assertEquals(1.5, Ognl.getValue("doubles[^]", context, samples));
+        Assert.assertEquals(2, Ognl.getValue("ints[|]", context, samples));
+
+        final int[] copy = (int[]) Ognl.getValue("ints[*]", context, samples);
+        Assert.assertArrayEquals(samples.getInts(), copy);
+        Assert.assertNotSame(samples.getInts(), copy);
+
+        Ognl.setValue("ints[0]", context, samples, "42");
+        Ognl.setValue("chars[1]", context, samples, 99);
+        Assert.assertEquals(42, samples.getInts()[0]);
+        Assert.assertEquals('c', samples.getChars()[1]);
+
+        Ognl.setValue("ints", context, samples, new long[] { 7, 8 });
+        Assert.assertArrayEquals(new int[] { 7, 8 }, samples.getInts());
+
+        Assert.assertEquals(-1.0, Ognl.getValue("doubles.{ #this * 2 }[1] + 4", context, samples));
+    }
+}
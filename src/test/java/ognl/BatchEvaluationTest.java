@@ -0,0 +1,97 @@
+package ognl;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public class BatchEvaluationTest {
+
+    public static class Record {
+        private final int id;
+        private final String name;
+
+        public Record(int id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        public int getId() { return id; }
+        public String getName() { return name; }
+    }
+
+    private static List<Record> records(int count) {
+        final List<Record> records = new ArrayList<Record>(count);
+        for (int i = 0; i < count; i++) {
+            records.add(new Record(i, "r" + i));
+        }
+        return records;
+    }
+
+    @Test
+    public void testSequentialBatch() throws Exception {
+        final List<Record> records = records(5);
+        final Map context = Ognl.createDefaultContext(null, new DefaultMemberAccess(false));
+        final Object expression = Ognl.parseExpression("#prefix + name + (id == #root.id)");
+        context.put("prefix", "-");
+
+        final Object[] results = Ognl.getValues(expression, context, records, new Object[5]);
+        Assert.assertEquals(Arrays.asList("-r0true", "-r1true", "-r2true", "-r3true", "-r4true"), Arrays.asList(results));
+        Assert.assertSame(records.get(4), ((OgnlContext) context).getRoot());
+
+        final Collection names = Ognl.getValues(Ognl.parseExpression("name"), context, records.iterator(), new ArrayList());
+        Assert.assertEquals(Arrays.asList("r0", "r1", "r2", "r3", "r4"), names);
+
+        final Object[] ids = Ognl.getValues(Ognl.parseExpression("id"), context, records.toArray(), new Object[6]);
+        Assert.assertEquals(Arrays.asList(0, 1, 2, 3, 4, null), Arrays.asList(ids));
+
+        try {
+            Ognl.getValues(expression, context, records, new Object[4]);
+            Assert.fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void testCompiledBatch() throws Exception {
+        final List<Record> records = records(3);
+        final OgnlContext context = (OgnlContext) Ognl.createDefaultContext(null, new DefaultMemberAccess(false));
+        final Node node = Ognl.compileExpression(context, records.get(0), "name");
+        Assert.assertNotNull(node.getAccessor());
+
+        Assert.assertEquals(Arrays.asList("r0", "r1", "r2"),
+                Ognl.getValues(node, context, records, new ArrayList()));
+    }
+
+    @Test
+    public void testParallelBatch() throws Exception {
+        final List<Record> records = records(5000);
+        final OgnlContext context = (OgnlContext) Ognl.createDefaultContext(null, new DefaultMemberAccess(false));
+        context.setParallelThreshold(1000);
+        context.put("offset", 1);
+
+        final Object[] results = Ognl.getValues(Ognl.parseExpression("id + #offset"), context, records,
+                new Object[records.size()]);
+        for (int i = 0; i < results.length; i++) {
+            Assert.assertEquals(i + 1, results[i]);
+        }
+        Assert.assertSame(records.get(4999), context.getRoot());
+
+        try {
+            Ognl.getValues(Ognl.parseExpression("id / (id - 4321)"), context, records, new ArrayList());
+            Assert.fail("ArithmeticException expected");
+        } catch (ArithmeticException expected) {
+        }
+    }
+
+    @Test
+    public void testEngineBatch() throws Exception {
+        final OgnlEngine engine = new OgnlEngine();
+        Assert.assertEquals(Arrays.asList("r0", "r1"),
+                Arrays.asList(engine.getValues(Ognl.parseExpression("name"), records(2), new Object[2])));
+    }
+}
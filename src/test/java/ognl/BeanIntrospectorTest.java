@@ -0,0 +1,158 @@
+package ognl;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.beans.IndexedPropertyDescriptor;
+import java.beans.IntrospectionException;
+import java.beans.PropertyDescriptor;
+import java.beans.SimpleBeanInfo;
+import java.util.LinkedList;
+import java.util.Map;
+
+public class BeanIntrospectorTest {
+
+    public static class Bean {
+        private String name;
+        private boolean active;
+        private String url;
+        private String[] tags = new String[] { "a", "b" };
+        private int size;
+
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+        public void setName(Object name) { this.name = String.valueOf(name); }
+
+        public boolean isActive() { return active; }
+        public boolean getActive() { return active; }
+        public void setActive(boolean active) { this.active = active; }
+
+        public String getURL() { return url; }
+
+        public String[] getTags() { return tags; }
+        public String getTags(int index) { return tags[index]; }
+        public void setTags(int index, String tag) { tags[index] = tag; }
+
+        public Object getAttribute(String key) { return key; }
+        public void setAttribute(String key, Object value) { }
+
+        public static String getStaticValue() { return "static"; }
+
+        public int size() { return size; }
+        public Bean size(int size) { this.size = size; return this; }
+
+        public String describe() { return name; }
+    }
+
+    public static class FieldBean {
+        public int count;
+
+        public int count() { return count + 1; }
+        public void count(int count) { this.count = count + 1; }
+    }
+
+    public static class Custom {
+        private int value;
+
+        public int getValue() { return value; }
+        public void setValue(int value) { this.value = value; }
+
+        public Object getAttribute(String key) { return key; }
+        public void setAttribute(String key, Object value) { }
+    }
+
+    public static class CustomBeanInfo extends SimpleBeanInfo {
+        @Override
+        public PropertyDescriptor[] getPropertyDescriptors() {
+            try {
+                return new PropertyDescriptor[] { new PropertyDescriptor("amount", Custom.class, "getValue", "setValue") };
+            } catch (IntrospectionException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+    }
+
+    public static class CustomSubclass extends Custom {
+    }
+
+    @Test
+    public void testJavaBeansNamingRules() throws Exception {
+        final Map<String, PropertyDescriptor> pds = BeanIntrospector.getPropertyDescriptors(Bean.class);
+
+        Assert.assertEquals(Bean.class.getMethod("getName"), pds.get("name").getReadMethod());
+        Assert.assertEquals(Bean.class.getMethod("setName", String.class), pds.get("name").getWriteMethod());
+        Assert.assertEquals(Bean.class.getMethod("isActive"), pds.get("active").getReadMethod());
+        Assert.assertEquals(Bean.class.getMethod("getURL"), pds.get("URL").getReadMethod());
+        Assert.assertNull(pds.get("URL").getWriteMethod());
+        Assert.assertEquals(Object.class.getMethod("getClass"), pds.get("class").getReadMethod());
+        Assert.assertFalse(pds.containsKey("staticValue"));
+        Assert.assertFalse(pds.containsKey("describe"));
+
+        Assert.assertTrue(pds.get("tags") instanceof IndexedPropertyDescriptor);
+        final IndexedPropertyDescriptor tags = (IndexedPropertyDescriptor) pds.get("tags");
+        Assert.assertEquals(Bean.class.getMethod("getTags"), tags.getReadMethod());
+        Assert.assertEquals(Bean.class.getMethod("getTags", int.class), tags.getIndexedReadMethod());
+
+        Assert.assertTrue(pds.get("attribute") instanceof ObjectIndexedPropertyDescriptor);
+        Assert.assertEquals(Object.class, pds.get("attribute").getPropertyType());
+    }
+
+    @Test
+    public void testFluentAccessors() throws Exception {
+        final Map<String, PropertyDescriptor> pds = BeanIntrospector.getPropertyDescriptors(Bean.class);
+        Assert.assertEquals(Bean.class.getMethod("size"), pds.get("size").getReadMethod());
+        Assert.assertEquals(Bean.class.getMethod("size", int.class), pds.get("size").getWriteMethod());
+
+        // remove()/remove(Object) is not a fluent pair, remove(Object) returns a boolean
+        Assert.assertFalse(BeanIntrospector.getPropertyDescriptors(LinkedList.class).containsKey("remove"));
+
+        final Bean bean = new Bean();
+        final Map context = Ognl.createDefaultContext(bean, new DefaultMemberAccess(false));
+        Ognl.setValue("size", context, bean, 3);
+        Assert.assertEquals(3, Ognl.getValue("size", context, bean));
+    }
+
+    @Test
+    public void testPublicFieldWinsOverFluentAccessors() throws Exception {
+        Assert.assertFalse(BeanIntrospector.getPropertyDescriptors(FieldBean.class).containsKey("count"));
+
+        final FieldBean bean = new FieldBean();
+        final Map context = Ognl.createDefaultContext(bean, new DefaultMemberAccess(false));
+        Ognl.setValue("count", context, bean, 3);
+        Assert.assertEquals(3, bean.count);
+        // reads went through a no argument count() method before fluent accessors were described, and still do
+        Assert.assertEquals(4, Ognl.getValue("count", context, bean));
+    }
+
+    @Test
+    public void testExplicitBeanInfo() throws Exception {
+        final Map<String, PropertyDescriptor> pds = BeanIntrospector.getPropertyDescriptors(Custom.class);
+        Assert.assertEquals(Custom.class.getMethod("getValue"), pds.get("amount").getReadMethod());
+        Assert.assertFalse(pds.containsKey("value"));
+        Assert.assertTrue(pds.get("attribute") instanceof ObjectIndexedPropertyDescriptor);
+
+        // the bean info of a superclass applies to its subclasses
+        Assert.assertTrue(BeanIntrospector.getPropertyDescriptors(CustomSubclass.class).containsKey("amount"));
+
+        final Custom custom = new Custom();
+        final Map context = Ognl.createDefaultContext(custom, new DefaultMemberAccess(false));
+        Ognl.setValue("amount", context, custom, 4);
+        Assert.assertEquals(4, custom.getValue());
+        Assert.assertEquals(4, Ognl.getValue("amount", context, custom));
+    }
+
+    @Test
+    public void testDecapitalize() {
+        Assert.assertEquals("name", BeanIntrospector.decapitalize("Name"));
+        Assert.assertEquals("URL", BeanIntrospector.decapitalize("URL"));
+        Assert.assertEquals("x", BeanIntrospector.decapitalize("X"));
+        Assert.assertEquals("", BeanIntrospector.decapitalize(""));
+    }
+
+    @Test
+    public void testRuntimeDescriptors() throws Exception {
+        Assert.assertSame(OgnlRuntime.getPropertyDescriptors(Bean.class), OgnlRuntime.getPropertyDescriptors(Bean.class));
+        Assert.assertEquals("name", OgnlRuntime.getPropertyDescriptor(Bean.class, "name").getName());
+        Assert.assertFalse(BeanIntrospector.isRecord(Bean.class));
+    }
+}
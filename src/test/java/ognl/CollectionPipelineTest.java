@@ -0,0 +1,122 @@
+package ognl;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class CollectionPipelineTest {
+
+    public static class Order {
+        private final String status;
+        private final int total;
+
+        public Order(String status, int total) {
+            this.status = status;
+            this.total = total;
+        }
+
+        public String getStatus() { return status; }
+        public int getTotal() { return total; }
+    }
+
+    public static class Customer {
+        public List<Order> getOrders() {
+            return Arrays.asList(new Order("OPEN", 1), new Order("CLOSED", 2), new Order("OPEN", 3));
+        }
+    }
+
+    @Test
+    public void testFusedPipeline() throws Exception {
+        final Customer customer = new Customer();
+        final Map context = Ognl.createDefaultContext(customer, new DefaultMemberAccess(false));
+
+        Assert.assertEquals(Arrays.asList(1, 3),
+                Ognl.getValue("orders.{? status == \"OPEN\" }.{ total }", context, customer));
+        Assert.assertEquals(Arrays.asList(3),
+                Ognl.getValue("orders.{ total }.{? #this > 1 }.{? #this != 2 }", context, customer));
+        Assert.assertEquals(Arrays.asList(3), Ognl.getValue("orders.{$ status == \"OPEN\" }.{ total }", context, customer));
+        Assert.assertEquals(Arrays.asList(1), Ognl.getValue("orders.{^ status == \"OPEN\" }.{ total }", context, customer));
+
+        // traced evaluations keep the intermediate results
+        ((OgnlContext) context).setTraceEvaluations(true);
+        Assert.assertEquals(Arrays.asList(1, 3),
+                Ognl.getValue("orders.{? status == \"OPEN\" }.{ total }", context, customer));
+    }
+
+    private static final AtomicInteger FIRST_STAGE = new AtomicInteger();
+
+    public static Object firstStage(Object value) {
+        FIRST_STAGE.incrementAndGet();
+        return value;
+    }
+
+    public static boolean afterFirstStage(int count) {
+        return FIRST_STAGE.get() == count;
+    }
+
+    @Test
+    public void testParallelSourceIsNotFused() throws Exception {
+        final List<Integer> values = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            values.add(i);
+        }
+        final OgnlContext context = (OgnlContext) Ognl.createDefaultContext(values, new DefaultMemberAccess(false));
+        final Object expression = Ognl.parseExpression(
+                "#root.{ #value = #this, @ognl.CollectionPipelineTest@firstStage(#value * 2) }.{? @ognl.CollectionPipelineTest@afterFirstStage(5000) && #this % 1000 == 0 }");
+
+        // evaluated in parallel stage after stage: the selection sees the whole projection done
+        context.setParallelThreshold(1000);
+        FIRST_STAGE.set(0);
+        Assert.assertEquals(Arrays.asList(0, 1000, 2000, 3000, 4000, 5000, 6000, 7000, 8000, 9000),
+                Ognl.getValue(expression, context, values));
+
+        // below the threshold: fused, the selection runs before the projection is done
+        context.setParallelThreshold(10000);
+        FIRST_STAGE.set(0);
+        Assert.assertEquals(Arrays.asList(), Ognl.getValue(expression, context, values));
+    }
+
+    @Test
+    public void testLazyIterable() throws Exception {
+        final Customer customer = new Customer();
+        final Map context = Ognl.createDefaultContext(customer, new DefaultMemberAccess(false));
+        final Iterable totals = Ognl.getValueIterable(
+                Ognl.parseExpression("orders.{? #count = #count + 1, status == \"OPEN\" }.{ total }"), context, customer);
+
+        context.put("count", 0);
+        final Iterator iterator = totals.iterator();
+        Assert.assertTrue(iterator.hasNext());
+        Assert.assertEquals(1, iterator.next());
+        Assert.assertEquals(1, context.get("count"));
+        Assert.assertEquals(3, iterator.next());
+        Assert.assertFalse(iterator.hasNext());
+        Assert.assertEquals(3, context.get("count"));
+
+        final List values = new ArrayList();
+        for (Object value : Ognl.getValueIterable(Ognl.parseExpression("orders.size()"), context, customer)) {
+            values.add(value);
+        }
+        Assert.assertEquals(Arrays.asList(0, 1, 2), values);
+        Assert.assertFalse(Ognl.getValueIterable(Ognl.parseExpression("null"), context, customer).iterator().hasNext());
+    }
+
+    @Test
+    public void testLazyIterableFailures() throws Exception {
+        final Customer customer = new Customer();
+        final Map context = Ognl.createDefaultContext(customer, new DefaultMemberAccess(false));
+        final Iterator iterator = Ognl.getValueIterable(Ognl.parseExpression("orders.{? missing }"), context, customer).iterator();
+
+        try {
+            iterator.hasNext();
+            Assert.fail();
+        } catch (UncheckedOgnlException expected) {
+            Assert.assertTrue(expected.getCause() instanceof NoSuchPropertyException);
+        }
+    }
+}
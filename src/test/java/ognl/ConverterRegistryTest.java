@@ -0,0 +1,148 @@
+package ognl;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Map;
+
+public class ConverterRegistryTest {
+
+    public static class Money {
+        final long cents;
+
+        public Money(long cents) { this.cents = cents; }
+    }
+
+    public static class Till {
+        public long total(Money money) { return money.cents; }
+
+        public long count(Money[] money) { return money.length; }
+    }
+
+    private static final Converter PARSE_MONEY = new Converter() {
+        public Object convert(Object value) {
+            return new Money(new BigDecimal(value.toString().replace("$", "")).movePointRight(2).longValue());
+        }
+    };
+
+    @Test
+    public void testBuiltInConversions() {
+        final ConverterRegistry registry = new ConverterRegistry();
+
+        Assert.assertEquals(Integer.valueOf(3), registry.convertValue(3.9, Integer.TYPE));
+        Assert.assertEquals(Long.valueOf(-3), registry.convertValue("-3", Long.class));
+        Assert.assertEquals(Double.valueOf(2.5), registry.convertValue(" 2.5 ", Double.TYPE));
+        Assert.assertEquals(Float.valueOf(1), registry.convertValue(Boolean.TRUE, Float.class));
+        Assert.assertEquals(Character.valueOf('a'), registry.convertValue(97, Character.TYPE));
+        Assert.assertEquals(Boolean.TRUE, registry.convertValue("true", Boolean.TYPE));
+        Assert.assertEquals(Boolean.FALSE, registry.convertValue(0.0, Boolean.class));
+        Assert.assertEquals(BigInteger.TEN, registry.convertValue(10L, BigInteger.class));
+        Assert.assertEquals(new BigDecimal("1.5"), registry.convertValue("1.5", BigDecimal.class));
+        Assert.assertEquals("12", registry.convertValue(12, String.class));
+        Assert.assertArrayEquals(new char[] { 'o', 'k' }, (char[]) registry.convertValue("ok", char[].class));
+        Assert.assertArrayEquals(new Object[] { 1, 2 }, (Object[]) registry.convertValue(Arrays.asList(1, 2), Object[].class));
+        Assert.assertArrayEquals(new Object[] { "x" }, (Object[]) registry.convertValue("x", Object[].class));
+        Assert.assertArrayEquals(new long[] { 1, 2 }, (long[]) registry.convertValue(new String[] { "1", "2" }, long[].class));
+        Assert.assertEquals(Integer.valueOf(4), registry.convertValue(new String[] { "4" }, Integer.class));
+
+        // values of the target type and of the wrapper of a primitive target are returned as is
+        final Integer big = 123456;
+        Assert.assertSame(big, registry.convertValue(big, Integer.TYPE));
+        Assert.assertSame(big, registry.convertValue(big, Number.class));
+        // results are boxed with the cached wrappers
+        Assert.assertSame(Integer.valueOf(5), registry.convertValue(5L, Integer.class));
+    }
+
+    @Test
+    public void testNulls() {
+        final ConverterRegistry registry = ConverterRegistry.getDefault();
+
+        Assert.assertEquals(0, registry.convertValue(null, Integer.TYPE));
+        Assert.assertNull(registry.convertValue(null, Integer.class));
+        Assert.assertEquals(0, registry.convertValue(null, Integer.class, true));
+        Assert.assertEquals(Boolean.FALSE, registry.convertValue(null, Boolean.class, true));
+        Assert.assertNull(registry.convertValue(new String[] { null }, String.class));
+
+        final Object unconvertible = new Object();
+        Assert.assertSame(unconvertible, registry.convertValue(unconvertible, Money.class, true));
+        try {
+            registry.convertValue(unconvertible, Money.class);
+            Assert.fail();
+        } catch (IllegalArgumentException expected) {
+            Assert.assertTrue(expected.getMessage().startsWith("Unable to convert type java.lang.Object"));
+        }
+    }
+
+    @Test
+    public void testConvertersAreResolvedOncePerPair() {
+        final ConverterRegistry registry = new ConverterRegistry();
+        final Converter converter = registry.getConverter(String.class, Integer.TYPE);
+
+        Assert.assertSame(converter, registry.getConverter(String.class, Integer.TYPE));
+        Assert.assertNotSame(converter, registry.getConverter(String.class, Integer.class));
+        Assert.assertEquals(7, converter.convert("7"));
+    }
+
+    @Test
+    public void testRegisteredConverters() {
+        final ConverterRegistry registry = new ConverterRegistry();
+        Assert.assertNull(registry.getConverter(String.class, Money.class).convert("$1.25"));
+
+        registry.register(CharSequence.class, Money.class, PARSE_MONEY);
+        Assert.assertEquals(125, ((Money) registry.convertValue("$1.25", Money.class)).cents);
+        Assert.assertEquals(300, ((Money) registry.convertValue(new StringBuilder("3"), Money.class)).cents);
+
+        registry.register(String.class, Money.class, new Converter() {
+            public Object convert(Object value) {
+                return new Money(-1);
+            }
+        });
+        Assert.assertEquals(-1, ((Money) registry.convertValue("$1.25", Money.class)).cents);
+        Assert.assertEquals(300, ((Money) registry.convertValue(new StringBuilder("3"), Money.class)).cents);
+
+        final Money money = new Money(1);
+        Assert.assertSame(money, registry.convertValue(money, Money.class));
+
+        final Money[] array = (Money[]) registry.convertValue(new Object[] { new StringBuilder("2") }, Money[].class);
+        Assert.assertEquals(200, array[0].cents);
+
+        registry.register(String.class, Money.class, null);
+        Assert.assertEquals(125, ((Money) registry.convertValue("$1.25", Money.class)).cents);
+
+        // the built-in conversions are not affected
+        try {
+            Assert.assertNull(ConverterRegistry.getBuiltIn().getConverter(String.class, Money.class).convert("1"));
+        } finally {
+            ConverterRegistry.getBuiltIn().clearCache();
+        }
+    }
+
+    @Test
+    public void testClearCache() {
+        final ConverterRegistry registry = ConverterRegistry.getDefault();
+        final Converter converter = registry.getConverter(String[].class, long[].class);
+
+        Assert.assertSame(converter, registry.getConverter(String[].class, long[].class));
+        OgnlRuntime.clearCache();
+        Assert.assertNotSame(converter, registry.getConverter(String[].class, long[].class));
+        Assert.assertArrayEquals(new long[] { 1, 2 }, (long[]) registry.convertValue(new String[] { "1", "2" }, long[].class));
+    }
+
+    @Test
+    public void testMethodArgumentsAreConvertedWithTheRegistry() throws Exception {
+        final ConverterRegistry registry = new ConverterRegistry();
+        registry.register(String.class, Money.class, PARSE_MONEY);
+
+        final OgnlEngine engine = new OgnlEngine(new DefaultMemberAccess(false), null, new DefaultTypeConverter(registry));
+        final Till till = new Till();
+
+        Assert.assertEquals(1999L, engine.getValue(Ognl.parseExpression("total('$19.99')"), till));
+        Assert.assertEquals(2L, engine.getValue(Ognl.parseExpression("count(new String[] { '1', '2' })"), till));
+
+        final Map context = Ognl.createDefaultContext(till, new DefaultMemberAccess(false));
+        Assert.assertSame(ConverterRegistry.getDefault(), ((DefaultTypeConverter) ((OgnlContext) context).getTypeConverter()).getRegistry());
+    }
+}
@@ -0,0 +1,99 @@
+package ognl;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Map;
+
+public class ExpressionGroupTest {
+
+    public static class Address {
+        private String street = "Main St";
+        private String city = "Springfield";
+        private String[] lines = new String[] { "1", "2" };
+
+        public String getStreet() { return street; }
+        public void setStreet(String street) { this.street = street; }
+        public String getCity() { return city; }
+        public void setCity(String city) { this.city = city; }
+        public String[] getLines() { return lines; }
+        public String getLines(int index) { return lines[index]; }
+        public void setLines(int index, String line) { lines[index] = line; }
+    }
+
+    public static class Customer {
+        private final Address address = new Address();
+        private String name = "Homer";
+        int addressReads;
+
+        public Address getAddress() { addressReads++; return address; }
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+    }
+
+    public static class Order {
+        private final Customer customer = new Customer();
+        int customerReads;
+
+        public Customer getCustomer() { customerReads++; return customer; }
+    }
+
+    private static ExpressionGroup group(String... expressions) throws OgnlException {
+        final Object[] trees = new Object[expressions.length];
+        for (int i = 0; i < expressions.length; i++) {
+            trees[i] = Ognl.parseExpression(expressions[i]);
+        }
+        return new ExpressionGroup(trees);
+    }
+
+    @Test
+    public void testSharedPrefixesAreNavigatedOnce() throws Exception {
+        final Order order = new Order();
+        final Map context = Ognl.createDefaultContext(order, new DefaultMemberAccess(false));
+        final ExpressionGroup group = group("customer.address.street", "customer.address.city", "customer.name",
+                "customer.address.lines[1]", "customer.address.street.length()", "customer");
+
+        final Object[] values = group.getValues(context, order);
+        Assert.assertEquals(Arrays.asList("Main St", "Springfield", "Homer", "2", 7, order.customer),
+                Arrays.asList(values));
+        // once for the shared prefix, once for the "customer" expression itself
+        Assert.assertEquals(2, order.customerReads);
+        Assert.assertEquals(1, order.customer.addressReads);
+        Assert.assertEquals(6, group.size());
+        Assert.assertEquals("customer.name", group.getExpression(2).toString());
+    }
+
+    @Test
+    public void testBulkSetValues() throws Exception {
+        final Order order = new Order();
+        final Map context = Ognl.createDefaultContext(order, new DefaultMemberAccess(false));
+        final ExpressionGroup group = group("customer.address.street", "customer.address.city", "customer.name",
+                "customer.address.lines[0]");
+
+        group.setValues(context, order, new Object[] { "Evergreen Terrace", "Shelbyville", "Marge", "742" });
+        Assert.assertEquals("Evergreen Terrace", order.customer.address.street);
+        Assert.assertEquals("Shelbyville", order.customer.address.city);
+        Assert.assertEquals("Marge", order.customer.name);
+        Assert.assertEquals("742", order.customer.address.lines[0]);
+        Assert.assertEquals(1, order.customerReads);
+        Assert.assertEquals(1, order.customer.addressReads);
+
+        try {
+            group.setValues(context, order, new Object[1]);
+            Assert.fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void testTracedEvaluationDoesNotShare() throws Exception {
+        final Order order = new Order();
+        final OgnlContext context = (OgnlContext) Ognl.createDefaultContext(order, new DefaultMemberAccess(false));
+        context.setTraceEvaluations(true);
+
+        final Object[] values = group("customer.name", "customer.address.city").getValues(context, order);
+        Assert.assertEquals(Arrays.asList("Homer", "Springfield"), Arrays.asList(values));
+        Assert.assertEquals(2, order.customerReads);
+    }
+}
@@ -0,0 +1,141 @@
+package ognl;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+public class ExpressionProfileTest {
+
+    public static class Item {
+        private final int price;
+
+        public Item(int price) { this.price = price; }
+        public int getPrice() { return price; }
+    }
+
+    public static class Cart {
+        private final List<Item> items = Arrays.asList(new Item(3), new Item(12), new Item(7));
+
+        public List<Item> getItems() { return items; }
+        public List<Integer> getPrices() { return Arrays.asList(3, 12, 7); }
+        public String getOwner() { return "ognl"; }
+        public int scale(int factor) { return items.size() * factor; }
+    }
+
+    @Test
+    public void testNodesMirrorTheExpression() throws Exception {
+        final Cart cart = new Cart();
+        final Map context = Ognl.createDefaultContext(cart, new DefaultMemberAccess(false));
+        final Object tree = Ognl.parseExpression("owner.length() + scale(\"2\")");
+
+        final ExpressionProfile profile = Ognl.profile(tree, context, cart, 5);
+        Assert.assertEquals(5, profile.getIterations());
+        Assert.assertSame(tree, profile.getExpression());
+
+        final ExpressionProfile.NodeProfile add = profile.getRoot();
+        Assert.assertSame(tree, add.getNode());
+        Assert.assertEquals(5, add.getEvaluationCount());
+        Assert.assertEquals(2, add.getChildren().size());
+        Assert.assertTrue(add.getTotalNanos() >= add.getSelfNanos());
+
+        final ExpressionProfile.NodeProfile chain = add.getChildren().get(0);
+        final ExpressionProfile.NodeProfile scale = add.getChildren().get(1);
+        Assert.assertTrue(chain.getNode() instanceof ASTChain);
+        Assert.assertTrue(scale.getNode() instanceof ASTMethod);
+        Assert.assertEquals(5, scale.getEvaluationCount());
+        Assert.assertTrue(add.getTotalNanos() >= chain.getTotalNanos() + scale.getTotalNanos());
+        Assert.assertEquals(add.getTotalNanos() - chain.getTotalNanos() - scale.getTotalNanos(), add.getSelfNanos());
+
+        // the getter of owner and length() are invoked by their own nodes, the argument of scale() is converted
+        Assert.assertEquals(5, chain.getChildren().get(0).getInvocationCount());
+        Assert.assertEquals(5, chain.getChildren().get(1).getInvocationCount());
+        Assert.assertEquals(0, chain.getInvocationCount());
+        Assert.assertEquals(5, scale.getInvocationCount());
+        Assert.assertTrue(scale.getConversionCount() >= 5);
+
+        Assert.assertTrue(profile.isCompilable());
+        Assert.assertTrue(profile.toString().contains("ASTMethod scale(\"2\")"));
+    }
+
+    @Test
+    public void testCacheMissesAreCountedOnFirstEvaluation() throws Exception {
+        OgnlRuntime.clearCache();
+        final Cart cart = new Cart();
+        final Map context = Ognl.createDefaultContext(cart, new DefaultMemberAccess(false));
+
+        final ExpressionProfile.NodeProfile owner = Ognl.profile(Ognl.parseExpression("owner"), context, cart, 3).getRoot();
+        Assert.assertTrue(owner.getCacheMissCount() > 0);
+
+        final ExpressionProfile.NodeProfile again = Ognl.profile(Ognl.parseExpression("owner"), context, cart, 3).getRoot();
+        Assert.assertEquals(0, again.getCacheMissCount());
+        Assert.assertEquals(3, again.getInvocationCount());
+    }
+
+    @Test
+    public void testCompilationFailuresAreReported() throws Exception {
+        final Cart cart = new Cart();
+        final Map context = Ognl.createDefaultContext(cart, new DefaultMemberAccess(false));
+        final Object tree = Ognl.parseExpression("items.{? price > 5}.size()");
+
+        final ExpressionProfile profile = Ognl.profile(tree, context, cart, 2);
+        Assert.assertFalse(profile.isCompilable());
+
+        final ExpressionProfile.NodeProfile select = profile.getRoot().getChildren().get(1);
+        Assert.assertTrue(select.getNode() instanceof ASTSelect);
+        Assert.assertFalse(select.isCompilable());
+        Assert.assertEquals("Eval expressions not supported as native java yet.", select.getCompilationFailure());
+        Assert.assertEquals(2, select.getEvaluationCount());
+
+        // the condition is evaluated once per item and iteration
+        final ExpressionProfile.NodeProfile condition = select.getChildren().get(0);
+        Assert.assertEquals(6, condition.getEvaluationCount());
+        Assert.assertTrue(condition.isCompilable());
+
+        Assert.assertTrue(profile.getRoot().getChildren().get(0).isCompilable());
+    }
+
+    @Test
+    public void testChainedStagesAreProfiledOneByOne() throws Exception {
+        final Cart cart = new Cart();
+        final Map context = Ognl.createDefaultContext(cart, new DefaultMemberAccess(false));
+        final Object tree = Ognl.parseExpression("prices.{? #this > 3}.{ #this * 2 }");
+
+        final ExpressionProfile profile = Ognl.profile(tree, context, cart, 2);
+        final ExpressionProfile.NodeProfile select = profile.getRoot().getChildren().get(1);
+        final ExpressionProfile.NodeProfile project = profile.getRoot().getChildren().get(2);
+        Assert.assertTrue(select.getNode() instanceof ASTSelect);
+        Assert.assertTrue(project.getNode() instanceof ASTProject);
+        Assert.assertEquals(2, select.getEvaluationCount());
+        Assert.assertEquals(2, project.getEvaluationCount());
+
+        // the condition sees the three prices, the projection only the two selected ones
+        Assert.assertEquals(6, select.getChildren().get(0).getEvaluationCount());
+        Assert.assertEquals(4, project.getChildren().get(0).getEvaluationCount());
+        Assert.assertEquals(Arrays.asList(24, 14), Ognl.getValue(tree, context, cart));
+    }
+
+    @Test
+    public void testProfilingDoesNotChangeTheContext() throws Exception {
+        final Cart cart = new Cart();
+        final OgnlContext context = (OgnlContext) Ognl.createDefaultContext(cart, new DefaultMemberAccess(false));
+        context.put("total", 0);
+
+        Ognl.profile(Ognl.parseExpression("#total = #total + 1"), context, cart, 4);
+        Assert.assertEquals(4, context.get("total"));
+        Assert.assertNull(context.getProfiler());
+        Assert.assertFalse(context.isTypeTracking());
+        Assert.assertEquals(5, Ognl.getValue(Ognl.parseExpression("#total + 1"), context, cart));
+
+        // the variables were not exposed: the context still uses its variable slots, and can be reused
+        Assert.assertTrue(context.reset());
+
+        try {
+            Ognl.profile(Ognl.parseExpression("owner"), context, cart, 0);
+            Assert.fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+}
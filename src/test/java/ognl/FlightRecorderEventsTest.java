@@ -0,0 +1,13 @@
+package ognl;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class FlightRecorderEventsTest {
+
+    @Test
+    public void testEventsAreNotCreatedWithoutRecording() {
+        Assert.assertNull(FlightRecorderEvents.begin(FlightRecorderEvents.PARSE));
+        FlightRecorderEvents.end(null, "ignored", null, null);
+    }
+}
@@ -2,6 +2,11 @@ package ognl;
 
 import junit.framework.TestCase;
 
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
 /**
  * Test for OGNL-118.
  */
@@ -17,4 +22,43 @@ public class InExpressionTest extends TestCase {
         context.put("name", "Austin");
         assertEquals(Boolean.TRUE, Ognl.getValue(node, context, root));
     }
+
+    public void test_Constant_List_Index()
+            throws Exception
+    {
+        OgnlContext context = (OgnlContext) Ognl.createDefaultContext(null, new DefaultMemberAccess(false));
+        Object root = null;
+
+        assertEquals(Boolean.TRUE, Ognl.getValue("1 in {1L, 2L}", context, root));
+        assertEquals(Boolean.TRUE, Ognl.getValue("2L in {1, 2, 3}", context, root));
+        assertEquals(Boolean.FALSE, Ognl.getValue("4 in {1, 2, 3}", context, root));
+        assertEquals(Boolean.TRUE, Ognl.getValue("4 not in {1, 2, 3}", context, root));
+        assertEquals(Boolean.TRUE, Ognl.getValue("null in {1, null}", context, root));
+        assertEquals(Boolean.FALSE, Ognl.getValue("null in {1, 2}", context, root));
+        assertEquals(Boolean.FALSE, Ognl.getValue("\"b\" in {\"a\", \"c\"}", context, root));
+
+        // not decided by the index: numeric conversions of the generic comparison
+        assertEquals(Boolean.TRUE, Ognl.getValue("2.0 in {1, 2, 3}", context, root));
+        assertEquals(Boolean.TRUE, Ognl.getValue("\"2\" in {1, 2, 3}", context, root));
+        assertEquals(Boolean.TRUE, Ognl.getValue("2 in {\"1\", \"2\"}", context, root));
+    }
+
+    public void test_Hashed_Set_Contains()
+            throws Exception
+    {
+        OgnlContext context = (OgnlContext) Ognl.createDefaultContext(null, new DefaultMemberAccess(false));
+        Map map = new HashMap();
+        map.put("admin", Boolean.TRUE);
+        context.put("roles", new HashSet(Arrays.asList("admin", "user")));
+        context.put("longs", new HashSet(Arrays.asList(1L, 2L)));
+        context.put("keys", map.keySet());
+        Object root = null;
+
+        assertEquals(Boolean.TRUE, Ognl.getValue("\"user\" in #roles", context, root));
+        assertEquals(Boolean.TRUE, Ognl.getValue("\"guest\" not in #roles", context, root));
+        assertEquals(Boolean.TRUE, Ognl.getValue("1 in #longs", context, root));
+        assertEquals(Boolean.TRUE, Ognl.getValue("\"admin\" in #keys", context, root));
+        assertTrue(OgnlOps.in(2, new HashSet(Arrays.asList(2L))));
+        assertFalse(OgnlOps.in(3, new HashSet(Arrays.asList(2L))));
+    }
 }
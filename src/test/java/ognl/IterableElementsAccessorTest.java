@@ -0,0 +1,235 @@
+package ognl;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Vector;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+public class IterableElementsAccessorTest {
+
+    /** Enumerates the characters of its text through the legacy interface only. */
+    public static class Letters {
+        final String text;
+
+        public Letters(String text) { this.text = text; }
+    }
+
+    public static class LettersAccessor implements ElementsAccessor {
+        public Enumeration getElements(Object target) {
+            final List<Character> letters = new ArrayList<>();
+            for (char c : ((Letters) target).text.toCharArray()) {
+                letters.add(c);
+            }
+            return Collections.enumeration(letters);
+        }
+    }
+
+    @Test
+    public void testBuiltInHints() throws Exception {
+        final IterableElementsAccessor lists = OgnlRuntime.getIterableElementsAccessor(ArrayList.class);
+        Assert.assertEquals(3, lists.getSize(Arrays.asList(1, 2, 3)));
+        Assert.assertTrue(lists.isRandomAccess(new ArrayList<>(Arrays.asList(1, 2, 3))));
+        Assert.assertFalse(OgnlRuntime.getIterableElementsAccessor(LinkedList.class).isRandomAccess(new LinkedList<>()));
+        Assert.assertEquals(2, lists.getElement(Arrays.asList(1, 2, 3), 1));
+
+        final int[] ints = { 4, 5, 6 };
+        final IterableElementsAccessor arrays = OgnlRuntime.getIterableElementsAccessor(int[].class);
+        Assert.assertEquals(3, arrays.getSize(ints));
+        Assert.assertTrue(arrays.isRandomAccess(ints));
+        Assert.assertEquals(6, arrays.getElement(ints, 2));
+
+        final IterableElementsAccessor numbers = OgnlRuntime.getIterableElementsAccessor(Integer.class);
+        Assert.assertEquals(4, numbers.getSize(4));
+        Assert.assertEquals(3, numbers.getElement(4, 3));
+        Assert.assertEquals(0, numbers.getSize(-2));
+
+        final Map<String, Integer> map = new LinkedHashMap<>();
+        map.put("a", 1);
+        map.put("b", 2);
+        final IterableElementsAccessor maps = OgnlRuntime.getIterableElementsAccessor(LinkedHashMap.class);
+        Assert.assertEquals(2, maps.getSize(map));
+        Assert.assertFalse(maps.isRandomAccess(map));
+
+        final Iterator iterator = Arrays.asList(1, 2).iterator();
+        Assert.assertEquals(-1, OgnlRuntime.getIterableElementsAccessor(iterator.getClass()).getSize(iterator));
+
+        final IterableElementsAccessor objects = OgnlRuntime.getIterableElementsAccessor(Letters.class);
+        Assert.assertEquals(1, objects.getSize("x"));
+        Assert.assertEquals("x", objects.getIterator("x").next());
+    }
+
+    @Test
+    public void testSpliteratorsSplitByIndex() throws Exception {
+        final Integer[] boxed = new Integer[100];
+        final int[] ints = new int[100];
+        for (int i = 0; i < ints.length; i++) {
+            boxed[i] = i;
+            ints[i] = i;
+        }
+
+        for (Object array : new Object[] { boxed, ints }) {
+            final Spliterator spliterator = OgnlRuntime.getIterableElementsAccessor(array.getClass()).getSpliterator(array);
+            Assert.assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED));
+            Assert.assertEquals(100, spliterator.estimateSize());
+
+            final Spliterator prefix = spliterator.trySplit();
+            Assert.assertEquals(50, prefix.estimateSize());
+            Assert.assertEquals(50, spliterator.estimateSize());
+        }
+
+        final Spliterator numbers = OgnlRuntime.getIterableElementsAccessor(Integer.class).getSpliterator(10);
+        final List sum = (List) StreamSupport.stream(numbers, true).collect(Collectors.toList());
+        Assert.assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), sum);
+    }
+
+    @Test
+    public void testLegacyAccessorsAreAdapted() throws Exception {
+        OgnlRuntime.setElementsAccessor(Letters.class, new LettersAccessor());
+        try {
+            final IterableElementsAccessor accessor = OgnlRuntime.getIterableElementsAccessor(Letters.class);
+            Assert.assertSame(accessor, OgnlRuntime.getIterableElementsAccessor(Letters.class));
+            Assert.assertEquals(-1, accessor.getSize(new Letters("abc")));
+            Assert.assertFalse(accessor.isRandomAccess(new Letters("abc")));
+            Assert.assertEquals('a', accessor.getIterator(new Letters("abc")).next());
+
+            final Letters letters = new Letters("ognl");
+            final Map context = Ognl.createDefaultContext(letters, new DefaultMemberAccess(false));
+            Assert.assertEquals(Arrays.asList("O", "G", "N", "L"),
+                    Ognl.getValue("#root.{ #this.toString().toUpperCase() }", context, letters));
+            Assert.assertEquals(Boolean.TRUE, Ognl.getValue("'n' in #root", context, letters));
+            Assert.assertEquals(Arrays.asList('l'), Ognl.getValue("#root.{$ #this < 'o' }", context, letters));
+        } finally {
+            OgnlRuntime.setElementsAccessor(Letters.class, new ObjectElementsAccessor());
+        }
+    }
+
+    /** A list whose registered accessor enumerates a single "custom" element. */
+    public static class CustomList<E> extends ArrayList<E> {
+        public CustomList(List<E> elements) { super(elements); }
+    }
+
+    @Test
+    public void testSubclassesOfBuiltInAccessorsAreAdapted() throws Exception {
+        OgnlRuntime.setElementsAccessor(CustomList.class, new CollectionElementsAccessor() {
+            public Enumeration getElements(Object target) {
+                return Collections.enumeration(Collections.singletonList("custom"));
+            }
+        });
+        try {
+            final CustomList<Integer> list = new CustomList<>(Arrays.asList(1, 2, 3));
+            final OgnlContext context = (OgnlContext) Ognl.createDefaultContext(list, new DefaultMemberAccess(false));
+            context.setParallelThreshold(1);
+
+            Assert.assertTrue(OgnlRuntime.getIterableElementsAccessor(CustomList.class) instanceof AbstractElementsAccessor.Adapter);
+            Assert.assertEquals(Arrays.asList("custom"), Ognl.getValue("#root.{ #this }", context, list));
+            Assert.assertEquals(Arrays.asList("custom"), Ognl.getValue("#root.{? true }", context, list));
+            Assert.assertEquals(Arrays.asList("custom"), Ognl.getValue("#root.{$ true }", context, list));
+            Assert.assertEquals(Boolean.TRUE, Ognl.getValue("'custom' in #root", context, list));
+            Assert.assertEquals(Boolean.FALSE, Ognl.getValue("'other' in #root", context, list));
+        } finally {
+            OgnlRuntime.setElementsAccessor(CustomList.class, new CollectionElementsAccessor());
+        }
+        Assert.assertSame(CollectionElementsAccessor.class, OgnlRuntime.getIterableElementsAccessor(CustomList.class).getClass());
+    }
+
+    @Test
+    public void testCollectionOperatorsOverEveryKindOfSource() throws Exception {
+        final int[] ints = { 3, 8, 1, 9 };
+        final Map context = Ognl.createDefaultContext(ints, new DefaultMemberAccess(false));
+
+        Assert.assertEquals(Arrays.asList(6, 16, 2, 18), Ognl.getValue("#root.{ #this * 2 }", context, ints));
+        Assert.assertEquals(Arrays.asList(8, 9), Ognl.getValue("#root.{? #this > 5 }", context, ints));
+        Assert.assertEquals(Arrays.asList(8), Ognl.getValue("#root.{^ #this > 5 }", context, ints));
+        Assert.assertEquals(Arrays.asList(9), Ognl.getValue("#root.{$ #this > 5 }", context, ints));
+        Assert.assertEquals(Boolean.TRUE, Ognl.getValue("9 in #root", context, ints));
+        Assert.assertEquals(Boolean.FALSE, Ognl.getValue("7 in #root", context, ints));
+        Assert.assertEquals(Arrays.asList(0, 2, 4), Ognl.getValue("(3).{ #this * 2 }", context, ints));
+
+        final Vector<Integer> vector = new Vector<>(Arrays.asList(1, 2, 3));
+        Assert.assertEquals(Arrays.asList(3), Ognl.getValue("#root.{ #this + 1 }.{$ #this < 4 }", context, vector));
+        Assert.assertEquals(Arrays.asList(2, 3, 4),
+                Ognl.getValue("#root.elements().{ #this + 1 }", context, vector));
+    }
+
+    /** The integers from 0 to a bound, enumerated by an accessor counting the spliterators it creates. */
+    public static class Range {
+        final int bound;
+
+        public Range(int bound) { this.bound = bound; }
+    }
+
+    public static class RangeAccessor extends AbstractElementsAccessor {
+        final AtomicInteger spliterators = new AtomicInteger();
+
+        public Iterator getIterator(Object target) { return getIndexedIterator(target); }
+
+        public Spliterator getSpliterator(Object target) throws OgnlException {
+            spliterators.incrementAndGet();
+            return super.getSpliterator(target);
+        }
+
+        public int getSize(Object target) { return ((Range) target).bound; }
+
+        public boolean isRandomAccess(Object target) { return true; }
+
+        public Object getElement(Object target, int index) { return index; }
+    }
+
+    @Test
+    public void testParallelEvaluationSplitsTheSpliterator() throws Exception {
+        final RangeAccessor accessor = new RangeAccessor();
+        OgnlRuntime.setElementsAccessor(Range.class, accessor);
+        try {
+            final Range range = new Range(5000);
+            final OgnlContext context = (OgnlContext) Ognl.createDefaultContext(range, new DefaultMemberAccess(false));
+            context.setParallelThreshold(1000);
+
+            final List projected = (List) Ognl.getValue("#root.{ #this * 3 }", context, range);
+            Assert.assertEquals(1, accessor.spliterators.get());
+            Assert.assertEquals(5000, projected.size());
+            for (int i = 0; i < projected.size(); i++) {
+                Assert.assertEquals(i * 3, projected.get(i));
+            }
+
+            final List selected = (List) Ognl.getValue("#root.{? #this % 1250 == 0 }", context, range);
+            Assert.assertEquals(2, accessor.spliterators.get());
+            Assert.assertEquals(Arrays.asList(0, 1250, 2500, 3750), selected);
+
+            final Object[] results = Ognl.getValues(Ognl.parseExpression("#this + 1"), context, range, new Object[5000]);
+            Assert.assertEquals(3, accessor.spliterators.get());
+            Assert.assertEquals(5000, results[4999]);
+        } finally {
+            OgnlRuntime.setElementsAccessor(Range.class, new ObjectElementsAccessor());
+        }
+    }
+
+    @Test
+    public void testMapValuesAndNumbersAreSplitInParallel() throws Exception {
+        final Map<Integer, Integer> map = new LinkedHashMap<>();
+        for (int i = 0; i < 5000; i++) {
+            map.put(i, i);
+        }
+        final OgnlContext context = (OgnlContext) Ognl.createDefaultContext(map, new DefaultMemberAccess(false));
+        context.setParallelThreshold(1000);
+
+        final List projected = (List) Ognl.getValue("#root.{ #this * 2 }", context, map);
+        Assert.assertEquals(5000, projected.size());
+        Assert.assertEquals(9998, projected.get(4999));
+
+        final List selected = (List) Ognl.getValue("(5000).{? #this % 1000 == 0 }", context, map);
+        Assert.assertEquals(Arrays.asList(0, 1000, 2000, 3000, 4000), selected);
+    }
+}
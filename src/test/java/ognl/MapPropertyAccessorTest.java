@@ -0,0 +1,95 @@
+package ognl;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class MapPropertyAccessorTest {
+
+    /** A map whose registered accessor upper-cases the keys. */
+    public static class UpperCaseMap extends HashMap<String, Object> {
+    }
+
+    public static class UpperCaseAccessor extends MapPropertyAccessor {
+        public Object getProperty(Map context, Object target, Object name) throws OgnlException {
+            return super.getProperty(context, target, name.toString().toUpperCase());
+        }
+    }
+
+    private static Map<String, Object> document() {
+        final Map<String, Object> document = new LinkedHashMap<>();
+        document.put("name", "doc");
+        document.put("size", "XL");
+        document.put("values", 3);
+        final Map<String, Object> nested = new LinkedHashMap<>();
+        nested.put("id", 7);
+        document.put("nested", nested);
+        return document;
+    }
+
+    @Test
+    public void testPseudoPropertiesAndKeys() throws Exception {
+        final Map<String, Object> document = document();
+        final Map context = Ognl.createDefaultContext(document, new DefaultMemberAccess(false));
+
+        Assert.assertEquals("doc", Ognl.getValue("name", context, document));
+        Assert.assertEquals(4, Ognl.getValue("size", context, document));
+        Assert.assertEquals("XL", Ognl.getValue("['size']", context, document));
+        Assert.assertEquals(3, Ognl.getValue("#root['values']", context, document));
+        Assert.assertEquals(document.values(), Ognl.getValue("values", context, document));
+        Assert.assertEquals(document.keySet(), Ognl.getValue("keys", context, document));
+        Assert.assertEquals(document.keySet(), Ognl.getValue("keySet", context, document));
+        Assert.assertEquals(Boolean.FALSE, Ognl.getValue("isEmpty", context, document));
+        Assert.assertEquals(7, Ognl.getValue("nested.id", context, document));
+        Assert.assertEquals(1, Ognl.getValue("nested.size", context, document));
+    }
+
+    @Test
+    public void testDecisionIsMadePerNode() throws Exception {
+        final Map<String, Object> document = document();
+        final OgnlContext context = (OgnlContext) Ognl.createDefaultContext(document, new DefaultMemberAccess(false));
+        final Object tree = Ognl.parseExpression("#root[#key]");
+
+        context.put("key", "size");
+        Assert.assertEquals("XL", Ognl.getValue(tree, context, document));
+        context.put("key", "name");
+        Assert.assertEquals("doc", Ognl.getValue(tree, context, document));
+
+        final Object size = Ognl.parseExpression("size");
+        Assert.assertEquals(4, Ognl.getValue(size, context, document));
+        Assert.assertEquals(0, Ognl.getValue(size, context, new HashMap()));
+        Assert.assertEquals("doc", Ognl.getValue("size", context, new Object() {
+            public String getSize() {
+                return "doc";
+            }
+        }));
+    }
+
+    @Test
+    public void testRegisteredAccessorsAreStillUsed() throws Exception {
+        OgnlRuntime.setPropertyAccessor(UpperCaseMap.class, new UpperCaseAccessor());
+        final UpperCaseMap map = new UpperCaseMap();
+        map.put("NAME", "upper");
+        final Map context = Ognl.createDefaultContext(map, new DefaultMemberAccess(false));
+
+        Assert.assertEquals("upper", Ognl.getValue("name", context, map));
+        Assert.assertEquals("upper", Ognl.getValue("['name']", context, map));
+    }
+
+    @Test
+    public void testCompiledAccessMatchesInterpretedAccess() throws Exception {
+        final Map<String, Object> document = document();
+        final String[] expressions = { "name", "size", "['size']", "values", "['values']", "keySet", "isEmpty", "nested.id" };
+
+        for (String expression : expressions) {
+            final OgnlContext context = (OgnlContext) Ognl.createDefaultContext(document, new DefaultMemberAccess(false));
+            final Object interpreted = Ognl.getValue(expression, context, document);
+            final Node compiled = Ognl.compileExpression(context, document, expression);
+
+            Assert.assertEquals(expression, interpreted, compiled.getAccessor().get(context, document));
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package ognl;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+public class MemberInvokerTest {
+
+    public static class Bean {
+        public int count;
+        public String name;
+        public static String shared = "shared";
+
+        public Bean() {
+        }
+
+        public Bean(String name) {
+            this.name = name;
+        }
+
+        public int add(int a, int b) {
+            return a + b;
+        }
+
+        public static String join(String a, String b) {
+            return a + b;
+        }
+
+        public void fail() {
+            throw new IllegalStateException("failed");
+        }
+
+        private String secret() {
+            return "secret";
+        }
+    }
+
+    @Test
+    public void testMethodInvoker() throws Exception {
+        final Method add = Bean.class.getMethod("add", int.class, int.class);
+        final MemberInvoker invoker = MemberInvoker.forMethod(add, AccessibleObjectHandlerPreJDK9.createHandler());
+        final Bean bean = new Bean();
+
+        Assert.assertTrue(invoker.accepts(bean, new Object[] {1, 2}));
+        Assert.assertEquals(3, invoker.invoke(bean, new Object[] {1, 2}));
+
+        // null primitives, widening, wrong receivers and wrong arity are left to reflection
+        Assert.assertFalse(invoker.accepts(bean, new Object[] {null, 2}));
+        Assert.assertFalse(invoker.accepts(bean, new Object[] {(short) 1, 2}));
+        Assert.assertFalse(invoker.accepts("not a bean", new Object[] {1, 2}));
+        Assert.assertFalse(invoker.accepts(bean, new Object[] {1}));
+    }
+
+    @Test
+    public void testStaticAndPrivateMethodInvokers() throws Exception {
+        final MemberInvoker join = MemberInvoker.forMethod(Bean.class.getMethod("join", String.class, String.class),
+                AccessibleObjectHandlerPreJDK9.createHandler());
+        Assert.assertTrue(join.accepts(null, new Object[] {"a", null}));
+        Assert.assertEquals("anull", join.invoke(null, new Object[] {"a", null}));
+
+        final Method secret = Bean.class.getDeclaredMethod("secret");
+        final MemberInvoker invoker = MemberInvoker.forMethod(secret, AccessibleObjectHandlerPreJDK9.createHandler());
+        Assert.assertEquals("secret", invoker.invoke(new Bean(), null));
+        Assert.assertFalse("accessibility must be restored", secret.isAccessible());
+    }
+
+    @Test
+    public void testExceptionsAreWrapped() throws Exception {
+        final MemberInvoker invoker = MemberInvoker.forMethod(Bean.class.getMethod("fail"),
+                AccessibleObjectHandlerPreJDK9.createHandler());
+        try {
+            invoker.invoke(new Bean(), OgnlRuntime.NoArguments);
+            Assert.fail("exception expected");
+        } catch (InvocationTargetException ex) {
+            Assert.assertTrue(ex.getTargetException() instanceof IllegalStateException);
+        }
+    }
+
+    @Test
+    public void testConstructorAndFieldInvokers() throws Exception {
+        final MemberInvoker ctor = MemberInvoker.forConstructor(Bean.class.getConstructor(String.class));
+        final Bean bean = (Bean) ctor.invoke(null, new Object[] {"x"});
+        Assert.assertEquals("x", bean.name);
+
+        final MemberInvoker setter = MemberInvoker.forFieldSetter(Bean.class.getField("count"));
+        final MemberInvoker getter = MemberInvoker.forFieldGetter(Bean.class.getField("count"));
+        setter.invoke(bean, new Object[] {42});
+        Assert.assertEquals(42, getter.invoke(bean, OgnlRuntime.NoArguments));
+
+        Assert.assertEquals("shared", MemberInvoker.forFieldGetter(Bean.class.getField("shared")).invoke(null, null));
+        Assert.assertSame(MemberInvoker.UNAVAILABLE, MemberInvoker.forFieldGetter(String.class.getDeclaredField("hash")));
+    }
+
+    @Test
+    public void testRuntimeUsesCachedInvokers() throws Exception {
+        final OgnlContext context = (OgnlContext) Ognl.createDefaultContext(null, new DefaultMemberAccess(false));
+        final Bean bean = new Bean("bean");
+
+        Assert.assertEquals(5, Ognl.getValue("add(2, 3)", context, bean));
+        Assert.assertEquals("ab", Ognl.getValue("@ognl.MemberInvokerTest$Bean@join('a', 'b')", context, bean));
+        Assert.assertEquals("shared", Ognl.getValue("@ognl.MemberInvokerTest$Bean@shared", context, bean));
+        Ognl.setValue("count", context, bean, 7);
+        Assert.assertEquals(7, Ognl.getValue("count", context, bean));
+        Assert.assertEquals("n", ((Bean) Ognl.getValue("new ognl.MemberInvokerTest$Bean('n')", context, bean)).name);
+
+        Assert.assertNotNull(OgnlRuntime._methodInvokerCache.get(Bean.class.getMethod("add", int.class, int.class)));
+        OgnlRuntime.clearCache();
+        Assert.assertTrue(OgnlRuntime._methodInvokerCache.isEmpty());
+    }
+}
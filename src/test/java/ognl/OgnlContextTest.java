@@ -0,0 +1,134 @@
+package ognl;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class OgnlContextTest {
+
+    public static class Bean {
+        private final List<String> items = Arrays.asList("a", "b");
+
+        public List<String> getItems() { return items; }
+        public String getItems(int index) { return items.get(index); }
+    }
+
+    @Test
+    public void testInterpretationDoesNotTrackTypes() throws Exception {
+        final Bean bean = new Bean();
+        final OgnlContext context = (OgnlContext) Ognl.createDefaultContext(bean, new DefaultMemberAccess(false));
+        final Object expression = Ognl.parseExpression("items[1].length()");
+
+        Assert.assertFalse(context.isTypeTracking());
+        for (int i = 0; i < 100; i++) {
+            Assert.assertEquals(1, Ognl.getValue(expression, context, bean));
+        }
+
+        // only the root type is recorded
+        Assert.assertEquals(Bean.class, context.getCurrentType());
+        Assert.assertNull(context.getPreviousType());
+        Assert.assertNull(context.getCurrentAccessor());
+    }
+
+    @Test
+    public void testCompilationTracksTypes() throws Exception {
+        final Bean bean = new Bean();
+        final OgnlContext context = (OgnlContext) Ognl.createDefaultContext(bean, new DefaultMemberAccess(false));
+
+        final Node node = Ognl.compileExpression(context, bean, "items[1]");
+        Assert.assertNotNull(node.getAccessor());
+        Assert.assertEquals("b", node.getAccessor().get(context, bean));
+        Assert.assertFalse(context.isTypeTracking());
+        Assert.assertEquals(Bean.class, context.getFirstType());
+
+        context.setRoot(bean);
+        context.setCurrentType(String.class);
+        context.setCurrentAccessor(Bean.class);
+        Assert.assertEquals(String.class, context.getCurrentType());
+        Assert.assertEquals(Bean.class, context.getPreviousType());
+        Assert.assertEquals(Bean.class, context.getCurrentAccessor());
+    }
+
+    @Test
+    public void testVariableSlots() throws Exception {
+        final Bean bean = new Bean();
+        final OgnlContext context = (OgnlContext) Ognl.createDefaultContext(bean, new DefaultMemberAccess(false));
+        final Object expression = Ognl.parseExpression("#total = #total + #step, #total");
+
+        context.put("total", 1);
+        context.put("step", 2);
+        Assert.assertEquals(3, Ognl.getValue(expression, context, bean));
+        Assert.assertEquals(3, context.get("total"));
+
+        // changes made through the map facade are seen by the next evaluation
+        context.put("step", 10);
+        Assert.assertEquals(13, Ognl.getValue(expression, context, bean));
+        context.remove("step");
+        Assert.assertEquals(13, Ognl.getValue("#step == null ? #total : 0", context, bean));
+
+        final Object fact = Ognl.parseExpression("#fact = :[#this <= 1 ? 1 : #this * #fact(#this - 1)], #fact(5)");
+        Assert.assertEquals(120, Ognl.getValue(fact, context, bean));
+        Assert.assertEquals(120, Ognl.getValue(fact, context, bean));
+    }
+
+    @Test
+    public void testDefaultContextsUseVariableSlots() throws Exception {
+        final Bean bean = new Bean();
+        final OgnlContext context = (OgnlContext) Ognl.createDefaultContext(bean, new DefaultMemberAccess(false));
+
+        Assert.assertEquals(1, Ognl.getValue("#a = 1, #a", context, bean));
+        Assert.assertTrue(context.reset());
+
+        // once handed out, the variables map is looked up by every evaluation
+        context.getValues();
+        Assert.assertFalse(context.reset());
+    }
+
+    @Test
+    public void testSerializedVariableSlots() throws Exception {
+        final Bean bean = new Bean();
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(Ognl.parseExpression("#a + #b * #a"));
+        }
+
+        final Object expression;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            expression = in.readObject();
+        }
+
+        final OgnlContext context = (OgnlContext) Ognl.createDefaultContext(bean, new DefaultMemberAccess(false));
+        context.put("a", 2);
+        context.put("b", 5);
+        Assert.assertEquals(12, Ognl.getValue(expression, context, bean));
+        context.put("a", 3);
+        Assert.assertEquals(18, Ognl.getValue(expression, context, bean));
+    }
+
+    @Test
+    public void testVariablesOfSharedValues() throws Exception {
+        final Bean bean = new Bean();
+        final Map values = new HashMap();
+        final Map context = Ognl.addDefaultContext(bean, new DefaultMemberAccess(false), null, null, values);
+        final Object expression = Ognl.parseExpression("#name");
+
+        values.put("name", "a");
+        Assert.assertEquals("a", Ognl.getValue(expression, context, bean));
+        values.put("name", "b");
+        Assert.assertEquals("b", Ognl.getValue(expression, context, bean));
+
+        final OgnlContext owned = (OgnlContext) Ognl.createDefaultContext(bean, new DefaultMemberAccess(false));
+        owned.put("name", "a");
+        Assert.assertEquals("a", Ognl.getValue(expression, owned, bean));
+        owned.getValues().put("name", "b");
+        Assert.assertEquals("b", Ognl.getValue(expression, owned, bean));
+    }
+}
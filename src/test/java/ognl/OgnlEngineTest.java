@@ -0,0 +1,110 @@
+package ognl;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class OgnlEngineTest {
+
+    public static class Bean {
+        private final int id;
+        private String name;
+
+        public Bean(int id) { this.id = id; }
+
+        public int getId() { return id; }
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+    }
+
+    @Test
+    public void testFramesShareConfiguration() throws Exception {
+        final OgnlEngine engine = new OgnlEngine(new DefaultMemberAccess(false));
+        final OgnlContext first = engine.createContext(new Bean(1));
+        final OgnlContext second = engine.createContext(new Bean(2));
+
+        Assert.assertNotSame(first, second);
+        Assert.assertSame(engine.getMemberAccess(), first.getMemberAccess());
+        Assert.assertSame(engine.getClassResolver(), second.getClassResolver());
+        Assert.assertSame(first.getTypeConverter(), second.getTypeConverter());
+        Assert.assertEquals(1, ((Bean) first.getRoot()).getId());
+    }
+
+    @Test
+    public void testEvaluation() throws Exception {
+        final OgnlEngine engine = new OgnlEngine();
+        final Bean bean = new Bean(7);
+
+        engine.setValue(Ognl.parseExpression("name"), bean, "seven");
+        Assert.assertEquals("seven", engine.getValue(Ognl.parseExpression("name"), bean));
+        Assert.assertEquals("7", engine.getValue(Ognl.parseExpression("id"), bean, String.class));
+        Assert.assertEquals(8, engine.getValue(Ognl.parseExpression("#x = id + 1, #x"), bean));
+    }
+
+    public static class Nested {
+        private final OgnlEngine engine;
+
+        public Nested(OgnlEngine engine) { this.engine = engine; }
+
+        public Object inner(int id) throws OgnlException {
+            return engine.getValue(Ognl.parseExpression("#x = id * 2, #x"), new Bean(id));
+        }
+    }
+
+    @Test
+    public void testFramesAreClearedBetweenEvaluations() throws Exception {
+        final OgnlEngine engine = new OgnlEngine(new DefaultMemberAccess(false));
+        final Bean bean = new Bean(3);
+
+        Assert.assertEquals(3, engine.getValue(Ognl.parseExpression("#x = id, #_traceEvaluations = true, #x"), bean));
+        Assert.assertNull(engine.getValue(Ognl.parseExpression("#x"), bean));
+        Assert.assertEquals(Boolean.FALSE, engine.getValue(Ognl.parseExpression("#_traceEvaluations"), bean));
+
+        // a nested evaluation on the same thread does not share the frame of the enclosing one
+        final Nested nested = new Nested(engine);
+        Assert.assertEquals(Arrays.asList(1, 10, 1),
+                engine.getValue(Ognl.parseExpression("#x = 1, { #x, inner(5), #x }"), nested));
+        Assert.assertNull(engine.getValue(Ognl.parseExpression("#x"), nested));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMemberAccessIsRequired() {
+        new OgnlEngine(null);
+    }
+
+    @Test
+    public void testConcurrentEvaluation() throws Exception {
+        final OgnlEngine engine = new OgnlEngine(new DefaultMemberAccess(false));
+        final Object expression = Ognl.parseExpression("#base = id * 10, #base + name.length()");
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<Boolean>> results = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                results.add(executor.submit(new Callable<Boolean>() {
+                    public Boolean call() throws Exception {
+                        for (int i = 0; i < 1000; i++) {
+                            final Bean bean = new Bean(i);
+                            bean.setName("ab");
+                            if (!Integer.valueOf(i * 10 + 2).equals(engine.getValue(expression, bean))) {
+                                return Boolean.FALSE;
+                            }
+                        }
+                        return Boolean.TRUE;
+                    }
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                Assert.assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -6,6 +6,7 @@ import org.junit.Test;
 
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
@@ -473,6 +474,88 @@ public class OgnlRuntimeTest {
         }
     }
 
+    /**
+     * Test extending the stricter invocation policy.
+     */
+    @Test
+    public void testStricterInvocationPolicy() throws Exception {
+        final StricterInvocationPolicy defaultPolicy = StricterInvocationPolicy.getDefaultPolicy();
+        final Method exitMethod = System.class.getMethod("exit", int.class);
+        final Method currentTimeMethod = System.class.getMethod("currentTimeMillis");
+        final Method execMethod = Runtime.class.getMethod("exec", String.class);
+        final Method threadNameMethod = Thread.class.getMethod("getName");
+
+        Assert.assertTrue(defaultPolicy.isDenied(exitMethod));
+        Assert.assertTrue(defaultPolicy.isDenied(execMethod));
+        Assert.assertTrue("decision must be stable once cached", defaultPolicy.isDenied(execMethod));
+        Assert.assertFalse(defaultPolicy.isDenied(currentTimeMethod));
+        Assert.assertFalse(defaultPolicy.isDenied(threadNameMethod));
+
+        final StricterInvocationPolicy extendedPolicy = defaultPolicy.denyMethods(currentTimeMethod).denyTypes(Thread.class);
+        Assert.assertTrue(extendedPolicy.isDenied(exitMethod));
+        Assert.assertTrue(extendedPolicy.isDenied(currentTimeMethod));
+        Assert.assertTrue(extendedPolicy.isDenied(threadNameMethod));
+        Assert.assertFalse("default policy must not change", defaultPolicy.isDenied(currentTimeMethod));
+
+        if (OgnlRuntime.getUseStricterInvocationValue()) {
+            OgnlRuntime.setStricterInvocationPolicy(extendedPolicy);
+            try {
+                OgnlRuntime.invokeMethod(Thread.currentThread(), threadNameMethod, OgnlRuntime.NoArguments);
+                Assert.fail("Somehow got past invocation of a call restricted by a custom policy ?");
+            } catch (IllegalAccessException iae) {
+                // Expected failure (failed during invocation)
+            } finally {
+                OgnlRuntime.setStricterInvocationPolicy(defaultPolicy);
+            }
+            Assert.assertEquals(Thread.currentThread().getName(),
+                    OgnlRuntime.invokeMethod(Thread.currentThread(), threadNameMethod, OgnlRuntime.NoArguments));
+        }
+    }
+
+    /**
+     * Test the checks no stricter invocation policy can lift, and the clearing of the cached decisions.
+     */
+    @Test
+    public void testStricterInvocationPolicyAlwaysDenies() throws Exception {
+        final Method setPolicyMethod = OgnlRuntime.class.getMethod("setStricterInvocationPolicy", StricterInvocationPolicy.class);
+        final Method currentTimeMethod = System.class.getMethod("currentTimeMillis");
+        final StricterInvocationPolicy emptyPolicy = new StricterInvocationPolicy(
+                Collections.<Method>emptyList(), Collections.<Class<?>>emptyList());
+        final StricterInvocationPolicy permissivePolicy = new StricterInvocationPolicy(
+                Collections.<Method>emptyList(), Collections.<Class<?>>emptyList()) {
+            @Override
+            protected boolean isDeniedType(Class<?> declaringClass) {
+                return false;
+            }
+        };
+
+        Assert.assertTrue(emptyPolicy.isDenied(setPolicyMethod));
+        Assert.assertTrue(permissivePolicy.isDenied(setPolicyMethod));
+        Assert.assertFalse(permissivePolicy.isDenied(currentTimeMethod));
+        if (AccessibleObjectHandlerJDK9Plus.unsafeOrDescendant(Class.forName("sun.misc.Unsafe"))) {
+            final Method unsafeMethod = Class.forName("sun.misc.Unsafe").getMethod("addressSize");
+            Assert.assertTrue(emptyPolicy.isDenied(unsafeMethod));
+            Assert.assertTrue(permissivePolicy.isDenied(unsafeMethod));
+        }
+
+        OgnlRuntime.clearCache();
+        Assert.assertTrue("decision must survive a cache clear", permissivePolicy.isDenied(setPolicyMethod));
+        Assert.assertTrue(StricterInvocationPolicy.getDefaultPolicy().isDenied(System.class.getMethod("exit", int.class)));
+
+        if (OgnlRuntime.getUseStricterInvocationValue()) {
+            OgnlRuntime.setStricterInvocationPolicy(permissivePolicy);
+            try {
+                OgnlRuntime.invokeMethod(null, setPolicyMethod, new Object[] { emptyPolicy });
+                Assert.fail("Somehow got past invocation of an OgnlRuntime method ?");
+            } catch (IllegalAccessException iae) {
+                // Expected failure (failed during invocation)
+            } finally {
+                OgnlRuntime.setStricterInvocationPolicy(StricterInvocationPolicy.getDefaultPolicy());
+            }
+            Assert.assertSame(StricterInvocationPolicy.getDefaultPolicy(), OgnlRuntime.getStricterInvocationPolicy());
+        }
+    }
+
     /**
      * Test OgnlRuntime value for _useFirstMatchGetSetLookup based on the System property
      *   represented by {@link OgnlRuntime#USE_FIRSTMATCH_GETSET_LOOKUP}.
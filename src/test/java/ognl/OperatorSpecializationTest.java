@@ -0,0 +1,106 @@
+package ognl;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+
+public class OperatorSpecializationTest {
+
+    private static final Object[] VALUES = {
+            1, -7, Integer.MAX_VALUE, 3L, Long.MIN_VALUE, 2.5d, Double.NaN, -0.0d, 1.5f, "10", "abc",
+            new BigDecimal("2.25"), (short) 4, 'c', Boolean.TRUE, null
+    };
+
+    @Test
+    public void testArithmeticMatchesGenericOperations() {
+        for (Object v1 : VALUES) {
+            for (Object v2 : VALUES) {
+                for (int operator = OperatorSpecialization.ADD; operator <= OperatorSpecialization.REMAINDER; operator++) {
+                    // a specialization first observing (v1, v1), then deoptimized by (v1, v2)
+                    final OperatorSpecialization specialization = new OperatorSpecialization(operator);
+                    assertSameResult(generic(operator, v1, v1), specialization, true, v1, v1);
+                    assertSameResult(generic(operator, v1, v2), specialization, true, v1, v2);
+                    assertSameResult(generic(operator, v1, v1), specialization, true, v1, v1);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testComparisonsMatchGenericOperations() {
+        for (Object v1 : VALUES) {
+            for (Object v2 : VALUES) {
+                final OperatorSpecialization specialization = new OperatorSpecialization();
+                Assert.assertEquals(equal(null, v1, v1), equal(specialization, v1, v1));
+                Assert.assertEquals(equal(null, v1, v2), equal(specialization, v1, v2));
+
+                final OperatorSpecialization comparison = new OperatorSpecialization();
+                assertSameResult(compare(v1, v1), comparison, false, v1, v1);
+                assertSameResult(compare(v1, v2), comparison, false, v1, v2);
+            }
+        }
+    }
+
+    @Test
+    public void testSpecializedExpressions() throws Exception {
+        final Object sum = Ognl.parseExpression("#a + #b * 2 - #a / 3 + #a % 4");
+        final OgnlContext context = (OgnlContext) Ognl.createDefaultContext(null, new DefaultMemberAccess(false));
+
+        for (int i = 0; i < 10; i++) {
+            context.put("a", i);
+            context.put("b", 5);
+            Assert.assertEquals(i + 10 - i / 3 + i % 4, Ognl.getValue(sum, context, (Object) null));
+        }
+        context.put("a", 7L);
+        Assert.assertEquals(7L + 10 - 7L / 3 + 7L % 4, Ognl.getValue(sum, context, (Object) null));
+        context.put("a", "x");
+        context.put("b", "y");
+        Assert.assertEquals("xyy", Ognl.getValue("#a + #b + #b", context, (Object) null));
+        Assert.assertEquals(Boolean.TRUE, Ognl.getValue("#a < #b && #a != #b && #a == \"x\"", context, (Object) null));
+    }
+
+    private static Object generic(int operator, Object v1, Object v2) {
+        try {
+            switch (operator) {
+                case OperatorSpecialization.ADD: return OgnlOps.add(v1, v2);
+                case OperatorSpecialization.SUBTRACT: return OgnlOps.subtract(v1, v2);
+                case OperatorSpecialization.MULTIPLY: return OgnlOps.multiply(v1, v2);
+                case OperatorSpecialization.DIVIDE: return OgnlOps.divide(v1, v2);
+                default: return OgnlOps.remainder(v1, v2);
+            }
+        } catch (RuntimeException e) {
+            return e.getClass();
+        }
+    }
+
+    private static Object equal(OperatorSpecialization specialization, Object v1, Object v2) {
+        try {
+            return (specialization == null) ? OgnlOps.equal(v1, v2) : specialization.equal(v1, v2);
+        } catch (RuntimeException e) {
+            return e.getClass();
+        }
+    }
+
+    private static Object compare(Object v1, Object v2) {
+        try {
+            return OgnlOps.compareWithConversion(v1, v2);
+        } catch (RuntimeException e) {
+            return e.getClass();
+        }
+    }
+
+    private static void assertSameResult(Object expected, OperatorSpecialization specialization, boolean arithmetic,
+                                         Object v1, Object v2) {
+        Object actual;
+        try {
+            actual = arithmetic ? specialization.apply(v1, v2) : specialization.compare(v1, v2);
+        } catch (RuntimeException e) {
+            actual = e.getClass();
+        }
+        Assert.assertEquals(v1 + " , " + v2, expected, actual);
+        if (expected != null) {
+            Assert.assertEquals(expected.getClass(), actual.getClass());
+        }
+    }
+}
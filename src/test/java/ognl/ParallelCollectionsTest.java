@@ -0,0 +1,107 @@
+package ognl;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+public class ParallelCollectionsTest {
+
+    public static class Row {
+        private final int value;
+
+        public Row(int value) { this.value = value; }
+
+        public int getValue() { return value; }
+
+        public int fail() {
+            throw new IllegalStateException("failed on " + value);
+        }
+    }
+
+    private static List<Row> rows(int count) {
+        final List<Row> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            rows.add(new Row(i));
+        }
+        return rows;
+    }
+
+    @Test
+    public void testParallelProjectionAndSelection() throws Exception {
+        final List<Row> rows = rows(20000);
+        final OgnlContext context = (OgnlContext) Ognl.createDefaultContext(rows, new DefaultMemberAccess(false));
+        context.put("factor", 3);
+        context.setParallelThreshold(1000);
+
+        final List projected = (List) Ognl.getValue("#root.{ value * #factor }", context, rows);
+        Assert.assertEquals(rows.size(), projected.size());
+        for (int i = 0; i < rows.size(); i++) {
+            Assert.assertEquals(i * 3, projected.get(i));
+        }
+
+        final List selected = (List) Ognl.getValue("#root.{? value % 1000 == 999 }", context, rows);
+        Assert.assertEquals(20, selected.size());
+        for (int i = 0; i < selected.size(); i++) {
+            Assert.assertSame(rows.get(i * 1000 + 999), selected.get(i));
+        }
+
+        final int[] array = new int[5000];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = i;
+        }
+        context.put("array", array);
+        Assert.assertEquals(2500, ((List) Ognl.getValue("#array.{? #this % 2 == 0 }", context, rows)).size());
+
+        // below the threshold: sequential
+        context.setParallelThreshold(100000);
+        Assert.assertEquals(rows.size(), ((List) Ognl.getValue("#root.{ value }", context, rows)).size());
+    }
+
+    @Test
+    public void testParallelFailure() throws Exception {
+        final List<Row> rows = rows(5000);
+        final OgnlContext context = (OgnlContext) Ognl.createDefaultContext(rows, new DefaultMemberAccess(false));
+        context.setParallelThreshold(100);
+
+        try {
+            Ognl.getValue("#root.{ fail() }", context, rows);
+            Assert.fail("the failure of the inner expression should be reported");
+        } catch (MethodFailedException ex) {
+            Assert.assertTrue(ex.getReason() instanceof IllegalStateException);
+        }
+    }
+
+    @Test
+    public void testTaskFramesShareTheSamplingTracer() throws Exception {
+        final List<Row> rows = rows(5000);
+        final SamplingTracer tracer = new SamplingTracer(1, 0, TimeUnit.MILLISECONDS, 8192);
+        final OgnlContext context = (OgnlContext) Ognl.createDefaultContext(rows, new DefaultMemberAccess(false));
+        context.setParallelThreshold(100);
+        context.setSamplingTracer(tracer);
+
+        Ognl.getValue("#root.{ value }", context, rows);
+
+        int elements = 0;
+        for (SamplingTracer.Sample sample : tracer.getSamples()) {
+            if (sample.getExpression().equals("value")) {
+                elements++;
+            }
+        }
+        Assert.assertEquals(rows.size(), elements);
+    }
+
+    @Test
+    public void testProfiledEvaluationsAreNotSplit() throws Exception {
+        final List<Row> rows = rows(5000);
+        final OgnlContext context = (OgnlContext) Ognl.createDefaultContext(rows, new DefaultMemberAccess(false));
+        context.setParallelThreshold(100);
+
+        Assert.assertTrue(ParallelCollections.isSplit(context, rows));
+        context.setProfiler(new ExpressionProfiler((Node) Ognl.parseExpression("#root.{ value }")));
+        Assert.assertFalse(ParallelCollections.isSplit(context, rows));
+    }
+}
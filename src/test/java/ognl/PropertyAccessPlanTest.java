@@ -0,0 +1,79 @@
+package ognl;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Map;
+
+public class PropertyAccessPlanTest {
+
+    public static class Bean {
+        public int counter;
+        public final String constant = "constant";
+        public static String shared = "shared";
+        private String name;
+        private String[] items = new String[] { "a", "b" };
+
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+
+        public String[] getItems() { return items; }
+        public String getItems(int index) { return items[index]; }
+        public void setItems(int index, String value) { items[index] = value; }
+
+        public Object getValue(String key) { return key.toUpperCase(); }
+        public void setValue(String key, Object value) { }
+    }
+
+    @Test
+    public void testPlanContents() throws Exception {
+        final PropertyAccessPlan name = OgnlRuntime.getPropertyAccessPlan(Bean.class, "name");
+        Assert.assertEquals(Bean.class.getMethod("getName"), name.getReadMethod());
+        Assert.assertEquals(Bean.class.getMethod("getName"), name.getGetMethod());
+        Assert.assertEquals(Bean.class.getMethod("setName", String.class), name.getWriteMethod());
+        Assert.assertEquals(String.class, name.getPropertyType());
+        Assert.assertEquals(OgnlRuntime.INDEXED_PROPERTY_NONE, name.getIndexedPropertyType());
+        Assert.assertTrue(name.isReadable() && name.isWritable());
+
+        final PropertyAccessPlan counter = OgnlRuntime.getPropertyAccessPlan(Bean.class, "counter");
+        Assert.assertNull(counter.getGetMethod());
+        Assert.assertEquals(Bean.class.getField("counter"), counter.getField());
+        Assert.assertEquals(int.class, counter.getPropertyType());
+        Assert.assertTrue(counter.isReadable() && counter.isWritable());
+
+        Assert.assertFalse(OgnlRuntime.getPropertyAccessPlan(Bean.class, "constant").isWritable());
+        Assert.assertFalse(OgnlRuntime.getPropertyAccessPlan(Bean.class, "shared").isReadable());
+        Assert.assertFalse(OgnlRuntime.getPropertyAccessPlan(Bean.class, "missing").isReadable());
+
+        Assert.assertEquals(OgnlRuntime.INDEXED_PROPERTY_INT,
+                OgnlRuntime.getPropertyAccessPlan(Bean.class, "items").getIndexedPropertyType());
+        Assert.assertEquals(OgnlRuntime.INDEXED_PROPERTY_OBJECT,
+                OgnlRuntime.getPropertyAccessPlan(Bean.class, "value").getIndexedPropertyType());
+    }
+
+    @Test
+    public void testPlansAreCached() throws Exception {
+        final PropertyAccessPlan plan = OgnlRuntime.getPropertyAccessPlan(Bean.class, "name");
+        Assert.assertSame(plan, OgnlRuntime.getPropertyAccessPlan(Bean.class, "name"));
+
+        OgnlRuntime.clearCache();
+        Assert.assertNotSame(plan, OgnlRuntime.getPropertyAccessPlan(Bean.class, "name"));
+    }
+
+    @Test
+    public void testNavigationUsesPlans() throws Exception {
+        final Bean bean = new Bean();
+        final Map context = Ognl.createDefaultContext(bean, new DefaultMemberAccess(false));
+
+        Ognl.setValue("name", context, bean, "x");
+        Ognl.setValue("counter", context, bean, 4);
+        Ognl.setValue("items[1]", context, bean, "z");
+
+        Assert.assertEquals("x", Ognl.getValue("name", context, bean));
+        Assert.assertEquals(4, Ognl.getValue("counter", context, bean));
+        Assert.assertEquals("z", Ognl.getValue("items[1]", context, bean));
+        Assert.assertEquals("KEY", Ognl.getValue("value['key']", context, bean));
+        Assert.assertTrue(OgnlRuntime.hasGetProperty((OgnlContext) context, bean, "counter"));
+        Assert.assertFalse(OgnlRuntime.hasSetProperty((OgnlContext) context, bean, "missing"));
+    }
+}
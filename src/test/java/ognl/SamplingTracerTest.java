@@ -0,0 +1,121 @@
+package ognl;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class SamplingTracerTest {
+
+    public static class Bean {
+        private String name = "ognl";
+
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+        public List<Integer> getItems() { return Arrays.asList(1, 2, 3); }
+
+        public String slow() throws InterruptedException {
+            Thread.sleep(20);
+            return name;
+        }
+    }
+
+    @Test
+    public void testSampledEvaluationsRecordNodes() throws Exception {
+        final Bean bean = new Bean();
+        final SamplingTracer tracer = new SamplingTracer(1, 0, TimeUnit.MILLISECONDS, 4);
+        final OgnlContext context = (OgnlContext) Ognl.createDefaultContext(bean, new DefaultMemberAccess(false));
+        context.setSamplingTracer(tracer);
+
+        Assert.assertEquals(5, Ognl.getValue(Ognl.parseExpression("name.length() + 1"), context, bean));
+
+        final List<SamplingTracer.Sample> samples = tracer.getSamples();
+        Assert.assertEquals(1, samples.size());
+
+        final SamplingTracer.Sample sample = samples.get(0);
+        Assert.assertTrue(sample.isSampled());
+        Assert.assertFalse(sample.isSetValue());
+        Assert.assertEquals(Integer.class, sample.getResultType());
+        Assert.assertEquals("name.length() + 1", sample.getExpression());
+        Assert.assertEquals(0, sample.getNodeDepth(0));
+        Assert.assertSame(sample.getNode(), sample.getNode(0));
+        Assert.assertEquals(7, sample.getNodeCount());
+        Assert.assertTrue(sample.getNode(1) instanceof ASTChain);
+        Assert.assertEquals(1, sample.getNodeDepth(1));
+        Assert.assertEquals(String.class, sample.getNodeResultType(2));
+        Assert.assertTrue(sample.getNodeDurationNanos(0) >= sample.getNodeDurationNanos(1));
+
+        Ognl.setValue(Ognl.parseExpression("name"), context, bean, "x");
+        Assert.assertTrue(tracer.getSamples().get(1).isSetValue());
+        Assert.assertEquals("x", bean.getName());
+    }
+
+    @Test
+    public void testSampledStagesAreNotFused() throws Exception {
+        final Bean bean = new Bean();
+        final SamplingTracer tracer = new SamplingTracer(1, 0, TimeUnit.MILLISECONDS, 4);
+        final OgnlContext context = (OgnlContext) Ognl.createDefaultContext(bean, new DefaultMemberAccess(false));
+        context.setSamplingTracer(tracer);
+
+        Assert.assertEquals(Arrays.asList(4, 6), Ognl.getValue(Ognl.parseExpression("items.{? #this > 1}.{#this * 2}"), context, bean));
+
+        final SamplingTracer.Sample sample = tracer.getSamples().get(0);
+        boolean select = false, project = false;
+        for (int i = 0; i < sample.getNodeCount(); i++) {
+            select |= sample.getNode(i) instanceof ASTSelect;
+            project |= sample.getNode(i) instanceof ASTProject;
+        }
+        Assert.assertTrue(select);
+        Assert.assertTrue(project);
+    }
+
+    @Test
+    public void testRingBufferKeepsNewestSamples() throws Exception {
+        final Bean bean = new Bean();
+        final SamplingTracer tracer = new SamplingTracer(1, 0, TimeUnit.MILLISECONDS, 3);
+        final OgnlContext context = (OgnlContext) Ognl.createDefaultContext(bean, new DefaultMemberAccess(false));
+        context.setSamplingTracer(tracer);
+        Assert.assertEquals(4, tracer.getCapacity());
+
+        for (int i = 0; i < 10; i++) {
+            Ognl.getValue(Ognl.parseExpression("name + " + i), context, bean);
+        }
+
+        final List<SamplingTracer.Sample> samples = tracer.getSamples();
+        Assert.assertEquals(10, tracer.getRecordedCount());
+        Assert.assertEquals(4, samples.size());
+        Assert.assertEquals(6, samples.get(0).getSequence());
+        Assert.assertEquals("name + 9", samples.get(3).getExpression());
+
+        tracer.clear();
+        Assert.assertTrue(tracer.getSamples().isEmpty());
+    }
+
+    @Test
+    public void testLatencyThreshold() throws Exception {
+        final Bean bean = new Bean();
+        final SamplingTracer tracer = new SamplingTracer(0, 10, TimeUnit.MILLISECONDS, 16);
+        final OgnlContext context = (OgnlContext) Ognl.createDefaultContext(bean, new DefaultMemberAccess(false));
+        // the first evaluation introspects Bean, which may take longer than the threshold
+        Ognl.getValue(Ognl.parseExpression("name"), context, bean);
+        context.setSamplingTracer(tracer);
+
+        Ognl.getValue(Ognl.parseExpression("name"), context, bean);
+        Ognl.getValue(Ognl.parseExpression("slow()"), context, bean);
+        try {
+            Ognl.getValue(Ognl.parseExpression("slow().foo"), context, bean);
+            Assert.fail("NoSuchPropertyException expected");
+        } catch (NoSuchPropertyException expected) {
+        }
+
+        final List<SamplingTracer.Sample> samples = tracer.getSamples();
+        Assert.assertEquals(2, samples.size());
+        Assert.assertEquals("slow()", samples.get(0).getExpression());
+        Assert.assertFalse(samples.get(0).isSampled());
+        Assert.assertTrue(samples.get(0).getDurationNanos() >= TimeUnit.MILLISECONDS.toNanos(10));
+        Assert.assertEquals(NoSuchPropertyException.class, samples.get(1).getExceptionType());
+        Assert.assertNull(context.getSamplingTrace());
+    }
+}
@@ -202,6 +202,7 @@ public class TestOgnlRuntime extends TestCase {
         boolean temporaryEnabled = false;
         try {
             System.setProperty(OgnlRuntime.OGNL_SECURITY_MANAGER, "");
+            OgnlRuntime.refreshOgnlSecurityManagerState();
             temporaryEnabled = true;
         } catch (Exception ignore) {
             // already enabled
@@ -216,6 +217,7 @@ public class TestOgnlRuntime extends TestCase {
         } finally {
             if (temporaryEnabled) {
                 System.clearProperty(OgnlRuntime.OGNL_SECURITY_MANAGER);
+                OgnlRuntime.refreshOgnlSecurityManagerState();
             }
         }
     }
@@ -233,6 +235,7 @@ public class TestOgnlRuntime extends TestCase {
         boolean temporaryEnabled = false;
         try {
             System.setProperty(OgnlRuntime.OGNL_SECURITY_MANAGER, "");
+            OgnlRuntime.refreshOgnlSecurityManagerState();
             temporaryEnabled = true;
         } catch (Exception ignore) {
             // already enabled
@@ -288,6 +291,7 @@ public class TestOgnlRuntime extends TestCase {
         } finally {
             if (temporaryEnabled) {
                 System.clearProperty(OgnlRuntime.OGNL_SECURITY_MANAGER);
+                OgnlRuntime.refreshOgnlSecurityManagerState();
             }
         }
     }
@@ -307,6 +311,7 @@ public class TestOgnlRuntime extends TestCase {
         boolean temporaryEnabled = false;
         try {
             System.setProperty(OgnlRuntime.OGNL_SECURITY_MANAGER, "");
+            OgnlRuntime.refreshOgnlSecurityManagerState();
             temporaryEnabled = true;
         } catch (Exception ignore) {
             // already enabled
@@ -322,12 +327,14 @@ public class TestOgnlRuntime extends TestCase {
         } finally {
             if (temporaryEnabled) {
                 System.clearProperty(OgnlRuntime.OGNL_SECURITY_MANAGER);
+                OgnlRuntime.refreshOgnlSecurityManagerState();
             }
         }
 
         temporaryEnabled = false;
         try {
             System.setProperty(OgnlRuntime.OGNL_SECURITY_MANAGER, "");
+            OgnlRuntime.refreshOgnlSecurityManagerState();
             temporaryEnabled = true;
         } catch (Exception ignore) {
             // already enabled
@@ -341,12 +348,14 @@ public class TestOgnlRuntime extends TestCase {
         } finally {
             if (temporaryEnabled) {
                 System.clearProperty(OgnlRuntime.OGNL_SECURITY_MANAGER);
+                OgnlRuntime.refreshOgnlSecurityManagerState();
             }
         }
 
         temporaryEnabled = false;
         try {
             System.setProperty(OgnlRuntime.OGNL_SECURITY_MANAGER, "");
+            OgnlRuntime.refreshOgnlSecurityManagerState();
             temporaryEnabled = true;
         } catch (Exception ignore) {
             // already enabled
@@ -362,6 +371,7 @@ public class TestOgnlRuntime extends TestCase {
         } finally {
             if (temporaryEnabled) {
                 System.clearProperty(OgnlRuntime.OGNL_SECURITY_MANAGER);
+                OgnlRuntime.refreshOgnlSecurityManagerState();
             }
         }
     }
@@ -381,6 +391,7 @@ public class TestOgnlRuntime extends TestCase {
         boolean temporaryEnabled = false;
         try {
             System.setProperty(OgnlRuntime.OGNL_SECURITY_MANAGER, "");
+            OgnlRuntime.refreshOgnlSecurityManagerState();
             temporaryEnabled = true;
         } catch (Exception ignore) {
             // already enabled
@@ -395,6 +406,7 @@ public class TestOgnlRuntime extends TestCase {
         } finally {
             if (temporaryEnabled) {
                 System.clearProperty(OgnlRuntime.OGNL_SECURITY_MANAGER);
+                OgnlRuntime.refreshOgnlSecurityManagerState();
             }
         }
     }
@@ -414,6 +426,7 @@ public class TestOgnlRuntime extends TestCase {
         boolean temporaryEnabled = false;
         try {
             System.setProperty(OgnlRuntime.OGNL_SECURITY_MANAGER, "");
+            OgnlRuntime.refreshOgnlSecurityManagerState();
             temporaryEnabled = true;
         } catch (Exception ignore) {
             // already enabled
@@ -430,12 +443,14 @@ public class TestOgnlRuntime extends TestCase {
         } finally {
             if (temporaryEnabled) {
                 System.clearProperty(OgnlRuntime.OGNL_SECURITY_MANAGER);
+                OgnlRuntime.refreshOgnlSecurityManagerState();
             }
         }
 
         temporaryEnabled = false;
         try {
             System.setProperty(OgnlRuntime.OGNL_SECURITY_MANAGER, "");
+            OgnlRuntime.refreshOgnlSecurityManagerState();
             temporaryEnabled = true;
         } catch (Exception ignore) {
             // already enabled
@@ -448,6 +463,7 @@ public class TestOgnlRuntime extends TestCase {
         } finally {
             if (temporaryEnabled) {
                 System.clearProperty(OgnlRuntime.OGNL_SECURITY_MANAGER);
+                OgnlRuntime.refreshOgnlSecurityManagerState();
             }
         }
     }
@@ -468,6 +484,7 @@ public class TestOgnlRuntime extends TestCase {
         boolean temporaryEnabled = false;
         try {
             System.setProperty(OgnlRuntime.OGNL_SECURITY_MANAGER, "");
+            OgnlRuntime.refreshOgnlSecurityManagerState();
             temporaryEnabled = true;
         } catch (Exception ignore) {
             // already enabled
@@ -489,6 +506,7 @@ public class TestOgnlRuntime extends TestCase {
         } finally {
             if (temporaryEnabled) {
                 System.clearProperty(OgnlRuntime.OGNL_SECURITY_MANAGER);
+                OgnlRuntime.refreshOgnlSecurityManagerState();
             }
         }
     }
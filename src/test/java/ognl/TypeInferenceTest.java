@@ -0,0 +1,150 @@
+package ognl;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class TypeInferenceTest {
+
+    public static class Item {
+        private final int price;
+
+        public Item(int price) { this.price = price; }
+        public int getPrice() { return price; }
+        public String label(String prefix) { return prefix + price; }
+        public long label(long offset) { return price + offset; }
+    }
+
+    public static class Holder<T> {
+        public T value;
+    }
+
+    public static class ItemHolder extends Holder<Item> {
+    }
+
+    public static class Cart {
+        public String owner = "ognl";
+        private final List<Item> items = Arrays.asList(new Item(3), new Item(12));
+        private final Map<String, Item> byName = new HashMap<String, Item>();
+        private final Item[] array = { new Item(1) };
+        private final String[] tags = { "a", "b" };
+        public ItemHolder holder = new ItemHolder();
+
+        public List<Item> getItems() { return items; }
+        public Map<String, Item> getByName() { return byName; }
+        public Item[] getArray() { return array; }
+        public String[] getTags() { return tags; }
+        public String getTags(int index) { return tags[index]; }
+    }
+
+    private static Class infer(String expression) throws OgnlException {
+        final Map context = Ognl.createDefaultContext(null, new DefaultMemberAccess(false));
+        return Ognl.inferTypes(Ognl.parseExpression(expression), context, Cart.class,
+                Collections.singletonMap("min", int.class)).getType();
+    }
+
+    @Test
+    public void testPropertiesAndMethods() throws Exception {
+        Assert.assertEquals(String.class, infer("owner"));
+        Assert.assertEquals(int.class, infer("owner.length()"));
+        Assert.assertEquals(int.class, infer("items[0].price"));
+        Assert.assertEquals(int.class, infer("array[0].price"));
+        Assert.assertEquals(int.class, infer("array.length"));
+        Assert.assertEquals(Item.class, infer("byName.first"));
+        Assert.assertEquals(int.class, infer("byName.size"));
+        Assert.assertEquals(boolean.class, infer("byName.isEmpty"));
+        Assert.assertEquals(int.class, infer("items.size"));
+        Assert.assertEquals(boolean.class, infer("items.isEmpty"));
+        Assert.assertEquals(Item.class, infer("holder.value"));
+        Assert.assertEquals(String.class, infer("tags[1]"));
+        Assert.assertEquals(String.class, infer("items[0].label(\"p\" + owner)"));
+        Assert.assertEquals(long.class, infer("items[0].label(2L)"));
+        Assert.assertEquals(Integer.class, infer("@java.lang.Math@max(1, 2) + #min"));
+        Assert.assertEquals(Class.class, infer("@java.lang.String@class"));
+        Assert.assertEquals(ArrayList.class, infer("new java.util.ArrayList()"));
+        Assert.assertNull(infer("#unknown.price"));
+    }
+
+    @Test
+    public void testOperators() throws Exception {
+        Assert.assertEquals(Long.class, infer("items[0].price + 1L"));
+        Assert.assertEquals(Double.class, infer("items[0].price * 1.5"));
+        Assert.assertEquals(String.class, infer("owner + items[0].price"));
+        Assert.assertEquals(Boolean.class, infer("items[0].price > #min"));
+        Assert.assertEquals(Integer.class, infer("-#min"));
+        Assert.assertEquals(String.class, infer("#min > 0 ? owner : 'none'"));
+        Assert.assertNull(infer("#min > 0 ? owner : 1"));
+        Assert.assertEquals(Integer.class, infer("#total = #min + 1, #total * 2"));
+    }
+
+    @Test
+    public void testCollections() throws Exception {
+        final Map context = Ognl.createDefaultContext(null, new DefaultMemberAccess(false));
+        final Node tree = (Node) Ognl.parseExpression("items.{? price > #min}.{price}.size()");
+
+        final InferredTypes types = Ognl.inferTypes(tree, context, Cart.class, Collections.singletonMap("min", int.class));
+        Assert.assertEquals(int.class, types.getType());
+
+        final ASTChain chain = (ASTChain) tree;
+        Assert.assertEquals(List.class, types.getType(chain.jjtGetChild(0)));
+        Assert.assertEquals(ArrayList.class, types.getType(chain.jjtGetChild(1)));
+        Assert.assertEquals(Boolean.class, types.getType(chain.jjtGetChild(1).jjtGetChild(0)));
+        Assert.assertEquals(int.class, types.getType(chain.jjtGetChild(2).jjtGetChild(0)));
+
+        // the element type flows through projections
+        Assert.assertEquals(Integer.class, infer("items.{price}[0] + 1"));
+        Assert.assertEquals(Integer.class, infer("items.{? price > 1}.{#this}[0].price + 0"));
+        Assert.assertEquals(ArrayList.class, infer("{1, 2}"));
+    }
+
+    @Test
+    public void testTypesAreNotStoredInTheTree() throws Exception {
+        final Map context = Ognl.createDefaultContext(null, new DefaultMemberAccess(false));
+        final Node tree = (Node) Ognl.parseExpression("value");
+
+        final InferredTypes holderTypes = Ognl.inferTypes(tree, context, ItemHolder.class, null);
+        final InferredTypes mapTypes = Ognl.inferTypes(tree, context, HashMap.class, null);
+
+        Assert.assertEquals(Item.class, holderTypes.getType());
+        Assert.assertEquals(Item.class, holderTypes.getType(tree));
+        Assert.assertEquals(Object.class, mapTypes.getType());
+        Assert.assertEquals(Object.class, mapTypes.getType(tree));
+        Assert.assertNull(holderTypes.getType(new ASTConst(0)));
+    }
+
+    @Test
+    public void testUnresolvedMembersAreReported() throws Exception {
+        try {
+            infer("items[0].cost");
+            Assert.fail();
+        } catch (NoSuchPropertyException expected) {
+        }
+        try {
+            infer("owner.size()");
+            Assert.fail();
+        } catch (MethodFailedException expected) {
+        }
+        try {
+            infer("@java.lang.Math@nothing(1)");
+            Assert.fail();
+        } catch (MethodFailedException expected) {
+        }
+    }
+
+    @Test
+    public void testOperatorsAreSpecializedFromStaticTypes() throws Exception {
+        final Cart cart = new Cart();
+        final OgnlContext context = (OgnlContext) Ognl.createDefaultContext(cart, new DefaultMemberAccess(false));
+        final Node tree = (Node) Ognl.parseExpression("items[0].price + items[1].price");
+
+        Assert.assertEquals(Integer.class, Ognl.inferTypes(tree, context, Cart.class, null).getType());
+        Assert.assertEquals(15, Ognl.getValue(tree, context, cart));
+        Assert.assertEquals("ognl1", Ognl.getValue(Ognl.parseExpression("owner + 1"), context, cart));
+    }
+}
@@ -0,0 +1,165 @@
+package ognl.metrics;
+
+import ognl.DefaultMemberAccess;
+import ognl.Node;
+import ognl.Ognl;
+import ognl.OgnlContext;
+import ognl.OgnlException;
+import ognl.OgnlRuntime;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import javax.management.ObjectName;
+
+public class ExpressionMetricsCollectorTest {
+
+    public static class Bean {
+        private String name = "ognl";
+
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+    }
+
+    @After
+    public void tearDown() {
+        OgnlRuntime.setExpressionMetrics(null);
+    }
+
+    @Test
+    public void testEvaluationsAreCountedPerNormalizedExpression() throws Exception {
+        final ExpressionMetricsCollector collector = new ExpressionMetricsCollector();
+        OgnlRuntime.setExpressionMetrics(collector);
+
+        final Bean bean = new Bean();
+        final Map context = Ognl.createDefaultContext(bean, new DefaultMemberAccess(false));
+
+        Ognl.getValue("name + 'x'", context, bean);
+        Ognl.getValue("name+'x'", context, bean);
+        Ognl.setValue("name", context, bean, "y");
+        try {
+            Ognl.getValue("missing", context, bean);
+            Assert.fail("OgnlException expected");
+        } catch (OgnlException expected) {
+        }
+
+        final ExpressionStatistics concat = collector.getStatistics(Ognl.parseExpression("name + 'x'").toString());
+        Assert.assertEquals(2, concat.getInvocationCount());
+        Assert.assertEquals(2, concat.getInterpretedCount());
+        Assert.assertEquals(0, concat.getCompiledCount());
+        Assert.assertEquals(2, concat.getLatency().getCount());
+
+        final ExpressionStatistics name = collector.getStatistics("name");
+        Assert.assertEquals(1, name.getSetValueCount());
+        Assert.assertEquals(1, collector.getStatistics("missing").getFailureCount());
+
+        Assert.assertEquals(3, collector.getExpressionCount());
+        Assert.assertEquals(4, collector.getInvocationCount());
+        Assert.assertEquals(1, collector.getFailureCount());
+        Assert.assertEquals(3, collector.getHottest(10).size());
+        Assert.assertEquals(1, collector.getHottestExpressions(1).length);
+
+        collector.reset();
+        Assert.assertEquals(0, collector.getExpressionCount());
+    }
+
+    @Test
+    public void testBatchEvaluationsAreCounted() throws Exception {
+        final ExpressionMetricsCollector collector = new ExpressionMetricsCollector();
+        OgnlRuntime.setExpressionMetrics(collector);
+
+        final Bean[] beans = { new Bean(), new Bean(), new Bean() };
+        final OgnlContext context = (OgnlContext) Ognl.createDefaultContext(null, new DefaultMemberAccess(false));
+        Ognl.getValues(Ognl.parseExpression("name"), context, beans, new Object[beans.length]);
+        Assert.assertEquals(3, collector.getStatistics("name").getInvocationCount());
+
+        // split across the fork-join pool
+        context.setParallelThreshold(2);
+        Ognl.getValues(Ognl.parseExpression("name"), context, Arrays.asList(beans), new ArrayList());
+        Assert.assertEquals(6, collector.getStatistics("name").getInvocationCount());
+    }
+
+    @Test
+    public void testCompiledEvaluationsAndCompilationsWithFallback() throws Exception {
+        final ExpressionMetricsCollector collector = new ExpressionMetricsCollector();
+        OgnlRuntime.setExpressionMetrics(collector);
+
+        final Bean bean = new Bean();
+        final OgnlContext context = (OgnlContext) Ognl.createDefaultContext(bean, new DefaultMemberAccess(false));
+        final Node node = Ognl.compileExpression(context, bean, "name");
+        Ognl.getValue(node, context, bean);
+
+        final ExpressionStatistics statistics = collector.getStatistics("name");
+        Assert.assertEquals(1, statistics.getCompiledCount());
+        Assert.assertEquals(0, statistics.getInterpretedCount());
+
+        // a projection cannot be compiled: its getter and its setter fall back to the tree
+        Ognl.compileExpression(context, bean, "#root.{ name }");
+        Assert.assertEquals(2, collector.getCompiledWithFallbackCount());
+        Assert.assertEquals(2, collector.getStatistics("#root.{ name }").getCompiledWithFallbackCount());
+    }
+
+    @Test
+    public void testExpressionLimit() throws Exception {
+        final ExpressionMetricsCollector collector = new ExpressionMetricsCollector(2);
+        for (int i = 0; i < 5; i++) {
+            collector.recordEvaluation("e" + i, false, false, 10, false);
+        }
+
+        Assert.assertEquals(3, collector.getExpressionCount());
+        Assert.assertEquals(3, collector.getStatistics(ExpressionMetricsCollector.OTHER_EXPRESSIONS).getInvocationCount());
+    }
+
+    @Test
+    public void testMBean() throws Exception {
+        final ExpressionMetricsCollector collector = new ExpressionMetricsCollector();
+        collector.recordEvaluation("name", false, false, 1000, false);
+
+        final ObjectName name = collector.registerMBean();
+        try {
+            Assert.assertEquals(1L, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "InvocationCount"));
+            final String[] hottest = (String[]) ManagementFactory.getPlatformMBeanServer().invoke(name,
+                    "getHottestExpressions", new Object[] { 5 }, new String[] { int.class.getName() });
+            Assert.assertEquals(1, hottest.length);
+            Assert.assertTrue(hottest[0].startsWith("name: invocations=1"));
+        } finally {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+        }
+    }
+
+    @Test
+    public void testHistogram() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        Assert.assertEquals(0, histogram.getValueAtPercentile(50));
+
+        for (long i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000);
+        }
+        Assert.assertEquals(1000, histogram.getCount());
+        Assert.assertEquals(1000000, histogram.getMaxNanos());
+        Assert.assertEquals(500500, histogram.getMeanNanos());
+        assertWithin(500000, histogram.getValueAtPercentile(50));
+        assertWithin(990000, histogram.getValueAtPercentile(99));
+        Assert.assertEquals(1000000, histogram.getValueAtPercentile(100));
+
+        for (long value = 1; value > 0 && value < Long.MAX_VALUE / 3; value = value * 3 + 1) {
+            final long bucketValue = LatencyHistogram.getBucketValue(LatencyHistogram.getBucket(value));
+            Assert.assertTrue(bucketValue <= value);
+            Assert.assertTrue(value - bucketValue <= value / LatencyHistogram.SUB_BUCKETS);
+        }
+
+        histogram.reset();
+        Assert.assertEquals(0, histogram.getCount());
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        Assert.assertTrue(actual + " not within 12.5% of " + expected,
+                Math.abs(actual - expected) <= expected / LatencyHistogram.SUB_BUCKETS);
+    }
+}
@@ -48,6 +48,9 @@ public class ProjectionSelectionTest extends OgnlTestCase
             { ROOT, "map.array.{^ #this > 2 }", Arrays.asList(new Integer[] { new Integer(3) }) },
             { ROOT, "map.array.{$ #this > 2 }", Arrays.asList(new Integer[] { new Integer(4) }) }, 
             { ROOT, "map.array[*].{?true} instanceof java.util.Collection", Boolean.TRUE },
+            { ROOT, "map.array.{? #this > 1 }.{ #this * 10 }", Arrays.asList(new Integer[] { new Integer(20), new Integer(30), new Integer(40) }) },
+            { ROOT, "map.array.{ #this * 10 }.{? #this > 20 }.{$ #this < 40 }", Arrays.asList(new Integer[] { new Integer(30) }) },
+            { ROOT, "map.array.{? #this > 1 }.{$ #this < 4 }", Arrays.asList(new Integer[] { new Integer(3) }) },
             { null, "#fact=1, 30H.{? #fact = #fact * (#this+1), false }, #fact",
                     new BigInteger("265252859812191058636308480000000") },
             };
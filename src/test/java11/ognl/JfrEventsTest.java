@@ -0,0 +1,67 @@
+package ognl;
+
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+public class JfrEventsTest {
+
+    public static class Bean {
+        public String greet(String name) { return "hello " + name; }
+    }
+
+    @Test
+    public void testEventsAreRecorded() throws Exception {
+        // compiled to META-INF/versions/11, which the tests put on the class path
+        Assert.assertTrue(FlightRecorderEvents.isAvailable());
+        Assume.assumeTrue(FlightRecorder.isAvailable());
+
+        final File file = File.createTempFile("ognl", ".jfr");
+        try {
+            try (Recording recording = new Recording()) {
+                for (String name : new String[] { "ognl.Parse", "ognl.Introspection", "ognl.MethodResolution", "ognl.Invoke" }) {
+                    recording.enable(name).withThreshold(Duration.ZERO);
+                }
+                recording.start();
+
+                final Bean bean = new Bean();
+                final Map context = Ognl.createDefaultContext(bean, new DefaultMemberAccess(false));
+                Ognl.getValue("greet('ognl')", context, bean);
+                try {
+                    Ognl.parseExpression("greet(");
+                    Assert.fail("ExpressionSyntaxException expected");
+                } catch (ExpressionSyntaxException expected) {
+                }
+
+                recording.stop();
+                recording.dump(file.toPath());
+            }
+
+            final List<RecordedEvent> events = RecordingFile.readAllEvents(file.toPath());
+            Assert.assertTrue(hasEvent(events, "ognl.Parse", "greet('ognl')", true));
+            Assert.assertTrue(hasEvent(events, "ognl.Parse", "greet(", false));
+            Assert.assertTrue(hasEvent(events, "ognl.Invoke", "greet", true));
+        } finally {
+            file.delete();
+        }
+    }
+
+    private static boolean hasEvent(List<RecordedEvent> events, String type, String subject, boolean succeeded) {
+        for (RecordedEvent event : events) {
+            if (event.getEventType().getName().equals(type) && subject.equals(event.getString("subject"))
+                && event.getBoolean("succeeded") == succeeded) {
+                return true;
+            }
+        }
+        return false;
+    }
+}